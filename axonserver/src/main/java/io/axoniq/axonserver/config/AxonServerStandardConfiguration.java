@@ -40,10 +40,13 @@ import io.axoniq.axonserver.message.query.RoundRobinQueryHandlerSelector;
 import io.axoniq.axonserver.metric.DefaultMetricCollector;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.axoniq.axonserver.metric.MetricCollector;
+import io.axoniq.axonserver.taskscheduler.JpaTaskStore;
+import io.axoniq.axonserver.taskscheduler.LogTaskStore;
 import io.axoniq.axonserver.taskscheduler.ScheduledTaskExecutor;
 import io.axoniq.axonserver.taskscheduler.StandaloneTaskManager;
 import io.axoniq.axonserver.taskscheduler.TaskPayloadSerializer;
 import io.axoniq.axonserver.taskscheduler.TaskRepository;
+import io.axoniq.axonserver.taskscheduler.TaskStore;
 import io.axoniq.axonserver.topology.DefaultEventStoreLocator;
 import io.axoniq.axonserver.topology.DefaultTopology;
 import io.axoniq.axonserver.topology.EventStoreLocator;
@@ -53,6 +56,7 @@ import io.axoniq.axonserver.version.VersionInfoProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
@@ -81,6 +85,7 @@ import static java.util.concurrent.Executors.newScheduledThreadPool;
 @Configuration
 public class AxonServerStandardConfiguration {
 
+    private static final String LOG_TASK_STORE = "log";
     private final Logger logger = LoggerFactory.getLogger(AxonServerStandardConfiguration.class);
 
     @Bean
@@ -245,21 +250,47 @@ public class AxonServerStandardConfiguration {
         return new DefaultVersionInfoProvider();
     }
 
+    /**
+     * Creates the store for scheduled tasks. By default tasks are stored in the controldb, when the property
+     * {@code axoniq.axonserver.task-store} is set to {@code log} they are stored in an append-only log file.
+     *
+     * @param taskRepository             repository of tasks in the controldb
+     * @param platformTransactionManager transaction manager for the controldb
+     * @param taskStore                  type of task store (jpa or log)
+     * @param directory                  directory for the task log
+     * @param compactionThreshold        minimum number of records in the task log before it is compacted
+     * @return the task store
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskStore.class)
+    public TaskStore taskStore(TaskRepository taskRepository,
+                               PlatformTransactionManager platformTransactionManager,
+                               @Value("${axoniq.axonserver.task-store:jpa}") String taskStore,
+                               @Value("${axoniq.axonserver.task-store-directory:${axoniq.axonserver.controldb-path:./data}/axonserver-tasks}") String directory,
+                               @Value("${axoniq.axonserver.task-store-compaction-threshold:100000}") int compactionThreshold) {
+        if (LOG_TASK_STORE.equals(taskStore)) {
+            logger.info("Storing scheduled tasks in {}", directory);
+            return new LogTaskStore(directory, compactionThreshold);
+        }
+        return new JpaTaskStore(taskRepository, platformTransactionManager);
+    }
+
     @Bean
     @ConditionalOnMissingBean(StandaloneTaskManager.class)
     public StandaloneTaskManager localTaskManager(ScheduledTaskExecutor taskExecutor,
-                                                  TaskRepository taskRepository,
+                                                  TaskStore taskStore,
                                                   TaskPayloadSerializer taskPayloadSerializer,
-                                                  PlatformTransactionManager platformTransactionManager,
                                                   @Qualifier("taskScheduler") ScheduledExecutorService scheduler,
-                                                  Clock clock) {
+                                                  Clock clock,
+                                                  @Value("${axoniq.axonserver.task-store-timer-tick:10}") long timerTickMillis) {
+        // tasks from the controldb are scheduled individually, only the task log uses the timing wheel
         return new StandaloneTaskManager(Topology.DEFAULT_CONTEXT,
                                          taskExecutor,
-                                         taskRepository,
+                                         taskStore,
                                          taskPayloadSerializer,
-                                         platformTransactionManager,
                                          scheduler,
-                                         clock);
+                                         clock,
+                                         taskStore instanceof LogTaskStore ? timerTickMillis : 0);
     }
 
 
@@ -84,6 +84,12 @@ public class CommandService implements AxonServerClientService {
     @Value("${axoniq.axonserver.command-threads:1}")
     private int processingThreads = 1;
 
+    @Value("${axoniq.axonserver.command-dispatch-batch-size:32}")
+    private int dispatchBatchSize = 32;
+
+    @Value("${axoniq.axonserver.command-dispatch-max-linger-micros:100}")
+    private long dispatchMaxLingerMicros = 100;
+
     public CommandService(Topology topology,
                           CommandDispatcher commandDispatcher,
                           ContextProvider contextProvider,
@@ -202,7 +208,9 @@ public class CommandService implements AxonServerClientService {
                                               new GrpcCommandDispatcherListener(commandDispatcher.getCommandQueues(),
                                                                                 clientRef.get().toString(),
                                                                                 wrappedResponseObserver,
-                                                                                processingThreads))) {
+                                                                                processingThreads,
+                                                                                dispatchBatchSize,
+                                                                                dispatchMaxLingerMicros))) {
                     dispatcherListeners.put(clientRef.get(), listenerRef.get());
                 }
                 listenerRef.get().addPermits(flowControl.getPermits());
@@ -27,6 +27,12 @@ public class GrpcCommandDispatcherListener extends GrpcFlowControlledDispatcherL
         super(commandQueues, queueName, commandProviderInboundStreamObserver, threads);
     }
 
+    public GrpcCommandDispatcherListener(FlowControlQueues<WrappedCommand> commandQueues, String queueName,
+                                         StreamObserver<SerializedCommandProviderInbound> commandProviderInboundStreamObserver,
+                                         int threads, int batchSize, long maxLingerMicros) {
+        super(commandQueues, queueName, commandProviderInboundStreamObserver, threads, batchSize, maxLingerMicros);
+    }
+
     @Override
     protected boolean send(WrappedCommand message) {
         try {
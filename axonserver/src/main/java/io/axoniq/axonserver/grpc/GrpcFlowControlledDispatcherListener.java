@@ -15,9 +15,12 @@ import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -30,26 +33,79 @@ public abstract class GrpcFlowControlledDispatcherListener<I, T> {
 
     protected final StreamObserver<I> inboundStream;
     private final AtomicLong permitsLeft = new AtomicLong(0);
+    private final AtomicLong permitsReserved = new AtomicLong(0);
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
     private final FlowControlQueues<T> queues;
     protected final String queueName;
+    private final int batchSize;
+    private final long maxLingerNanos;
     private Future<?>[] futures;
     private volatile boolean running = true;
 
     public GrpcFlowControlledDispatcherListener(FlowControlQueues<T> queues, String queueName, StreamObserver<I> inboundStream, int threads) {
+        this(queues, queueName, inboundStream, threads, 1, 0);
+    }
+
+    /**
+     * @param queues          the queues containing the messages to send
+     * @param queueName       the name of the queue for this client
+     * @param inboundStream   the stream to send the messages to
+     * @param threads         the number of threads reading from the queue
+     * @param batchSize       maximum number of messages to take from the queue at once
+     * @param maxLingerMicros maximum time to wait for more messages to complete a batch, when the previous batch was
+     *                        full
+     */
+    public GrpcFlowControlledDispatcherListener(FlowControlQueues<T> queues, String queueName,
+                                                StreamObserver<I> inboundStream, int threads, int batchSize,
+                                                long maxLingerMicros) {
         this.queues = queues;
         this.queueName = queueName;
         this.inboundStream = inboundStream;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxLingerNanos = TimeUnit.MICROSECONDS.toNanos(maxLingerMicros);
         futures = new Future[threads];
     }
 
+    /**
+     * Sends messages in batches of at most {@code batchSize} messages, limited by the available permits. The messages
+     * in a batch are sent back-to-back, so the transport can write them with a single flush. The thread only waits for
+     * additional messages (up to {@code maxLingerNanos}) after a full batch, so messages are not delayed at low load.
+     * <p>
+     * Permits are reserved before waiting for messages, so the permits left may drop to 0 while the worker is still
+     * waiting. The last worker to stop checks for permits added in the meantime and restarts the workers if needed.
+     */
     private void process() {
+        try {
+            processMessages();
+        } finally {
+            if (activeWorkers.decrementAndGet() == 0) {
+                startWorkers();
+            }
+        }
+    }
+
+    private void processMessages() {
         try {
             getLogger().debug("Starting listener for {} ", queueName);
+            long linger = 0;
             while (running && permitsLeft.get() > 0) {
-                getLogger().trace("waiting for message for {} ", queueName);
-                T message = queues.take(queueName);
-                if (message != null && send(message)) {
-                    long left = permitsLeft.decrementAndGet();
+                int reserved = reservePermits();
+                if (reserved == 0) {
+                    break;
+                }
+                int sent = 0;
+                try {
+                    getLogger().trace("waiting for message for {} ", queueName);
+                    List<T> messages = queues.take(queueName, reserved, linger);
+                    for (T message : messages) {
+                        if (send(message)) {
+                            sent++;
+                        }
+                    }
+                    linger = messages.size() >= reserved ? maxLingerNanos : linger / 2;
+                } finally {
+                    permitsReserved.addAndGet(-reserved);
+                    long left = permitsLeft.addAndGet((long) reserved - sent);
                     getLogger().trace("{} permits left", left);
                 }
             }
@@ -69,10 +125,32 @@ public abstract class GrpcFlowControlledDispatcherListener<I, T> {
     protected abstract boolean send(T message);
 
 
+    private int reservePermits() {
+        long left;
+        int reserved;
+        do {
+            left = permitsLeft.get();
+            if (left <= 0) {
+                return 0;
+            }
+            reserved = (int) Math.min(batchSize, left);
+        } while (!permitsLeft.compareAndSet(left, left - reserved));
+        permitsReserved.addAndGet(reserved);
+        return reserved;
+    }
+
     public void addPermits(long count) {
         long old = permitsLeft.getAndAdd(count);
         getLogger().debug("Adding {} permits, #permits was: {}", count, old);
-        if (old <= 0) {
+        startWorkers();
+    }
+
+    /**
+     * Starts the worker threads when there are permits left and no workers are running. Workers that are still
+     * running pick up the new permits themselves.
+     */
+    private void startWorkers() {
+        if (running && permitsLeft.get() > 0 && activeWorkers.compareAndSet(0, futures.length)) {
             for (int i = 0; i < futures.length; i++) {
                 futures[i] = executorService.submit(this::process);
             }
@@ -114,6 +192,6 @@ public abstract class GrpcFlowControlledDispatcherListener<I, T> {
     }
 
     public long permits() {
-        return permitsLeft.get();
+        return permitsLeft.get() + permitsReserved.get();
     }
 }
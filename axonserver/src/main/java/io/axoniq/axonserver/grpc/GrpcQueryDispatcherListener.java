@@ -30,6 +30,14 @@ public class GrpcQueryDispatcherListener extends GrpcFlowControlledDispatcherLis
         this.queryDispatcher = queryDispatcher;
     }
 
+    public GrpcQueryDispatcherListener(QueryDispatcher queryDispatcher, String client,
+                                       StreamObserver<QueryProviderInbound> queryProviderInboundStreamObserver,
+                                       int threads, int batchSize, long maxLingerMicros) {
+        super(queryDispatcher.getQueryQueue(), client, queryProviderInboundStreamObserver, threads, batchSize,
+              maxLingerMicros);
+        this.queryDispatcher = queryDispatcher;
+    }
+
     @Override
     protected boolean send(WrappedQuery message) {
         if( logger.isDebugEnabled()) {
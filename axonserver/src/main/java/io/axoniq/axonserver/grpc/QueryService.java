@@ -72,6 +72,12 @@ public class QueryService extends QueryServiceGrpc.QueryServiceImplBase implemen
     @Value("${axoniq.axonserver.query-threads:1}")
     private int processingThreads = 1;
 
+    @Value("${axoniq.axonserver.query-dispatch-batch-size:32}")
+    private int dispatchBatchSize = 32;
+
+    @Value("${axoniq.axonserver.query-dispatch-max-linger-micros:100}")
+    private long dispatchMaxLingerMicros = 100;
+
 
     public QueryService(Topology topology, QueryDispatcher queryDispatcher, ContextProvider contextProvider,
                         ClientIdRegistry clientIdRegistry,
@@ -194,7 +200,9 @@ public class QueryService extends QueryServiceGrpc.QueryServiceImplBase implemen
                 if (listener.compareAndSet(null, new GrpcQueryDispatcherListener(queryDispatcher,
                                                                                  clientRef.get().toString(),
                                                                                  wrappedQueryProviderInboundObserver,
-                                                                                 processingThreads))) {
+                                                                                 processingThreads,
+                                                                                 dispatchBatchSize,
+                                                                                 dispatchMaxLingerMicros))) {
                     dispatcherListeners.put(clientRef.get(), listener.get());
                 }
                 listener.get().addPermits(flowControl.getPermits());
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import io.axoniq.axonserver.metric.BaseMetricName;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the most recent events per aggregate, for aggregates that are read frequently. For each cached aggregate
+ * the cache contains a contiguous run of events, from some sequence number up to the last event of the aggregate.
+ * Runs are added when an aggregate is read from the event store, and extended when new events for the aggregate are
+ * stored.
+ * <p>
+ * The size of the cache is limited by the total size of the serialized events. When the cache is full the least
+ * recently used aggregates are removed. The events for a single aggregate may use at most an eighth of the cache.
+ * <p>
+ * A read from the event store that runs concurrently with a write for the same aggregate could see a state that does
+ * not include the new events. To prevent such a read from adding an outdated run, readers take a stamp before reading
+ * and the run is only added when no events for aggregates with the same stamp slot were stored in the meantime.
+ * <p>
+ * Appends are confirmed to the client before the cache is updated. To make sure a client that reads its aggregate
+ * after the confirmation does not get an outdated run, the aggregates are marked as pending before the events are
+ * written, and reads for pending aggregates miss the cache until the store is completed.
+ *
+ * @since 4.5
+ */
+public class AggregateEventCache {
+
+    private static final int STAMP_SLOTS = 1024;
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long maxBytes;
+    private final long maxBytesPerAggregate;
+    private final Map<String, EventRun> runs = new LinkedHashMap<>(16, 0.75f, true);
+    private final long[] stamps = new long[STAMP_SLOTS];
+    private final int[] pending = new int[STAMP_SLOTS];
+    private final MeterFactory meterFactory;
+    private final Counter hits;
+    private final Counter misses;
+    private final Gauge sizeGauge;
+    private long bytes;
+
+    /**
+     * @param context      the context of the event store
+     * @param maxBytes     maximum total size of the cached events
+     * @param meterFactory factory to create the hit and miss meters
+     */
+    public AggregateEventCache(String context, long maxBytes, MeterFactory meterFactory) {
+        this.maxBytes = maxBytes;
+        this.maxBytesPerAggregate = maxBytes / 8;
+        this.meterFactory = meterFactory;
+        Tags tags = Tags.of(MeterFactory.CONTEXT, context);
+        this.hits = meterFactory.counter(BaseMetricName.AXON_AGGREGATE_CACHE_HIT, tags);
+        this.misses = meterFactory.counter(BaseMetricName.AXON_AGGREGATE_CACHE_MISS, tags);
+        this.sizeGauge = meterFactory.gauge(BaseMetricName.AXON_AGGREGATE_CACHE_SIZE,
+                                            tags,
+                                            this,
+                                            AggregateEventCache::size);
+    }
+
+    /**
+     * Passes the events for an aggregate with sequence number between {@code minSequenceNumber} (inclusive) and
+     * {@code maxSequenceNumber} (exclusive) to the consumer, if the cache contains all these events.
+     *
+     * @param aggregateId       the aggregate identifier
+     * @param minSequenceNumber the sequence number of the first event to return
+     * @param maxSequenceNumber the sequence number after the last event to return
+     * @param eventConsumer     consumer for the events
+     * @return true when the events were found in the cache
+     */
+    public boolean read(String aggregateId, long minSequenceNumber, long maxSequenceNumber,
+                        Consumer<SerializedEvent> eventConsumer) {
+        SerializedEvent[] events;
+        synchronized (this) {
+            EventRun run = runs.get(aggregateId);
+            if (run == null || minSequenceNumber < run.firstSequenceNumber || pending[slot(aggregateId)] > 0) {
+                misses.increment();
+                return false;
+            }
+            int from = (int) Math.min(minSequenceNumber - run.firstSequenceNumber, run.events.size());
+            int to = (int) Math.min(Math.max(from, maxSequenceNumber - run.firstSequenceNumber), run.events.size());
+            events = run.events.subList(from, to).toArray(new SerializedEvent[0]);
+            hits.increment();
+        }
+        for (SerializedEvent event : events) {
+            eventConsumer.accept(event);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #add(String, List, long)} for the events of an aggregate read from the
+     * event store. Must be called before the events are read.
+     *
+     * @param aggregateId the aggregate identifier
+     * @return the current stamp for the aggregate
+     */
+    public synchronized long stamp(String aggregateId) {
+        return stamps[slot(aggregateId)];
+    }
+
+    /**
+     * Adds the events read from the event store for an aggregate. The events must be contiguous, and include the last
+     * event for the aggregate. The events are not added when events were stored for the aggregate since the stamp was
+     * taken.
+     *
+     * @param aggregateId the aggregate identifier
+     * @param events      the events read from the event store
+     * @param stamp       the stamp taken before reading the events
+     */
+    public synchronized void add(String aggregateId, List<SerializedEvent> events, long stamp) {
+        if (events.isEmpty() || stamps[slot(aggregateId)] != stamp) {
+            return;
+        }
+        EventRun run = new EventRun(events.get(0).getAggregateSequenceNumber());
+        for (SerializedEvent event : events) {
+            if (event.getAggregateSequenceNumber() != run.nextSequenceNumber()) {
+                return;
+            }
+            run.add(event);
+            if (run.bytes > maxBytesPerAggregate) {
+                return;
+            }
+        }
+        EventRun previous = runs.put(aggregateId, run);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += run.bytes;
+        evict();
+    }
+
+    /**
+     * Marks the aggregates of events that are about to be stored as pending. Must be followed by a call to
+     * {@link #storeCompleted(List, boolean)} with the same events.
+     *
+     * @param events the events to store
+     */
+    public synchronized void eventsStoring(List<SerializedEvent> events) {
+        for (SerializedEvent event : events) {
+            if (event.isDomainEvent()) {
+                int slot = slot(event.getAggregateIdentifier());
+                pending[slot]++;
+                stamps[slot]++;
+            }
+        }
+    }
+
+    /**
+     * Completes a store started with {@link #eventsStoring(List)}. When the events were stored, the cached runs are
+     * extended with the events.
+     *
+     * @param events the events passed to {@link #eventsStoring(List)}
+     * @param stored true when the events were stored
+     */
+    public synchronized void storeCompleted(List<SerializedEvent> events, boolean stored) {
+        if (stored) {
+            eventsStored(events);
+        }
+        for (SerializedEvent event : events) {
+            if (event.isDomainEvent()) {
+                pending[slot(event.getAggregateIdentifier())]--;
+            }
+        }
+    }
+
+    /**
+     * Extends the cached runs with newly stored events. When a new event does not directly follow the cached run of
+     * its aggregate, the run is removed.
+     *
+     * @param events the events stored
+     */
+    public synchronized void eventsStored(List<SerializedEvent> events) {
+        for (SerializedEvent event : events) {
+            if (!event.isDomainEvent()) {
+                continue;
+            }
+            String aggregateId = event.getAggregateIdentifier();
+            stamps[slot(aggregateId)]++;
+            EventRun run = runs.get(aggregateId);
+            if (run == null) {
+                continue;
+            }
+            if (event.getAggregateSequenceNumber() == run.nextSequenceNumber()
+                    && run.bytes + size(event) <= maxBytesPerAggregate) {
+                bytes += run.add(event);
+            } else {
+                runs.remove(aggregateId);
+                bytes -= run.bytes;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Removes all events from the cache.
+     */
+    public synchronized void clear() {
+        runs.clear();
+        bytes = 0;
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i]++;
+        }
+    }
+
+    /**
+     * Removes all events from the cache and removes the meters of the cache.
+     */
+    public void close() {
+        clear();
+        meterFactory.remove(hits);
+        meterFactory.remove(misses);
+        meterFactory.remove(sizeGauge);
+    }
+
+    /**
+     * Returns the maximum size of the cached events for a single aggregate. Larger runs are not added.
+     *
+     * @return the size in bytes
+     */
+    public long maxBytesPerAggregate() {
+        return maxBytesPerAggregate;
+    }
+
+    /**
+     * Returns the total size of the events in the cache.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long size() {
+        return bytes;
+    }
+
+    private void evict() {
+        Iterator<EventRun> iterator = runs.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().bytes;
+            iterator.remove();
+        }
+    }
+
+    private static int slot(String aggregateId) {
+        return (aggregateId.hashCode() & 0x7fffffff) % STAMP_SLOTS;
+    }
+
+    private static long size(SerializedEvent event) {
+        return event.size() + (long) ENTRY_OVERHEAD;
+    }
+
+    private static class EventRun {
+
+        private final long firstSequenceNumber;
+        private final List<SerializedEvent> events = new ArrayList<>();
+        private long bytes = ENTRY_OVERHEAD;
+
+        private EventRun(long firstSequenceNumber) {
+            this.firstSequenceNumber = firstSequenceNumber;
+        }
+
+        private long nextSequenceNumber() {
+            return firstSequenceNumber + events.size();
+        }
+
+        private long add(SerializedEvent event) {
+            long size = size(event);
+            events.add(event);
+            bytes += size;
+            return size;
+        }
+    }
+}
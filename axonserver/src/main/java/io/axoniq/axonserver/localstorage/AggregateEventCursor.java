@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import java.util.function.Consumer;
+
+/**
+ * Reads the events for one or more aggregates in pages. Each page continues where the previous page stopped, so the
+ * positions of the events only need to be resolved once.
+ *
+ * @since 4.5
+ */
+@FunctionalInterface
+public interface AggregateEventCursor {
+
+    /**
+     * Reads the next page of at most about {@code maxEvents} events and passes them to the consumer.
+     *
+     * @param maxEvents     the maximum number of events to read from the event store
+     * @param eventConsumer consumer for the events
+     * @return true when there may be more events after this page
+     */
+    boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer);
+}
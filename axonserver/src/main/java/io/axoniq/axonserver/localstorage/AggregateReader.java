@@ -9,6 +9,11 @@
 
 package io.axoniq.axonserver.localstorage;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -19,10 +24,22 @@ public class AggregateReader {
 
     private final EventStorageEngine eventStorageEngine;
     private final SnapshotReader snapshotReader;
+    private final AggregateEventCache aggregateEventCache;
 
     public AggregateReader(EventStorageEngine eventStorageEngine, SnapshotReader snapshotReader) {
+        this(eventStorageEngine, snapshotReader, null);
+    }
+
+    /**
+     * @param eventStorageEngine  the event storage engine
+     * @param snapshotReader      reader for the snapshots
+     * @param aggregateEventCache cache of recent events per aggregate, null when aggregate events are not cached
+     */
+    public AggregateReader(EventStorageEngine eventStorageEngine, SnapshotReader snapshotReader,
+                           AggregateEventCache aggregateEventCache) {
         this.eventStorageEngine = eventStorageEngine;
         this.snapshotReader = snapshotReader;
+        this.aggregateEventCache = aggregateEventCache;
     }
 
     public void readEvents(String aggregateId, boolean useSnapshots, long minSequenceNumber,
@@ -41,11 +58,240 @@ public class AggregateReader {
                 if (snapshot.get().getAggregateSequenceNumber() >= maxSequenceNumber) {
                     return;
                 }
-                actualMinSequenceNumber = snapshot.get().asEvent().getAggregateSequenceNumber() + 1;
+                actualMinSequenceNumber = snapshot.get().getAggregateSequenceNumber() + 1;
             }
         }
-        eventStorageEngine.processEventsPerAggregate(aggregateId, actualMinSequenceNumber, maxSequenceNumber, minToken, eventConsumer);
+        if (aggregateEventCache == null) {
+            eventStorageEngine.processEventsPerAggregate(aggregateId, actualMinSequenceNumber, maxSequenceNumber, minToken, eventConsumer);
+            return;
+        }
+        readEventsWithCache(aggregateId, actualMinSequenceNumber, maxSequenceNumber, minToken, eventConsumer);
+    }
+
+    /**
+     * Creates a cursor to read the events for an aggregate in pages, starting with the snapshot if {@code useSnapshots}
+     * is set and there is a snapshot. The snapshot, or the events found in the cache, are passed in the first page.
+     * <p>
+     * The events read from the event store are added to the cache when the cursor has read up to the last event of the
+     * aggregate, and the events fit in the cache.
+     *
+     * @param aggregateId       the aggregate identifier
+     * @param useSnapshots      start with the latest snapshot, if there is one
+     * @param minSequenceNumber the first sequence number to read
+     * @param maxSequenceNumber the sequence number after the last event to read
+     * @param minToken          the minimum token of the events to read
+     * @return the cursor to read the events
+     */
+    public AggregateEventCursor eventCursor(String aggregateId, boolean useSnapshots, long minSequenceNumber,
+                                            long maxSequenceNumber, long minToken) {
+        return new AggregateEventsCursor(aggregateId, useSnapshots, minSequenceNumber, maxSequenceNumber, minToken);
+    }
+
+    /**
+     * Reads the events for multiple aggregates. Snapshots and cached events are passed to the consumer first, the
+     * other events are read from the event store in one batch. The events for one aggregate are always passed in
+     * sequence number order, starting with the snapshot, but events for different aggregates may be interleaved.
+     *
+     * @param minSequenceNumbers the first sequence number to read per aggregate identifier
+     * @param useSnapshots       start with the latest snapshot for each aggregate, if there is one
+     * @param eventConsumer      consumer for the events
+     */
+    public void readEvents(Map<String, Long> minSequenceNumbers, boolean useSnapshots,
+                           Consumer<SerializedEvent> eventConsumer) {
+        Map<String, Long> fromEventStore = new LinkedHashMap<>();
+        minSequenceNumbers.forEach((aggregateId, minSequenceNumber) -> {
+            long actualMinSequenceNumber = minSequenceNumber;
+            if (useSnapshots) {
+                Optional<SerializedEvent> snapshot = snapshotReader.readSnapshot(aggregateId, minSequenceNumber);
+                if (snapshot.isPresent()) {
+                    eventConsumer.accept(snapshot.get());
+                    actualMinSequenceNumber = snapshot.get().getAggregateSequenceNumber() + 1;
+                }
+            }
+            if (aggregateEventCache == null || !aggregateEventCache.read(aggregateId,
+                                                                         actualMinSequenceNumber,
+                                                                         Long.MAX_VALUE,
+                                                                         eventConsumer)) {
+                fromEventStore.put(aggregateId, actualMinSequenceNumber);
+            }
+        });
+        if (!fromEventStore.isEmpty()) {
+            eventStorageEngine.processEventsPerAggregates(fromEventStore, eventConsumer);
+        }
+    }
+
+    /**
+     * Creates a cursor to read the events for multiple aggregates in pages. Snapshots and cached events are passed
+     * first, at most about {@code maxEvents} per page. The other events are then read from the event store in one
+     * batch, of which the positions are looked up once. The events for one aggregate are always passed in sequence
+     * number order, starting with the snapshot, but events for different aggregates may be interleaved.
+     *
+     * @param minSequenceNumbers the first sequence number to read per aggregate identifier
+     * @param useSnapshots       start with the latest snapshot for each aggregate, if there is one
+     * @return the cursor to read the events
+     */
+    public AggregateEventCursor eventCursor(Map<String, Long> minSequenceNumbers, boolean useSnapshots) {
+        return new AggregatesEventsCursor(minSequenceNumbers, useSnapshots);
+    }
+
+    private void readEventsWithCache(String aggregateId, long minSequenceNumber, long maxSequenceNumber,
+                                     long minToken, Consumer<SerializedEvent> eventConsumer) {
+        if (aggregateEventCache.read(aggregateId, minSequenceNumber, maxSequenceNumber, eventConsumer)) {
+            return;
+        }
+        long stamp = aggregateEventCache.stamp(aggregateId);
+        List<SerializedEvent> events = new ArrayList<>();
+        eventStorageEngine.processEventsPerAggregate(aggregateId, minSequenceNumber, maxSequenceNumber, minToken,
+                                                     event -> {
+                                                         eventConsumer.accept(event);
+                                                         events.add(event);
+                                                     });
+        // the events read only end with the last event for the aggregate when they end before the max sequence number
+        if (!events.isEmpty()
+                && events.get(events.size() - 1).getAggregateSequenceNumber() < maxSequenceNumber - 1) {
+            aggregateEventCache.add(aggregateId, events, stamp);
+        }
+    }
+
+    private class AggregateEventsCursor implements AggregateEventCursor {
 
+        private final String aggregateId;
+        private final boolean useSnapshots;
+        private final long minSequenceNumber;
+        private final long maxSequenceNumber;
+        private final long minToken;
+        private boolean started;
+        private AggregateEventCursor storeCursor;
+        private long stamp;
+        private List<SerializedEvent> run;
+        private long runBytes;
+
+        private AggregateEventsCursor(String aggregateId, boolean useSnapshots, long minSequenceNumber,
+                                      long maxSequenceNumber, long minToken) {
+            this.aggregateId = aggregateId;
+            this.useSnapshots = useSnapshots;
+            this.minSequenceNumber = minSequenceNumber;
+            this.maxSequenceNumber = maxSequenceNumber;
+            this.minToken = minToken;
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            if (!started) {
+                started = true;
+                if (!start(eventConsumer)) {
+                    return false;
+                }
+            }
+            if (storeCursor == null) {
+                return false;
+            }
+            boolean more = storeCursor.read(maxEvents, event -> {
+                eventConsumer.accept(event);
+                addToRun(event);
+            });
+            // the events read only end with the last event for the aggregate when they end before the max sequence
+            // number
+            if (!more && run != null && !run.isEmpty()
+                    && run.get(run.size() - 1).getAggregateSequenceNumber() < maxSequenceNumber - 1) {
+                aggregateEventCache.add(aggregateId, run, stamp);
+                run = null;
+            }
+            return more;
+        }
+
+        /**
+         * Passes the snapshot and the cached events, and creates the cursor for the event store when needed.
+         *
+         * @return true when the events must be read from the event store
+         */
+        private boolean start(Consumer<SerializedEvent> eventConsumer) {
+            long actualMinSequenceNumber = minSequenceNumber;
+            if (useSnapshots) {
+                Optional<SerializedEvent> snapshot = snapshotReader.readSnapshot(aggregateId, minSequenceNumber);
+                if (snapshot.isPresent()) {
+                    eventConsumer.accept(snapshot.get());
+                    if (snapshot.get().getAggregateSequenceNumber() >= maxSequenceNumber) {
+                        return false;
+                    }
+                    actualMinSequenceNumber = snapshot.get().getAggregateSequenceNumber() + 1;
+                }
+            }
+            if (aggregateEventCache != null) {
+                if (aggregateEventCache.read(aggregateId, actualMinSequenceNumber, maxSequenceNumber, eventConsumer)) {
+                    return false;
+                }
+                stamp = aggregateEventCache.stamp(aggregateId);
+                run = new ArrayList<>();
+            }
+            storeCursor = eventStorageEngine.aggregateEventCursor(aggregateId,
+                                                                  actualMinSequenceNumber,
+                                                                  maxSequenceNumber,
+                                                                  minToken);
+            return true;
+        }
+
+        private void addToRun(SerializedEvent event) {
+            if (run == null) {
+                return;
+            }
+            runBytes += event.size();
+            if (runBytes > aggregateEventCache.maxBytesPerAggregate()) {
+                run = null;
+            } else {
+                run.add(event);
+            }
+        }
+    }
+
+    private class AggregatesEventsCursor implements AggregateEventCursor {
+
+        private final Iterator<Map.Entry<String, Long>> aggregates;
+        private final boolean useSnapshots;
+        private final Map<String, Long> fromEventStore = new LinkedHashMap<>();
+        private AggregateEventCursor storeCursor;
+
+        private AggregatesEventsCursor(Map<String, Long> minSequenceNumbers, boolean useSnapshots) {
+            this.aggregates = minSequenceNumbers.entrySet().iterator();
+            this.useSnapshots = useSnapshots;
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            int[] count = new int[1];
+            Consumer<SerializedEvent> countingConsumer = event -> {
+                count[0]++;
+                eventConsumer.accept(event);
+            };
+            while (aggregates.hasNext() && count[0] < maxEvents) {
+                Map.Entry<String, Long> aggregate = aggregates.next();
+                long actualMinSequenceNumber = aggregate.getValue();
+                if (useSnapshots) {
+                    Optional<SerializedEvent> snapshot = snapshotReader.readSnapshot(aggregate.getKey(),
+                                                                                     aggregate.getValue());
+                    if (snapshot.isPresent()) {
+                        countingConsumer.accept(snapshot.get());
+                        actualMinSequenceNumber = snapshot.get().getAggregateSequenceNumber() + 1;
+                    }
+                }
+                if (aggregateEventCache == null || !aggregateEventCache.read(aggregate.getKey(),
+                                                                             actualMinSequenceNumber,
+                                                                             Long.MAX_VALUE,
+                                                                             countingConsumer)) {
+                    fromEventStore.put(aggregate.getKey(), actualMinSequenceNumber);
+                }
+            }
+            if (aggregates.hasNext()) {
+                return true;
+            }
+            if (storeCursor == null) {
+                if (fromEventStore.isEmpty()) {
+                    return false;
+                }
+                storeCursor = eventStorageEngine.aggregateEventCursor(fromEventStore);
+            }
+            return count[0] >= maxEvents || storeCursor.read(maxEvents - count[0], eventConsumer);
+        }
     }
 
     public void readSnapshots(String aggregateId, long minSequenceNumber, long maxSequenceNumber, int maxResults,
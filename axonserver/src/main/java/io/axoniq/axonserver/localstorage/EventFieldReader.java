@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import com.google.protobuf.WireFormat;
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads individual fields from serialized protobuf messages, without parsing the complete message. Used on hot paths
+ * where only one or two fields of a serialized event are needed.
+ *
+ * @since 4.5
+ */
+final class EventFieldReader {
+
+    private EventFieldReader() {
+    }
+
+    /**
+     * Finds the offset of the value of the last occurrence of a field in the serialized message (the position
+     * directly after the field's tag). As in protobuf parsing, the last occurrence of a field wins.
+     *
+     * @param data        the serialized message
+     * @param from        offset of the first byte of the message in data
+     * @param to          offset after the last byte of the message in data
+     * @param fieldNumber the field to find
+     * @return the offset of the value of the field or -1 when the field does not occur in the message
+     */
+    static int fieldOffset(byte[] data, int from, int to, int fieldNumber) {
+        int result = -1;
+        int position = from;
+        while (position < to) {
+            int tag = (int) readVarint(data, position);
+            position += varintSize(data, position);
+            if (WireFormat.getTagFieldNumber(tag) == fieldNumber) {
+                result = position;
+            }
+            position = skip(data, position, WireFormat.getTagWireType(tag));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the offset of the value of the last occurrence of a field in an embedded message field. Protobuf merges
+     * multiple occurrences of an embedded message, so all occurrences of the embedded message are searched.
+     *
+     * @param data               the serialized message
+     * @param from               offset of the first byte of the message in data
+     * @param to                 offset after the last byte of the message in data
+     * @param messageFieldNumber the embedded message field
+     * @param fieldNumber        the field to find in the embedded message
+     * @return the offset of the value of the field or -1 when the field does not occur in the embedded message
+     */
+    static int nestedFieldOffset(byte[] data, int from, int to, int messageFieldNumber, int fieldNumber) {
+        int result = -1;
+        int position = from;
+        while (position < to) {
+            int tag = (int) readVarint(data, position);
+            position += varintSize(data, position);
+            if (WireFormat.getTagFieldNumber(tag) == messageFieldNumber
+                    && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                int start = position + varintSize(data, position);
+                int offset = fieldOffset(data, start, start + (int) readVarint(data, position), fieldNumber);
+                if (offset >= 0) {
+                    result = offset;
+                }
+            }
+            position = skip(data, position, WireFormat.getTagWireType(tag));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the offsets of the values of two fields in an embedded message field, reading the message once. As in
+     * {@link #nestedFieldOffset(byte[], int, int, int, int)}, the last occurrence of each field wins. The offsets are
+     * returned in a single long, use {@link #firstOffset(long)} and {@link #secondOffset(long)} to get them.
+     *
+     * @param data               the serialized message
+     * @param from               offset of the first byte of the message in data
+     * @param to                 offset after the last byte of the message in data
+     * @param messageFieldNumber the embedded message field
+     * @param firstFieldNumber   the first field to find in the embedded message
+     * @param secondFieldNumber  the second field to find in the embedded message
+     * @return the offsets of the values of both fields, -1 for a field that does not occur in the embedded message
+     */
+    static long nestedFieldOffsets(byte[] data, int from, int to, int messageFieldNumber, int firstFieldNumber,
+                                   int secondFieldNumber) {
+        int first = -1;
+        int second = -1;
+        int position = from;
+        while (position < to) {
+            int tag = (int) readVarint(data, position);
+            position += varintSize(data, position);
+            if (WireFormat.getTagFieldNumber(tag) == messageFieldNumber
+                    && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                int nested = position + varintSize(data, position);
+                int end = nested + (int) readVarint(data, position);
+                while (nested < end) {
+                    int nestedTag = (int) readVarint(data, nested);
+                    nested += varintSize(data, nested);
+                    int fieldNumber = WireFormat.getTagFieldNumber(nestedTag);
+                    if (fieldNumber == firstFieldNumber) {
+                        first = nested;
+                    } else if (fieldNumber == secondFieldNumber) {
+                        second = nested;
+                    }
+                    nested = skip(data, nested, WireFormat.getTagWireType(nestedTag));
+                }
+            }
+            position = skip(data, position, WireFormat.getTagWireType(tag));
+        }
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the offset of the first field from the result of {@link #nestedFieldOffsets(byte[], int, int, int, int,
+     * int)}.
+     *
+     * @param offsets the combined offsets
+     * @return the offset of the first field or -1 when the field does not occur
+     */
+    static int firstOffset(long offsets) {
+        return (int) (offsets >> 32);
+    }
+
+    /**
+     * Returns the offset of the second field from the result of {@link #nestedFieldOffsets(byte[], int, int, int, int,
+     * int)}.
+     *
+     * @param offsets the combined offsets
+     * @return the offset of the second field or -1 when the field does not occur
+     */
+    static int secondOffset(long offsets) {
+        return (int) offsets;
+    }
+
+    /**
+     * Reads a varint value at the given offset.
+     *
+     * @param data   the serialized message
+     * @param offset the offset of the varint
+     * @return the value
+     */
+    static long readVarint(byte[] data, int offset) {
+        long result = 0;
+        int shift = 0;
+        int position = offset;
+        while (shift < 64 && position < data.length) {
+            byte b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR, "Malformed varint at " + offset);
+    }
+
+    /**
+     * Reads a length delimited UTF-8 string at the given offset.
+     *
+     * @param data   the serialized message
+     * @param offset the offset of the length of the string
+     * @return the string
+     */
+    static String readString(byte[] data, int offset) {
+        long length = readVarint(data, offset);
+        int start = offset + varintSize(data, offset);
+        if (length < 0 || length > data.length - start) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Invalid string length " + length + " at " + offset);
+        }
+        return new String(data, start, (int) length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes used by the varint at the given offset.
+     *
+     * @param data   the serialized message
+     * @param offset the offset of the varint
+     * @return number of bytes for the varint
+     */
+    static int varintSize(byte[] data, int offset) {
+        int position = offset;
+        while (position < data.length && (data[position] & 0x80) != 0) {
+            position++;
+        }
+        if (position >= data.length) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR, "Malformed varint at " + offset);
+        }
+        return position - offset + 1;
+    }
+
+    private static int skip(byte[] data, int position, int wireType) {
+        switch (wireType) {
+            case WireFormat.WIRETYPE_VARINT:
+                return position + varintSize(data, position);
+            case WireFormat.WIRETYPE_FIXED64:
+                return position + 8;
+            case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                return position + varintSize(data, position) + (int) readVarint(data, position);
+            case WireFormat.WIRETYPE_FIXED32:
+                return position + 4;
+            default:
+                throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                     "Unsupported wire type " + wireType + " at " + position);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.boot.actuate.health.Health;
 import org.springframework.data.util.CloseableIterator;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -118,6 +119,56 @@ public interface EventStorageEngine {
     void processEventsPerAggregate(String aggregateId, long minSequenceNumber, long maxSequenceNumber, long minToken,
                                    Consumer<SerializedEvent> eventConsumer);
 
+    /**
+     * Creates a cursor to read the events for an aggregate in pages, in sequence number order. The default
+     * implementation reads all events in the first page.
+     *
+     * @param aggregateId       the aggregate identifier
+     * @param minSequenceNumber the first sequence number to retrieve
+     * @param maxSequenceNumber the last sequence number to retrieve (exclusive)
+     * @param minToken          the minimum token of the events to retrieve, used to skip older segments
+     * @return the cursor to read the events
+     */
+    default AggregateEventCursor aggregateEventCursor(String aggregateId, long minSequenceNumber,
+                                                      long maxSequenceNumber, long minToken) {
+        return (maxEvents, eventConsumer) -> {
+            processEventsPerAggregate(aggregateId, minSequenceNumber, maxSequenceNumber, minToken, eventConsumer);
+            return false;
+        };
+    }
+
+    /**
+     * Find events for multiple aggregates and execute the consumer for each event. The events are passed per
+     * aggregate, in the iteration order of the map, and in sequence number order within an aggregate. The default
+     * implementation reads the aggregates one by one.
+     *
+     * @param minSequenceNumbers the first sequence number to retrieve per aggregate identifier
+     * @param eventConsumer      the consumer to apply for each event
+     */
+    default void processEventsPerAggregates(Map<String, Long> minSequenceNumbers,
+                                            Consumer<SerializedEvent> eventConsumer) {
+        minSequenceNumbers.forEach((aggregateId, minSequenceNumber) -> processEventsPerAggregate(aggregateId,
+                                                                                                  minSequenceNumber,
+                                                                                                  Long.MAX_VALUE,
+                                                                                                  0,
+                                                                                                  eventConsumer));
+    }
+
+    /**
+     * Creates a cursor to read the events for multiple aggregates in pages. The events are passed per aggregate, in the
+     * iteration order of the map, and in sequence number order within an aggregate. The default implementation reads
+     * all events in the first page.
+     *
+     * @param minSequenceNumbers the first sequence number to retrieve per aggregate identifier
+     * @return the cursor to read the events
+     */
+    default AggregateEventCursor aggregateEventCursor(Map<String, Long> minSequenceNumbers) {
+        return (maxEvents, eventConsumer) -> {
+            processEventsPerAggregates(minSequenceNumbers, eventConsumer);
+            return false;
+        };
+    }
+
     /**
      * Find events for an aggregate and execute the consumer for each event. The event with the highest sequence number
      * is returned first.
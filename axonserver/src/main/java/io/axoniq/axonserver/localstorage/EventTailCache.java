@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the most recent events of a context in a ring buffer. The events are read only once, by a single shared
+ * iterator, so tracking event processors that are close to the head of the event store do not each need to read and
+ * decode the same events.
+ * <p>
+ * This class is not thread safe. The {@link TrackingEventProcessorManager} performs all operations while holding its
+ * tail cache lock.
+ *
+ * @since 4.5
+ */
+class EventTailCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventTailCache.class);
+
+    private final String context;
+    private final Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder;
+    private final LongSupplier lastTokenSupplier;
+    private final SerializedEventWithToken[] ring;
+    private final int maxEventsPerFill;
+    private CloseableIterator<SerializedEventWithToken> iterator;
+    /**
+     * Token of the oldest event in the ring, -1 when the cache is not started.
+     */
+    private long firstToken = -1;
+    /**
+     * Token of the next event to read into the ring, -1 when the cache is not started.
+     */
+    private long nextToken = -1;
+
+    /**
+     * @param context           the context of the event store
+     * @param size              the maximum number of events to keep in the cache
+     * @param maxEventsPerFill  maximum number of events to read in one fill operation
+     * @param iteratorBuilder   function that creates an event iterator
+     * @param lastTokenSupplier supplies the last token in the event store
+     */
+    EventTailCache(String context, int size, int maxEventsPerFill,
+                   Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder,
+                   LongSupplier lastTokenSupplier) {
+        this.context = context;
+        this.ring = new SerializedEventWithToken[size];
+        this.maxEventsPerFill = Math.min(size, maxEventsPerFill);
+        this.iteratorBuilder = iteratorBuilder;
+        this.lastTokenSupplier = lastTokenSupplier;
+    }
+
+    /**
+     * Reads new events from the event store into the ring. Starts the cache at the current head of the event store if
+     * it was not started yet.
+     *
+     * @return the number of events read
+     */
+    int fill() {
+        long lastToken = lastTokenSupplier.getAsLong();
+        if (nextToken < 0 || nextToken > lastToken + 1) {
+            reset(lastToken + 1);
+            return 0;
+        }
+
+        int count = 0;
+        try {
+            if (iterator == null) {
+                iterator = iteratorBuilder.apply(nextToken);
+            }
+            while (count < maxEventsPerFill && iterator.hasNext()) {
+                SerializedEventWithToken event = iterator.next();
+                ring[index(event.getToken())] = event;
+                nextToken = event.getToken() + 1;
+                count++;
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("{}: failed to read events into tail cache, restarting cache", context, ex);
+            reset(lastToken + 1);
+            return 0;
+        }
+        firstToken = Math.max(firstToken, nextToken - ring.length);
+        return count;
+    }
+
+    /**
+     * Checks if a tracker that needs the event with given token next can be served from the cache. This is the case when
+     * the token is in the ring or when the token is the next token to be read by the cache.
+     *
+     * @param token the next token for the tracker
+     * @return true if the tracker can be served from the cache
+     */
+    boolean covers(long token) {
+        return nextToken >= 0 && token >= firstToken && token <= nextToken;
+    }
+
+    /**
+     * Returns the event with given token, or null when the event is not (yet) in the ring.
+     *
+     * @param token the token of the event
+     * @return the event or null
+     */
+    SerializedEventWithToken get(long token) {
+        if (nextToken < 0 || token < firstToken || token >= nextToken) {
+            return null;
+        }
+        return ring[index(token)];
+    }
+
+    /**
+     * Closes the shared iterator and clears the ring.
+     */
+    void close() {
+        reset(-1);
+    }
+
+    private void reset(long token) {
+        if (iterator != null) {
+            iterator.close();
+            iterator = null;
+        }
+        Arrays.fill(ring, null);
+        firstToken = token;
+        nextToken = token;
+    }
+
+    private int index(long token) {
+        return (int) (token % ring.length);
+    }
+}
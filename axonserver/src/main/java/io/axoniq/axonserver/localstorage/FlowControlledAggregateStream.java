@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import io.axoniq.axonserver.grpc.event.GetAggregateEventsRequest;
+import io.axoniq.axonserver.grpc.event.GetAggregateSnapshotsRequest;
+import io.grpc.stub.CallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Sends the events or snapshots of an aggregate to a client, respecting the flow control of the gRPC call. The events
+ * are read from the event store in chunks, and a new chunk is only read when the previous chunk was sent. When the
+ * call is not ready to accept more messages, the stream stops sending and releases its thread. It continues on the
+ * executor when the call becomes ready again.
+ * <p>
+ * The number of events in a chunk is adjusted to the size of the events read, so that a chunk uses at most about
+ * {@code maxBufferBytes} of memory. When the response observer is not a {@link CallStreamObserver} the stream is
+ * always considered ready.
+ *
+ * @since 4.5
+ */
+public class FlowControlledAggregateStream {
+
+    private static final int INITIAL_CHUNK_SIZE = 100;
+    private static final int MAX_CHUNK_SIZE = 10_000;
+
+    private final StreamObserver<SerializedEvent> responseObserver;
+    private final CallStreamObserver<SerializedEvent> callStreamObserver;
+    private final ChunkReader chunkReader;
+    private final UnaryOperator<SerializedEvent> decorator;
+    private final Executor executor;
+    private final long maxBufferBytes;
+    private final Deque<SerializedEvent> buffer = new ArrayDeque<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private int chunkSize = INITIAL_CHUNK_SIZE;
+    private boolean moreChunks = true;
+    private boolean done;
+
+    /**
+     * @param responseObserver observer to send the events to
+     * @param chunkReader      reads the next chunk of events from the event store
+     * @param decorator        decorates each event before it is sent
+     * @param executor         executor to read and send the events
+     * @param maxBufferBytes   the approximate maximum size of the events read in one chunk
+     */
+    public FlowControlledAggregateStream(StreamObserver<SerializedEvent> responseObserver,
+                                         ChunkReader chunkReader,
+                                         UnaryOperator<SerializedEvent> decorator,
+                                         Executor executor,
+                                         long maxBufferBytes) {
+        this.responseObserver = responseObserver;
+        this.callStreamObserver = responseObserver instanceof CallStreamObserver ?
+                (CallStreamObserver<SerializedEvent>) responseObserver : null;
+        this.chunkReader = chunkReader;
+        this.decorator = decorator;
+        this.executor = executor;
+        this.maxBufferBytes = maxBufferBytes;
+    }
+
+    /**
+     * Starts the stream. Must be called from the thread that handles the gRPC call, as the ready handler can only be
+     * set before the call handler returns.
+     */
+    public void start() {
+        if (callStreamObserver != null) {
+            callStreamObserver.setOnReadyHandler(this::schedule);
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::send);
+        }
+    }
+
+    private void send() {
+        if (done) {
+            return;
+        }
+        while (true) {
+            while (!buffer.isEmpty()) {
+                if (!isReady()) {
+                    scheduled.set(false);
+                    // the call may have become ready before the flag was cleared, without the ready handler scheduling
+                    if (isReady()) {
+                        schedule();
+                    }
+                    return;
+                }
+                responseObserver.onNext(decorator.apply(buffer.poll()));
+            }
+            if (!moreChunks) {
+                done = true;
+                responseObserver.onCompleted();
+                return;
+            }
+            readChunk();
+        }
+    }
+
+    private void readChunk() {
+        long[] bytes = new long[1];
+        moreChunks = chunkReader.read(chunkSize, event -> {
+            buffer.add(event);
+            bytes[0] += event.size();
+        });
+        if (!buffer.isEmpty()) {
+            long averageSize = Math.max(1, bytes[0] / buffer.size());
+            chunkSize = (int) Math.max(1, Math.min(MAX_CHUNK_SIZE, maxBufferBytes / averageSize));
+        }
+    }
+
+    private boolean isReady() {
+        return callStreamObserver == null || callStreamObserver.isReady();
+    }
+
+    /**
+     * Reads the next chunk of events for a stream.
+     */
+    @FunctionalInterface
+    public interface ChunkReader {
+
+        /**
+         * Reads at most {@code maxEvents} events and passes them to the consumer.
+         *
+         * @param maxEvents     the maximum number of events to read
+         * @param eventConsumer consumer for the events
+         * @return true when there may be more events after this chunk
+         */
+        boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer);
+    }
+
+    /**
+     * Reads the events for an aggregate in chunks, starting with the snapshot if the request allows snapshots. The
+     * positions of the events are looked up once, each chunk continues with the next positions.
+     */
+    public static class AggregateEventsReader implements ChunkReader {
+
+        private final AggregateEventCursor cursor;
+
+        /**
+         * @param aggregateReader   reader for the aggregate events
+         * @param request           the request from the client
+         * @param maxSequenceNumber the sequence number after the last event to read
+         */
+        public AggregateEventsReader(AggregateReader aggregateReader, GetAggregateEventsRequest request,
+                                     long maxSequenceNumber) {
+            this.cursor = aggregateReader.eventCursor(request.getAggregateId(),
+                                                      request.getAllowSnapshots(),
+                                                      request.getInitialSequence(),
+                                                      maxSequenceNumber,
+                                                      request.getMinToken());
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            return cursor.read(maxEvents, eventConsumer);
+        }
+    }
+
+    /**
+     * Reads the events for a batch of aggregates in chunks. Consecutive aggregates that agree on the use of snapshots
+     * are read together, the positions of their events are looked up once and each chunk continues with the next
+     * positions. Only the aggregate identifier, the initial sequence and the allow snapshots flag of the requests are
+     * used.
+     */
+    public static class AggregatesEventsReader implements ChunkReader {
+
+        private final AggregateReader aggregateReader;
+        private final List<GetAggregateEventsRequest> requests;
+        private int next;
+        private AggregateEventCursor cursor;
+
+        /**
+         * @param aggregateReader reader for the aggregate events
+         * @param requests        the requests from the client, one per aggregate
+         */
+        public AggregatesEventsReader(AggregateReader aggregateReader, List<GetAggregateEventsRequest> requests) {
+            this.aggregateReader = aggregateReader;
+            this.requests = requests;
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            if (cursor == null) {
+                if (next >= requests.size()) {
+                    return false;
+                }
+                cursor = nextGroup();
+            }
+            if (cursor.read(maxEvents, eventConsumer)) {
+                return true;
+            }
+            cursor = null;
+            return next < requests.size();
+        }
+
+        private AggregateEventCursor nextGroup() {
+            // aggregates read together must agree on the use of snapshots
+            boolean useSnapshots = requests.get(next).getAllowSnapshots();
+            Map<String, Long> minSequenceNumbers = new LinkedHashMap<>();
+            while (next < requests.size() && requests.get(next).getAllowSnapshots() == useSnapshots) {
+                GetAggregateEventsRequest request = requests.get(next++);
+                minSequenceNumbers.putIfAbsent(request.getAggregateId(), request.getInitialSequence());
+            }
+            return aggregateReader.eventCursor(minSequenceNumbers, useSnapshots);
+        }
+    }
+
+    /**
+     * Reads the snapshots for an aggregate in chunks, highest sequence number first.
+     */
+    public static class AggregateSnapshotsReader implements ChunkReader {
+
+        private final AggregateReader aggregateReader;
+        private final GetAggregateSnapshotsRequest request;
+        private long maxSequenceNumber;
+        private int remaining;
+
+        /**
+         * @param aggregateReader reader for the aggregate snapshots
+         * @param request         the request from the client
+         */
+        public AggregateSnapshotsReader(AggregateReader aggregateReader, GetAggregateSnapshotsRequest request) {
+            this.aggregateReader = aggregateReader;
+            this.request = request;
+            this.maxSequenceNumber = request.getMaxSequence();
+            this.remaining = request.getMaxResults() > 0 ? request.getMaxResults() : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            if (maxSequenceNumber < 0) {
+                return false;
+            }
+            int limit = Math.min(maxEvents, remaining);
+            int[] count = new int[1];
+            aggregateReader.readSnapshots(request.getAggregateId(),
+                                          request.getInitialSequence(),
+                                          maxSequenceNumber,
+                                          limit,
+                                          snapshot -> {
+                                              // snapshots are read highest first, continue below the last one
+                                              maxSequenceNumber = snapshot.getAggregateSequenceNumber();
+                                              count[0]++;
+                                              eventConsumer.accept(snapshot);
+                                          });
+            remaining -= count[0];
+            return count[0] == limit && remaining > 0;
+        }
+    }
+}
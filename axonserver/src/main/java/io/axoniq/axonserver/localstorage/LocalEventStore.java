@@ -59,7 +59,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -99,6 +98,24 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
     private long newPermitsTimeout = 120000;
     @Value("${axoniq.axonserver.check-sequence-nr-for-snapshots:true}")
     private boolean checkSequenceNrForSnapshots = true;
+    /**
+     * Number of recent events kept in a cache shared by all tracking event processors that are close to the head of
+     * the event store. When set to 0, each tracking event processor reads its events from the event store.
+     */
+    @Value("${axoniq.axonserver.event-processor-tail-cache-size:0}")
+    private int eventProcessorTailCacheSize = 0;
+    /**
+     * Maximum size in bytes of the cache of recent events per aggregate, used when reading aggregates. When set to 0,
+     * the events for an aggregate are always read from the event store.
+     */
+    @Value("${axoniq.axonserver.aggregate-cache-size:0}")
+    private long aggregateCacheSize = 0;
+    /**
+     * Approximate maximum size in bytes of the events read ahead for a client reading an aggregate. Events are only
+     * read from the event store when the client is ready to receive them.
+     */
+    @Value("${axoniq.axonserver.aggregate-stream-buffer-size:1048576}")
+    private long aggregateStreamBufferSize = 1048576;
 
     public LocalEventStore(EventStoreFactory eventStoreFactory, MeterRegistry meterFactory,
                            StorageTransactionManagerFactory storageTransactionManagerFactory) {
@@ -268,8 +285,7 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
                     return;
                 }
                 runInDataWriterPool(() -> workers(context)
-                        .eventWriteStorage
-                        .store(eventList)
+                        .storeEvents(eventList)
                         .thenRun(this::confirm)
                         .exceptionally(this::error), this::error);
             }
@@ -295,23 +311,28 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
     @Override
     public void listAggregateEvents(String context, GetAggregateEventsRequest request,
                                     StreamObserver<SerializedEvent> responseStreamObserver) {
-        runInDataFetcherPool(() -> {
-            AtomicInteger counter = new AtomicInteger();
-            workers(context).aggregateReader.readEvents(request.getAggregateId(),
-                                                        request.getAllowSnapshots(),
-                                                        request.getInitialSequence(),
-                                                        getMaxSequence(request),
-                                                        request.getMinToken(),
-                                                        event -> {
-                                                            responseStreamObserver.onNext(eventDecorator
-                                                                                                  .decorateEvent(event));
-                                                            counter.incrementAndGet();
-                                                        });
-            if (counter.get() == 0) {
-                logger.debug("Aggregate not found: {}", request);
-            }
-            responseStreamObserver.onCompleted();
-        }, responseStreamObserver::onError);
+        AggregateReader aggregateReader = workers(context).aggregateReader;
+        streamAggregate(new FlowControlledAggregateStream.AggregateEventsReader(aggregateReader,
+                                                                               request,
+                                                                               getMaxSequence(request)),
+                        responseStreamObserver);
+    }
+
+    @Override
+    public void listAggregatesEvents(String context, List<GetAggregateEventsRequest> requests,
+                                     StreamObserver<SerializedEvent> responseStreamObserver) {
+        AggregateReader aggregateReader = workers(context).aggregateReader;
+        streamAggregate(new FlowControlledAggregateStream.AggregatesEventsReader(aggregateReader, requests),
+                        responseStreamObserver);
+    }
+
+    private void streamAggregate(FlowControlledAggregateStream.ChunkReader chunkReader,
+                                 StreamObserver<SerializedEvent> responseStreamObserver) {
+        new FlowControlledAggregateStream(responseStreamObserver,
+                                          chunkReader,
+                                          eventDecorator::decorateEvent,
+                                          task -> runInDataFetcherPool(task, responseStreamObserver::onError),
+                                          aggregateStreamBufferSize).start();
     }
 
     private void runInDataFetcherPool(Runnable task, Consumer<Exception> onError) {
@@ -353,17 +374,9 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
     @Override
     public void listAggregateSnapshots(String context, GetAggregateSnapshotsRequest request,
                                        StreamObserver<SerializedEvent> responseStreamObserver) {
-        runInDataFetcherPool(() -> {
-            if (request.getMaxSequence() >= 0) {
-                workers(context).aggregateReader.readSnapshots(request.getAggregateId(),
-                                                               request.getInitialSequence(),
-                                                               request.getMaxSequence(),
-                                                               request.getMaxResults(),
-                                                               snapshot -> responseStreamObserver
-                                                                       .onNext(eventDecorator.decorateEvent(snapshot)));
-            }
-            responseStreamObserver.onCompleted();
-        }, responseStreamObserver::onError);
+        AggregateReader aggregateReader = workers(context).aggregateReader;
+        streamAggregate(new FlowControlledAggregateStream.AggregateSnapshotsReader(aggregateReader, request),
+                        responseStreamObserver);
     }
 
     @Override
@@ -577,6 +590,9 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
         try {
             Workers worker = workers(context);
             worker.eventSyncStorage.sync(value.getToken(), value.getEvents());
+            if (worker.aggregateEventCache != null) {
+                worker.aggregateEventCache.eventsStored(value.getEvents());
+            }
             worker.triggerTrackerEventProcessors();
             return value.getToken() + value.getEvents().size();
         } catch (MessagingPlatformException ex) {
@@ -652,6 +668,7 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
         private final EventWriteStorage eventWriteStorage;
         private final SnapshotWriteStorage snapshotWriteStorage;
         private final AggregateReader aggregateReader;
+        private final AggregateEventCache aggregateEventCache;
         private final EventStreamReader eventStreamReader;
         private final EventStorageEngine eventStorageEngine;
         private final EventStorageEngine snapshotStorageEngine;
@@ -673,8 +690,14 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
                                                                    .createTransactionManager(this.eventStorageEngine));
             this.snapshotWriteStorage = new SnapshotWriteStorage(storageTransactionManagerFactory
                                                                          .createTransactionManager(this.snapshotStorageEngine));
-            this.aggregateReader = new AggregateReader(eventStorageEngine, new SnapshotReader(snapshotStorageEngine));
-            this.trackingEventManager = new TrackingEventProcessorManager(eventStorageEngine, blacklistedSendAfter);
+            this.aggregateEventCache = aggregateCacheSize > 0 ?
+                    new AggregateEventCache(context, aggregateCacheSize, meterFactory) : null;
+            this.aggregateReader = new AggregateReader(eventStorageEngine,
+                                                       new SnapshotReader(snapshotStorageEngine),
+                                                       aggregateEventCache);
+            this.trackingEventManager = new TrackingEventProcessorManager(eventStorageEngine,
+                                                                          blacklistedSendAfter,
+                                                                          eventProcessorTailCacheSize);
 
             this.eventStreamReader = new EventStreamReader(eventStorageEngine);
             this.snapshotSyncStorage = new SyncStorage(snapshotStorageEngine);
@@ -721,6 +744,9 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
             snapshotStorageEngine.close(deleteData);
             meterFactory.remove(gauge);
             meterFactory.remove(snapshotGauge);
+            if (aggregateEventCache != null) {
+                aggregateEventCache.close();
+            }
         }
 
         private TrackingEventProcessorManager.EventTracker createEventTracker(long trackingToken,
@@ -733,6 +759,20 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
                                                            eventStream);
         }
 
+        /**
+         * Stores the events. The returned future completes when the events are stored, the aggregate event cache is
+         * updated separately so the confirmation to the client does not wait for it.
+         */
+        private CompletableFuture<Void> storeEvents(List<SerializedEvent> events) {
+            if (aggregateEventCache == null) {
+                return eventWriteStorage.store(events);
+            }
+            aggregateEventCache.eventsStoring(events);
+            CompletableFuture<Void> result = eventWriteStorage.store(events);
+            result.whenComplete((r, cause) -> aggregateEventCache.storeCompleted(events, cause == null));
+            return result;
+        }
+
         private void triggerTrackerEventProcessors() {
             trackingEventManager.reschedule();
         }
@@ -758,6 +798,9 @@ public class LocalEventStore implements io.axoniq.axonserver.message.event.Event
         public void deleteAllEventData() {
             eventWriteStorage.deleteAllEventData();
             snapshotWriteStorage.deleteAllEventData();
+            if (aggregateEventCache != null) {
+                aggregateEventCache.clear();
+            }
         }
     }
 }
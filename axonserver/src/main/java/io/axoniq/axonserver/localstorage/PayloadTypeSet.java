@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.grpc.event.PayloadDescription;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Set of payload types (type and revision) that can be matched against serialized events. Matching reads the payload
+ * type and revision directly from the serialized event, without parsing the event and without creating new objects.
+ * <p>
+ * Payload types are kept in a sorted array of the hashes of the UTF-8 bytes of the type names, with the payload types
+ * per hash in a parallel array. A lookup is a binary search on the hash, and only compares bytes for payload types
+ * with the same hash.
+ *
+ * @since 4.5
+ */
+class PayloadTypeSet {
+
+    private static final int[] NO_HASHES = new int[0];
+    private static final PayloadType[][] NO_PAYLOAD_TYPES = new PayloadType[0][];
+
+    private volatile Lookup lookup = new Lookup(NO_HASHES, NO_PAYLOAD_TYPES);
+
+    /**
+     * Adds payload types to the set.
+     *
+     * @param payloadDescriptions the payload types to add
+     */
+    synchronized void addAll(Collection<PayloadDescription> payloadDescriptions) {
+        int[] hashes = lookup.hashes;
+        PayloadType[][] payloadTypes = lookup.payloadTypes;
+        for (PayloadDescription payloadDescription : payloadDescriptions) {
+            PayloadType payloadType = new PayloadType(payloadDescription);
+            int index = Arrays.binarySearch(hashes, payloadType.hash);
+            if (index >= 0) {
+                if (!Arrays.asList(payloadTypes[index]).contains(payloadType)) {
+                    PayloadType[] candidates = Arrays.copyOf(payloadTypes[index], payloadTypes[index].length + 1);
+                    candidates[candidates.length - 1] = payloadType;
+                    payloadTypes = payloadTypes.clone();
+                    payloadTypes[index] = candidates;
+                }
+            } else {
+                int insertAt = -index - 1;
+                int[] updatedHashes = new int[hashes.length + 1];
+                PayloadType[][] updatedPayloadTypes = new PayloadType[hashes.length + 1][];
+                System.arraycopy(hashes, 0, updatedHashes, 0, insertAt);
+                System.arraycopy(payloadTypes, 0, updatedPayloadTypes, 0, insertAt);
+                updatedHashes[insertAt] = payloadType.hash;
+                updatedPayloadTypes[insertAt] = new PayloadType[]{payloadType};
+                System.arraycopy(hashes, insertAt, updatedHashes, insertAt + 1, hashes.length - insertAt);
+                System.arraycopy(payloadTypes,
+                                 insertAt,
+                                 updatedPayloadTypes,
+                                 insertAt + 1,
+                                 payloadTypes.length - insertAt);
+                hashes = updatedHashes;
+                payloadTypes = updatedPayloadTypes;
+            }
+        }
+        lookup = new Lookup(hashes, payloadTypes);
+    }
+
+    boolean isEmpty() {
+        return lookup.hashes.length == 0;
+    }
+
+    /**
+     * Checks if the payload type of the event is in the set.
+     *
+     * @param event the serialized event
+     * @return true if the payload type and revision of the event are in the set
+     */
+    boolean contains(SerializedEvent event) {
+        Lookup current = lookup;
+        if (current.hashes.length == 0) {
+            return false;
+        }
+
+        byte[] data = event.serializedData();
+        long offsets = EventFieldReader.nestedFieldOffsets(data,
+                                                           0,
+                                                           data.length,
+                                                           Event.PAYLOAD_FIELD_NUMBER,
+                                                           SerializedObject.TYPE_FIELD_NUMBER,
+                                                           SerializedObject.REVISION_FIELD_NUMBER);
+        int typeOffset = EventFieldReader.firstOffset(offsets);
+        int typeStart = typeOffset < 0 ? 0 : typeOffset + EventFieldReader.varintSize(data, typeOffset);
+        int typeLength = typeOffset < 0 ? 0 : (int) EventFieldReader.readVarint(data, typeOffset);
+
+        int index = Arrays.binarySearch(current.hashes, hash(data, typeStart, typeLength));
+        if (index < 0) {
+            return false;
+        }
+
+        int revisionOffset = EventFieldReader.secondOffset(offsets);
+        int revisionStart = revisionOffset < 0 ? 0 : revisionOffset + EventFieldReader.varintSize(data, revisionOffset);
+        int revisionLength = revisionOffset < 0 ? 0 : (int) EventFieldReader.readVarint(data, revisionOffset);
+        for (PayloadType candidate : current.payloadTypes[index]) {
+            if (equals(candidate.type, data, typeStart, typeLength)
+                    && equals(candidate.revision, data, revisionStart, revisionLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int hash(byte[] data, int start, int length) {
+        // same algorithm as Arrays.hashCode(byte[]), so it matches the hash of the payload types in the set
+        int result = 1;
+        for (int i = start; i < start + length; i++) {
+            result = 31 * result + data[i];
+        }
+        return result;
+    }
+
+    private static boolean equals(byte[] expected, byte[] data, int start, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != data[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Lookup {
+
+        private final int[] hashes;
+        private final PayloadType[][] payloadTypes;
+
+        private Lookup(int[] hashes, PayloadType[][] payloadTypes) {
+            this.hashes = hashes;
+            this.payloadTypes = payloadTypes;
+        }
+    }
+
+    private static class PayloadType {
+
+        private final byte[] type;
+        private final byte[] revision;
+        private final int hash;
+
+        private PayloadType(PayloadDescription payloadDescription) {
+            this.type = payloadDescription.getType().getBytes(StandardCharsets.UTF_8);
+            this.revision = payloadDescription.getRevision().getBytes(StandardCharsets.UTF_8);
+            this.hash = Arrays.hashCode(type);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PayloadType that = (PayloadType) o;
+            return Arrays.equals(type, that.type) && Arrays.equals(revision, that.revision);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash + Arrays.hashCode(revision);
+        }
+    }
+}
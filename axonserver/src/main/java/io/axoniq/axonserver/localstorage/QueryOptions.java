@@ -20,6 +20,7 @@ public class QueryOptions {
     private final long minToken;
     private final long maxToken;
     private final long minTimestamp;
+    private final boolean ordered;
 
     /**
      * @param minToken     minumum token of events to process
@@ -27,9 +28,20 @@ public class QueryOptions {
      * @param minTimestamp minimum timestamp of events to process
      */
     public QueryOptions(long minToken, long maxToken, long minTimestamp) {
+        this(minToken, maxToken, minTimestamp, true);
+    }
+
+    /**
+     * @param minToken     minumum token of events to process
+     * @param maxToken     maximum token of events to process
+     * @param minTimestamp minimum timestamp of events to process
+     * @param ordered      false if the query result does not depend on the order in which the events are processed
+     */
+    public QueryOptions(long minToken, long maxToken, long minTimestamp, boolean ordered) {
         this.minToken = minToken;
         this.maxToken = maxToken;
         this.minTimestamp = minTimestamp;
+        this.ordered = ordered;
     }
 
     public long getMinToken() {
@@ -43,4 +55,14 @@ public class QueryOptions {
     public long getMinTimestamp() {
         return minTimestamp;
     }
+
+    /**
+     * Checks if the events must be processed in the order they are stored. When false, events from different segments
+     * may be processed in any order.
+     *
+     * @return true if events must be processed in order
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
 }
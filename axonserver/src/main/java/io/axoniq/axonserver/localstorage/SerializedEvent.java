@@ -10,6 +10,7 @@
 package io.axoniq.axonserver.localstorage;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.axoniq.axonserver.exception.ErrorCode;
 import io.axoniq.axonserver.exception.MessagingPlatformException;
@@ -17,7 +18,6 @@ import io.axoniq.axonserver.grpc.MetaDataValue;
 import io.axoniq.axonserver.grpc.event.Event;
 import org.springframework.util.StringUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -53,7 +53,7 @@ public class SerializedEvent  {
     }
 
     public InputStream asInputStream() {
-        return new ByteArrayInputStream(serializedData);
+        return new SerializedEventInputStream(serializedData);
     }
 
     public Event asEvent() {
@@ -75,8 +75,22 @@ public class SerializedEvent  {
         return serializedData;
     }
 
+    /**
+     * Returns the aggregate sequence number of the event. When the event was not parsed yet, the sequence number is
+     * read from the serialized data, without parsing the complete event.
+     *
+     * @return the aggregate sequence number
+     */
     public long getAggregateSequenceNumber() {
-        return asEvent().getAggregateSequenceNumber();
+        Event current = event;
+        if (current != null) {
+            return current.getAggregateSequenceNumber();
+        }
+        int offset = EventFieldReader.fieldOffset(serializedData,
+                                                  0,
+                                                  serializedData.length,
+                                                  Event.AGGREGATE_SEQUENCE_NUMBER_FIELD_NUMBER);
+        return offset < 0 ? 0 : EventFieldReader.readVarint(serializedData, offset);
     }
 
     public byte[] getPayload() {
@@ -104,15 +118,56 @@ public class SerializedEvent  {
     }
 
     public boolean isDomainEvent() {
-        return ! StringUtils.isEmpty(getAggregateType());
-    }
-
+        Event current = event;
+        if (current != null) {
+            return !StringUtils.isEmpty(current.getAggregateType());
+        }
+        int offset = EventFieldReader.fieldOffset(serializedData,
+                                                  0,
+                                                  serializedData.length,
+                                                  Event.AGGREGATE_TYPE_FIELD_NUMBER);
+        return offset >= 0 && EventFieldReader.readVarint(serializedData, offset) > 0;
+    }
+
+    /**
+     * Returns the aggregate identifier of the event. When the event was not parsed yet, the identifier is read from
+     * the serialized data, without parsing the complete event.
+     *
+     * @return the aggregate identifier
+     */
     public String getAggregateIdentifier() {
-        return asEvent().getAggregateIdentifier();
+        Event current = event;
+        if (current != null) {
+            return current.getAggregateIdentifier();
+        }
+        int offset = EventFieldReader.fieldOffset(serializedData,
+                                                  0,
+                                                  serializedData.length,
+                                                  Event.AGGREGATE_IDENTIFIER_FIELD_NUMBER);
+        return offset < 0 ? "" : EventFieldReader.readString(serializedData, offset);
     }
 
     public long getSequenceNumber() {
-        return asEvent().getAggregateSequenceNumber();
+        return getAggregateSequenceNumber();
+    }
+
+    /**
+     * Returns this event with the snapshot flag set. The flag is appended to the serialized data, so the event does
+     * not need to be parsed and serialized again.
+     *
+     * @return the event with the snapshot flag set
+     */
+    public SerializedEvent asSnapshot() {
+        int flagSize = CodedOutputStream.computeBoolSize(Event.SNAPSHOT_FIELD_NUMBER, true);
+        byte[] data = Arrays.copyOf(serializedData, serializedData.length + flagSize);
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(data, serializedData.length, flagSize);
+            output.writeBool(Event.SNAPSHOT_FIELD_NUMBER, true);
+            output.flush();
+        } catch (IOException e) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR, e.getMessage(), e);
+        }
+        return new SerializedEvent(data);
     }
 
     public String getType() {
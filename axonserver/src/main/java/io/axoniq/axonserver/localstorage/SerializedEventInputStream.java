@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream for a serialized event, optionally preceded by a small header containing the protobuf framing of the
+ * message that contains the event. The stream reads directly from the serialized event, without copying it into a new
+ * buffer.
+ * <p>
+ * The stream implements {@link KnownLength} and {@link Drainable}, so gRPC writes the data directly to its output
+ * buffer instead of copying it through an intermediate buffer.
+ *
+ * @since 4.5
+ */
+public class SerializedEventInputStream extends InputStream implements KnownLength, Drainable {
+
+    private static final byte[] NO_HEADER = new byte[0];
+
+    private final byte[] header;
+    private final byte[] data;
+    private int position;
+    private int mark;
+
+    /**
+     * @param data the serialized event
+     */
+    public SerializedEventInputStream(byte[] data) {
+        this(NO_HEADER, data);
+    }
+
+    /**
+     * @param header the bytes to return before the serialized event
+     * @param data   the serialized event
+     */
+    public SerializedEventInputStream(byte[] header, byte[] data) {
+        this.header = header;
+        this.data = data;
+    }
+
+    @Override
+    public int read() {
+        if (position < header.length) {
+            return header[position++] & 0xFF;
+        }
+        if (position < header.length + data.length) {
+            return data[position++ - header.length] & 0xFF;
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        int remaining = available();
+        if (length == 0) {
+            return 0;
+        }
+        if (remaining == 0) {
+            return -1;
+        }
+        int count = Math.min(length, remaining);
+        int copied = 0;
+        if (position < header.length) {
+            int fromHeader = Math.min(count, header.length - position);
+            System.arraycopy(header, position, bytes, offset, fromHeader);
+            copied = fromHeader;
+        }
+        if (copied < count) {
+            System.arraycopy(data, position + copied - header.length, bytes, offset + copied, count - copied);
+        }
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, available()));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return header.length + data.length - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+        int count = available();
+        if (position < header.length) {
+            target.write(header, position, header.length - position);
+            target.write(data);
+        } else {
+            target.write(data, position - header.length, count);
+        }
+        position += count;
+        return count;
+    }
+}
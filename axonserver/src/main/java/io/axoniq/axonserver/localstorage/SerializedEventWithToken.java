@@ -16,7 +16,6 @@ import io.axoniq.axonserver.exception.MessagingPlatformException;
 import io.axoniq.axonserver.grpc.event.Event;
 import io.axoniq.axonserver.grpc.event.EventWithToken;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -39,18 +38,23 @@ public class SerializedEventWithToken {
     }
 
     public InputStream asInputStream() {
-        byte[] bytes = new byte[serializedEvent.size() + 32]; // extra space for tags, token and some to spare(see sizes below)
-        CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+        int size = serializedEvent.size();
+        int headerSize = CodedOutputStream.computeTagSize(EventWithToken.EVENT_FIELD_NUMBER)
+                + CodedOutputStream.computeUInt32SizeNoTag(size);
+        if (token != 0L) {
+            headerSize += CodedOutputStream.computeInt64Size(EventWithToken.TOKEN_FIELD_NUMBER, token);
+        }
+        byte[] header = new byte[headerSize];
+        CodedOutputStream cos = CodedOutputStream.newInstance(header);
         try {
             if (token != 0L) {
-                cos.writeInt64(EventWithToken.TOKEN_FIELD_NUMBER, token); // max 14 bytes long
+                cos.writeInt64(EventWithToken.TOKEN_FIELD_NUMBER, token);
             }
             // 'manually' encode the event, as we have the serialized form already
-            cos.writeTag(EventWithToken.EVENT_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED); // max 5 bytes
-            cos.writeUInt32NoTag(serializedEvent.size()); // max 5 bytes
-            cos.writeRawBytes(serializedEvent.serializedData());
+            cos.writeTag(EventWithToken.EVENT_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            cos.writeUInt32NoTag(size);
             cos.flush();
-            return new ByteArrayInputStream(bytes, 0, cos.getTotalBytesWritten());
+            return new SerializedEventInputStream(header, serializedEvent.serializedData());
         } catch (IOException e) {
             throw new MessagingPlatformException(ErrorCode.OTHER, "Unable to writed to Coded Stream", e);
         }
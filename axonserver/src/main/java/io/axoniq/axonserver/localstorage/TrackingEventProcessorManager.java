@@ -24,15 +24,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
-
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import java.util.function.LongSupplier;
 
 /**
  * Manages all tracking event processors for a single context.
@@ -48,9 +47,22 @@ public class TrackingEventProcessorManager {
     private final ScheduledExecutorService scheduledExecutorService;
     private final Set<EventTracker> eventTrackerSet = ConcurrentHashMap.newKeySet();
     private final AtomicBoolean replicationRunning = new AtomicBoolean();
+    /**
+     * Set when new events or new permits are available while sending events is already in progress.
+     */
+    private final AtomicBoolean runRequested = new AtomicBoolean();
     private final String context;
     private final Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder;
     private final int blacklistedSendAfter;
+    /**
+     * Shared cache of the most recent events, null when tail cache is disabled.
+     */
+    private final EventTailCache tailCache;
+    /**
+     * Guards the tail cache, which is filled and read by the run sending events and closed by {@link #close()}.
+     */
+    private final Object tailCacheLock = new Object();
+    private boolean tailCacheClosed;
 
     /**
      * Constructor for {@link TrackingEventProcessorManager}.
@@ -58,7 +70,22 @@ public class TrackingEventProcessorManager {
      * @param blacklistedSendAfter max number of ignored events before sending next event
      */
     public TrackingEventProcessorManager(EventStorageEngine eventStorageEngine, int blacklistedSendAfter) {
-        this(eventStorageEngine.getType().getContext(), eventStorageEngine::getGlobalIterator, blacklistedSendAfter);
+        this(eventStorageEngine, blacklistedSendAfter, 0);
+    }
+
+    /**
+     * Constructor for {@link TrackingEventProcessorManager}.
+     * @param eventStorageEngine the event storage engine
+     * @param blacklistedSendAfter max number of ignored events before sending next event
+     * @param tailCacheSize number of recent events shared by trackers that are close to the head, 0 to disable
+     */
+    public TrackingEventProcessorManager(EventStorageEngine eventStorageEngine, int blacklistedSendAfter,
+                                         int tailCacheSize) {
+        this(eventStorageEngine.getType().getContext(),
+             eventStorageEngine::getGlobalIterator,
+             eventStorageEngine::getLastToken,
+             blacklistedSendAfter,
+             tailCacheSize);
     }
 
     /**
@@ -68,19 +95,39 @@ public class TrackingEventProcessorManager {
      * @param blacklistedSendAfter max number of ignored events before sending next event
      */
     TrackingEventProcessorManager(String context, Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder, int blacklistedSendAfter) {
+        this(context, iteratorBuilder, () -> -1L, blacklistedSendAfter, 0);
+    }
+
+    /**
+     * Constructor for {@link TrackingEventProcessorManager} for easier testing.
+     * @param context the context for the storage engine
+     * @param iteratorBuilder function that creates an event iterator
+     * @param lastTokenSupplier supplies the last token in the event store
+     * @param blacklistedSendAfter max number of ignored events before sending next event
+     * @param tailCacheSize number of recent events shared by trackers that are close to the head, 0 to disable
+     */
+    TrackingEventProcessorManager(String context,
+                                  Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder,
+                                  LongSupplier lastTokenSupplier,
+                                  int blacklistedSendAfter,
+                                  int tailCacheSize) {
         this.context = context;
         this.iteratorBuilder = iteratorBuilder;
         // Use 2 threads (one to send events and one to avoid queuing of reschedules.
         this.scheduledExecutorService = Executors.newScheduledThreadPool(2, new CustomizableThreadFactory(
                 context + "-trackers-"));
         this.blacklistedSendAfter = blacklistedSendAfter;
+        this.tailCache = tailCacheSize > 0 ?
+                new EventTailCache(context, tailCacheSize, MAX_EVENTS_PER_RUN, iteratorBuilder, lastTokenSupplier) :
+                null;
     }
 
     /**
      * Send events to all tracking event processors until there are no new events or no tracking event processors ready to
-     * receive events. If there are tracking event processors left after processing one run, it reschedules to try again
-     * after 100ms.
-     * Only one instance of this operation will run.
+     * receive events. There is no polling for new events, the operation is started again when new events are stored
+     * or tracking event processors get new permits (see {@link #reschedule()}).
+     * Only one instance of this operation will run. When the tail cache is enabled, it is filled once per run, before
+     * the trackers read from it.
      */
     private void sendEvents() {
         if (!replicationRunning.compareAndSet(false, true)) {
@@ -88,18 +135,12 @@ public class TrackingEventProcessorManager {
             return;
         }
         try {
-            int runsWithoutChanges = 0;
+            runRequested.set(false);
+            int sent;
             List<EventTracker> failedReplicators = new ArrayList<>();
-            while (runsWithoutChanges < 3) {
-                int sent = 0;
+            do {
                 failedReplicators.clear();
-                for (EventTracker raftPeer : eventTrackerSet) {
-                    try {
-                        sent += raftPeer.sendNext();
-                    } catch (Throwable ex) {
-                        failedReplicators.add(raftPeer);
-                    }
-                }
+                sent = sendToTrackers(failedReplicators);
                 if (!failedReplicators.isEmpty()) {
                     logger.debug("{}: removing {} replicators",
                                 context,
@@ -109,23 +150,32 @@ public class TrackingEventProcessorManager {
                                 context,
                                 eventTrackerSet.size());
                 }
-
-                if (sent == 0) {
-                    runsWithoutChanges++;
-                } else {
-                    runsWithoutChanges = 0;
-                }
-            }
+            } while (sent > 0);
         } finally {
             replicationRunning.set(false);
-            if (!eventTrackerSet.isEmpty()) {
-                scheduledExecutorService.schedule(this::sendEvents,
-                                                  100,
-                                                  MILLISECONDS);
+            // a reschedule request may have been missed while running, as it only starts a new run when no run is active
+            if (runRequested.get()) {
+                reschedule();
             }
         }
     }
 
+    private int sendToTrackers(List<EventTracker> failedReplicators) {
+        int sent = 0;
+        synchronized (tailCacheLock) {
+            if (tailCache != null && !tailCacheClosed) {
+                tailCache.fill();
+            }
+            for (EventTracker raftPeer : eventTrackerSet) {
+                try {
+                    sent += raftPeer.sendNext();
+                } catch (Throwable ex) {
+                    failedReplicators.add(raftPeer);
+                }
+            }
+        }
+        return sent;
+    }
 
     /**
      * Creates a new event tracker.
@@ -142,11 +192,18 @@ public class TrackingEventProcessorManager {
     }
 
     /**
-     * Starts the sendEvents operation if it is not running.
+     * Starts the sendEvents operation if it is not running. If it is running, the operation is started again when
+     * the current run completes. Called when new events are stored and when tracking event processors receive new
+     * permits.
      */
     public void reschedule() {
+        runRequested.set(true);
         if (!replicationRunning.get()) {
-            this.scheduledExecutorService.execute(this::sendEvents);
+            try {
+                this.scheduledExecutorService.execute(this::sendEvents);
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                logger.debug("{}: not sending events, tracking event processor manager is closed", context);
+            }
         }
     }
 
@@ -177,6 +234,12 @@ public class TrackingEventProcessorManager {
      */
     public void close() {
         stopAll();
+        if (tailCache != null) {
+            synchronized (tailCacheLock) {
+                tailCacheClosed = true;
+                tailCache.close();
+            }
+        }
         scheduledExecutorService.shutdown();
     }
 
@@ -201,7 +264,7 @@ public class TrackingEventProcessorManager {
         private final String client;
         private volatile CloseableIterator<SerializedEventWithToken> eventIterator;
         private volatile boolean running = true;
-        private final Set<PayloadDescription> blacklistedTypes = new CopyOnWriteArraySet<>();
+        private final PayloadTypeSet blacklistedTypes = new PayloadTypeSet();
         private volatile int force = blacklistedSendAfter;
         private final boolean forceReadingFromLeader;
 
@@ -219,18 +282,20 @@ public class TrackingEventProcessorManager {
                 throw new MessagingPlatformException(ErrorCode.OTHER,
                                                      context + ":Tracking event processor stopped for " + client);
             }
-            if (eventIterator == null) {
-                eventIterator = iteratorBuilder.apply(nextToken.get());
+            if (permits.get() <= 0) {
+                return 0;
             }
-
             int count = 0;
             try {
                 while (running
                         && permits.get() > 0
                         && count < MAX_EVENTS_PER_RUN
-                        && eventIterator.hasNext()
                 ) {
-                    SerializedEventWithToken next = eventIterator.next();
+                    SerializedEventWithToken next = nextEvent();
+                    if (next == null) {
+                        break;
+                    }
+                    nextToken.set(next.getToken() + 1);
                     if( !blacklisted(next)) {
                         eventStream.onNext(next.asInputStream());
                         if (permits.decrementAndGet() == 0) {
@@ -250,14 +315,34 @@ public class TrackingEventProcessorManager {
             return count;
         }
 
-        private boolean blacklisted(SerializedEventWithToken next) {
-            return force > 1 && !blacklistedTypes.isEmpty() && blacklistedTypes.contains(payloadType(next));
+        /**
+         * Reads the next event for this tracker. If the tail cache contains the next event for this tracker, the event
+         * is taken from the cache and the private iterator of the tracker is closed. Otherwise the event is read using
+         * the private iterator.
+         *
+         * @return the next event or null if there is no next event available
+         */
+        private SerializedEventWithToken nextEvent() {
+            if (tailCache != null && tailCache.covers(nextToken.get())) {
+                closeIterator();
+                return tailCache.get(nextToken.get());
+            }
+            if (eventIterator == null) {
+                eventIterator = iteratorBuilder.apply(nextToken.get());
+            }
+            return eventIterator.hasNext() ? eventIterator.next() : null;
         }
 
-        private PayloadDescription payloadType(SerializedEventWithToken next) {
-            return PayloadDescription.newBuilder().
-                    setRevision(next.asEvent().getPayload().getRevision()).setType(next.asEvent().getPayload().getType()).
-                    build();
+        private void closeIterator() {
+            CloseableIterator<SerializedEventWithToken> iterator = eventIterator;
+            if (iterator != null) {
+                eventIterator = null;
+                iterator.close();
+            }
+        }
+
+        private boolean blacklisted(SerializedEventWithToken next) {
+            return force > 1 && !blacklistedTypes.isEmpty() && blacklistedTypes.contains(next.getSerializedEvent());
         }
 
         private void sendError(Exception ex) {
@@ -271,10 +356,7 @@ public class TrackingEventProcessorManager {
 
         public void close() {
             running = false;
-            if (eventIterator != null) {
-                eventIterator.close();
-                eventIterator = null;
-            }
+            closeIterator();
         }
 
         public void start() {
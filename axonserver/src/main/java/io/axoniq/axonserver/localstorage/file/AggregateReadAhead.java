@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads segments ahead for aggregate reads that span multiple segments. The aggregate event cursor of the event store
+ * submits the reads for up to {@code maxReadAhead} upcoming segments while the events from the current segment are
+ * passed to the consumer. The reads share the thread pool of the event store.
+ * <p>
+ * For each segment read ahead, the read ahead counts whether the segment was already read when it was needed.
+ *
+ * @since 4.5
+ */
+class AggregateReadAhead {
+
+    private final SegmentBasedEventStore eventStore;
+    private final ExecutorService readerPool;
+    private final int maxReadAhead;
+    private final Counter readyCounter;
+    private final Counter waitedCounter;
+
+    /**
+     * @param eventStore    the event store containing the segments
+     * @param readerPool    the thread pool to read the segments ahead, owned by the event store
+     * @param maxReadAhead  maximum number of segments to read ahead
+     * @param readyCounter  counter for segments that were read before they were needed
+     * @param waitedCounter counter for segments that were not yet read when they were needed
+     */
+    AggregateReadAhead(SegmentBasedEventStore eventStore, ExecutorService readerPool, int maxReadAhead,
+                       Counter readyCounter, Counter waitedCounter) {
+        this.eventStore = eventStore;
+        this.readerPool = readerPool;
+        this.maxReadAhead = maxReadAhead;
+        this.readyCounter = readyCounter;
+        this.waitedCounter = waitedCounter;
+    }
+
+    /**
+     * @return the maximum number of segments to read ahead for a single aggregate read
+     */
+    int maxReadAhead() {
+        return maxReadAhead;
+    }
+
+    /**
+     * Starts reading the events at the given positions in a segment on the read ahead pool.
+     *
+     * @param segment           the segment to read
+     * @param positions         the positions of the events in the segment
+     * @param minSequenceNumber the first sequence number to retrieve
+     * @param maxSequenceNumber the last sequence number to retrieve (exclusive)
+     * @return the future events of the segment
+     */
+    Future<List<SerializedEvent>> submit(long segment, List<Integer> positions, long minSequenceNumber,
+                                         long maxSequenceNumber) {
+        return readerPool.submit(() -> {
+            List<SerializedEvent> events = new ArrayList<>();
+            eventStore.retrieveEventsForAnAggregate(segment,
+                                                    positions,
+                                                    minSequenceNumber,
+                                                    maxSequenceNumber,
+                                                    events::add,
+                                                    Long.MAX_VALUE,
+                                                    0);
+            return events;
+        });
+    }
+
+    /**
+     * Waits for the events of a segment that was read ahead, and counts whether the segment was read in time.
+     *
+     * @param read the future returned by {@link #submit(long, List, long, long)}
+     * @return the events of the segment
+     */
+    List<SerializedEvent> get(Future<List<SerializedEvent>> read) {
+        if (read.isDone()) {
+            readyCounter.increment();
+        } else {
+            waitedCounter.increment();
+        }
+        return waitFor(read);
+    }
+
+    private static List<SerializedEvent> waitFor(Future<List<SerializedEvent>> read) {
+        try {
+            return read.get();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new MessagingPlatformException(ErrorCode.INTERRUPTED,
+                                                 "Interrupted while reading aggregate",
+                                                 interruptedException);
+        } catch (ExecutionException executionException) {
+            Throwable cause = executionException.getCause();
+            if (cause instanceof MessagingPlatformException) {
+                throw (MessagingPlatformException) cause;
+            }
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Failed to read aggregate events",
+                                                 cause);
+        }
+    }
+}
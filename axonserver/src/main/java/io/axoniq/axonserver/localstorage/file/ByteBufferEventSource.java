@@ -14,6 +14,7 @@ import io.axoniq.axonserver.localstorage.transformation.EventTransformer;
 import io.axoniq.axonserver.localstorage.transformation.EventTransformerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -28,6 +29,7 @@ public class ByteBufferEventSource implements EventSource {
     private final ByteBuffer buffer;
     private final boolean main;
     private final AtomicInteger duplicatesCount = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
     private final String path;
     // indicates if the low-level clean method should be called (needed to free file lock on windows)
     private final boolean cleanerHack;
@@ -102,6 +104,24 @@ public class ByteBufferEventSource implements EventSource {
         return new EventByteBufferIterator(this, segment, startToken);
     }
 
+    @Override
+    public EventIterator createEventIterator(long segment, long startToken, TokenOffsetIndex.Entry startTransaction) {
+        return new EventByteBufferIterator(this,
+                                           startTransaction.getToken(),
+                                           startTransaction.getPosition(),
+                                           startToken);
+    }
+
+    @Override
+    public TransactionIterator createTransactionIterator(long segment, long token, boolean validating,
+                                                         TokenOffsetIndex.Entry startTransaction) {
+        return new TransactionByteBufferIterator(this,
+                                                 startTransaction.getToken(),
+                                                 startTransaction.getPosition(),
+                                                 token,
+                                                 validating);
+    }
+
     public ByteBuffer getBuffer() {
         return buffer;
     }
@@ -116,9 +136,22 @@ public class ByteBufferEventSource implements EventSource {
         }
     }
 
+    /**
+     * Releases the memory mapped buffer when there are no more duplicates in use, regardless of the operating system.
+     * The source must not be used to create new duplicates after this call.
+     *
+     * @param delay delay in seconds before the buffer is released
+     */
+    public void release(long delay) {
+        if (main) {
+            CleanUtils.cleanDirectBuffer(getBuffer(), () -> duplicatesCount.get() == 0, delay, path);
+        }
+    }
+
     @Override
     public void close() {
-        if( onClose != null) {
+        // a duplicate must only be counted down once, the buffer may be released when the count reaches 0
+        if (onClose != null && closed.compareAndSet(false, true)) {
             onClose.run();
         }
     }
@@ -29,7 +29,8 @@ public class EmbeddedDBProperties {
 
     public EmbeddedDBProperties(SystemInfoProvider systemInfoProvider) {
         event = new StorageProperties(systemInfoProvider);
-        snapshot = new StorageProperties(systemInfoProvider, ".snapshots", ".sindex", ".sbloom", ".snindex", ".sxref");
+        snapshot = new StorageProperties(systemInfoProvider, ".snapshots", ".sindex", ".sbloom", ".snindex", ".sxref",
+                                         ".smeta", ".stindex");
     }
 
     public StorageProperties getEvent() {
@@ -26,14 +26,25 @@ public class EventByteBufferIterator extends EventIterator {
 
 
     public EventByteBufferIterator(ByteBufferEventSource eventSource, long segment, long token) {
+        this(eventSource, segment, 5, token);
+    }
+
+    /**
+     * @param eventSource         the source to read the events from
+     * @param transactionToken    the token of the first event in the transaction to start reading from
+     * @param transactionPosition the position of the transaction to start reading from
+     * @param token               the token of the first event to return
+     */
+    public EventByteBufferIterator(ByteBufferEventSource eventSource, long transactionToken, int transactionPosition,
+                                   long token) {
         this.eventSource = eventSource;
         this.reader = eventSource.getBuffer();
-        this.currentSequenceNumber = segment;
-        forwardTo(token);
+        this.currentSequenceNumber = transactionToken;
+        forwardTo(token, transactionPosition);
     }
 
-    private void forwardTo(long firstSequence) {
-            reader.position(5);
+    private void forwardTo(long firstSequence, int transactionPosition) {
+            reader.position(transactionPosition);
             while (firstSequence > currentSequenceNumber) {
 
                 int size = reader.getInt();
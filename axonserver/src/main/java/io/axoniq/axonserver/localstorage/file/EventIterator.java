@@ -42,6 +42,17 @@ public abstract class EventIterator implements Iterator<EventInformation>, AutoC
     }
 
     public Long getTokenAfter(long instant) {
+        return getTokenAfter(instant, -1);
+    }
+
+    /**
+     * Finds the token before the first event after the instant.
+     *
+     * @param instant          the timestamp to find the token for
+     * @param lastTokenIfOlder the token to return when all events are at or before the instant, or -1 when not known
+     * @return the token before the first event after the instant, or null when there are no events
+     */
+    public Long getTokenAfter(long instant, long lastTokenIfOlder) {
         if (hasNext()) {
             EventInformation event = next();
             if (event.getEvent().getTimestamp() <= instant) {
@@ -51,6 +62,9 @@ public abstract class EventIterator implements Iterator<EventInformation>, AutoC
                         return event.getToken()-1;
                     }
                 }
+                if (lastTokenIfOlder >= 0) {
+                    return lastTokenIfOlder;
+                }
             }
             return event.getToken()-1;
         }
@@ -25,4 +25,33 @@ public interface EventSource extends AutoCloseable {
     TransactionIterator createTransactionIterator(long segment, long token, boolean validating);
 
     EventIterator createEventIterator(long segment, long startToken);
+
+    /**
+     * Creates an iterator over the events starting at the given token, starting to search for the token at a known
+     * transaction position instead of at the start of the segment.
+     *
+     * @param segment          the segment number
+     * @param startToken       the token of the first event to return
+     * @param startTransaction a transaction in the segment starting at or before the start token
+     * @return iterator over the events
+     */
+    default EventIterator createEventIterator(long segment, long startToken,
+                                              TokenOffsetIndex.Entry startTransaction) {
+        return createEventIterator(segment, startToken);
+    }
+
+    /**
+     * Creates an iterator over the transactions starting at the given token, starting to search for the token at a
+     * known transaction position instead of at the start of the segment.
+     *
+     * @param segment          the segment number
+     * @param token            the token of the first transaction to return
+     * @param validating       flag to indicate that the checksums of the transactions must be validated
+     * @param startTransaction a transaction in the segment starting at or before the token
+     * @return iterator over the transactions
+     */
+    default TransactionIterator createTransactionIterator(long segment, long token, boolean validating,
+                                                          TokenOffsetIndex.Entry startTransaction) {
+        return createTransactionIterator(segment, token, validating);
+    }
 }
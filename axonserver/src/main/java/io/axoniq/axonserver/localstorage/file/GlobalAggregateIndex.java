@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index over all completed segments of an event store, containing for each aggregate the segments that contain events
+ * for the aggregate and the last sequence number of the aggregate in each of these segments. Segments are added to the
+ * index when they are completed, each addition is committed to disk separately.
+ * <p>
+ * The segments for an aggregate are stored as a long array of (segment, last sequence number) pairs, ordered by
+ * segment, most recent segment first.
+ *
+ * @since 4.5
+ */
+class GlobalAggregateIndex implements Closeable {
+
+    private static final String AGGREGATE_MAP = "aggregateSegments";
+    private static final String LAST_SEGMENT = "lastSegment";
+    private final DB db;
+    private final HTreeMap<String, long[]> aggregateSegments;
+    private final Atomic.Long lastSegment;
+
+    /**
+     * Opens the global index, creating the file if it does not exist.
+     *
+     * @param file              the global index file
+     * @param storageProperties storage engine configuration
+     */
+    GlobalAggregateIndex(File file, StorageProperties storageProperties) {
+        DBMaker.Maker maker = DBMaker.fileDB(file)
+                                     .transactionEnable();
+        if (storageProperties.isUseMmapIndex()) {
+            maker.fileMmapEnable();
+            if (storageProperties.isForceCleanMmapIndex()) {
+                maker.cleanerHackEnable();
+            }
+        } else {
+            maker.fileChannelEnable();
+        }
+        this.db = maker.make();
+        this.aggregateSegments = db.hashMap(AGGREGATE_MAP, Serializer.STRING, Serializer.LONG_ARRAY)
+                                   .createOrOpen();
+        this.lastSegment = db.atomicLong(LAST_SEGMENT, -1).createOrOpen();
+        db.commit();
+    }
+
+    /**
+     * Returns the last segment added to the index.
+     *
+     * @return the last segment added to the index, -1 when the index is empty
+     */
+    long lastSegment() {
+        return lastSegment.get();
+    }
+
+    /**
+     * Adds the aggregates in a completed segment to the index.
+     *
+     * @param segment               the segment number
+     * @param positionsPerAggregate the positions of the events per aggregate in the segment
+     */
+    void add(long segment, Map<String, IndexEntries> positionsPerAggregate) {
+        positionsPerAggregate.forEach((aggregateId, entries) -> {
+            if (!entries.isEmpty()) {
+                aggregateSegments.put(aggregateId, insert(aggregateSegments.get(aggregateId),
+                                                          segment,
+                                                          entries.lastSequenceNumber()));
+            }
+        });
+        lastSegment.set(Math.max(lastSegment.get(), segment));
+        db.commit();
+    }
+
+    /**
+     * Returns the (segment, last sequence number) pairs for an aggregate, most recent segment first.
+     *
+     * @param aggregateId the aggregate identifier
+     * @return the segments and last sequence numbers or null when the aggregate is not in the index
+     */
+    long[] get(String aggregateId) {
+        return aggregateSegments.get(aggregateId);
+    }
+
+    /**
+     * Removes a segment from the index. This requires a scan of the complete index.
+     *
+     * @param segment the segment number
+     */
+    void remove(long segment) {
+        long newLastSegment = -1;
+        Map<String, long[]> changed = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : aggregateSegments.entrySet()) {
+            long[] pairs = entry.getValue();
+            long[] updated = remove(pairs, segment);
+            if (updated.length != pairs.length) {
+                changed.put(entry.getKey(), updated);
+            }
+            if (updated.length > 0) {
+                newLastSegment = Math.max(newLastSegment, updated[0]);
+            }
+        }
+        changed.forEach((aggregateId, updated) -> {
+            if (updated.length == 0) {
+                aggregateSegments.remove(aggregateId);
+            } else {
+                aggregateSegments.put(aggregateId, updated);
+            }
+        });
+        lastSegment.set(newLastSegment);
+        db.commit();
+    }
+
+    private static long[] insert(long[] pairs, long segment, long lastSequenceNumber) {
+        long[] current = pairs == null ? new long[0] : remove(pairs, segment);
+        long[] updated = new long[current.length + 2];
+        int index = 0;
+        while (index < current.length && current[index] > segment) {
+            index += 2;
+        }
+        System.arraycopy(current, 0, updated, 0, index);
+        updated[index] = segment;
+        updated[index + 1] = lastSequenceNumber;
+        System.arraycopy(current, index, updated, index + 2, current.length - index);
+        return updated;
+    }
+
+    private static long[] remove(long[] pairs, long segment) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] == segment) {
+                long[] updated = Arrays.copyOf(pairs, pairs.length - 2);
+                System.arraycopy(pairs, i + 2, updated, i, pairs.length - i - 2);
+                return updated;
+            }
+        }
+        return pairs;
+    }
+
+    @Override
+    public void close() {
+        if (!db.isClosed()) {
+            db.close();
+        }
+    }
+}
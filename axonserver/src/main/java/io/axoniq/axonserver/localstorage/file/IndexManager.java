@@ -9,10 +9,12 @@
 
 package io.axoniq.axonserver.localstorage.file;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 /**
@@ -83,6 +85,28 @@ public interface IndexManager {
     SortedMap<Long, IndexEntries> lookupAggregate(String aggregateId, long firstSequenceNumber, long lastSequenceNumber,
                                                   long maxResults, long minToken);
 
+    /**
+     * Finds all locations of events for multiple aggregates, starting at a given sequence number per aggregate. The
+     * default implementation looks up the aggregates one by one.
+     *
+     * @param firstSequenceNumbers minimum sequence number (inclusive) per aggregate identifier
+     * @return map of positions per segment, per aggregate identifier. Aggregates without events are not included.
+     */
+    default Map<String, SortedMap<Long, IndexEntries>> lookupAggregates(Map<String, Long> firstSequenceNumbers) {
+        Map<String, SortedMap<Long, IndexEntries>> results = new HashMap<>();
+        firstSequenceNumbers.forEach((aggregateId, firstSequenceNumber) -> {
+            SortedMap<Long, IndexEntries> positions = lookupAggregate(aggregateId,
+                                                                      firstSequenceNumber,
+                                                                      Long.MAX_VALUE,
+                                                                      Long.MAX_VALUE,
+                                                                      0);
+            if (!positions.isEmpty()) {
+                results.put(aggregateId, positions);
+            }
+        });
+        return results;
+    }
+
     /**
      * Stops index manager and optionally deletes all indexes.
      *
@@ -116,4 +140,58 @@ public interface IndexManager {
      * @param indexEntries list of index entries to add
      */
     void addToActiveSegment(Long segment, Map<String, List<IndexEntry>> indexEntries);
+
+    /**
+     * Adds the metadata of a number of events to an active segment. The metadata is stored when the segment is
+     * completed.
+     *
+     * @param segment  the segment number
+     * @param metadata the metadata of the new events
+     */
+    default void addToActiveSegment(long segment, SegmentMetadata metadata) {
+    }
+
+    /**
+     * Returns the metadata for a segment. For an active segment this contains the metadata for the events added so
+     * far.
+     *
+     * @param segment the segment number
+     * @return the metadata for the segment or an empty optional when there is no metadata available for the segment
+     */
+    default Optional<SegmentMetadata> getSegmentMetadata(long segment) {
+        return Optional.empty();
+    }
+
+    /**
+     * Registers the position of a transaction written in an active segment.
+     *
+     * @param segment      the segment number
+     * @param position     the position of the transaction in the segment
+     * @param nextToken    the token of the first event after the transaction
+     * @param nextPosition the position directly after the transaction
+     */
+    default void addTransactionToActiveSegment(long segment, int position, long nextToken, int nextPosition) {
+    }
+
+    /**
+     * Finds the position of the nearest transaction starting at or before the given token in a segment.
+     *
+     * @param segment the segment number
+     * @param token   the token to find
+     * @return the token and position of the transaction, or an empty optional if no position is known
+     */
+    default Optional<TokenOffsetIndex.Entry> getTransactionPosition(long segment, long token) {
+        return Optional.empty();
+    }
+
+    /**
+     * Registers that the index for a completed segment is being rebuilt. Until the rebuild completes, the partial index
+     * of the segment is not used, and lookups that need to check completed segments wait (for a limited time) for the
+     * rebuild.
+     *
+     * @param segment the segment number
+     * @param rebuilt completes when the index for the segment is rebuilt
+     */
+    default void indexRebuildPending(long segment, CompletableFuture<Void> rebuilt) {
+    }
 }
@@ -24,10 +24,22 @@ public class InputStreamEventIterator extends EventIterator {
     private final PositionKeepingDataInputStream reader;
 
     public InputStreamEventIterator(InputStreamEventSource eventSource, long segment, long start) {
+        this(eventSource, segment, eventSource.getStream().position(), start);
+    }
+
+    /**
+     * @param eventSource         the source to read the events from
+     * @param transactionToken    the token of the first event in the transaction to start reading from
+     * @param transactionPosition the position of the transaction to start reading from
+     * @param start               the token of the first event to return
+     */
+    public InputStreamEventIterator(InputStreamEventSource eventSource, long transactionToken,
+                                    int transactionPosition, long start) {
         reader = eventSource.getStream();
         this.eventSource = eventSource;
-        currentSequenceNumber = segment;
+        currentSequenceNumber = transactionToken;
         try {
+            reader.position(transactionPosition);
             forwardTo(start);
         } catch (IOException e) {
             throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR, e.getMessage(), e);
@@ -72,6 +72,24 @@ public class InputStreamEventSource implements EventSource {
         return new InputStreamEventIterator(this, segment, startToken);
     }
 
+    @Override
+    public EventIterator createEventIterator(long segment, long startToken, TokenOffsetIndex.Entry startTransaction) {
+        return new InputStreamEventIterator(this,
+                                            startTransaction.getToken(),
+                                            startTransaction.getPosition(),
+                                            startToken);
+    }
+
+    @Override
+    public TransactionIterator createTransactionIterator(long segment, long token, boolean validating,
+                                                         TokenOffsetIndex.Entry startTransaction) {
+        return new InputStreamTransactionIterator(this,
+                                                  startTransaction.getToken(),
+                                                  startTransaction.getPosition(),
+                                                  token,
+                                                  validating);
+    }
+
     public PositionKeepingDataInputStream getStream() {
         return dataInputStream;
     }
@@ -15,7 +15,16 @@ import io.axoniq.axonserver.localstorage.EventTypeContext;
 import io.axoniq.axonserver.localstorage.transformation.EventTransformerFactory;
 import io.axoniq.axonserver.metric.MeterFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -30,6 +39,11 @@ public class InputStreamEventStore extends SegmentBasedEventStore implements Rea
 
     private final SortedSet<Long> segments = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
     private final EventTransformerFactory eventTransformerFactory;
+    /**
+     * Memory mapped segments, in least recently used order. Readers get a duplicate of the mapped segment, the mapping
+     * is released when the segment is evicted and all duplicates are closed.
+     */
+    private final Map<Long, ByteBufferEventSource> mappedSegments = new LinkedHashMap<>(16, 0.75f, true);
 
     public InputStreamEventStore(EventTypeContext context, IndexManager indexManager,
                                  EventTransformerFactory eventTransformerFactory,
@@ -54,13 +68,18 @@ public class InputStreamEventStore extends SegmentBasedEventStore implements Rea
 
     @Override
     public void close(boolean deleteData) {
+        stopIndexRebuild();
+        stopAggregateReadAhead();
+        releaseMappedSegments();
         if (deleteData) {
             segments.forEach(this::removeSegment);
+            FileUtils.delete(storageProperties.indexRebuildMarker(context));
         }
     }
 
 
     private void removeSegment(long segment) {
+        releaseMappedSegment(segment);
         if (segments.remove(segment) && (!FileUtils.delete(storageProperties.dataFile(context, segment)) ||
                 !indexManager.remove(segment))) {
             throw new MessagingPlatformException(ErrorCode.DATAFILE_WRITE_ERROR,
@@ -72,6 +91,9 @@ public class InputStreamEventStore extends SegmentBasedEventStore implements Rea
     @Override
     public Optional<EventSource> getEventSource(long segment) {
         logger.debug("Get eventsource: {}", segment);
+        if (storageProperties.isUseMmapSegments()) {
+            return Optional.ofNullable(getMapped(segment));
+        }
         InputStreamEventSource eventSource = get(segment, false);
         logger.trace("result={}", eventSource);
         if (eventSource == null) {
@@ -100,6 +122,64 @@ public class InputStreamEventStore extends SegmentBasedEventStore implements Rea
                                           storageProperties);
     }
 
+    private ByteBufferEventSource getMapped(long segment) {
+        if (!segments.contains(segment)) {
+            return null;
+        }
+        synchronized (mappedSegments) {
+            ByteBufferEventSource eventSource = mappedSegments.get(segment);
+            if (eventSource == null) {
+                eventSource = map(segment);
+                mappedSegments.put(segment, eventSource);
+                evictMappedSegments();
+            }
+            return eventSource.duplicate();
+        }
+    }
+
+    private ByteBufferEventSource map(long segment) {
+        File file = storageProperties.dataFile(context, segment);
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            logger.debug("{}: mapping segment {}", context, segment);
+            return new ByteBufferEventSource(file.getAbsolutePath(),
+                                             fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()),
+                                             eventTransformerFactory,
+                                             storageProperties);
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Failed to open segment: " + segment,
+                                                 ioException);
+        }
+    }
+
+    private void evictMappedSegments() {
+        Iterator<ByteBufferEventSource> iterator = mappedSegments.values().iterator();
+        while (mappedSegments.size() > storageProperties.getMaxMmapSegments() && iterator.hasNext()) {
+            ByteBufferEventSource evicted = iterator.next();
+            iterator.remove();
+            evicted.release(storageProperties.getSecondaryCleanupDelay());
+        }
+    }
+
+    private void releaseMappedSegment(long segment) {
+        ByteBufferEventSource eventSource;
+        synchronized (mappedSegments) {
+            eventSource = mappedSegments.remove(segment);
+        }
+        if (eventSource != null) {
+            eventSource.release(storageProperties.getSecondaryCleanupDelay());
+        }
+    }
+
+    private void releaseMappedSegments() {
+        List<ByteBufferEventSource> eventSources;
+        synchronized (mappedSegments) {
+            eventSources = new ArrayList<>(mappedSegments.values());
+            mappedSegments.clear();
+        }
+        eventSources.forEach(eventSource -> eventSource.release(storageProperties.getSecondaryCleanupDelay()));
+    }
+
     @Override
     protected void recreateIndex(long segment) {
         try (InputStreamEventSource is = get(segment, true);
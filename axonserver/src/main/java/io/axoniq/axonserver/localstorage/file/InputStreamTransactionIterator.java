@@ -32,11 +32,24 @@ public class InputStreamTransactionIterator implements TransactionIterator {
     private SerializedTransactionWithToken next;
 
     public InputStreamTransactionIterator(InputStreamEventSource eventSource, long segment, long start, boolean validating) {
+        this(eventSource, segment, eventSource.getStream().position(), start, validating);
+    }
+
+    /**
+     * @param eventSource         the source to read the transactions from
+     * @param transactionToken    the token of the first event in the transaction to start reading from
+     * @param transactionPosition the position of the transaction to start reading from
+     * @param start               the token of the first transaction to return
+     * @param validating          flag to indicate that the checksums of the transactions must be validated
+     */
+    public InputStreamTransactionIterator(InputStreamEventSource eventSource, long transactionToken,
+                                          int transactionPosition, long start, boolean validating) {
         this.eventSource = eventSource;
         this.reader = eventSource.getStream();
-        this.currentSequenceNumber = segment;
+        this.currentSequenceNumber = transactionToken;
         this.validating = validating;
         try {
+            reader.position(transactionPosition);
             forwardTo(start);
         } catch (IOException e) {
             throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR, e.getMessage(), e);
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import java.io.File;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Segment index stored as a MapDB hash map of aggregate identifiers and the positions of the events for the
+ * aggregates.
+ *
+ * @since 4.5
+ */
+class MapDbSegmentIndex implements SegmentIndex {
+
+    private static final String AGGREGATE_MAP = "aggregateMap";
+    private final DB db;
+    private final Map<String, IndexEntries> positions;
+
+    /**
+     * Opens an existing index file (read only).
+     *
+     * @param file              the index file
+     * @param storageProperties storage engine configuration
+     */
+    MapDbSegmentIndex(File file, StorageProperties storageProperties) {
+        DBMaker.Maker maker = DBMaker.fileDB(file)
+                                     .readOnly()
+                                     .fileLockDisable();
+        this.db = configure(maker, storageProperties).make();
+        this.positions = db.hashMap(AGGREGATE_MAP, Serializer.STRING, StandardIndexEntriesSerializer.get())
+                           .createOrOpen();
+    }
+
+    /**
+     * Writes a new index file.
+     *
+     * @param file                  the file to write
+     * @param positionsPerAggregate the positions of the events per aggregate
+     * @param storageProperties     storage engine configuration
+     */
+    static void write(File file, Map<String, IndexEntries> positionsPerAggregate,
+                      StorageProperties storageProperties) {
+        DB db = configure(DBMaker.fileDB(file), storageProperties).make();
+        try (HTreeMap<String, IndexEntries> map = db.hashMap(AGGREGATE_MAP, Serializer.STRING,
+                                                             StandardIndexEntriesSerializer.get())
+                                                    .createOrOpen()) {
+            map.putAll(positionsPerAggregate);
+        }
+        db.close();
+    }
+
+    private static DBMaker.Maker configure(DBMaker.Maker maker, StorageProperties storageProperties) {
+        if (storageProperties.isUseMmapIndex()) {
+            maker.fileMmapEnable();
+            if (storageProperties.isForceCleanMmapIndex()) {
+                maker.cleanerHackEnable();
+            }
+        } else {
+            maker.fileChannelEnable();
+        }
+        return maker;
+    }
+
+    @Override
+    public IndexEntries getPositions(String aggregateId) {
+        return positions.get(aggregateId);
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, IndexEntries> action) {
+        positions.forEach(action);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return db.isClosed();
+    }
+
+    @Override
+    public void close() {
+        if (!db.isClosed()) {
+            db.close();
+        }
+    }
+}
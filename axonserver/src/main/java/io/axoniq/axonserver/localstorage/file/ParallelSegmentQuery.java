@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.grpc.event.EventWithToken;
+import io.axoniq.axonserver.localstorage.QueryOptions;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Executes an ad-hoc query over the segments of an event store using multiple threads. Each segment is read by a
+ * separate task, which applies the token and timestamp filters from the query options. At most {@code maxReaders}
+ * segments are read concurrently for a query, the readers share a fixed size thread pool.
+ * <p>
+ * Matching events are always passed to the consumer on the calling thread. For ordered queries the events are passed
+ * in the same order as a sequential query would, segment by segment. For unordered queries the events are passed as
+ * soon as they are read.
+ *
+ * @since 4.5
+ */
+class ParallelSegmentQuery {
+
+    private static final int BUFFER_SIZE = 1000;
+    private static final long OFFER_TIMEOUT = 100;
+    private static final ExecutorService readerPool = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            readerThreadFactory());
+
+    private final SegmentBasedEventStore eventStore;
+    private final QueryOptions queryOptions;
+    private final int maxReaders;
+
+    /**
+     * @param eventStore   the event store containing the segments
+     * @param queryOptions the query options
+     * @param maxReaders   maximum number of segments to read concurrently
+     */
+    ParallelSegmentQuery(SegmentBasedEventStore eventStore, QueryOptions queryOptions, int maxReaders) {
+        this.eventStore = eventStore;
+        this.queryOptions = queryOptions;
+        this.maxReaders = maxReaders;
+    }
+
+    private static CustomizableThreadFactory readerThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("segment-query-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Reads the segments and passes the matching events to the consumer.
+     *
+     * @param segments the segments to read, most recent segment first
+     * @param consumer consumer for the matching events, returning false stops reading the current segment
+     * @return true when older segments need to be read
+     */
+    boolean run(List<Long> segments, Predicate<EventWithToken> consumer) {
+        return queryOptions.isOrdered() ? runOrdered(segments, consumer) : runUnordered(segments, consumer);
+    }
+
+    private boolean runOrdered(List<Long> segments, Predicate<EventWithToken> consumer) {
+        Iterator<Long> segmentIterator = segments.iterator();
+        Deque<SegmentReader> readers = new ArrayDeque<>();
+        try {
+            startReaders(segmentIterator, readers, null);
+            while (!readers.isEmpty()) {
+                SegmentReader reader = readers.peek();
+                Item item = take(reader.buffer);
+                while (!item.isEnd()) {
+                    if (!consumer.test(item.event)) {
+                        reader.cancel();
+                        break;
+                    }
+                    item = take(reader.buffer);
+                }
+                if (item.isEnd()) {
+                    item.checkError();
+                    if (item.done) {
+                        return false;
+                    }
+                }
+                readers.poll();
+                startReaders(segmentIterator, readers, null);
+            }
+            return true;
+        } finally {
+            readers.forEach(SegmentReader::cancel);
+        }
+    }
+
+    private boolean runUnordered(List<Long> segments, Predicate<EventWithToken> consumer) {
+        Iterator<Long> segmentIterator = segments.iterator();
+        Deque<SegmentReader> readers = new ArrayDeque<>();
+        BlockingQueue<Item> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        long doneSegment = -1;
+        try {
+            startReaders(segmentIterator, readers, buffer);
+            while (!readers.isEmpty()) {
+                Item item = take(buffer);
+                SegmentReader reader = item.reader;
+                if (reader.cancelled) {
+                    continue;
+                }
+                if (!item.isEnd()) {
+                    if (!consumer.test(item.event)) {
+                        reader.cancel();
+                        readers.remove(reader);
+                    }
+                } else {
+                    item.checkError();
+                    readers.remove(reader);
+                    if (item.done) {
+                        doneSegment = Math.max(doneSegment, reader.segment);
+                        cancelOlderReaders(readers, doneSegment);
+                    }
+                }
+                if (doneSegment < 0) {
+                    startReaders(segmentIterator, readers, buffer);
+                }
+            }
+            return doneSegment < 0;
+        } finally {
+            readers.forEach(SegmentReader::cancel);
+        }
+    }
+
+    private void cancelOlderReaders(Deque<SegmentReader> readers, long segment) {
+        List<SegmentReader> olderReaders = new ArrayList<>();
+        readers.forEach(reader -> {
+            if (reader.segment < segment) {
+                olderReaders.add(reader);
+            }
+        });
+        olderReaders.forEach(reader -> {
+            reader.cancel();
+            readers.remove(reader);
+        });
+    }
+
+    private void startReaders(Iterator<Long> segmentIterator, Deque<SegmentReader> readers,
+                              BlockingQueue<Item> sharedBuffer) {
+        while (readers.size() < maxReaders && segmentIterator.hasNext()) {
+            SegmentReader reader = new SegmentReader(segmentIterator.next(),
+                                                     sharedBuffer != null ? sharedBuffer :
+                                                             new ArrayBlockingQueue<>(BUFFER_SIZE));
+            readers.add(reader);
+            readerPool.execute(reader);
+        }
+    }
+
+    private static Item take(BlockingQueue<Item> buffer) {
+        try {
+            return buffer.take();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new MessagingPlatformException(ErrorCode.INTERRUPTED,
+                                                 "Interrupted while executing query",
+                                                 interruptedException);
+        }
+    }
+
+    /**
+     * Reads a single segment and adds the matching events to a buffer. The reader stops when it is cancelled.
+     */
+    private class SegmentReader implements Runnable {
+
+        private final long segment;
+        private final BlockingQueue<Item> buffer;
+        private volatile boolean cancelled;
+
+        private SegmentReader(long segment, BlockingQueue<Item> buffer) {
+            this.segment = segment;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                boolean done = eventStore.querySegment(segment,
+                                                       queryOptions,
+                                                       event -> offer(new Item(this, event, false, null)));
+                offer(new Item(this, null, done, null));
+            } catch (Throwable throwable) {
+                offer(new Item(this, null, false, throwable));
+            }
+        }
+
+        private boolean offer(Item item) {
+            try {
+                while (!cancelled) {
+                    if (buffer.offer(item, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Entry in the buffer between a segment reader and the query thread. Contains either an event or the end of
+     * the segment.
+     */
+    private static class Item {
+
+        private final SegmentReader reader;
+        private final EventWithToken event;
+        private final boolean done;
+        private final Throwable error;
+
+        private Item(SegmentReader reader, EventWithToken event, boolean done, Throwable error) {
+            this.reader = reader;
+            this.event = event;
+            this.done = done;
+            this.error = error;
+        }
+
+        private boolean isEnd() {
+            return event == null;
+        }
+
+        private void checkError() {
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            if (error != null) {
+                throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                     "Failed to read segment " + reader.segment,
+                                                     error);
+            }
+        }
+    }
+}
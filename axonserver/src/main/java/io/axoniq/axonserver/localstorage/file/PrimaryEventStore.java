@@ -23,6 +23,7 @@ import io.axoniq.axonserver.metric.MeterFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -38,12 +39,19 @@ import java.util.Map;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,6 +65,7 @@ import java.util.stream.Stream;
 public class PrimaryEventStore extends SegmentBasedEventStore {
 
     protected static final Logger logger = LoggerFactory.getLogger(PrimaryEventStore.class);
+    private static final int MAX_EVENTS_PER_TRANSACTION = Short.MAX_VALUE;
 
     protected final EventTransformerFactory eventTransformerFactory;
     protected final Synchronizer synchronizer;
@@ -64,6 +73,13 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
     protected final AtomicLong lastToken = new AtomicLong(-1);
     //
     protected final ConcurrentNavigableMap<Long, ByteBufferEventSource> readBuffers = new ConcurrentSkipListMap<>();
+    private final Queue<PendingTransaction> pendingTransactions = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean groupCommitActive = new AtomicBoolean();
+    /**
+     * Writes the groups left pending by callers that have written their own transaction. The thread is only started
+     * when group commit is used.
+     */
+    private final ExecutorService groupCommitExecutor;
     protected EventTransformer eventTransformer;
 
     /**
@@ -80,6 +96,8 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
         super(context, indexManager, storageProperties, completedSegmentsHandler, meterFactory);
         this.eventTransformerFactory = eventTransformerFactory;
         synchronizer = new Synchronizer(context, storageProperties, this::completeSegment);
+        groupCommitExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(
+                context + "-group-commit-"));
     }
 
     @Override
@@ -101,9 +119,11 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
         WritableEventSource buffer = getOrOpenDatafile(first);
         indexManager.remove(first);
         long sequence = first;
+        SegmentMetadata metadata = new SegmentMetadata();
         try (EventByteBufferIterator iterator = new EventByteBufferIterator(buffer, first, first)) {
             while (sequence < nextToken && iterator.hasNext()) {
                 EventInformation event = iterator.next();
+                metadata.add(sequence, event.getEvent().getTimestamp(), event.getEvent().getPayload().getType());
                 if (event.isDomainEvent()) {
                     indexManager.addToActiveSegment(first, event.getEvent().getAggregateIdentifier(), new IndexEntry(
                             event.getEvent().getAggregateSequenceNumber(),
@@ -120,6 +140,7 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
                         nextToken,
                         pendingEvents.size());
                 for (EventInformation event : pendingEvents) {
+                    metadata.add(sequence, event.getEvent().getTimestamp(), event.getEvent().getPayload().getType());
                     if (event.isDomainEvent()) {
                         indexManager.addToActiveSegment(first,
                                                         event.getEvent().getAggregateIdentifier(),
@@ -134,6 +155,8 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
             }
             lastToken.set(sequence - 1);
         }
+        indexManager.addToActiveSegment(first, metadata);
+        indexTransactions(first, buffer, buffer.position());
 
         buffer.putInt(buffer.position(), 0);
         WritePosition writePosition = new WritePosition(sequence, buffer.position(), buffer, first);
@@ -141,6 +164,21 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
         synchronizer.init(writePosition);
     }
 
+    private void indexTransactions(long segment, WritableEventSource buffer, int endPosition) {
+        int position = VERSION_BYTES + FILE_OPTIONS_BYTES;
+        long token = segment;
+        while (position < endPosition) {
+            int size = buffer.getInt(position);
+            if (size <= 0) {
+                return;
+            }
+            token += buffer.getBuffer().getShort(position + TRANSACTION_LENGTH_BYTES + VERSION_BYTES);
+            int nextPosition = position + HEADER_BYTES + size + TX_CHECKSUM_BYTES;
+            indexManager.addTransactionToActiveSegment(segment, position, token, nextPosition);
+            position = nextPosition;
+        }
+    }
+
     private long firstSegmentIfLatestCompleted(long latestSegment) {
         if (!indexManager.validIndex(latestSegment)) {
             return latestSegment;
@@ -169,16 +207,16 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
                      .orElse(defaultFirstIndex);
     }
 
-    private FilePreparedTransaction prepareTransaction(List<SerializedEvent> origEventList) {
-        List<ProcessedEvent> eventList = origEventList.stream().map(s -> new WrappedEvent(s, eventTransformer)).collect(
-                Collectors.toList());
-        int eventSize = eventBlockSize(eventList);
+    private FilePreparedTransaction prepareTransaction(List<ProcessedEvent> eventList, int eventSize) {
         WritePosition writePosition = claim(eventSize, eventList.size());
         return new FilePreparedTransaction(writePosition, eventSize, eventList);
     }
 
     /**
      * Stores a list of events. Completable future completes when these events and all previous events are written.
+     * <p>
+     * When group commit is enabled, append requests from concurrent callers are combined into a single transaction
+     * block. Each caller's completable future still completes with the token of its own first event.
      *
      * @param events the events to store
      * @return completable future with the token of the first event
@@ -188,31 +226,16 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
 
         CompletableFuture<Long> completableFuture = new CompletableFuture<>();
         try {
-            Map<String, List<IndexEntry>> indexEntries = new HashMap<>();
-            FilePreparedTransaction preparedTransaction = prepareTransaction(events);
-            WritePosition writePosition = preparedTransaction.getWritePosition();
-
-            synchronizer.register(writePosition, new StorageCallback() {
-                private final AtomicBoolean execute = new AtomicBoolean(true);
-
-                @Override
-                public boolean onCompleted(long firstToken) {
-                    if (execute.getAndSet(false)) {
-                        indexManager.addToActiveSegment(writePosition.segment, indexEntries);
-                        completableFuture.complete(firstToken);
-                        lastToken.set(firstToken + preparedTransaction.getEventList().size() - 1);
-                        return true;
-                    }
-                    return false;
-                }
-
-                @Override
-                public void onError(Throwable cause) {
-                    completableFuture.completeExceptionally(cause);
-                }
-            });
-            write(writePosition, preparedTransaction.getEventSize(), preparedTransaction.getEventList(), indexEntries);
-            synchronizer.notifyWritePositions();
+            List<ProcessedEvent> eventList = events.stream()
+                                                   .map(s -> new WrappedEvent(s, eventTransformer))
+                                                   .collect(Collectors.toList());
+            int eventSize = eventBlockSize(eventList);
+            if (storageProperties.isGroupCommit()) {
+                groupCommit(new PendingTransaction(eventList, eventSize, completableFuture));
+            } else {
+                storeTransaction(eventList, eventSize, completableFuture::complete,
+                                 completableFuture::completeExceptionally);
+            }
         } catch (RuntimeException cause) {
             completableFuture.completeExceptionally(cause);
         }
@@ -220,6 +243,134 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
         return completableFuture;
     }
 
+    private void storeTransaction(List<ProcessedEvent> eventList, int eventSize, LongConsumer onCompleted,
+                                  Consumer<Throwable> onError) {
+        Map<String, List<IndexEntry>> indexEntries = new HashMap<>();
+        FilePreparedTransaction preparedTransaction = prepareTransaction(eventList, eventSize);
+        WritePosition writePosition = preparedTransaction.getWritePosition();
+
+        synchronizer.register(writePosition, new StorageCallback() {
+            private final AtomicBoolean execute = new AtomicBoolean(true);
+
+            @Override
+            public boolean onCompleted(long firstToken) {
+                if (execute.getAndSet(false)) {
+                    indexManager.addToActiveSegment(writePosition.segment, indexEntries);
+                    indexManager.addToActiveSegment(writePosition.segment,
+                                                    SegmentMetadata.of(firstToken,
+                                                                       preparedTransaction.getEventList()));
+                    int nextPosition = writePosition.position + HEADER_BYTES
+                            + preparedTransaction.getEventSize() + TX_CHECKSUM_BYTES;
+                    indexManager.addTransactionToActiveSegment(writePosition.segment,
+                                                               writePosition.position,
+                                                               firstToken + eventList.size(),
+                                                               nextPosition);
+                    // update last token before completing, listeners on completion may read the new events
+                    lastToken.set(firstToken + preparedTransaction.getEventList().size() - 1);
+                    onCompleted.accept(firstToken);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                onError.accept(cause);
+            }
+        });
+        write(writePosition, preparedTransaction.getEventSize(), preparedTransaction.getEventList(), indexEntries);
+        synchronizer.notifyWritePositions();
+    }
+
+    /**
+     * Adds the transaction to the pending transactions and writes pending transactions in groups, unless another
+     * thread is already writing. Transactions added while a group is being written are combined in the next group.
+     * <p>
+     * A caller only writes groups until its own transaction is written, so it cannot be kept busy by transactions that
+     * keep arriving. Transactions that are still pending when it stops are written by the group commit thread.
+     *
+     * @param pendingTransaction the transaction to write
+     */
+    private void groupCommit(PendingTransaction pendingTransaction) {
+        pendingTransactions.add(pendingTransaction);
+        while (!pendingTransaction.grouped && !pendingTransactions.isEmpty()
+                && groupCommitActive.compareAndSet(false, true)) {
+            try {
+                writeGroup(nextGroup());
+            } finally {
+                groupCommitActive.set(false);
+            }
+        }
+        // when the transaction is not grouped yet, another thread is writing and will check the pending transactions
+        if (pendingTransaction.grouped && !pendingTransactions.isEmpty() && !groupCommitActive.get()) {
+            try {
+                groupCommitExecutor.execute(this::writePendingGroups);
+            } catch (RejectedExecutionException rejected) {
+                failPendingTransactions(new MessagingPlatformException(ErrorCode.OTHER,
+                                                                       context + ": event store is closed"));
+            }
+        }
+    }
+
+    private void writePendingGroups() {
+        while (!pendingTransactions.isEmpty() && groupCommitActive.compareAndSet(false, true)) {
+            try {
+                writeGroup(nextGroup());
+            } finally {
+                groupCommitActive.set(false);
+            }
+        }
+    }
+
+    private void failPendingTransactions(Throwable cause) {
+        PendingTransaction pending = pendingTransactions.poll();
+        while (pending != null) {
+            pending.completableFuture.completeExceptionally(cause);
+            pending = pendingTransactions.poll();
+        }
+    }
+
+    private List<PendingTransaction> nextGroup() {
+        int maxGroupSize = (int) Math.min(storageProperties.getGroupCommitMaxSize(),
+                                          storageProperties.getSegmentSize() - 9 - HEADER_BYTES - TX_CHECKSUM_BYTES);
+        List<PendingTransaction> group = new ArrayList<>();
+        int nrOfEvents = 0;
+        int groupSize = 0;
+        PendingTransaction next = pendingTransactions.peek();
+        while (next != null && (group.isEmpty() || (
+                nrOfEvents + next.eventList.size() <= MAX_EVENTS_PER_TRANSACTION
+                        && groupSize + next.eventSize <= maxGroupSize))) {
+            pendingTransactions.poll();
+            next.grouped = true;
+            group.add(next);
+            nrOfEvents += next.eventList.size();
+            groupSize += next.eventSize;
+            next = pendingTransactions.peek();
+        }
+        return group;
+    }
+
+    private void writeGroup(List<PendingTransaction> group) {
+        List<ProcessedEvent> eventList = new ArrayList<>();
+        int eventSize = 0;
+        for (PendingTransaction pendingTransaction : group) {
+            eventList.addAll(pendingTransaction.eventList);
+            eventSize += pendingTransaction.eventSize;
+        }
+        try {
+            storeTransaction(eventList, eventSize, firstToken -> {
+                long token = firstToken;
+                for (PendingTransaction pendingTransaction : group) {
+                    pendingTransaction.completableFuture.complete(token);
+                    token += pendingTransaction.eventList.size();
+                }
+            }, cause -> group.forEach(pendingTransaction -> pendingTransaction.completableFuture
+                    .completeExceptionally(cause)));
+        } catch (RuntimeException cause) {
+            group.forEach(pendingTransaction -> pendingTransaction.completableFuture.completeExceptionally(cause));
+        }
+    }
+
     @Override
     public void handover(Long segment, Runnable callback) {
         callback.run();
@@ -227,6 +378,8 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
 
     @Override
     public void close(boolean deleteData) {
+        groupCommitExecutor.shutdown();
+        stopAggregateReadAhead();
         synchronizer.shutdown(true);
         readBuffers.forEach((s, source) -> {
             source.clean(0);
@@ -435,17 +588,24 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
     protected WritableEventSource getOrOpenDatafile(long segment) {
         File file = storageProperties.dataFile(context, segment);
         long size = storageProperties.getSegmentSize();
-        if (file.exists()) {
+        boolean exists = file.exists();
+        if (exists) {
             size = file.length();
         }
         try (FileChannel fileChannel = new RandomAccessFile(file, "rw").getChannel()) {
             logger.info("Opening file {}", file);
             MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int flags = storageProperties.getFlags();
+            if (exists) {
+                // keep flags of existing segment, it may contain events written with other settings
+                flags |= buffer.getInt(1);
+            }
             buffer.put(VERSION);
-            buffer.putInt(storageProperties.getFlags());
+            buffer.putInt(flags);
             WritableEventSource writableEventSource = new WritableEventSource(file.getAbsolutePath(),
                                                                               buffer,
-                                                                              eventTransformer,
+                                                                              eventTransformerFactory.get(VERSION,
+                                                                                                          flags),
                                                                               storageProperties.isCleanRequired());
             readBuffers.put(segment, writableEventSource);
             return writableEventSource;
@@ -463,4 +623,19 @@ public class PrimaryEventStore extends SegmentBasedEventStore {
         }
         return size;
     }
+
+    private static class PendingTransaction {
+
+        private final List<ProcessedEvent> eventList;
+        private final int eventSize;
+        private final CompletableFuture<Long> completableFuture;
+        private volatile boolean grouped;
+
+        private PendingTransaction(List<ProcessedEvent> eventList, int eventSize,
+                                   CompletableFuture<Long> completableFuture) {
+            this.eventList = eventList;
+            this.eventSize = eventSize;
+            this.completableFuture = completableFuture;
+        }
+    }
 }
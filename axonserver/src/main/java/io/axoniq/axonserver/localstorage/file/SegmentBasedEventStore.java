@@ -13,6 +13,7 @@ import io.axoniq.axonserver.exception.ErrorCode;
 import io.axoniq.axonserver.exception.EventStoreValidationException;
 import io.axoniq.axonserver.exception.MessagingPlatformException;
 import io.axoniq.axonserver.grpc.event.EventWithToken;
+import io.axoniq.axonserver.localstorage.AggregateEventCursor;
 import io.axoniq.axonserver.localstorage.EventStorageEngine;
 import io.axoniq.axonserver.localstorage.EventTypeContext;
 import io.axoniq.axonserver.localstorage.QueryOptions;
@@ -22,35 +23,53 @@ import io.axoniq.axonserver.localstorage.SerializedEventWithToken;
 import io.axoniq.axonserver.localstorage.SerializedTransactionWithToken;
 import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -65,11 +84,13 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
     public static final byte TRANSACTION_VERSION = 2;
     protected static final Logger logger = LoggerFactory.getLogger(SegmentBasedEventStore.class);
     protected static final int MAX_SEGMENTS_FOR_SEQUENCE_NUMBER_CHECK = 10;
+    private static final long INDEX_REBUILD_RETRY_DELAY = 1000;
+    private static final long MAX_INDEX_REBUILD_RETRY_DELAY = 60000;
     protected static final int VERSION_BYTES = 1;
     protected static final int FILE_OPTIONS_BYTES = 4;
     protected static final int TX_CHECKSUM_BYTES = 4;
     protected static final byte VERSION = 2;
-    private static final int TRANSACTION_LENGTH_BYTES = 4;
+    protected static final int TRANSACTION_LENGTH_BYTES = 4;
     private static final int NUMBER_OF_EVENTS_BYTES = 2;
     protected static final int HEADER_BYTES = TRANSACTION_LENGTH_BYTES + VERSION_BYTES + NUMBER_OF_EVENTS_BYTES;
     protected final String context;
@@ -79,6 +100,12 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
     protected final Set<Runnable> closeListeners = new CopyOnWriteArraySet<>();
     private final Timer aggregateReadTimer;
     private final Timer lastSequenceReadTimer;
+    private final MeterFactory meterFactory;
+    private final ExecutorService aggregateReadAheadExecutor;
+    private final AggregateReadAhead aggregateReadAhead;
+    private final List<CompletableFuture<Void>> indexRebuilds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger indexRebuildsPending = new AtomicInteger();
+    private volatile ExecutorService indexRebuildExecutor;
     protected final SegmentBasedEventStore next;
 
     public SegmentBasedEventStore(EventTypeContext eventTypeContext, IndexManager indexManager,
@@ -95,6 +122,7 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
         this.indexManager = indexManager;
         this.storageProperties = storageProperties;
         this.next = nextSegmentsHandler;
+        this.meterFactory = meterFactory;
         this.aggregateReadTimer = meterFactory.timer(BaseMetricName.AXON_AGGREGATE_READTIME,
                                                      Tags.of(MeterFactory.CONTEXT,
                                                              eventTypeContext.getContext(),
@@ -105,6 +133,41 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
                                                                 eventTypeContext.getContext(),
                                                                 "type",
                                                                 eventTypeContext.getEventType().toString()));
+        if (storageProperties.getAggregateReadAhead() > 0) {
+            this.aggregateReadAheadExecutor = aggregateReadAheadExecutor();
+            this.aggregateReadAhead = new AggregateReadAhead(this,
+                                                             aggregateReadAheadExecutor,
+                                                             storageProperties.getAggregateReadAhead(),
+                                                             readAheadCounter(eventTypeContext, true),
+                                                             readAheadCounter(eventTypeContext, false));
+        } else {
+            this.aggregateReadAheadExecutor = null;
+            this.aggregateReadAhead = null;
+        }
+    }
+
+    /**
+     * Creates the pool for the segments read ahead. Its threads are only started when needed, and stop when they are
+     * idle, as only the store that handles the aggregate reads uses the pool.
+     */
+    private ExecutorService aggregateReadAheadExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("aggregate-read-ahead-" + context + "-");
+        threadFactory.setDaemon(true);
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private Counter readAheadCounter(EventTypeContext eventTypeContext, boolean ready) {
+        return meterFactory.counter(BaseMetricName.AXON_AGGREGATE_READ_AHEAD,
+                                    Tags.of(MeterFactory.CONTEXT,
+                                            eventTypeContext.getContext(),
+                                            "type",
+                                            eventTypeContext.getEventType().toString(),
+                                            "ready",
+                                            String.valueOf(ready)));
     }
 
     public abstract void handover(Long segment, Runnable callback);
@@ -113,18 +176,64 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
     public void processEventsPerAggregate(String aggregateId, long firstSequenceNumber, long lastSequenceNumber,
                                           long minToken, Consumer<SerializedEvent> eventConsumer) {
         long before = System.currentTimeMillis();
-        SortedMap<Long, IndexEntries> positionInfos = indexManager.lookupAggregate(aggregateId,
-                                                                                   firstSequenceNumber,
-                                                                                   lastSequenceNumber,
-                                                                                   Long.MAX_VALUE,
-                                                                                   minToken);
-        positionInfos.forEach((segment, positionInfo) -> retrieveEventsForAnAggregate(segment,
-                                                                                      positionInfo.positions(),
-                                                                                      firstSequenceNumber,
-                                                                                      lastSequenceNumber,
-                                                                                      eventConsumer,
-                                                                                      Long.MAX_VALUE,
-                                                                                      minToken));
+        aggregateEventCursor(aggregateId, firstSequenceNumber, lastSequenceNumber, minToken)
+                .read(Integer.MAX_VALUE, eventConsumer);
+        aggregateReadTimer.record(System.currentTimeMillis() - before, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a cursor that looks up the positions of the events for the aggregate when the first page is read, and
+     * reads the events from these positions page by page.
+     */
+    @Override
+    public AggregateEventCursor aggregateEventCursor(String aggregateId, long minSequenceNumber,
+                                                     long maxSequenceNumber, long minToken) {
+        return new PositionsCursor(() -> {
+            List<SegmentPositions> positions = new ArrayList<>();
+            indexManager.lookupAggregate(aggregateId, minSequenceNumber, maxSequenceNumber, Long.MAX_VALUE, minToken)
+                        .forEach((segment, entries) -> positions.add(new SegmentPositions(segment,
+                                                                                          entries.positions(),
+                                                                                          minSequenceNumber,
+                                                                                          maxSequenceNumber)));
+            return positions;
+        });
+    }
+
+    /**
+     * Creates a cursor that looks up the positions of the events for all aggregates together when the first page is
+     * read, and reads the events from these positions page by page.
+     */
+    @Override
+    public AggregateEventCursor aggregateEventCursor(Map<String, Long> minSequenceNumbers) {
+        return new PositionsCursor(() -> {
+            Map<String, SortedMap<Long, IndexEntries>> positionsPerAggregate = indexManager.lookupAggregates(
+                    minSequenceNumbers);
+            List<SegmentPositions> positions = new ArrayList<>();
+            minSequenceNumbers.forEach((aggregateId, minSequenceNumber) -> positionsPerAggregate
+                    .getOrDefault(aggregateId, Collections.emptySortedMap())
+                    .forEach((segment, entries) -> positions.add(new SegmentPositions(segment,
+                                                                                      entries.positions(),
+                                                                                      minSequenceNumber,
+                                                                                      Long.MAX_VALUE))));
+            return positions;
+        });
+    }
+
+    @Override
+    public void processEventsPerAggregates(Map<String, Long> minSequenceNumbers,
+                                           Consumer<SerializedEvent> eventConsumer) {
+        long before = System.currentTimeMillis();
+        Map<String, SortedMap<Long, IndexEntries>> positionsPerAggregate = indexManager.lookupAggregates(
+                minSequenceNumbers);
+        minSequenceNumbers.forEach((aggregateId, minSequenceNumber) -> positionsPerAggregate
+                .getOrDefault(aggregateId, Collections.emptySortedMap())
+                .forEach((segment, positionInfo) -> retrieveEventsForAnAggregate(segment,
+                                                                                 positionInfo.positions(),
+                                                                                 minSequenceNumber,
+                                                                                 Long.MAX_VALUE,
+                                                                                 eventConsumer,
+                                                                                 Long.MAX_VALUE,
+                                                                                 0)));
         aggregateReadTimer.record(System.currentTimeMillis() - before, TimeUnit.MILLISECONDS);
     }
 
@@ -159,49 +268,83 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
 
     @Override
     public void query(QueryOptions queryOptions, Predicate<EventWithToken> consumer) {
-        for (long segment : getSegments()) {
-            if (segment <= queryOptions.getMaxToken()) {
-                Optional<EventSource> eventSource = getEventSource(segment);
-                AtomicBoolean done = new AtomicBoolean();
-                eventSource.ifPresent(e -> {
-                    long minTimestampInSegment = Long.MAX_VALUE;
-                    EventInformation eventWithToken;
-                    EventIterator iterator = createEventIterator(e, segment, segment);
-                    while (iterator.hasNext()) {
-                        eventWithToken = iterator.next();
-                        minTimestampInSegment = Math.min(minTimestampInSegment,
-                                                         eventWithToken.getEvent().getTimestamp());
-                        if (eventWithToken.getToken() > queryOptions.getMaxToken()) {
-                            iterator.close();
-                            return;
-                        }
-                        if (eventWithToken.getToken() >= queryOptions.getMinToken()
-                                && eventWithToken.getEvent().getTimestamp() >= queryOptions.getMinTimestamp()
-                                && !consumer.test(eventWithToken.asEventWithToken())) {
-                            iterator.close();
-                            return;
-                        }
-                    }
-                    if (queryOptions.getMinToken() > segment || minTimestampInSegment < queryOptions
-                            .getMinTimestamp()) {
-                        done.set(true);
-                    }
-                    iterator.close();
-                });
-                if (done.get()) {
+        List<Long> segments = getSegments().stream()
+                                           .filter(segment -> segment <= queryOptions.getMaxToken())
+                                           .collect(Collectors.toList());
+        if (storageProperties.getQueryParallelism() > 1 && segments.size() > 1) {
+            if (!new ParallelSegmentQuery(this, queryOptions, storageProperties.getQueryParallelism())
+                    .run(segments, consumer)) {
+                return;
+            }
+        } else {
+            for (long segment : segments) {
+                if (querySegment(segment, queryOptions, consumer)) {
                     return;
                 }
             }
         }
 
         if (next != null) {
-            next.query(new QueryOptions(queryOptions.getMinToken(),
-                                        queryOptions.getMaxToken(),
-                                        queryOptions.getMinTimestamp()), consumer);
+            next.query(queryOptions, consumer);
+        }
+    }
+
+    /**
+     * Reads the events in a segment that match the token and timestamp filters of the query options. Stops reading
+     * the segment when the consumer returns false.
+     *
+     * @param segment      the segment to read
+     * @param queryOptions the query options
+     * @param consumer     consumer for the matching events
+     * @return true when older segments do not contain events matching the query options
+     */
+    boolean querySegment(long segment, QueryOptions queryOptions, Predicate<EventWithToken> consumer) {
+        Optional<SegmentMetadata> metadata = indexManager.getSegmentMetadata(segment);
+        if (metadata.isPresent() && noMatchingEvents(metadata.get(), queryOptions)) {
+            return queryOptions.getMinToken() > segment
+                    || metadata.get().getMinTimestamp() < queryOptions.getMinTimestamp();
+        }
+        Optional<EventSource> eventSource = getEventSource(segment);
+        if (!eventSource.isPresent()) {
+            return false;
         }
+        long minTimestampInSegment = Long.MAX_VALUE;
+        EventInformation eventWithToken;
+        EventIterator iterator = createEventIterator(eventSource.get(), segment, segment);
+        try {
+            while (iterator.hasNext()) {
+                eventWithToken = iterator.next();
+                minTimestampInSegment = Math.min(minTimestampInSegment,
+                                                 eventWithToken.getEvent().getTimestamp());
+                if (eventWithToken.getToken() > queryOptions.getMaxToken()) {
+                    return false;
+                }
+                if (eventWithToken.getToken() >= queryOptions.getMinToken()
+                        && eventWithToken.getEvent().getTimestamp() >= queryOptions.getMinTimestamp()
+                        && !consumer.test(eventWithToken.asEventWithToken())) {
+                    return false;
+                }
+            }
+            return queryOptions.getMinToken() > segment || minTimestampInSegment < queryOptions.getMinTimestamp();
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private boolean noMatchingEvents(SegmentMetadata metadata, QueryOptions queryOptions) {
+        return metadata.isEmpty()
+                || metadata.getLastToken() < queryOptions.getMinToken()
+                || metadata.getMaxTimestamp() < queryOptions.getMinTimestamp();
     }
 
     protected EventIterator createEventIterator(EventSource e, long segment, long startToken) {
+        if (startToken > segment) {
+            Optional<TokenOffsetIndex.Entry> startTransaction = indexManager.getTransactionPosition(segment,
+                                                                                                   startToken);
+            if (startTransaction.isPresent()) {
+                return e.createEventIterator(segment, startToken, startTransaction.get());
+            }
+        }
         return e.createEventIterator(segment, startToken);
     }
 
@@ -235,7 +378,9 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
                                                           SegmentAndPosition lastEventPosition) {
         Optional<EventSource> eventSource = getEventSource(lastEventPosition.getSegment());
         if (eventSource.isPresent()) {
-            return readSerializedEvent(eventSource.get(), minSequenceNumber, lastEventPosition.getPosition());
+            try (EventSource source = eventSource.get()) {
+                return readSerializedEvent(source, minSequenceNumber, lastEventPosition.getPosition());
+            }
         }
 
         if (next != null) {
@@ -274,15 +419,38 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
 
     @Override
     public long getTokenAt(long instant) {
+        return getTokenAt(instant, -1);
+    }
+
+    /**
+     * Finds the token of the last event before the given instant. Segments with metadata where all events are after
+     * the instant are skipped without reading them.
+     *
+     * @param instant           the timestamp to find the token for
+     * @param tokenBeforeNewer  the token before the oldest skipped segment in a newer event store, or -1
+     * @return the token of the last event before the instant
+     */
+    private long getTokenAt(long instant, long tokenBeforeNewer) {
+        long tokenBeforeSkipped = tokenBeforeNewer;
         for (long segment : getSegments()) {
+            Optional<SegmentMetadata> metadata = indexManager.getSegmentMetadata(segment);
+            if (metadata.isPresent() && !metadata.get().isEmpty()) {
+                if (metadata.get().getMinTimestamp() > instant) {
+                    tokenBeforeSkipped = segment - 1;
+                    continue;
+                }
+                if (tokenBeforeSkipped >= 0 && metadata.get().getMaxTimestamp() <= instant) {
+                    return tokenBeforeSkipped;
+                }
+            }
+            // when a newer segment was skipped and all events in this segment are before the instant, the token is
+            // the one before the skipped segment
+            long lastTokenIfOlder = tokenBeforeSkipped;
             Optional<EventSource> eventSource = getEventSource(segment);
             Long found = eventSource.map(es -> {
-                EventIterator iterator = createEventIterator(es, segment, segment);
-                Long token = iterator.getTokenAfter(instant);
-                if (token != null) {
-                    iterator.close();
+                try (EventIterator iterator = createEventIterator(es, segment, segment)) {
+                    return iterator.getTokenAfter(instant, lastTokenIfOlder);
                 }
-                return token;
             }).orElse(null);
             if (found != null) {
                 return found;
@@ -290,9 +458,9 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
         }
 
         if (next != null) {
-            return next.getTokenAt(instant);
+            return next.getTokenAt(instant, tokenBeforeSkipped);
         }
-        return -1;
+        return tokenBeforeSkipped;
     }
 
     @Override
@@ -391,6 +559,12 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
 
     protected TransactionIterator createTransactionIterator(EventSource eventSource, long segment, long token,
                                                             boolean validating) {
+        if (token > segment) {
+            Optional<TokenOffsetIndex.Entry> startTransaction = indexManager.getTransactionPosition(segment, token);
+            if (startTransaction.isPresent()) {
+                return eventSource.createTransactionIterator(segment, token, validating, startTransaction.get());
+            }
+        }
         return eventSource.createTransactionIterator(segment, token, validating);
     }
 
@@ -419,29 +593,202 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
         segments.forEach(this::renameFileIfNecessary);
         long firstValidIndex = segments.stream().filter(indexManager::validIndex).findFirst().orElse(-1L);
         logger.debug("First valid index: {}", firstValidIndex);
-        SortedSet<Long> recreate = new TreeSet<>();
+        TreeSet<Long> recreate = new TreeSet<>();
         recreate.addAll(segments.headSet(firstValidIndex));
-        recreate.forEach(this::recreateIndex);
+        recreate.addAll(interruptedIndexRebuilds(segments));
+        rebuildIndexes(recreate);
         return segments;
     }
 
+    /**
+     * Rebuilds the indexes for the given segments. By default the indexes are rebuilt sequentially, oldest segment
+     * first. With more than one index rebuild thread, or when the rebuild is done in the background, the segments are
+     * rebuilt on a dedicated pool, most recent segment first. As the indexes are then not completed in order, the
+     * segments are registered in a marker file until all of them are rebuilt, so an interrupted rebuild is resumed on
+     * the next start.
+     * <p>
+     * A background rebuild does not block appends for aggregates found in the active segment. The sequence number
+     * validation of appends for other aggregates only waits for the rebuild of segments newer than the last segment
+     * containing the aggregate, other aggregate lookups wait for the complete rebuild. Both wait for at most the index
+     * rebuild wait timeout. A failed background rebuild of a segment is retried with an increasing delay.
+     *
+     * @param recreate the segments to rebuild the index for
+     */
+    private void rebuildIndexes(NavigableSet<Long> recreate) {
+        File marker = storageProperties.indexRebuildMarker(context);
+        if (recreate.isEmpty()) {
+            FileUtils.delete(marker);
+            return;
+        }
+        int threads = Math.max(1, Math.min(storageProperties.getIndexRebuildThreads(), recreate.size()));
+        boolean background = storageProperties.isBackgroundIndexRebuild();
+        logger.info("{}: rebuilding {} indexes for {} segments using {} threads",
+                    context,
+                    type.getEventType(),
+                    recreate.size(),
+                    threads);
+        if (threads == 1 && !background) {
+            recreate.forEach(this::recreateIndex);
+            FileUtils.delete(marker);
+            return;
+        }
+
+        writeIndexRebuildMarker(marker, recreate);
+        Tags tags = Tags.of(MeterFactory.CONTEXT, context, "type", type.getEventType().toString());
+        Counter rebuiltCounter = meterFactory.counter(BaseMetricName.AXON_INDEX_REBUILD, tags);
+        indexRebuildsPending.set(recreate.size());
+        meterFactory.gauge(BaseMetricName.AXON_INDEX_REBUILD_PENDING, tags, indexRebuildsPending, AtomicInteger::get);
+        long start = System.currentTimeMillis();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("index-rebuild-" + context + "-");
+        threadFactory.setDaemon(true);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(threads, threadFactory);
+        indexRebuildExecutor = executor;
+        indexRebuilds.clear();
+        long retryDelay = background ? INDEX_REBUILD_RETRY_DELAY : -1;
+        for (long segment : recreate.descendingSet()) {
+            CompletableFuture<Void> rebuilt = new CompletableFuture<>();
+            indexManager.indexRebuildPending(segment, rebuilt);
+            indexRebuilds.add(rebuilt);
+            executor.execute(() -> rebuildIndex(executor, segment, rebuilt, rebuiltCounter, retryDelay));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(indexRebuilds.toArray(new CompletableFuture[0]));
+        all.whenComplete((result, exception) -> executor.shutdown());
+        all.thenRun(() -> {
+            FileUtils.delete(marker);
+            logger.info("{}: rebuilt {} indexes in {}ms",
+                        context,
+                        type.getEventType(),
+                        System.currentTimeMillis() - start);
+        });
+        if (!background) {
+            try {
+                all.join();
+            } catch (CompletionException completionException) {
+                Throwable cause = completionException.getCause();
+                if (cause instanceof MessagingPlatformException) {
+                    throw (MessagingPlatformException) cause;
+                }
+                throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                     context + ": failed to rebuild indexes",
+                                                     cause);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index for a segment on the index rebuild pool. When the rebuild fails and {@code retryDelay} is not
+     * negative, the partial index is removed and the rebuild is scheduled again after {@code retryDelay} milliseconds.
+     */
+    private void rebuildIndex(ScheduledExecutorService executor, long segment, CompletableFuture<Void> rebuilt,
+                              Counter rebuiltCounter, long retryDelay) {
+        try {
+            recreateIndex(segment);
+            rebuiltCounter.increment();
+            indexRebuildsPending.decrementAndGet();
+            rebuilt.complete(null);
+        } catch (Exception ex) {
+            if (retryDelay < 0 || rebuilt.isDone()) {
+                logger.error("{}: failed to rebuild index for segment {}", context, segment, ex);
+                rebuilt.completeExceptionally(ex);
+                return;
+            }
+            logger.error("{}: failed to rebuild index for segment {}, retrying in {}ms",
+                         context,
+                         segment,
+                         retryDelay,
+                         ex);
+            try {
+                indexManager.remove(segment);
+                long nextDelay = Math.min(2 * retryDelay, MAX_INDEX_REBUILD_RETRY_DELAY);
+                executor.schedule(() -> rebuildIndex(executor, segment, rebuilt, rebuiltCounter, nextDelay),
+                                  retryDelay,
+                                  TimeUnit.MILLISECONDS);
+            } catch (Exception retryException) {
+                ex.addSuppressed(retryException);
+                rebuilt.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * Returns the segments from an index rebuild that did not complete before the previous shutdown. The current
+     * indexes for these segments are removed, as they may be incomplete.
+     */
+    private Set<Long> interruptedIndexRebuilds(SortedSet<Long> segments) {
+        File marker = storageProperties.indexRebuildMarker(context);
+        if (!marker.exists()) {
+            return Collections.emptySet();
+        }
+        try {
+            Set<Long> interrupted = Files.readAllLines(marker.toPath(), StandardCharsets.UTF_8)
+                                         .stream()
+                                         .filter(line -> !line.trim().isEmpty())
+                                         .map(line -> Long.valueOf(line.trim()))
+                                         .filter(segments::contains)
+                                         .collect(Collectors.toSet());
+            logger.warn("{}: resuming interrupted index rebuild for {} segments", context, interrupted.size());
+            interrupted.forEach(indexManager::remove);
+            return interrupted;
+        } catch (IOException | NumberFormatException exception) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 "Failed to read index rebuild marker " + marker,
+                                                 exception);
+        }
+    }
+
+    private void writeIndexRebuildMarker(File marker, Set<Long> segments) {
+        try {
+            Files.write(marker.toPath(),
+                        segments.stream().map(String::valueOf).collect(Collectors.toList()),
+                        StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to write index rebuild marker " + marker,
+                                                 exception);
+        }
+    }
+
+    /**
+     * Stops an index rebuild that is still running in the background. Segments that are not rebuilt yet remain in the
+     * marker file and are rebuilt on the next start.
+     */
+    protected void stopIndexRebuild() {
+        ExecutorService executor = indexRebuildExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+            indexRebuilds.forEach(rebuilt -> rebuilt.cancel(false));
+            indexRebuildExecutor = null;
+        }
+    }
+
+    /**
+     * Stops the threads reading segments ahead for aggregate reads.
+     */
+    protected void stopAggregateReadAhead() {
+        if (aggregateReadAheadExecutor != null) {
+            aggregateReadAheadExecutor.shutdownNow();
+        }
+    }
+
     protected abstract void recreateIndex(long segment);
 
-    private int retrieveEventsForAnAggregate(long segment, List<Integer> indexEntries, long minSequenceNumber,
+    int retrieveEventsForAnAggregate(long segment, List<Integer> indexEntries, long minSequenceNumber,
                                              long maxSequenceNumber,
                                              Consumer<SerializedEvent> onEvent, long maxResults, long minToken) {
         Optional<EventSource> buffer = getEventSource(segment);
         int processed = 0;
 
         if (buffer.isPresent()) {
-            EventSource eventSource = buffer.get();
-            for (int i = 0; i < indexEntries.size() && i < maxResults; i++) {
-                SerializedEvent event = eventSource.readEvent(indexEntries.get(i));
-                if (event.getAggregateSequenceNumber() >= minSequenceNumber
-                        && event.getAggregateSequenceNumber() < maxSequenceNumber) {
-                    onEvent.accept(event);
+            try (EventSource eventSource = buffer.get()) {
+                for (int i = 0; i < indexEntries.size() && i < maxResults; i++) {
+                    SerializedEvent event = eventSource.readEvent(indexEntries.get(i));
+                    if (event.getAggregateSequenceNumber() >= minSequenceNumber
+                            && event.getAggregateSequenceNumber() < maxSequenceNumber) {
+                        onEvent.accept(event);
+                    }
+                    processed++;
                 }
-                processed++;
             }
         } else {
             if (next != null) {
@@ -458,6 +805,115 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
         return processed;
     }
 
+    /**
+     * Reads the events at the positions resolved by the supplier in pages. The positions are resolved when the first
+     * page is read, the next pages continue with the remaining positions.
+     * <p>
+     * When aggregate read ahead is enabled, the events of the next segments are read on the read ahead pool while the
+     * events of the current segment are passed to the consumer. The first segment is always read on the calling
+     * thread.
+     */
+    private class PositionsCursor implements AggregateEventCursor {
+
+        private final Supplier<List<SegmentPositions>> positionsSupplier;
+        private final Deque<SegmentPositions> readingAhead = new ArrayDeque<>();
+        private Iterator<SegmentPositions> remaining;
+        private SegmentPositions current;
+        private List<SerializedEvent> currentEvents;
+        private int offset;
+
+        private PositionsCursor(Supplier<List<SegmentPositions>> positionsSupplier) {
+            this.positionsSupplier = positionsSupplier;
+        }
+
+        @Override
+        public boolean read(int maxEvents, Consumer<SerializedEvent> eventConsumer) {
+            if (remaining == null) {
+                remaining = positionsSupplier.get().iterator();
+            }
+            try {
+                int read = 0;
+                while (read < maxEvents) {
+                    if (!hasCurrent() && !nextSegment()) {
+                        return false;
+                    }
+                    int to = (int) Math.min(currentSize(), (long) offset + maxEvents - read);
+                    if (currentEvents != null) {
+                        currentEvents.subList(offset, to).forEach(eventConsumer);
+                    } else {
+                        retrieveEventsForAnAggregate(current.segment,
+                                                     current.positions.subList(offset, to),
+                                                     current.minSequenceNumber,
+                                                     current.maxSequenceNumber,
+                                                     eventConsumer,
+                                                     Long.MAX_VALUE,
+                                                     0);
+                    }
+                    read += to - offset;
+                    offset = to;
+                }
+                return hasCurrent() || !readingAhead.isEmpty() || remaining.hasNext();
+            } catch (RuntimeException e) {
+                readingAhead.forEach(segment -> segment.readAhead.cancel(false));
+                readingAhead.clear();
+                throw e;
+            }
+        }
+
+        private boolean hasCurrent() {
+            return current != null && offset < currentSize();
+        }
+
+        private int currentSize() {
+            return currentEvents != null ? currentEvents.size() : current.positions.size();
+        }
+
+        private boolean nextSegment() {
+            if (!readingAhead.isEmpty()) {
+                current = readingAhead.poll();
+                currentEvents = aggregateReadAhead.get(current.readAhead);
+            } else if (remaining.hasNext()) {
+                current = remaining.next();
+                currentEvents = null;
+            } else {
+                return false;
+            }
+            offset = 0;
+            if (aggregateReadAhead != null) {
+                while (readingAhead.size() < aggregateReadAhead.maxReadAhead() && remaining.hasNext()) {
+                    SegmentPositions next = remaining.next();
+                    next.readAhead = aggregateReadAhead.submit(next.segment,
+                                                               next.positions,
+                                                               next.minSequenceNumber,
+                                                               next.maxSequenceNumber);
+                    readingAhead.add(next);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The positions of the events for an aggregate in a segment, with the range of sequence numbers to read.
+     */
+    private static class SegmentPositions {
+
+        private final long segment;
+        private final List<Integer> positions;
+        private final long minSequenceNumber;
+        private final long maxSequenceNumber;
+        // the events of the segment, when the segment is read ahead
+        private Future<List<SerializedEvent>> readAhead;
+
+        private SegmentPositions(long segment, List<Integer> positions, long minSequenceNumber,
+                                 long maxSequenceNumber) {
+            this.segment = segment;
+            this.positions = positions;
+            this.minSequenceNumber = minSequenceNumber;
+            this.maxSequenceNumber = maxSequenceNumber;
+        }
+    }
+
     @Override
     public Stream<String> getBackupFilenames(long lastSegmentBackedUp) {
         Stream<String> filenames = getSegments().stream()
@@ -519,8 +975,10 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
     }
 
     protected void recreateIndexFromIterator(long segment, EventIterator iterator) {
+        SegmentMetadata metadata = new SegmentMetadata();
         while (iterator.hasNext()) {
             EventInformation event = iterator.next();
+            metadata.add(event.getToken(), event.getEvent().getTimestamp(), event.getEvent().getPayload().getType());
             if (event.isDomainEvent()) {
                 indexManager.addToActiveSegment(segment, event.getEvent().getAggregateIdentifier(), new IndexEntry(
                         event.getEvent().getAggregateSequenceNumber(),
@@ -528,6 +986,7 @@ public abstract class SegmentBasedEventStore implements EventStorageEngine {
                         event.getToken()));
             }
         }
+        indexManager.addToActiveSegment(segment, metadata);
         indexManager.complete(segment);
     }
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import java.io.Closeable;
+import java.util.function.BiConsumer;
+
+/**
+ * Read access to the persisted index of a single completed segment.
+ *
+ * @since 4.5
+ */
+interface SegmentIndex extends Closeable {
+
+    /**
+     * Returns the positions of the events for an aggregate in the segment.
+     *
+     * @param aggregateId the aggregate identifier
+     * @return the positions of the events for the aggregate or null when the aggregate does not occur in the segment
+     */
+    IndexEntries getPositions(String aggregateId);
+
+    /**
+     * Performs the given action for each aggregate in the index.
+     *
+     * @param action the action to perform
+     */
+    void forEach(BiConsumer<String, IndexEntries> action);
+
+    /**
+     * Checks if the index is closed.
+     *
+     * @return true if the index is closed
+     */
+    boolean isClosed();
+
+    /**
+     * Closes the index.
+     */
+    @Override
+    void close();
+}
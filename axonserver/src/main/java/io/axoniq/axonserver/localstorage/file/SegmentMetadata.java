@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.localstorage.transformation.ProcessedEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Summary of the events in a segment: the token range, the timestamp range, the number of events and the payload
+ * types. Used to skip segments that cannot contain events matching a query, without reading the segment.
+ * <p>
+ * Payload types are only tracked up to {@value #MAX_PAYLOAD_TYPES} distinct types per segment, beyond that the segment
+ * is considered to possibly contain any payload type.
+ *
+ * @since 4.5
+ */
+public class SegmentMetadata {
+
+    private static final byte VERSION = 1;
+    private static final int MAX_PAYLOAD_TYPES = 1000;
+
+    private long firstToken = Long.MAX_VALUE;
+    private long lastToken = -1;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long eventCount;
+    private Set<String> payloadTypes = new HashSet<>();
+
+    /**
+     * Creates the metadata for the events in a transaction.
+     *
+     * @param firstToken the token of the first event in the transaction
+     * @param events     the events in the transaction
+     * @return metadata for the events
+     */
+    public static SegmentMetadata of(long firstToken, List<ProcessedEvent> events) {
+        SegmentMetadata metadata = new SegmentMetadata();
+        long token = firstToken;
+        for (ProcessedEvent event : events) {
+            metadata.add(token++, event.getTimestamp(), event.getPayloadType());
+        }
+        return metadata;
+    }
+
+    /**
+     * Adds an event to the metadata.
+     *
+     * @param token       the token of the event
+     * @param timestamp   the timestamp of the event
+     * @param payloadType the payload type of the event
+     */
+    public synchronized void add(long token, long timestamp, String payloadType) {
+        firstToken = Math.min(firstToken, token);
+        lastToken = Math.max(lastToken, token);
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        eventCount++;
+        addPayloadType(payloadType);
+    }
+
+    /**
+     * Adds the events summarized in another metadata object to this metadata.
+     *
+     * @param other the metadata to add
+     */
+    public void addAll(SegmentMetadata other) {
+        SegmentMetadata snapshot = other.copy();
+        synchronized (this) {
+            if (snapshot.eventCount == 0) {
+                return;
+            }
+            firstToken = Math.min(firstToken, snapshot.firstToken);
+            lastToken = Math.max(lastToken, snapshot.lastToken);
+            minTimestamp = Math.min(minTimestamp, snapshot.minTimestamp);
+            maxTimestamp = Math.max(maxTimestamp, snapshot.maxTimestamp);
+            eventCount += snapshot.eventCount;
+            if (snapshot.payloadTypes == null) {
+                payloadTypes = null;
+            } else {
+                snapshot.payloadTypes.forEach(this::addPayloadType);
+            }
+        }
+    }
+
+    private void addPayloadType(String payloadType) {
+        if (payloadTypes != null && payloadTypes.add(payloadType) && payloadTypes.size() > MAX_PAYLOAD_TYPES) {
+            payloadTypes = null;
+        }
+    }
+
+    /**
+     * Returns a copy of this metadata.
+     *
+     * @return a copy of this metadata
+     */
+    public synchronized SegmentMetadata copy() {
+        SegmentMetadata copy = new SegmentMetadata();
+        copy.firstToken = firstToken;
+        copy.lastToken = lastToken;
+        copy.minTimestamp = minTimestamp;
+        copy.maxTimestamp = maxTimestamp;
+        copy.eventCount = eventCount;
+        copy.payloadTypes = payloadTypes == null ? null : new HashSet<>(payloadTypes);
+        return copy;
+    }
+
+    public synchronized long getFirstToken() {
+        return firstToken;
+    }
+
+    public synchronized long getLastToken() {
+        return lastToken;
+    }
+
+    public synchronized long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public synchronized long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Returns the payload types of the events in the segment, or an empty set if the payload types are not tracked
+     * for the segment.
+     *
+     * @return the payload types
+     */
+    public synchronized Set<String> getPayloadTypes() {
+        return payloadTypes == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(payloadTypes));
+    }
+
+    /**
+     * Checks if the segment may contain events with the given payload type.
+     *
+     * @param payloadType the payload type
+     * @return false if the segment does not contain events with the given payload type
+     */
+    public synchronized boolean mayContainPayloadType(String payloadType) {
+        return payloadTypes == null || payloadTypes.contains(payloadType);
+    }
+
+    /**
+     * Checks if the segment contains no events.
+     *
+     * @return true if the segment contains no events
+     */
+    public synchronized boolean isEmpty() {
+        return eventCount == 0;
+    }
+
+    /**
+     * Writes the metadata to a file.
+     *
+     * @param file the file to write
+     */
+    public synchronized void write(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeByte(VERSION);
+            out.writeLong(firstToken);
+            out.writeLong(lastToken);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            out.writeLong(eventCount);
+            if (payloadTypes == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(payloadTypes.size());
+                for (String payloadType : payloadTypes) {
+                    out.writeUTF(payloadType);
+                }
+            }
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to write segment metadata: " + file,
+                                                 ioException);
+        }
+    }
+
+    /**
+     * Reads metadata from a file.
+     *
+     * @param file the file to read
+     * @return the metadata
+     */
+    public static SegmentMetadata read(File file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                     "Unsupported segment metadata version " + version + ": " + file);
+            }
+            SegmentMetadata metadata = new SegmentMetadata();
+            metadata.firstToken = in.readLong();
+            metadata.lastToken = in.readLong();
+            metadata.minTimestamp = in.readLong();
+            metadata.maxTimestamp = in.readLong();
+            metadata.eventCount = in.readLong();
+            int payloadTypeCount = in.readInt();
+            if (payloadTypeCount < 0) {
+                metadata.payloadTypes = null;
+            } else {
+                for (int i = 0; i < payloadTypeCount; i++) {
+                    metadata.payloadTypes.add(in.readUTF());
+                }
+            }
+            return metadata;
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 "Failed to read segment metadata: " + file,
+                                                 ioException);
+        }
+    }
+}
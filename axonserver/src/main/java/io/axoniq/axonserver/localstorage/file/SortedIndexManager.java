@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.localstorage.EventType;
+import io.axoniq.axonserver.metric.MeterFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index manager that stores the index for a completed segment in a {@link SortedSegmentIndex}, a sorted,
+ * block-compressed file with a sparse index. Compared to the MapDB based index of the {@link StandardIndexManager},
+ * these files are faster to create when a segment is completed and cheaper to open.
+ * <p>
+ * On initialization the index manager converts existing MapDB index files for which there is no sorted index file
+ * yet. The original index files are kept, so it is possible to switch back to the MapDB index format.
+ *
+ * @since 4.5
+ */
+public class SortedIndexManager extends StandardIndexManager {
+
+    /**
+     * Value for {@link StorageProperties#getIndexFormat()} to select this index manager.
+     */
+    public static final String INDEX_FORMAT = "sorted";
+    private static final Logger logger = LoggerFactory.getLogger(SortedIndexManager.class);
+
+    /**
+     * @param context           the context of the storage engine
+     * @param storageProperties storage engine configuration
+     * @param eventType         content type of the event store (events or snapshots)
+     * @param meterFactory      factory to create metrics meter
+     */
+    public SortedIndexManager(String context, StorageProperties storageProperties, EventType eventType,
+                              MeterFactory meterFactory) {
+        super(context, storageProperties, eventType, meterFactory);
+    }
+
+    /**
+     * @param context            the context of the storage engine
+     * @param storageProperties  storage engine configuration
+     * @param eventType          content type of the event store (events or snapshots)
+     * @param remoteIndexManager component that provides last sequence number for old aggregates
+     * @param meterFactory       factory to create metrics meter
+     */
+    public SortedIndexManager(String context, StorageProperties storageProperties, EventType eventType,
+                              RemoteAggregateSequenceNumberResolver remoteIndexManager,
+                              MeterFactory meterFactory) {
+        super(context, storageProperties, eventType, remoteIndexManager, meterFactory);
+    }
+
+    /**
+     * Converts existing MapDB index files to the sorted index format and initializes the index manager.
+     */
+    @Override
+    public void init() {
+        String[] legacyIndexFiles = FileUtils.getFilesWithSuffix(new File(storageProperties.getStorage(context)),
+                                                                 storageProperties.getIndexSuffix());
+        for (String legacyIndexFile : legacyIndexFiles) {
+            long segment = Long.parseLong(legacyIndexFile.substring(0, legacyIndexFile.indexOf('.')));
+            if (!indexFile(segment).exists()) {
+                migrate(segment);
+            }
+        }
+        super.init();
+    }
+
+    /**
+     * Creates a sorted index file for a segment from the MapDB index file of the segment.
+     *
+     * @param segment the segment number
+     */
+    void migrate(long segment) {
+        logger.info("{}: converting index for segment {} to {} format", context, segment, INDEX_FORMAT);
+        Map<String, IndexEntries> positionsPerAggregate = new HashMap<>();
+        try (MapDbSegmentIndex legacyIndex = new MapDbSegmentIndex(storageProperties.index(context, segment),
+                                                                   storageProperties)) {
+            legacyIndex.forEach(positionsPerAggregate::put);
+        }
+
+        File tempFile = indexTempFile(segment);
+        if (!FileUtils.delete(tempFile)) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to delete temp index file:" + tempFile);
+        }
+        writeIndex(tempFile, positionsPerAggregate);
+        if (!tempFile.renameTo(indexFile(segment))) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to rename index file:" + tempFile);
+        }
+    }
+
+    @Override
+    public boolean remove(long segment) {
+        boolean removed = super.remove(segment);
+        return FileUtils.delete(storageProperties.index(context, segment)) && removed;
+    }
+
+    @Override
+    protected String indexSuffix() {
+        return storageProperties.getNewIndexSuffix();
+    }
+
+    @Override
+    protected File indexFile(long segment) {
+        return storageProperties.newIndex(context, segment);
+    }
+
+    @Override
+    protected File indexTempFile(long segment) {
+        return storageProperties.newIndexTemp(context, segment);
+    }
+
+    @Override
+    protected void writeIndex(File file, Map<String, IndexEntries> positionsPerAggregate) {
+        SortedSegmentIndex.write(file, positionsPerAggregate);
+    }
+
+    @Override
+    protected SegmentIndex openIndex(long segment) {
+        return new SortedSegmentIndex(indexFile(segment), storageProperties);
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Segment index stored as an immutable file with the aggregate identifiers in sorted order. The entries are written in
+ * compressed blocks of approximately {@value #BLOCK_SIZE} bytes, followed by a sparse index containing the first
+ * aggregate identifier and the location of each block. Opening the index only reads the sparse index, a lookup
+ * decompresses a single block.
+ * <p>
+ * File layout:
+ * <pre>
+ * block*       : deflated sequence of entries (int keyLength, key (UTF-8), long firstSequenceNumber, int count,
+ *                int position * count)
+ * sparse index : per block: int keyLength, key (UTF-8), long offset, int compressedSize, int size
+ * footer       : long sparseIndexOffset, int blockCount, byte version, int magic
+ * </pre>
+ *
+ * @since 4.5
+ */
+class SortedSegmentIndex implements SegmentIndex {
+
+    static final int BLOCK_SIZE = 4096;
+    private static final int MAGIC = 0x41584958;
+    private static final byte VERSION = 1;
+    private static final int FOOTER_SIZE = 8 + 4 + 1 + 4;
+
+    private final String file;
+    private final ByteBuffer buffer;
+    private final boolean mapped;
+    private final StorageProperties storageProperties;
+    private final String[] firstKeys;
+    private final long[] offsets;
+    private final int[] compressedSizes;
+    private final int[] sizes;
+    private volatile boolean closed;
+
+    /**
+     * Opens an existing index file. The file is memory mapped, unless memory mapped indexes are disabled in the
+     * storage properties.
+     *
+     * @param file              the index file
+     * @param storageProperties storage engine configuration
+     */
+    SortedSegmentIndex(File file, StorageProperties storageProperties) {
+        this.file = file.getAbsolutePath();
+        this.storageProperties = storageProperties;
+        this.mapped = storageProperties.isUseMmapIndex();
+        this.buffer = load(file, mapped);
+
+        int size = buffer.capacity();
+        if (size < FOOTER_SIZE || buffer.getInt(size - 4) != MAGIC || buffer.get(size - 5) != VERSION) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR, "Invalid index file: " + file);
+        }
+        ByteBuffer sparseIndex = buffer.duplicate();
+        sparseIndex.position((int) buffer.getLong(size - FOOTER_SIZE));
+        int blockCount = buffer.getInt(size - FOOTER_SIZE + 8);
+        firstKeys = new String[blockCount];
+        offsets = new long[blockCount];
+        compressedSizes = new int[blockCount];
+        sizes = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            firstKeys[i] = readKey(sparseIndex);
+            offsets[i] = sparseIndex.getLong();
+            compressedSizes[i] = sparseIndex.getInt();
+            sizes[i] = sparseIndex.getInt();
+        }
+    }
+
+    private static ByteBuffer load(File file, boolean mapped) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (mapped) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            ByteBuffer heapBuffer = ByteBuffer.allocate((int) channel.size());
+            while (heapBuffer.hasRemaining() && channel.read(heapBuffer) >= 0) {
+                // read until buffer is full
+            }
+            heapBuffer.flip();
+            return heapBuffer;
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 "Failed to open index file: " + file,
+                                                 ioException);
+        }
+    }
+
+    /**
+     * Writes a new index file.
+     *
+     * @param file                  the file to write
+     * @param positionsPerAggregate the positions of the events per aggregate
+     */
+    static void write(File file, Map<String, IndexEntries> positionsPerAggregate) {
+        String[] aggregateIds = positionsPerAggregate.keySet().toArray(new String[0]);
+        Arrays.sort(aggregateIds);
+
+        List<String> firstKeys = new ArrayList<>();
+        List<long[]> blocks = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(BLOCK_SIZE * 2);
+            DataOutputStream block = new DataOutputStream(blockBytes);
+            long offset = 0;
+            for (String aggregateId : aggregateIds) {
+                if (blockBytes.size() == 0) {
+                    firstKeys.add(aggregateId);
+                }
+                IndexEntries entries = positionsPerAggregate.get(aggregateId);
+                writeKey(block, aggregateId);
+                block.writeLong(entries.firstSequenceNumber());
+                block.writeInt(entries.size());
+                for (Integer position : entries.positions()) {
+                    block.writeInt(position);
+                }
+                if (blockBytes.size() >= BLOCK_SIZE) {
+                    offset += writeBlock(out, blockBytes, deflater, offset, blocks);
+                }
+            }
+            if (blockBytes.size() > 0) {
+                offset += writeBlock(out, blockBytes, deflater, offset, blocks);
+            }
+
+            for (int i = 0; i < blocks.size(); i++) {
+                writeKey(out, firstKeys.get(i));
+                out.writeLong(blocks.get(i)[0]);
+                out.writeInt((int) blocks.get(i)[1]);
+                out.writeInt((int) blocks.get(i)[2]);
+            }
+            out.writeLong(offset);
+            out.writeInt(blocks.size());
+            out.writeByte(VERSION);
+            out.writeInt(MAGIC);
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to write index file: " + file,
+                                                 ioException);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int writeBlock(DataOutputStream out, ByteArrayOutputStream blockBytes, Deflater deflater,
+                                  long offset, List<long[]> blocks) throws IOException {
+        byte[] raw = blockBytes.toByteArray();
+        blockBytes.reset();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] compressed = new byte[raw.length + 64];
+        int compressedSize = 0;
+        while (!deflater.finished()) {
+            if (compressedSize == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedSize += deflater.deflate(compressed, compressedSize, compressed.length - compressedSize);
+        }
+        out.write(compressed, 0, compressedSize);
+        blocks.add(new long[]{offset, compressedSize, raw.length});
+        return compressedSize;
+    }
+
+    private static void writeKey(DataOutputStream out, String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readKey(ByteBuffer source) {
+        byte[] bytes = new byte[source.getInt()];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public IndexEntries getPositions(String aggregateId) {
+        if (closed) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR, "Index closed: " + file);
+        }
+        int blockIndex = findBlock(aggregateId);
+        if (blockIndex < 0) {
+            return null;
+        }
+
+        ByteBuffer block = ByteBuffer.wrap(readBlock(blockIndex));
+        while (block.hasRemaining()) {
+            int compare = readKey(block).compareTo(aggregateId);
+            long firstSequenceNumber = block.getLong();
+            int count = block.getInt();
+            if (compare == 0) {
+                List<Integer> positions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    positions.add(block.getInt());
+                }
+                return new StandardIndexEntries(firstSequenceNumber, positions);
+            }
+            if (compare > 0) {
+                return null;
+            }
+            block.position(block.position() + count * 4);
+        }
+        return null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, IndexEntries> action) {
+        for (int blockIndex = 0; blockIndex < firstKeys.length; blockIndex++) {
+            ByteBuffer block = ByteBuffer.wrap(readBlock(blockIndex));
+            while (block.hasRemaining()) {
+                String aggregateId = readKey(block);
+                long firstSequenceNumber = block.getLong();
+                int count = block.getInt();
+                List<Integer> positions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    positions.add(block.getInt());
+                }
+                action.accept(aggregateId, new StandardIndexEntries(firstSequenceNumber, positions));
+            }
+        }
+    }
+
+    private int findBlock(String aggregateId) {
+        int index = Arrays.binarySearch(firstKeys, aggregateId);
+        // when not found binarySearch returns (-(insertion point) - 1), the block before the insertion point may
+        // contain the aggregate
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private byte[] readBlock(int blockIndex) {
+        byte[] compressed = new byte[compressedSizes[blockIndex]];
+        ByteBuffer source = buffer.duplicate();
+        source.position((int) offsets[blockIndex]);
+        source.get(compressed);
+
+        byte[] raw = new byte[sizes[blockIndex]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int size = 0;
+            while (size < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, size, raw.length - size);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Unexpected end of block " + blockIndex);
+                }
+                size += inflated;
+            }
+            return raw;
+        } catch (DataFormatException dataFormatException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 "Corrupt block in index file: " + file,
+                                                 dataFormatException);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (mapped && storageProperties.isForceCleanMmapIndex()) {
+            CleanUtils.cleanDirectBuffer(buffer, () -> true, storageProperties.getSecondaryCleanupDelay(), file);
+        }
+    }
+}
@@ -53,9 +53,7 @@ public class StandardEventStoreFactory implements EventStoreFactory {
      */
     @Override
     public EventStorageEngine createEventStorageEngine(String context) {
-        StandardIndexManager indexManager = new StandardIndexManager(context, embeddedDBProperties.getEvent(),
-                                                                     EventType.EVENT,
-                                                                     meterFactory);
+        StandardIndexManager indexManager = indexManager(context, embeddedDBProperties.getEvent(), EventType.EVENT);
         InputStreamEventStore second = new InputStreamEventStore(new EventTypeContext(context, EventType.EVENT),
                                                                  indexManager,
                                                                  eventTransformerFactory,
@@ -76,9 +74,9 @@ public class StandardEventStoreFactory implements EventStoreFactory {
      */
     @Override
     public EventStorageEngine createSnapshotStorageEngine(String context) {
-        StandardIndexManager indexManager = new StandardIndexManager(context, embeddedDBProperties.getSnapshot(),
-                                                                     EventType.SNAPSHOT,
-                                                                     meterFactory);
+        StandardIndexManager indexManager = indexManager(context,
+                                                         embeddedDBProperties.getSnapshot(),
+                                                         EventType.SNAPSHOT);
         InputStreamEventStore second = new InputStreamEventStore(new EventTypeContext(context, EventType.SNAPSHOT),
                                                                  indexManager,
                                                                  eventTransformerFactory,
@@ -88,4 +86,12 @@ public class StandardEventStoreFactory implements EventStoreFactory {
                                      eventTransformerFactory,
                                      embeddedDBProperties.getSnapshot(), second, meterFactory);
     }
+
+    private StandardIndexManager indexManager(String context, StorageProperties storageProperties,
+                                              EventType eventType) {
+        if (SortedIndexManager.INDEX_FORMAT.equalsIgnoreCase(storageProperties.getIndexFormat())) {
+            return new SortedIndexManager(context, storageProperties, eventType, meterFactory);
+        }
+        return new StandardIndexManager(context, storageProperties, eventType, meterFactory);
+    }
 }
@@ -15,32 +15,38 @@ import io.axoniq.axonserver.localstorage.EventType;
 import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.micrometer.core.instrument.Tags;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.HTreeMap;
-import org.mapdb.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -54,7 +60,6 @@ import java.util.stream.Stream;
 public class StandardIndexManager implements IndexManager {
 
     private static final Logger logger = LoggerFactory.getLogger(StandardIndexManager.class);
-    private static final String AGGREGATE_MAP = "aggregateMap";
     private static final ScheduledExecutorService scheduledExecutorService =
             Executors.newScheduledThreadPool(1, new CustomizableThreadFactory("index-manager-"));
     protected final StorageProperties storageProperties;
@@ -64,10 +69,15 @@ public class StandardIndexManager implements IndexManager {
     private final ConcurrentNavigableMap<Long, PersistedBloomFilter> bloomFilterPerSegment = new ConcurrentSkipListMap<>();
     private final ConcurrentSkipListMap<Long, Index> indexMap = new ConcurrentSkipListMap<>();
     private final SortedSet<Long> indexes = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+    private final ConcurrentNavigableMap<Long, SegmentMetadata> activeMetadata = new ConcurrentSkipListMap<>();
+    private final Map<Long, Optional<SegmentMetadata>> metadataPerSegment = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, TokenOffsetIndex> activeTokenIndexes = new ConcurrentSkipListMap<>();
+    private final Map<Long, CompletableFuture<Void>> pendingRebuilds = new ConcurrentHashMap<>();
     private final MeterFactory.RateMeter indexOpenMeter;
     private final MeterFactory.RateMeter indexCloseMeter;
     private final RemoteAggregateSequenceNumberResolver remoteIndexManager;
     private ScheduledFuture<?> cleanupTask;
+    private volatile GlobalAggregateIndex globalIndex;
 
     /**
      * @param context           the context of the storage engine
@@ -106,40 +116,49 @@ public class StandardIndexManager implements IndexManager {
      */
     public void init() {
         String[] indexFiles = FileUtils.getFilesWithSuffix(new File(storageProperties.getStorage(context)),
-                                                           storageProperties.getIndexSuffix());
+                                                           indexSuffix());
         for (String indexFile : indexFiles) {
             long index = Long.parseLong(indexFile.substring(0, indexFile.indexOf('.')));
             indexes.add(index);
         }
+        if (storageProperties.isGlobalIndexEnabled() && globalIndex == null) {
+            initGlobalIndex();
+        }
+    }
+
+    private void initGlobalIndex() {
+        GlobalAggregateIndex index = new GlobalAggregateIndex(storageProperties.globalIndex(context),
+                                                              storageProperties);
+        long lastSegment = index.lastSegment();
+        List<Long> missingSegments = indexes.stream()
+                                            .filter(segment -> segment > lastSegment)
+                                            .sorted()
+                                            .collect(Collectors.toList());
+        if (!missingSegments.isEmpty()) {
+            logger.info("{}: adding {} segments to global index", context, missingSegments.size());
+        }
+        for (Long segment : missingSegments) {
+            Map<String, IndexEntries> positionsPerAggregate = new HashMap<>();
+            try (SegmentIndex segmentIndex = openIndex(segment)) {
+                segmentIndex.forEach(positionsPerAggregate::put);
+            }
+            index.add(segment, positionsPerAggregate);
+        }
+        globalIndex = index;
     }
 
     private void createIndex(Long segment, Map<String, IndexEntries> positionsPerAggregate) {
         if (positionsPerAggregate == null) {
             positionsPerAggregate = Collections.emptyMap();
         }
-        File tempFile = storageProperties.indexTemp(context, segment);
+        File tempFile = indexTempFile(segment);
         if (!FileUtils.delete(tempFile)) {
             throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
                                                  "Failed to delete temp index file:" + tempFile);
         }
-        DBMaker.Maker maker = DBMaker.fileDB(tempFile);
-        if (storageProperties.isUseMmapIndex()) {
-            maker.fileMmapEnable();
-            if (storageProperties.isForceCleanMmapIndex()) {
-                maker.cleanerHackEnable();
-            }
-        } else {
-            maker.fileChannelEnable();
-        }
-        DB db = maker.make();
-        try (HTreeMap<String, IndexEntries> map = db.hashMap(AGGREGATE_MAP, Serializer.STRING,
-                                                             StandardIndexEntriesSerializer.get())
-                                                    .createOrOpen()) {
-            map.putAll(positionsPerAggregate);
-        }
-        db.close();
+        writeIndex(tempFile, positionsPerAggregate);
 
-        if (!tempFile.renameTo(storageProperties.index(context, segment))) {
+        if (!tempFile.renameTo(indexFile(segment))) {
             throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
                                                  "Failed to rename index file:" + tempFile);
         }
@@ -156,6 +175,55 @@ public class StandardIndexManager implements IndexManager {
         getIndex(segment);
     }
 
+    /**
+     * Returns the suffix of the index files managed by this index manager.
+     *
+     * @return the index file suffix
+     */
+    protected String indexSuffix() {
+        return storageProperties.getIndexSuffix();
+    }
+
+    /**
+     * Returns the index file for a segment.
+     *
+     * @param segment the segment number
+     * @return the index file
+     */
+    protected File indexFile(long segment) {
+        return storageProperties.index(context, segment);
+    }
+
+    /**
+     * Returns the temporary file used while creating the index file for a segment.
+     *
+     * @param segment the segment number
+     * @return the temporary index file
+     */
+    protected File indexTempFile(long segment) {
+        return storageProperties.indexTemp(context, segment);
+    }
+
+    /**
+     * Writes the positions of the events per aggregate to an index file.
+     *
+     * @param file                  the file to write
+     * @param positionsPerAggregate the positions of the events per aggregate
+     */
+    protected void writeIndex(File file, Map<String, IndexEntries> positionsPerAggregate) {
+        MapDbSegmentIndex.write(file, positionsPerAggregate, storageProperties);
+    }
+
+    /**
+     * Opens the existing index file for a segment.
+     *
+     * @param segment the segment number
+     * @return the opened index
+     */
+    protected SegmentIndex openIndex(long segment) {
+        return new MapDbSegmentIndex(indexFile(segment), storageProperties);
+    }
+
     private IndexEntries getPositions(long segment, String aggregateId) {
         if (notInBloomIndex(segment, aggregateId)) {
             return null;
@@ -176,6 +244,29 @@ public class StandardIndexManager implements IndexManager {
         throw lastError;
     }
 
+    private Map<String, IndexEntries> getPositions(long segment, List<String> aggregateIds) {
+        RuntimeException lastError = new RuntimeException();
+        for (int retry = 0; retry < 3; retry++) {
+            try {
+                Index idx = getIndex(segment);
+                Map<String, IndexEntries> positions = new HashMap<>();
+                for (String aggregateId : aggregateIds) {
+                    IndexEntries entries = idx.getPositions(aggregateId);
+                    if (entries != null) {
+                        positions.put(aggregateId, entries);
+                    }
+                }
+                return positions;
+            } catch (IndexNotFoundException ex) {
+                return Collections.emptyMap();
+            } catch (Exception ex) {
+                lastError = new RuntimeException(
+                        "Error happened while trying get positions for " + segment + " segment.", ex);
+            }
+        }
+        throw lastError;
+    }
+
     private Index getIndex(long segment) {
         try {
             return indexMap.computeIfAbsent(segment, Index::new).ensureReady();
@@ -252,6 +343,21 @@ public class StandardIndexManager implements IndexManager {
                                                   .addAll(entries));
     }
 
+    /**
+     * Adds the metadata of a number of events to an active segment.
+     *
+     * @param segment  the segment number
+     * @param metadata the metadata of the new events
+     */
+    @Override
+    public void addToActiveSegment(long segment, SegmentMetadata metadata) {
+        if (indexes.contains(segment)) {
+            throw new IndexNotFoundException(segment + ": already completed");
+        }
+        activeMetadata.computeIfAbsent(segment, s -> new SegmentMetadata())
+                      .addAll(metadata);
+    }
+
     /**
      * Commpletes an active index.
      *
@@ -259,9 +365,121 @@ public class StandardIndexManager implements IndexManager {
      */
     @Override
     public void complete(long segment) {
-        createIndex(segment, activeIndexes.get(segment));
+        Map<String, IndexEntries> positionsPerAggregate = activeIndexes.get(segment);
+        createIndex(segment, positionsPerAggregate);
+        GlobalAggregateIndex currentGlobalIndex = globalIndex;
+        if (currentGlobalIndex != null && positionsPerAggregate != null) {
+            // segments may be completed concurrently when indexes are rebuilt in parallel
+            synchronized (currentGlobalIndex) {
+                currentGlobalIndex.add(segment, positionsPerAggregate);
+            }
+        }
+        writeMetadata(segment, activeMetadata.get(segment));
+        writeTokenIndex(segment, activeTokenIndexes.get(segment));
         activeIndexes.remove(segment);
+        activeMetadata.remove(segment);
         indexes.add(segment);
+        activeTokenIndexes.remove(segment);
+    }
+
+    private void writeTokenIndex(long segment, TokenOffsetIndex tokenIndex) {
+        if (tokenIndex == null) {
+            return;
+        }
+        try {
+            tokenIndex.write(storageProperties.tokenIndex(context, segment));
+        } catch (MessagingPlatformException exception) {
+            // the token index is only used to speed up positioning in the segment
+            logger.warn("{}: failed to write token index for segment {}", context, segment, exception);
+        }
+    }
+
+    /**
+     * Registers the position of a transaction written in an active segment.
+     *
+     * @param segment      the segment number
+     * @param position     the position of the transaction in the segment
+     * @param nextToken    the token of the first event after the transaction
+     * @param nextPosition the position directly after the transaction
+     */
+    @Override
+    public void addTransactionToActiveSegment(long segment, int position, long nextToken, int nextPosition) {
+        activeTokenIndexes.computeIfAbsent(segment, s -> new TokenOffsetIndex())
+                          .add(position, nextToken, nextPosition);
+    }
+
+    /**
+     * Finds the position of the nearest transaction starting at or before the given token in a segment. For completed
+     * segments the position is found in the token index file.
+     *
+     * @param segment the segment number
+     * @param token   the token to find
+     * @return the token and position of the transaction, or an empty optional if no position is known
+     */
+    @Override
+    public Optional<TokenOffsetIndex.Entry> getTransactionPosition(long segment, long token) {
+        TokenOffsetIndex active = activeTokenIndexes.get(segment);
+        if (active != null) {
+            return active.floor(token);
+        }
+        File file = storageProperties.tokenIndex(context, segment);
+        if (!indexes.contains(segment) || !file.exists()) {
+            return Optional.empty();
+        }
+        try {
+            return TokenOffsetIndex.floor(file, token);
+        } catch (MessagingPlatformException exception) {
+            logger.warn("{}: failed to read token index for segment {}", context, segment, exception);
+            return Optional.empty();
+        }
+    }
+
+    private void writeMetadata(long segment, SegmentMetadata metadata) {
+        if (metadata == null) {
+            metadata = new SegmentMetadata();
+        }
+        try {
+            metadata.write(storageProperties.metadata(context, segment));
+            metadataPerSegment.put(segment, Optional.of(metadata));
+        } catch (MessagingPlatformException exception) {
+            // metadata is only used to skip segments, the segment can still be read without it
+            logger.warn("{}: failed to write metadata for segment {}", context, segment, exception);
+        }
+    }
+
+    /**
+     * Returns the metadata for a segment. Metadata for completed segments is read from the metadata file, segments
+     * completed before metadata was maintained have no metadata.
+     *
+     * @param segment the segment number
+     * @return the metadata for the segment
+     */
+    @Override
+    public Optional<SegmentMetadata> getSegmentMetadata(long segment) {
+        if (pendingRebuilds.containsKey(segment)) {
+            return Optional.empty();
+        }
+        SegmentMetadata active = activeMetadata.get(segment);
+        if (active != null) {
+            return Optional.of(active.copy());
+        }
+        if (!indexes.contains(segment)) {
+            return Optional.empty();
+        }
+        return metadataPerSegment.computeIfAbsent(segment, this::readMetadata);
+    }
+
+    private Optional<SegmentMetadata> readMetadata(long segment) {
+        File file = storageProperties.metadata(context, segment);
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(SegmentMetadata.read(file));
+        } catch (MessagingPlatformException exception) {
+            logger.warn("{}: failed to read metadata for segment {}", context, segment, exception);
+            return Optional.empty();
+        }
     }
 
     /**
@@ -282,7 +500,7 @@ public class StandardIndexManager implements IndexManager {
             if (checked >= maxSegments) {
                 return Optional.empty();
             }
-            if (segment <= maxTokenHint) {
+            if (segment <= maxTokenHint && !pendingRebuilds.containsKey(segment)) {
                 IndexEntries indexEntries = activeIndexes.get(segment).get(aggregateId);
                 if (indexEntries != null) {
                     return Optional.of(indexEntries.lastSequenceNumber());
@@ -290,18 +508,52 @@ public class StandardIndexManager implements IndexManager {
                 checked++;
             }
         }
-        for (Long segment : indexes) {
-            if (checked >= maxSegments) {
-                return Optional.empty();
+        // take the rebuilds before checking the completed segments, a rebuilt segment is added to the completed
+        // segments before it is removed from the pending rebuilds
+        NavigableMap<Long, CompletableFuture<Void>> rebuilding = new TreeMap<>(pendingRebuilds).descendingMap();
+        long foundInSegment = -1;
+        long lastSequenceNumber = -1;
+        GlobalAggregateIndex currentGlobalIndex = globalIndex;
+        if (currentGlobalIndex != null) {
+            long[] segments = currentGlobalIndex.get(aggregateId);
+            for (int i = 0; foundInSegment < 0 && segments != null && i < segments.length; i += 2) {
+                if (segments[i] <= maxTokenHint && indexes.contains(segments[i])) {
+                    foundInSegment = segments[i];
+                    lastSequenceNumber = segments[i + 1];
+                }
+            }
+        } else {
+            for (Long segment : indexes) {
+                if (checked >= maxSegments) {
+                    return Optional.empty();
+                }
+                if (segment <= maxTokenHint) {
+                    IndexEntries indexEntries = getPositions(segment, aggregateId);
+                    if (indexEntries != null) {
+                        foundInSegment = segment;
+                        lastSequenceNumber = indexEntries.lastSequenceNumber();
+                        break;
+                    }
+                    checked++;
+                }
             }
+        }
+
+        // only segments newer than the segment where the aggregate was found can contain later events
+        for (Map.Entry<Long, CompletableFuture<Void>> rebuild : rebuilding.headMap(foundInSegment, false)
+                                                                          .entrySet()) {
+            long segment = rebuild.getKey();
             if (segment <= maxTokenHint) {
+                awaitRebuild(segment, rebuild.getValue());
                 IndexEntries indexEntries = getPositions(segment, aggregateId);
                 if (indexEntries != null) {
                     return Optional.of(indexEntries.lastSequenceNumber());
                 }
-                checked++;
             }
         }
+        if (foundInSegment >= 0) {
+            return Optional.of(lastSequenceNumber);
+        }
         if (remoteIndexManager != null && checked < maxSegments) {
             return remoteIndexManager.getLastSequenceNumber(context,
                                                             aggregateId,
@@ -322,6 +574,9 @@ public class StandardIndexManager implements IndexManager {
     @Override
     public SegmentAndPosition lastEvent(String aggregateId, long minSequenceNumber) {
         for (Long segment : activeIndexes.descendingKeySet()) {
+            if (pendingRebuilds.containsKey(segment)) {
+                continue;
+            }
             IndexEntries indexEntries = activeIndexes.get(segment).get(aggregateId);
             if (indexEntries != null) {
                 if (minSequenceNumber < indexEntries.lastSequenceNumber()) {
@@ -331,7 +586,8 @@ public class StandardIndexManager implements IndexManager {
                 }
             }
         }
-        for (Long segment : indexes) {
+        awaitPendingRebuilds();
+        for (Long segment : completedSegments(aggregateId)) {
             IndexEntries indexEntries = getPositions(segment, aggregateId);
             if (indexEntries != null) {
                 if (minSequenceNumber < indexEntries.lastSequenceNumber()) {
@@ -367,6 +623,11 @@ public class StandardIndexManager implements IndexManager {
      */
     @Override
     public boolean remove(long segment) {
+        activeMetadata.remove(segment);
+        metadataPerSegment.remove(segment);
+        FileUtils.delete(storageProperties.metadata(context, segment));
+        activeTokenIndexes.remove(segment);
+        FileUtils.delete(storageProperties.tokenIndex(context, segment));
         if (activeIndexes.remove(segment) == null) {
             Index index = indexMap.remove(segment);
             if (index != null) {
@@ -374,8 +635,18 @@ public class StandardIndexManager implements IndexManager {
             }
             bloomFilterPerSegment.remove(segment);
             indexes.remove(segment);
+            // older segments are removed by retention and are ignored in the global index, removing the last segment
+            // (rollback) requires an update as a new segment may be created with the same number
+            GlobalAggregateIndex currentGlobalIndex = globalIndex;
+            if (currentGlobalIndex != null) {
+                synchronized (currentGlobalIndex) {
+                    if (segment == currentGlobalIndex.lastSegment()) {
+                        currentGlobalIndex.remove(segment);
+                    }
+                }
+            }
         }
-        return FileUtils.delete(storageProperties.index(context, segment)) &&
+        return FileUtils.delete(indexFile(segment)) &&
                 FileUtils.delete(storageProperties.bloomFilter(context, segment));
     }
 
@@ -403,6 +674,9 @@ public class StandardIndexManager implements IndexManager {
             if (minTokenInPreviousSegment < minToken) {
                 return results;
             }
+            if (pendingRebuilds.containsKey(segment)) {
+                continue;
+            }
             IndexEntries entries = activeIndexes.getOrDefault(segment, Collections.emptyMap()).get(aggregateId);
             if (entries != null) {
                 entries = addToResult(firstSequenceNumber, lastSequenceNumber, results, segment, entries);
@@ -414,7 +688,8 @@ public class StandardIndexManager implements IndexManager {
             minTokenInPreviousSegment = segment;
         }
 
-        for (Long index : indexes) {
+        awaitPendingRebuilds();
+        for (Long index : completedSegments(aggregateId)) {
             if (minTokenInPreviousSegment < minToken) {
                 return results;
             }
@@ -433,6 +708,156 @@ public class StandardIndexManager implements IndexManager {
         return results;
     }
 
+    /**
+     * Finds all positions for multiple aggregates. The aggregates are looked up together per segment, so each segment
+     * index is opened at most once for the whole batch, and the search for an aggregate stops when all its entries
+     * are found.
+     *
+     * @param firstSequenceNumbers minimum sequence number (inclusive) per aggregate identifier
+     * @return map of positions per segment, per aggregate identifier
+     */
+    @Override
+    public Map<String, SortedMap<Long, IndexEntries>> lookupAggregates(Map<String, Long> firstSequenceNumbers) {
+        Map<String, SortedMap<Long, IndexEntries>> results = new HashMap<>();
+        Map<String, Long> remaining = new HashMap<>(firstSequenceNumbers);
+        for (Long segment : activeIndexes.descendingKeySet()) {
+            if (remaining.isEmpty()) {
+                return results;
+            }
+            if (pendingRebuilds.containsKey(segment)) {
+                continue;
+            }
+            Map<String, IndexEntries> segmentEntries = activeIndexes.getOrDefault(segment, Collections.emptyMap());
+            addToResults(segment, new ArrayList<>(remaining.keySet()), segmentEntries, remaining, results);
+        }
+
+        awaitPendingRebuilds();
+        for (Map.Entry<Long, List<String>> candidates : completedSegments(firstSequenceNumbers.keySet()).entrySet()) {
+            if (remaining.isEmpty()) {
+                return results;
+            }
+            long segment = candidates.getKey();
+            List<String> aggregateIds = candidates.getValue()
+                                                  .stream()
+                                                  .filter(remaining::containsKey)
+                                                  .filter(aggregateId -> !notInBloomIndex(segment, aggregateId))
+                                                  .collect(Collectors.toList());
+            if (!aggregateIds.isEmpty()) {
+                addToResults(segment, aggregateIds, getPositions(segment, aggregateIds), remaining, results);
+            }
+        }
+        return results;
+    }
+
+    private void addToResults(long segment, List<String> aggregateIds, Map<String, IndexEntries> segmentEntries,
+                              Map<String, Long> remaining, Map<String, SortedMap<Long, IndexEntries>> results) {
+        for (String aggregateId : aggregateIds) {
+            IndexEntries entries = segmentEntries.get(aggregateId);
+            if (entries == null) {
+                continue;
+            }
+            long firstSequenceNumber = remaining.get(aggregateId);
+            SortedMap<Long, IndexEntries> aggregateResults = results.computeIfAbsent(aggregateId, id -> new TreeMap<>());
+            entries = addToResult(firstSequenceNumber, Long.MAX_VALUE, aggregateResults, segment, entries);
+            if (aggregateResults.isEmpty()) {
+                results.remove(aggregateId);
+            }
+            if (allEntriesFound(firstSequenceNumber, Long.MAX_VALUE, entries)) {
+                remaining.remove(aggregateId);
+            }
+        }
+    }
+
+    /**
+     * Registers that the index for a completed segment is being rebuilt. The segment is removed from the pending
+     * rebuilds when the rebuild succeeds. A rebuild that is stopped or fails for good causes lookups in completed
+     * segments to fail instead of returning incomplete results.
+     *
+     * @param segment the segment number
+     * @param rebuilt completes when the index for the segment is rebuilt
+     */
+    @Override
+    public void indexRebuildPending(long segment, CompletableFuture<Void> rebuilt) {
+        pendingRebuilds.put(segment, rebuilt);
+        rebuilt.thenRun(() -> pendingRebuilds.remove(segment, rebuilt));
+    }
+
+    /**
+     * Waits for the index rebuild of a single segment, for at most the configured index rebuild wait timeout.
+     */
+    private void awaitRebuild(long segment, CompletableFuture<Void> rebuilt) {
+        awaitRebuild("segment " + segment, rebuilt);
+    }
+
+    /**
+     * Waits for the pending index rebuilds, for at most the configured index rebuild wait timeout, so lookups are not
+     * blocked for the whole rebuild.
+     */
+    private void awaitPendingRebuilds() {
+        if (pendingRebuilds.isEmpty()) {
+            return;
+        }
+        awaitRebuild(pendingRebuilds.size() + " completed segments",
+                     CompletableFuture.allOf(pendingRebuilds.values().toArray(new CompletableFuture[0])));
+    }
+
+    private void awaitRebuild(String segments, CompletableFuture<Void> rebuilt) {
+        long timeout = storageProperties.getIndexRebuildWaitTimeout();
+        try {
+            rebuilt.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException exception) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 context + ": index rebuild for " + segments + " failed",
+                                                 exception.getCause() == null ? exception : exception.getCause());
+        } catch (TimeoutException exception) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 context + ": index rebuild for " + segments
+                                                         + " not finished within " + timeout + "ms",
+                                                 exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MessagingPlatformException(ErrorCode.INTERRUPTED,
+                                                 context + ": interrupted while waiting for index rebuild",
+                                                 exception);
+        }
+    }
+
+    /**
+     * Returns the completed segments to check for an aggregate, most recent segment first. Without global index these
+     * are all completed segments.
+     */
+    private Iterable<Long> completedSegments(String aggregateId) {
+        GlobalAggregateIndex currentGlobalIndex = globalIndex;
+        if (currentGlobalIndex == null) {
+            return indexes;
+        }
+        long[] pairs = currentGlobalIndex.get(aggregateId);
+        if (pairs == null) {
+            return Collections.emptyList();
+        }
+        List<Long> segments = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (indexes.contains(pairs[i])) {
+                segments.add(pairs[i]);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the completed segments to check for a batch of aggregates, most recent segment first, with the
+     * aggregates that may have events in each segment.
+     */
+    private SortedMap<Long, List<String>> completedSegments(Collection<String> aggregateIds) {
+        SortedMap<Long, List<String>> segments = new TreeMap<>(Comparator.reverseOrder());
+        for (String aggregateId : aggregateIds) {
+            for (Long segment : completedSegments(aggregateId)) {
+                segments.computeIfAbsent(segment, s -> new ArrayList<>()).add(aggregateId);
+            }
+        }
+        return segments;
+    }
+
     private IndexEntries addToResult(long firstSequenceNumber, long lastSequenceNumber,
                                      SortedMap<Long, IndexEntries> results, Long segment, IndexEntries entries) {
         entries = entries.range(firstSequenceNumber, lastSequenceNumber, EventType.SNAPSHOT.equals(eventType));
@@ -452,7 +877,11 @@ public class StandardIndexManager implements IndexManager {
      * @param delete flag to indicate that all indexes should be deleted
      */
     public void cleanup(boolean delete) {
+        pendingRebuilds.clear();
         activeIndexes.clear();
+        activeMetadata.clear();
+        metadataPerSegment.clear();
+        activeTokenIndexes.clear();
         bloomFilterPerSegment.clear();
         indexMap.forEach((segment, index) -> index.close());
         indexMap.clear();
@@ -460,25 +889,55 @@ public class StandardIndexManager implements IndexManager {
         if (cleanupTask != null && !cleanupTask.isDone()) {
             cleanupTask.cancel(true);
         }
+        GlobalAggregateIndex currentGlobalIndex = globalIndex;
+        globalIndex = null;
+        if (currentGlobalIndex != null) {
+            currentGlobalIndex.close();
+        }
+        if (delete) {
+            globalIndexFiles().forEach(FileUtils::delete);
+        }
+    }
+
+    /**
+     * Returns the files of the global aggregate index, including the write ahead log files of the index.
+     */
+    private Stream<File> globalIndexFiles() {
+        File globalIndexFile = storageProperties.globalIndex(context);
+        String[] globalIndexFiles = globalIndexFile.getParentFile()
+                                                   .list((dir, name) -> name.startsWith(globalIndexFile.getName()));
+        if (globalIndexFiles == null) {
+            return Stream.empty();
+        }
+        return Arrays.stream(globalIndexFiles).map(file -> new File(globalIndexFile.getParentFile(), file));
     }
 
     @Override
     public Stream<String> getBackupFilenames(long lastSegmentBackedUp) {
-        return indexes.stream()
-                      .filter(s -> s > lastSegmentBackedUp)
-                      .flatMap(s -> Stream.of(
-                              storageProperties.index(context, s).getAbsolutePath(),
-                              storageProperties.bloomFilter(context, s).getAbsolutePath()
-                      ));
+        Stream<String> segmentFiles = indexes.stream()
+                                             .filter(s -> s > lastSegmentBackedUp)
+                                             .flatMap(s -> Stream.concat(Stream.of(
+                                                     indexFile(s).getAbsolutePath(),
+                                                     storageProperties.bloomFilter(context, s).getAbsolutePath()
+                                             ), Stream.concat(optionalFile(storageProperties.metadata(context, s)),
+                                                              optionalFile(storageProperties.tokenIndex(context,
+                                                                                                        s)))));
+        // the global index is not included, its files are updated in place when segments are completed so a copy
+        // may be inconsistent. It is derived from the segment indexes and rebuilt when the index manager is
+        // initialized from the backup.
+        return segmentFiles;
+    }
+
+    private Stream<String> optionalFile(File file) {
+        // segments completed before metadata and token indexes were maintained do not have these files
+        return file.exists() ? Stream.of(file.getAbsolutePath()) : Stream.empty();
     }
 
     private class Index implements Closeable {
 
         private final long segment;
         private final Object initLock = new Object();
-        private volatile boolean initialized;
-        private Map<String, IndexEntries> positions;
-        private DB db;
+        private volatile SegmentIndex segmentIndex;
 
 
         private Index(long segment) {
@@ -486,48 +945,34 @@ public class StandardIndexManager implements IndexManager {
         }
 
         public IndexEntries getPositions(String aggregateId) {
-            return positions.get(aggregateId);
+            return segmentIndex.getPositions(aggregateId);
         }
 
         @Override
         public void close() {
-            logger.debug("{}: close {}", segment, storageProperties.index(context, segment));
-            if (db != null && !db.isClosed()) {
+            logger.debug("{}: close {}", segment, indexFile(segment));
+            if (segmentIndex != null && !segmentIndex.isClosed()) {
                 indexCloseMeter.mark();
-                db.close();
+                segmentIndex.close();
             }
         }
 
         public Index ensureReady() {
-            if (initialized && !db.isClosed()) {
+            if (segmentIndex != null && !segmentIndex.isClosed()) {
                 return this;
             }
 
             synchronized (initLock) {
-                if (initialized && !db.isClosed()) {
+                if (segmentIndex != null && !segmentIndex.isClosed()) {
                     return this;
                 }
 
-                if (!storageProperties.index(context, segment).exists()) {
+                if (!indexFile(segment).exists()) {
                     throw new IndexNotFoundException("Index not found for segment: " + segment);
                 }
                 indexOpenMeter.mark();
-                logger.debug("{}: open {}", segment, storageProperties.index(context, segment));
-                DBMaker.Maker maker = DBMaker.fileDB(storageProperties.index(context, segment))
-                                             .readOnly()
-                                             .fileLockDisable();
-                if (storageProperties.isUseMmapIndex()) {
-                    maker.fileMmapEnable();
-                    if (storageProperties.isForceCleanMmapIndex()) {
-                        maker.cleanerHackEnable();
-                    }
-                } else {
-                    maker.fileChannelEnable();
-                }
-                this.db = maker.make();
-                this.positions = db.hashMap(AGGREGATE_MAP, Serializer.STRING, StandardIndexEntriesSerializer.get())
-                                   .createOrOpen();
-                initialized = true;
+                logger.debug("{}: open {}", segment, indexFile(segment));
+                segmentIndex = openIndex(segment);
             }
             return this;
         }
@@ -22,7 +22,10 @@ public class StorageProperties implements Cloneable {
     private static final String PATH_FORMAT = "%s/%020d%s";
     private static final String TEMP_PATH_FORMAT = PATH_FORMAT + ".temp";
     private static final String OLD_PATH_FORMAT = "%s/%014d%s";
+    private static final String GLOBAL_INDEX_PATH_FORMAT = "%s/aggregates%s";
+    private static final String INDEX_REBUILD_PATH_FORMAT = "%s/index-rebuild%s.pending";
     private static final int DEFAULT_READ_BUFFER_SIZE = 1024 * 32;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_SIZE = 1024 * 1024;
     /**
      * File suffix for events files.
      */
@@ -43,6 +46,14 @@ public class StorageProperties implements Cloneable {
      * File suffix for bloom files.
      */
     private String bloomIndexSuffix = ".bloom";
+    /**
+     * File suffix for segment metadata files.
+     */
+    private String metadataSuffix = ".meta";
+    /**
+     * File suffix for token index files.
+     */
+    private String tokenIndexSuffix = ".tindex";
 
     /**
      * Size for new storage segments.
@@ -100,13 +111,32 @@ public class StorageProperties implements Cloneable {
      * When using memory mapped files for indexes, let mapdb forcefully close the memory mapped files on close
      */
     private Boolean forceCleanMmapIndex;
+    /**
+     * Use memory mapped files to read completed segments
+     */
+    private boolean useMmapSegments;
+    /**
+     * Maximum number of completed segments to keep memory mapped, when memory mapped segments are enabled
+     */
+    private int maxMmapSegments = 10;
 
 
     /**
      * Size of the buffer when reading from non-memory mapped files. Defaults to 32kiB.
      */
     private int readBufferSize = DEFAULT_READ_BUFFER_SIZE;
+    /**
+     * Combine append requests from concurrent clients into a single transaction in the segment file.
+     */
+    private boolean groupCommit;
+    /**
+     * Maximum size (bytes) of the events in a transaction that combines multiple append requests. Defaults to 1MiB.
+     */
+    private int groupCommitMaxSize = DEFAULT_GROUP_COMMIT_MAX_SIZE;
     private final SystemInfoProvider systemInfoProvider;
+    /**
+     * Flags for new segments. Set flag 1 to store events compressed.
+     */
     private int flags;
     /**
      * Time to keep events in primary tier before deleting them, if secondary tier is defined.
@@ -114,20 +144,60 @@ public class StorageProperties implements Cloneable {
     private Duration[] retentionTime = new Duration[]{
             Duration.ofDays(7)
     };
+    /**
+     * Format of the index files for completed segments. Set to "sorted" to use sorted, block-compressed index files,
+     * otherwise MapDB index files are used.
+     */
     private String indexFormat;
+    /**
+     * Maintain a global index containing the segments for each aggregate, so reading an aggregate does not need to
+     * check the indexes of all segments.
+     */
+    private boolean globalIndexEnabled;
+    /**
+     * Maximum number of segments read concurrently by a single ad-hoc query. When set to 1 segments are read
+     * sequentially.
+     */
+    private int queryParallelism = 1;
+    /**
+     * Maximum number of segments for which the index is rebuilt concurrently on startup. When set to 1 the indexes are
+     * rebuilt sequentially.
+     */
+    private int indexRebuildThreads = 1;
+    /**
+     * Rebuild missing indexes of completed segments in the background on startup, so the event store is available as
+     * soon as the active segment is initialized. Aggregate lookups that are not resolved by the active segment wait
+     * until the rebuild is finished, for at most {@code indexRebuildWaitTimeout} milliseconds. The sequence number
+     * validation for appends only waits for segments newer than the last segment containing the aggregate. A failed
+     * rebuild is retried.
+     */
+    private boolean backgroundIndexRebuild;
+    /**
+     * Maximum time (in milliseconds) an aggregate lookup waits for a background index rebuild to finish, before it
+     * fails.
+     */
+    private long indexRebuildWaitTimeout = 10000;
+    /**
+     * Maximum number of segments read ahead when reading the events for an aggregate that are spread over multiple
+     * segments. When set to 0 segments are read sequentially.
+     */
+    private int aggregateReadAhead;
 
     public StorageProperties(SystemInfoProvider systemInfoProvider) {
         this.systemInfoProvider = systemInfoProvider;
     }
 
     public StorageProperties(SystemInfoProvider systemInfoProvider, String eventsSuffix, String indexSuffix,
-                             String bloomIndexSuffix, String newIndexSuffix, String globalIndexSuffix) {
+                             String bloomIndexSuffix, String newIndexSuffix, String globalIndexSuffix,
+                             String metadataSuffix, String tokenIndexSuffix) {
         this(systemInfoProvider);
         this.eventsSuffix = eventsSuffix;
         this.indexSuffix = indexSuffix;
         this.bloomIndexSuffix = bloomIndexSuffix;
         this.globalIndexSuffix = globalIndexSuffix;
         this.newIndexSuffix = newIndexSuffix;
+        this.metadataSuffix = metadataSuffix;
+        this.tokenIndexSuffix = tokenIndexSuffix;
     }
 
     public String getEventsSuffix() {
@@ -210,6 +280,38 @@ public class StorageProperties implements Cloneable {
         this.globalIndexSuffix = globalIndexSuffix;
     }
 
+    public File globalIndex(String context) {
+        return new File(String.format(GLOBAL_INDEX_PATH_FORMAT, getStorage(context), globalIndexSuffix));
+    }
+
+    public File indexRebuildMarker(String context) {
+        return new File(String.format(INDEX_REBUILD_PATH_FORMAT, getStorage(context), eventsSuffix));
+    }
+
+    public String getMetadataSuffix() {
+        return metadataSuffix;
+    }
+
+    public void setMetadataSuffix(String metadataSuffix) {
+        this.metadataSuffix = metadataSuffix;
+    }
+
+    public File metadata(String context, long segment) {
+        return new File(String.format(PATH_FORMAT, getStorage(context), segment, metadataSuffix));
+    }
+
+    public String getTokenIndexSuffix() {
+        return tokenIndexSuffix;
+    }
+
+    public void setTokenIndexSuffix(String tokenIndexSuffix) {
+        this.tokenIndexSuffix = tokenIndexSuffix;
+    }
+
+    public File tokenIndex(String context, long segment) {
+        return new File(String.format(PATH_FORMAT, getStorage(context), segment, tokenIndexSuffix));
+    }
+
     public File dataFile(String context, long segment) {
         return new File(String.format(PATH_FORMAT, getStorage(context), segment, eventsSuffix));
     }
@@ -297,6 +399,22 @@ public class StorageProperties implements Cloneable {
         this.readBufferSize = readBufferSize;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public int getGroupCommitMaxSize() {
+        return groupCommitMaxSize;
+    }
+
+    public void setGroupCommitMaxSize(int groupCommitMaxSize) {
+        this.groupCommitMaxSize = groupCommitMaxSize;
+    }
+
     public File oldDataFile(String context, long segment) {
         return new File(String.format(OLD_PATH_FORMAT, getStorage(context), segment, eventsSuffix));
     }
@@ -329,6 +447,62 @@ public class StorageProperties implements Cloneable {
                 !(systemInfoProvider.javaOnWindows() && systemInfoProvider.javaWithModules());
     }
 
+    public boolean isUseMmapSegments() {
+        return useMmapSegments;
+    }
+
+    public void setUseMmapSegments(boolean useMmapSegments) {
+        this.useMmapSegments = useMmapSegments;
+    }
+
+    public int getMaxMmapSegments() {
+        return maxMmapSegments;
+    }
+
+    public void setMaxMmapSegments(int maxMmapSegments) {
+        this.maxMmapSegments = maxMmapSegments;
+    }
+
+    public int getQueryParallelism() {
+        return queryParallelism;
+    }
+
+    public void setQueryParallelism(int queryParallelism) {
+        this.queryParallelism = queryParallelism;
+    }
+
+    public int getIndexRebuildThreads() {
+        return indexRebuildThreads;
+    }
+
+    public void setIndexRebuildThreads(int indexRebuildThreads) {
+        this.indexRebuildThreads = indexRebuildThreads;
+    }
+
+    public boolean isBackgroundIndexRebuild() {
+        return backgroundIndexRebuild;
+    }
+
+    public void setBackgroundIndexRebuild(boolean backgroundIndexRebuild) {
+        this.backgroundIndexRebuild = backgroundIndexRebuild;
+    }
+
+    public long getIndexRebuildWaitTimeout() {
+        return indexRebuildWaitTimeout;
+    }
+
+    public void setIndexRebuildWaitTimeout(long indexRebuildWaitTimeout) {
+        this.indexRebuildWaitTimeout = indexRebuildWaitTimeout;
+    }
+
+    public int getAggregateReadAhead() {
+        return aggregateReadAhead;
+    }
+
+    public void setAggregateReadAhead(int aggregateReadAhead) {
+        this.aggregateReadAhead = aggregateReadAhead;
+    }
+
     public boolean isCleanRequired() {
         return systemInfoProvider.javaOnWindows();
     }
@@ -383,12 +557,39 @@ public class StorageProperties implements Cloneable {
         this.indexFormat = indexFormat;
     }
 
+    public boolean isGlobalIndexEnabled() {
+        return globalIndexEnabled;
+    }
+
+    public void setGlobalIndexEnabled(boolean globalIndexEnabled) {
+        this.globalIndexEnabled = globalIndexEnabled;
+    }
+
     public StorageProperties withIndexFormat(String indexFormat) {
         StorageProperties clone = cloneProperties();
         clone.indexFormat = indexFormat;
         return clone;
     }
 
+    public StorageProperties withIndexRebuild(int indexRebuildThreads, boolean backgroundIndexRebuild) {
+        StorageProperties clone = cloneProperties();
+        clone.indexRebuildThreads = indexRebuildThreads;
+        clone.backgroundIndexRebuild = backgroundIndexRebuild;
+        return clone;
+    }
+
+    public StorageProperties withIndexRebuildWaitTimeout(long indexRebuildWaitTimeout) {
+        StorageProperties clone = cloneProperties();
+        clone.indexRebuildWaitTimeout = indexRebuildWaitTimeout;
+        return clone;
+    }
+
+    public StorageProperties withAggregateReadAhead(int aggregateReadAhead) {
+        StorageProperties clone = cloneProperties();
+        clone.aggregateReadAhead = aggregateReadAhead;
+        return clone;
+    }
+
     public StorageProperties withMaxIndexesInMemory(int maxIndexesInMemory) {
         StorageProperties clone = cloneProperties();
         clone.maxIndexesInMemory = maxIndexesInMemory;
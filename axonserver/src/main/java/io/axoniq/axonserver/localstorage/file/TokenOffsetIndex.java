@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sparse index of the positions of transactions in a segment. The index contains the first transaction starting after
+ * each {@value #INTERVAL} bytes boundary in the segment, so readers can start reading at the nearest transaction
+ * before the requested token instead of reading all transaction headers from the start of the segment.
+ * <p>
+ * For completed segments the index is stored as a file containing (long token, int position) entries, ordered by
+ * token.
+ *
+ * @since 4.5
+ */
+public class TokenOffsetIndex {
+
+    static final int INTERVAL = 64 * 1024;
+    private static final int ENTRY_SIZE = 8 + 4;
+
+    private final ConcurrentNavigableMap<Long, Integer> positions = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registers a transaction written in the segment. Adds an entry for the next transaction when the transaction
+     * crosses an interval boundary.
+     *
+     * @param position     the position of the transaction in the segment
+     * @param nextToken    the token of the first event after the transaction
+     * @param nextPosition the position directly after the transaction
+     */
+    public void add(int position, long nextToken, int nextPosition) {
+        if (position / INTERVAL != nextPosition / INTERVAL) {
+            positions.put(nextToken, nextPosition);
+        }
+    }
+
+    /**
+     * Finds the last indexed transaction starting at or before the given token.
+     *
+     * @param token the token to find
+     * @return the token and position of the transaction, or an empty optional when there is no such transaction
+     */
+    public Optional<Entry> floor(long token) {
+        Map.Entry<Long, Integer> entry = positions.floorEntry(token);
+        return entry == null ? Optional.empty() : Optional.of(new Entry(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Writes the index to a file.
+     *
+     * @param file the file to write
+     */
+    public void write(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (Map.Entry<Long, Integer> entry : positions.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_WRITE_ERROR,
+                                                 "Failed to write token index: " + file,
+                                                 ioException);
+        }
+    }
+
+    /**
+     * Finds the last indexed transaction starting at or before the given token in an index file, using a binary search
+     * on the file.
+     *
+     * @param file  the index file
+     * @param token the token to find
+     * @return the token and position of the transaction, or an empty optional when there is no such transaction
+     */
+    public static Optional<Entry> floor(File file, long token) {
+        try (RandomAccessFile indexFile = new RandomAccessFile(file, "r")) {
+            long low = 0;
+            long high = indexFile.length() / ENTRY_SIZE - 1;
+            Entry found = null;
+            while (low <= high) {
+                long middle = (low + high) >>> 1;
+                indexFile.seek(middle * ENTRY_SIZE);
+                long entryToken = indexFile.readLong();
+                if (entryToken <= token) {
+                    found = new Entry(entryToken, indexFile.readInt());
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return Optional.ofNullable(found);
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.INDEX_READ_ERROR,
+                                                 "Failed to read token index: " + file,
+                                                 ioException);
+        }
+    }
+
+    /**
+     * The token of the first event in a transaction and the position of the transaction in the segment.
+     */
+    public static class Entry {
+
+        private final long token;
+        private final int position;
+
+        public Entry(long token, int position) {
+            this.token = token;
+            this.position = position;
+        }
+
+        public long getToken() {
+            return token;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+    }
+}
@@ -33,16 +33,28 @@ public class TransactionByteBufferIterator implements TransactionIterator {
 
 
     public TransactionByteBufferIterator(ByteBufferEventSource eventSource, long segment, long token, boolean validating) {
+        this(eventSource, segment, 5, token, validating);
+    }
+
+    /**
+     * @param eventSource         the source to read the transactions from
+     * @param transactionToken    the token of the first event in the transaction to start reading from
+     * @param transactionPosition the position of the transaction to start reading from
+     * @param token               the token of the first transaction to return
+     * @param validating          flag to indicate that the checksums of the transactions must be validated
+     */
+    public TransactionByteBufferIterator(ByteBufferEventSource eventSource, long transactionToken,
+                                         int transactionPosition, long token, boolean validating) {
         this.eventSource = eventSource;
         this.reader = eventSource.getBuffer();
-        this.currentSequenceNumber = segment;
+        this.currentSequenceNumber = transactionToken;
         this.validating = validating;
-        forwardTo(token);
+        forwardTo(token, transactionPosition);
         readTransaction();
     }
 
-    private void forwardTo(long firstSequence) {
-        reader.position(5);
+    private void forwardTo(long firstSequence, int transactionPosition) {
+        reader.position(transactionPosition);
         while (firstSequence > currentSequenceNumber) {
 
             int size = reader.getInt();
@@ -155,7 +155,10 @@ public class QueryEventsRequestStreamObserver implements StreamObserver<QueryEve
                                                                                                                   pipeLine));
                 }
                 if (aggregateIdentifier == null) {
-                    QueryOptions queryOptions = new QueryOptions(minConnectionToken, maxToken, query.getStartTime());
+                    QueryOptions queryOptions = new QueryOptions(minConnectionToken,
+                                                                 maxToken,
+                                                                 query.getStartTime(),
+                                                                 !isAggregatedBeforeLimit(query));
                     senderService.submit(() -> {
                         eventStreamReader.query(queryOptions,
                                                 event -> pushEvent(event, pipeLine));
@@ -209,13 +212,30 @@ public class QueryEventsRequestStreamObserver implements StreamObserver<QueryEve
     }
 
     private boolean isProjectOperation(String operator) {
-        return "count".equals(operator)
-                || "min".equals(operator)
-                || "max".equals(operator)
-                || "avg".equals(operator)
-                || "sum".equals(operator)
-                || "select".equals(operator)
-                || "groupby".equals(operator);
+        return "select".equals(operator) || isAggregateOperation(operator);
+    }
+
+    /**
+     * Checks if the query aggregates the events before a limit is applied. In this case the result of the query does
+     * not depend on the order in which the events are read.
+     */
+    private boolean isAggregatedBeforeLimit(Query query) {
+        for (int i = 0; i < query.size(); i++) {
+            if (query.get(i) instanceof FunctionExpr) {
+                String operator = query.get(i).operator();
+                if ("limit".equals(operator)) {
+                    return false;
+                }
+                if (isAggregateOperation(operator)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isAggregateOperation(String operator) {
+        return operatorIn(operator, "count", "min", "max", "avg", "sum", "groupby");
     }
 
     private String getTimeWindow(QueryEventsRequest queryEventsRequest) {
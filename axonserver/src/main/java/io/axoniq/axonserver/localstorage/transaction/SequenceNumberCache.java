@@ -101,11 +101,13 @@ public class SequenceNumberCache {
         Map<String, MinMaxPair> minMaxPerAggregate = new HashMap<>();
         events.stream()
               .filter(SerializedEvent::isDomainEvent)
-              .map(SerializedEvent::asEvent)
-              .forEach(e -> minMaxPerAggregate.computeIfAbsent(e.getAggregateIdentifier(),
-                                                               i -> new MinMaxPair(e.getAggregateIdentifier(),
-                                                                                   e.getAggregateSequenceNumber()))
-                                              .setMax(e.getAggregateSequenceNumber()));
+              .forEach(e -> {
+                  String aggregateIdentifier = e.getAggregateIdentifier();
+                  long sequenceNumber = e.getAggregateSequenceNumber();
+                  minMaxPerAggregate.computeIfAbsent(aggregateIdentifier,
+                                                     i -> new MinMaxPair(aggregateIdentifier, sequenceNumber))
+                                    .setMax(sequenceNumber);
+              });
 
         Map<String, SequenceNumber> oldSequenceNumberPerAggregate = new HashMap<>();
         Runnable unreserve = () -> oldSequenceNumberPerAggregate
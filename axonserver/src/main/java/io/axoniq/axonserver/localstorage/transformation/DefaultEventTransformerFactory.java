@@ -15,6 +15,9 @@ package io.axoniq.axonserver.localstorage.transformation;
 public class DefaultEventTransformerFactory implements EventTransformerFactory {
     @Override
     public EventTransformer get(byte version, int flags) {
+        if ((flags & DeflateEventTransformer.COMPRESSED_FLAG) != 0) {
+            return DeflateEventTransformer.INSTANCE;
+        }
         return NoOpEventTransformer.INSTANCE;
     }
 
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.transformation;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Event transformer that compresses events using deflate. Only events larger than {@value #MIN_COMPRESS_SIZE} bytes
+ * are compressed, and only when compression reduces the size of the event.
+ * <p>
+ * A compressed event starts with a 0 byte, followed by the algorithm and the uncompressed size. As a serialized
+ * protobuf message never starts with a 0 byte, events that are not compressed are stored and read as is. This allows
+ * compressed and uncompressed events to be mixed in a segment.
+ * <p>
+ * Deflaters and inflaters hold native memory. They are kept in small pools and released with {@code end()} when the
+ * pool is full, so the number of instances does not grow with the number of threads using the transformer.
+ *
+ * @since 4.5
+ */
+public class DeflateEventTransformer implements EventTransformer {
+
+    /**
+     * Storage flag to indicate that events in the segment may be compressed.
+     */
+    public static final int COMPRESSED_FLAG = 0x01;
+    public static final DeflateEventTransformer INSTANCE = new DeflateEventTransformer();
+
+    private static final int MIN_COMPRESS_SIZE = 256;
+    private static final byte MARKER = 0;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER_SIZE = 6;
+
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors();
+
+    private final Queue<Deflater> deflaters = new ArrayBlockingQueue<>(MAX_POOLED);
+    private final Queue<Inflater> inflaters = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private DeflateEventTransformer() {
+    }
+
+    @Override
+    public byte[] fromStorage(byte[] eventBytes) {
+        if (eventBytes.length < HEADER_SIZE || eventBytes[0] != MARKER) {
+            return eventBytes;
+        }
+        if (eventBytes[1] != DEFLATE) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Unsupported compression algorithm: " + eventBytes[1]);
+        }
+        byte[] event = new byte[readInt(eventBytes, 2)];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        inflater.setInput(eventBytes, HEADER_SIZE, eventBytes.length - HEADER_SIZE);
+        try {
+            int size = 0;
+            while (size < event.length) {
+                int inflated = inflater.inflate(event, size, event.length - size);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Unexpected end of compressed event");
+                }
+                size += inflated;
+            }
+            return event;
+        } catch (DataFormatException dataFormatException) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Failed to decompress event",
+                                                 dataFormatException);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    @Override
+    public byte[] toStorage(byte[] bytes) {
+        if (bytes.length < MIN_COMPRESS_SIZE) {
+            return bytes;
+        }
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        // no use storing compressed data that is not smaller than the original
+        byte[] compressed = new byte[bytes.length];
+        int size = HEADER_SIZE;
+        boolean finished;
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            while (!deflater.finished() && size < compressed.length) {
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            finished = deflater.finished();
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+        if (!finished) {
+            return bytes;
+        }
+        compressed[0] = MARKER;
+        compressed[1] = DEFLATE;
+        writeInt(compressed, 2, bytes.length);
+        return Arrays.copyOf(compressed, size);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
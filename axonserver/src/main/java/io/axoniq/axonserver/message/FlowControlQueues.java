@@ -18,7 +18,10 @@ import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
@@ -29,6 +32,11 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
+ * Queues of messages waiting to be sent, per destination. By default each destination has a priority queue ordered by
+ * the comparator. When the queues are created with a number of priority bands, each destination has a {@link
+ * PriorityBandQueue} instead, where the priority passed when adding a message determines the band. Priorities higher
+ * than the number of bands minus one share the highest band, negative priorities share the lowest band.
+ *
  * @author Marc Gathier
  */
 public class FlowControlQueues<T> {
@@ -41,13 +49,28 @@ public class FlowControlQueues<T> {
     private final MeterFactory meterFactory;
     private final MetricName metricName;
     private final ErrorCode errorCode;
+    private final int priorityBands;
 
     private final Map<String, BlockingQueue<DestinationNode>> segments = new ConcurrentHashMap<>();
     private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
 
     public FlowControlQueues(Comparator<T> comparator, int softLimit, MetricName metricName,
                              MeterFactory meterFactory, ErrorCode errorCode) {
+        this(comparator, softLimit, metricName, meterFactory, errorCode, 0);
+    }
+
+    /**
+     * @param comparator    comparator for messages in a destination queue, used when priorityBands is 0
+     * @param softLimit     maximum number of messages in a destination queue for messages without priority
+     * @param metricName    name of the metric for the queue size
+     * @param meterFactory  factory to create the queue size metric
+     * @param errorCode     error code when a queue is full
+     * @param priorityBands number of priority bands per destination queue, 0 to use priority queues
+     */
+    public FlowControlQueues(Comparator<T> comparator, int softLimit, MetricName metricName,
+                             MeterFactory meterFactory, ErrorCode errorCode, int priorityBands) {
         this.comparator = comparator;
+        this.priorityBands = priorityBands;
         this.softLimit = softLimit;
         this.hardLimit = (int) Math.ceil(softLimit * 1.1);
         this.metricName = metricName;
@@ -70,6 +93,48 @@ public class FlowControlQueues<T> {
         return message == null ? null : message.value;
     }
 
+    /**
+     * Takes up to {@code maxMessages} messages from the queue for the destination. Waits up to 1 second for the first
+     * message, then takes the messages that are already available. When less than {@code maxMessages} are available,
+     * waits at most {@code lingerNanos} nanoseconds for more messages.
+     *
+     * @param filterValue the destination
+     * @param maxMessages the maximum number of messages to take
+     * @param lingerNanos the maximum time to wait for additional messages after the first message
+     * @return the messages, empty if there was no message within 1 second
+     *
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public List<T> take(String filterValue, int maxMessages, long lingerNanos) throws InterruptedException {
+        if (maxMessages <= 0) {
+            return Collections.emptyList();
+        }
+        BlockingQueue<DestinationNode> destinationSegment = segments.computeIfAbsent(filterValue,
+                                                                                     this::newQueueWithMetrics);
+        DestinationNode message = destinationSegment.poll(1, TimeUnit.SECONDS);
+        if (message == null) {
+            return Collections.emptyList();
+        }
+        List<T> messages = new ArrayList<>(Math.min(maxMessages, 64));
+        messages.add(message.value);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (messages.size() < maxMessages) {
+            message = destinationSegment.poll();
+            if (message == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                message = destinationSegment.poll(remaining, TimeUnit.NANOSECONDS);
+                if (message == null) {
+                    break;
+                }
+            }
+            messages.add(message.value);
+        }
+        return messages;
+    }
+
     public void put(String filterValue, T value) {
         put(filterValue, value, 0);
     }
@@ -94,7 +159,7 @@ public class FlowControlQueues<T> {
                         softLimit);
             throw new MessagingPlatformException(errorCode, "Failed to add request to queue " + filterValue);
         }
-        DestinationNode destinationNode = new DestinationNode(value);
+        DestinationNode destinationNode = new DestinationNode(value, priority);
         if (!destinationSegment.offer(destinationNode)) {
             throw new MessagingPlatformException(ErrorCode.OTHER, "Failed to add request to queue " + filterValue);
         }
@@ -130,8 +195,10 @@ public class FlowControlQueues<T> {
         });
     }
 
-    private PriorityBlockingQueue<DestinationNode> newQueueWithMetrics(String destination) {
-        PriorityBlockingQueue<DestinationNode> queue = new PriorityBlockingQueue<>();
+    private BlockingQueue<DestinationNode> newQueueWithMetrics(String destination) {
+        BlockingQueue<DestinationNode> queue = priorityBands > 0 ?
+                new PriorityBandQueue<>(priorityBands, this::band) :
+                new PriorityBlockingQueue<>();
         if (meterFactory != null && metricName != null) {
             Gauge gauge = meterFactory.gauge(metricName,
                                              Tags.of("destination", destination),
@@ -142,6 +209,10 @@ public class FlowControlQueues<T> {
         return queue;
     }
 
+    private int band(DestinationNode node) {
+        return (int) (priorityBands - 1 - Math.max(0, Math.min(priorityBands - 1, node.priority)));
+    }
+
     public Map<String, BlockingQueue<DestinationNode>> getSegments() {
         return segments;
     }
@@ -150,9 +221,15 @@ public class FlowControlQueues<T> {
 
         private final T value;
         private final long id;
+        private final long priority;
 
         public DestinationNode(T value) {
+            this(value, 0);
+        }
+
+        public DestinationNode(T value, long priority) {
             this.value = value;
+            this.priority = priority;
             this.id = requestId.getAndIncrement();
         }
 
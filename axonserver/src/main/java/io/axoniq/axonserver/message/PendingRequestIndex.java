@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index on the pending requests in a request cache, by expiry time and by the handlers the requests are waiting for.
+ * Requests are kept in buckets of {@value #BUCKET_MILLIS} milliseconds, ordered by expiry time, so finding the expired
+ * requests only needs to visit the expired buckets. Finding the requests for a handler only needs to visit the
+ * requests sent to that handler.
+ * <p>
+ * The index may return keys of requests that are already removed from the cache, or replaced by a new request with the
+ * same key. Callers must check the returned keys against the cache.
+ *
+ * @param <K> the type of the request key
+ * @param <H> the type of the handler identification
+ * @since 4.5
+ */
+public class PendingRequestIndex<K, H> {
+
+    private static final long BUCKET_MILLIS = 100;
+
+    private final ConcurrentNavigableMap<Long, Set<K>> expiryBuckets = new ConcurrentSkipListMap<>();
+    private final Map<H, Set<K>> keysPerHandler = new ConcurrentHashMap<>();
+    private final Map<K, Registration<H>> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a request to the index. If there already is a request with the same key in the index, it is replaced.
+     *
+     * @param key      the key of the request
+     * @param expiry   the time (in milliseconds since epoch) when the request expires
+     * @param handlers the handlers the request is waiting for
+     */
+    public void add(K key, long expiry, Collection<H> handlers) {
+        Registration<H> registration = new Registration<>(expiry / BUCKET_MILLIS, new ArrayList<>(handlers));
+        Registration<H> previous = registrations.put(key, registration);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        long bucket = registration.bucket;
+        Set<K> keys;
+        do {
+            keys = expiryBuckets.computeIfAbsent(bucket, b -> ConcurrentHashMap.newKeySet());
+            keys.add(key);
+            // retry when the bucket was expired concurrently, as the key would not be found anymore
+        } while (expiryBuckets.get(bucket) != keys);
+        registration.handlers.forEach(handler -> keysPerHandler.compute(handler, (h, handlerKeys) -> {
+            Set<K> updated = handlerKeys == null ? new HashSet<>() : handlerKeys;
+            updated.add(key);
+            return updated;
+        }));
+    }
+
+    /**
+     * Removes a request from the index.
+     *
+     * @param key the key of the request
+     */
+    public void remove(K key) {
+        Registration<H> registration = registrations.remove(key);
+        if (registration != null) {
+            unindex(key, registration);
+        }
+    }
+
+    private void unindex(K key, Registration<H> registration) {
+        Set<K> keys = expiryBuckets.get(registration.bucket);
+        if (keys != null) {
+            keys.remove(key);
+        }
+        registration.handlers.forEach(handler -> keysPerHandler.computeIfPresent(handler, (h, handlerKeys) -> {
+            handlerKeys.remove(key);
+            return handlerKeys.isEmpty() ? null : handlerKeys;
+        }));
+    }
+
+    /**
+     * Returns the keys of the requests that may have expired at the given time. Buckets that are completely expired
+     * are removed from the index.
+     *
+     * @param now the current time in milliseconds since epoch
+     * @return keys of requests that may have expired
+     */
+    public List<K> expired(long now) {
+        List<K> expired = new ArrayList<>();
+        long currentBucket = now / BUCKET_MILLIS;
+        Map.Entry<Long, Set<K>> first = expiryBuckets.firstEntry();
+        while (first != null && first.getKey() < currentBucket) {
+            if (expiryBuckets.remove(first.getKey(), first.getValue())) {
+                expired.addAll(first.getValue());
+            }
+            first = expiryBuckets.firstEntry();
+        }
+        Set<K> current = expiryBuckets.get(currentBucket);
+        if (current != null) {
+            expired.addAll(current);
+        }
+        return expired;
+    }
+
+    /**
+     * Removes a handler from the index and returns the keys of the requests waiting for this handler.
+     *
+     * @param handler the handler
+     * @return keys of the requests waiting for the handler
+     */
+    public Set<K> removeHandler(H handler) {
+        Set<K> keys = keysPerHandler.remove(handler);
+        return keys == null ? Collections.emptySet() : keys;
+    }
+
+    /**
+     * Returns the number of requests waiting for a handler. The result is an estimate when requests are added or
+     * removed concurrently.
+     *
+     * @param handler the handler
+     * @return the number of requests waiting for the handler
+     */
+    public int count(H handler) {
+        Set<K> keys = keysPerHandler.get(handler);
+        return keys == null ? 0 : keys.size();
+    }
+
+    /**
+     * Removes all requests from the index.
+     */
+    public void clear() {
+        registrations.clear();
+        expiryBuckets.clear();
+        keysPerHandler.clear();
+    }
+
+    private static class Registration<H> {
+
+        private final long bucket;
+        private final List<H> handlers;
+
+        private Registration(long bucket, List<H> handlers) {
+            this.bucket = bucket;
+            this.handlers = handlers;
+        }
+    }
+}
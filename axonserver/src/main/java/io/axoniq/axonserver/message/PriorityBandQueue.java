@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToIntFunction;
+
+/**
+ * Unbounded blocking queue for a small number of priority levels, without locks. Each priority level (band) has its own
+ * non-blocking FIFO queue, elements are taken from the band with the highest priority first. Consumers waiting for an
+ * element are parked, and unparked by the producer that adds the next element.
+ * <p>
+ * Elements with the same priority are returned in insertion order. Band 0 has the highest priority.
+ *
+ * @param <E> the type of the elements
+ * @since 4.5
+ */
+public class PriorityBandQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final Queue<E>[] bands;
+    private final ToIntFunction<E> bandFunction;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param bandCount    the number of priority bands
+     * @param bandFunction function returning the band for an element, between 0 (highest priority) and {@code
+     *                     bandCount} - 1
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityBandQueue(int bandCount, ToIntFunction<E> bandFunction) {
+        this.bandFunction = bandFunction;
+        this.bands = new Queue[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            bands[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        int band = Math.max(0, Math.min(bands.length - 1, bandFunction.applyAsInt(element)));
+        bands[band].offer(element);
+        size.incrementAndGet();
+        signalWaiter();
+        return true;
+    }
+
+    private void signalWaiter() {
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    @Override
+    public void put(E element) {
+        offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return offer(element);
+    }
+
+    @Override
+    public E poll() {
+        for (Queue<E> band : bands) {
+            E element = band.poll();
+            if (element != null) {
+                size.decrementAndGet();
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread current = Thread.currentThread();
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waiters.offer(current);
+            // check again after registering, an element added before registration does not unpark this thread
+            element = poll();
+            if (element == null) {
+                LockSupport.parkNanos(this, remaining);
+                element = poll();
+            }
+            if (!waiters.remove(current) && size.get() > 0) {
+                // a producer unparked this thread, pass the signal on as there are more elements
+                signalWaiter();
+            }
+            if (element != null) {
+                return element;
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E element;
+        do {
+            element = poll(1, TimeUnit.DAYS);
+        } while (element == null);
+        return element;
+    }
+
+    @Override
+    public E peek() {
+        for (Queue<E> band : bands) {
+            E element = band.peek();
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        for (Queue<E> band : bands) {
+            if (band.remove(element)) {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements, in the order they would be taken. The iterator does not
+     * support removal.
+     *
+     * @return iterator over the elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int band;
+            private Iterator<E> bandIterator = bands[0].iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!bandIterator.hasNext() && band < bands.length - 1) {
+                    bandIterator = bands[++band].iterator();
+                }
+                return bandIterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return bandIterator.next();
+            }
+        };
+    }
+}
@@ -9,6 +9,8 @@
 
 package io.axoniq.axonserver.message.command;
 
+import io.axoniq.axonserver.message.ClientStreamIdentification;
+import io.axoniq.axonserver.message.PendingRequestIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,15 +21,18 @@ import org.springframework.util.unit.DataSize;
 
 import javax.annotation.Nonnull;
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * Cache for pending commands.
  * Has a scheduled task to check for commands that are pending for longer than the configured timeout
- * and will cancel these commands when timeout occurs.
+ * and will cancel these commands when timeout occurs. Pending commands are indexed by expiry time and by handler,
+ * so the timeout check and the cleanup on handler disconnect do not need to scan the whole cache.
  * @author Marc Gathier
  */
 @Component
@@ -37,6 +42,8 @@ public class CommandCache extends ConcurrentHashMap<String, CommandInformation>
     private final Clock clock;
     private final long cacheCapacity;
     private final int COMMANDS_PER_GB = 2500;
+    private final PendingRequestIndex<String, ClientStreamIdentification> pendingRequestIndex =
+            new PendingRequestIndex<>();
     @Autowired
     public CommandCache(@Value("${axoniq.axonserver.default-command-timeout:300000}") long defaultCommandTimeout,
                         Clock clock, @Value("${axoniq.axonserver.command-cache-capacity:0}") long cacheCapacity) {
@@ -59,39 +66,110 @@ public class CommandCache extends ConcurrentHashMap<String, CommandInformation>
     @Scheduled(fixedDelayString = "${axoniq.axonserver.cache-close-rate:5000}")
     public void clearOnTimeout() {
         logger.debug("Checking timed out commands");
-        long minTimestamp = clock.millis() - defaultCommandTimeout;
-        Set<Entry<String, CommandInformation>> toDelete = entrySet().stream().filter(e -> e.getValue().getTimestamp() < minTimestamp).collect(
-                Collectors.toSet());
+        long now = clock.millis();
+        long minTimestamp = now - defaultCommandTimeout;
+        List<CommandInformation> toDelete = new ArrayList<>();
+        pendingRequestIndex.expired(now).forEach(key -> {
+            CommandInformation commandInformation = get(key);
+            if (commandInformation != null && commandInformation.getTimestamp() < minTimestamp
+                    && remove(key, commandInformation)) {
+                toDelete.add(commandInformation);
+            }
+        });
         if( ! toDelete.isEmpty()) {
             logger.warn("Found {} waiting commands to delete", toDelete.size());
-            toDelete.forEach(e -> {
+            toDelete.forEach(commandInformation -> {
                 logger.warn("Cancelling command {} sent by {}, waiting for reply from {}",
-                            e.getValue().getRequestIdentifier(),
-                            e.getValue().getSourceClientId(),
-                            e.getValue().getClientStreamIdentification());
-                remove(e.getKey());
-                e.getValue().cancel();
+                            commandInformation.getRequestIdentifier(),
+                            commandInformation.getSourceClientId(),
+                            commandInformation.getClientStreamIdentification());
+                commandInformation.cancel();
             });
         }
     }
 
+    /**
+     * Removes the pending commands that are waiting for a reply from the given handler.
+     *
+     * @param client the client stream identification of the handler
+     * @return the removed commands, per message identifier
+     */
+    public Map<String, CommandInformation> removeForHandler(ClientStreamIdentification client) {
+        Map<String, CommandInformation> removed = new HashMap<>();
+        pendingRequestIndex.removeHandler(client).forEach(key -> {
+            CommandInformation commandInformation = get(key);
+            if (commandInformation != null && commandInformation.checkClient(client)
+                    && remove(key, commandInformation)) {
+                removed.put(key, commandInformation);
+            }
+        });
+        return removed;
+    }
+
+    /**
+     * Returns the number of pending commands that are waiting for a reply from the given handler.
+     *
+     * @param client the client stream identification of the handler
+     * @return the number of pending commands for the handler
+     */
+    public int pendingCount(ClientStreamIdentification client) {
+        return pendingRequestIndex.count(client);
+    }
+
     @Override
     public CommandInformation put(@Nonnull String key, @Nonnull CommandInformation value) {
         checkCapacity();
-        return super.put(key, value);
+        CommandInformation previous = super.put(key, value);
+        index(key, value);
+        return previous;
     }
 
 
     @Override
     public CommandInformation putIfAbsent(String key, CommandInformation value) {
         checkCapacity();
-        return super.putIfAbsent(key, value);
+        CommandInformation previous = super.putIfAbsent(key, value);
+        if (previous == null) {
+            index(key, value);
+        }
+        return previous;
     }
 
     @Override
     public void putAll(Map<? extends String, ? extends CommandInformation> m) {
         checkCapacity();
         super.putAll(m);
+        m.forEach(this::index);
+    }
+
+    @Override
+    public CommandInformation remove(@Nonnull Object key) {
+        CommandInformation removed = super.remove(key);
+        if (removed != null) {
+            pendingRequestIndex.remove((String) key);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean remove(@Nonnull Object key, Object value) {
+        if (super.remove(key, value)) {
+            pendingRequestIndex.remove((String) key);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        pendingRequestIndex.clear();
+    }
+
+    private void index(String key, CommandInformation value) {
+        pendingRequestIndex.add(key,
+                                value.getTimestamp() + defaultCommandTimeout,
+                                Collections.singletonList(value.getClientStreamIdentification()));
     }
 
     private void checkCapacity() {
@@ -22,16 +22,15 @@ import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.MeterFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.Comparator;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Responsible for managing command subscriptions and processing commands.
@@ -53,7 +52,16 @@ public class CommandDispatcher {
     public CommandDispatcher(CommandRegistrationCache registrations, CommandCache commandCache,
                              CommandMetricsRegistry metricRegistry,
                              MeterFactory meterFactory,
-                             @Value("${axoniq.axonserver.command-queue-capacity-per-client:10000}") int queueCapacity) {
+                             int queueCapacity) {
+        this(registrations, commandCache, metricRegistry, meterFactory, queueCapacity, 0);
+    }
+
+    @Autowired
+    public CommandDispatcher(CommandRegistrationCache registrations, CommandCache commandCache,
+                             CommandMetricsRegistry metricRegistry,
+                             MeterFactory meterFactory,
+                             @Value("${axoniq.axonserver.command-queue-capacity-per-client:10000}") int queueCapacity,
+                             @Value("${axoniq.axonserver.command-queue-priority-bands:0}") int priorityBands) {
         this.registrations = registrations;
         this.commandCache = commandCache;
         this.metricRegistry = metricRegistry;
@@ -61,7 +69,8 @@ public class CommandDispatcher {
                                                 queueCapacity,
                                                 BaseMetricName.AXON_APPLICATION_COMMAND_QUEUE_SIZE,
                                                 meterFactory,
-                                                ErrorCode.COMMAND_DISPATCH_ERROR);
+                                                ErrorCode.COMMAND_DISPATCH_ERROR,
+                                                priorityBands);
         metricRegistry.gauge(BaseMetricName.AXON_ACTIVE_COMMANDS, commandCache, ConcurrentHashMap::size);
     }
 
@@ -106,6 +115,7 @@ public class CommandDispatcher {
             getCommandQueues().move(client.toString(), this::redispatch);
         }
         handlePendingCommands(client);
+        metricRegistry.removeHandler(client);
     }
 
     private void dispatchToCommandHandler(SerializedCommand command, CommandHandler<?> commandHandler,
@@ -126,12 +136,19 @@ public class CommandDispatcher {
 
         try {
             logger.debug("Dispatch {} to: {}", command.getName(), commandHandler.getClientStreamIdentification());
+            String sourceClientId = command.wrapped().getClientId();
             CommandInformation commandInformation = new CommandInformation(command.getName(),
-                                                                                    command.wrapped().getClientId(),
-                                                                       commandHandler.getClientId(),
-                                                                                    responseObserver,
-                                                                       commandHandler.getClientStreamIdentification(),
-                                                                       commandHandler.getComponentName());
+                                                                           sourceClientId,
+                                                                           commandHandler.getClientId(),
+                                                                           responseObserver,
+                                                                           commandHandler.getClientStreamIdentification(),
+                                                                           commandHandler.getComponentName(),
+                                                                           metricRegistry.timerHandle(
+                                                                                   command.getName(),
+                                                                                   sourceClientId,
+                                                                                   commandHandler.getClientId(),
+                                                                                   commandHandler.getClientStreamIdentification()
+                                                                                                 .getContext()));
         commandCache.put(command.getMessageIdentifier(), commandInformation);
         WrappedCommand wrappedCommand = new WrappedCommand(commandHandler.getClientStreamIdentification(),
                                                            commandHandler.getClientId(),
@@ -165,12 +182,18 @@ public class CommandDispatcher {
         CommandInformation toPublisher = commandCache.remove(commandResponse.getRequestIdentifier());
         if (toPublisher != null) {
             logger.debug("Sending response to: {}", toPublisher);
+            long duration = System.currentTimeMillis() - toPublisher.getTimestamp();
+            metricRegistry.addResponseTime(toPublisher.getClientStreamIdentification(), duration);
             if (!proxied) {
-                metricRegistry.add(toPublisher.getRequestIdentifier(),
-                                   toPublisher.getSourceClientId(),
-                                   toPublisher.getTargetClientId(),
-                                   toPublisher.getClientStreamIdentification().getContext(),
-                                   System.currentTimeMillis() - toPublisher.getTimestamp());
+                if (toPublisher.getTimerHandle() != null) {
+                    toPublisher.getTimerHandle().record(duration);
+                } else {
+                    metricRegistry.add(toPublisher.getRequestIdentifier(),
+                                       toPublisher.getSourceClientId(),
+                                       toPublisher.getTargetClientId(),
+                                       toPublisher.getClientStreamIdentification().getContext(),
+                                       duration);
+                }
             }
             toPublisher.getResponseConsumer().accept(commandResponse);
         } else {
@@ -221,29 +244,29 @@ public class CommandDispatcher {
                                                                                 commandInformation
                                                                                         .getResponseConsumer(),
                                                                                 client.getClientStreamIdentification(),
-                                                                                client.getComponentName()));
+                                                                                client.getComponentName(),
+                                                                                metricRegistry.timerHandle(
+                                                                                        request.getName(),
+                                                                                        request.wrapped().getClientId(),
+                                                                                        client.getClientId(),
+                                                                                        client.getClientStreamIdentification()
+                                                                                              .getContext())));
         return client.queueName();
     }
 
     private void handlePendingCommands(ClientStreamIdentification client) {
-        List<String> messageIds = commandCache.entrySet().stream().filter(e -> e.getValue().checkClient(client))
-                                              .map(Map.Entry::getKey).collect(Collectors.toList());
-
-        messageIds.forEach(m -> {
-            CommandInformation ci = commandCache.remove(m);
-            if (ci != null) {
-                ci.getResponseConsumer().accept(new SerializedCommandResponse(CommandResponse.newBuilder()
-                                                                                             .setMessageIdentifier(m)
-                                                                                             .setRequestIdentifier(m)
-                                                                                             .setErrorMessage(
-                                                                                                     ErrorMessageFactory
-                                                                                                             .build("Connection lost while executing command on: "
-                                                                                                                            + ci
-                                                                                                                     .getClientStreamIdentification()))
-                                                                                             .setErrorCode(ErrorCode.CONNECTION_TO_HANDLER_LOST
-                                                                                                                   .getCode())
-                                                                                             .build()));
-            }
+        commandCache.removeForHandler(client).forEach((m, ci) -> {
+            ci.getResponseConsumer().accept(new SerializedCommandResponse(CommandResponse.newBuilder()
+                                                                                         .setMessageIdentifier(m)
+                                                                                         .setRequestIdentifier(m)
+                                                                                         .setErrorMessage(
+                                                                                                 ErrorMessageFactory
+                                                                                                         .build("Connection lost while executing command on: "
+                                                                                                                        + ci
+                                                                                                                 .getClientStreamIdentification()))
+                                                                                         .setErrorCode(ErrorCode.CONNECTION_TO_HANDLER_LOST
+                                                                                                               .getCode())
+                                                                                         .build()));
         });
     }
 
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message.command;
+
+import io.axoniq.axonserver.message.ClientStreamIdentification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Determines if a command handler is saturated, based on the number of commands waiting for a response from the handler
+ * and the average response time of the handler. Used by load aware command routing to divert commands from saturated
+ * handlers.
+ *
+ * @since 4.5
+ */
+@Component
+public class CommandHandlerLoad {
+
+    private final CommandCache commandCache;
+    private final CommandMetricsRegistry metricsRegistry;
+    private final int maxPending;
+    private final long maxAverageResponseTime;
+
+    /**
+     * @param commandCache           cache containing the pending commands
+     * @param metricsRegistry        registry containing the average response times per handler
+     * @param maxPending             number of pending commands for a handler at which the handler is saturated
+     * @param maxAverageResponseTime average response time (in milliseconds) above which a handler with pending
+     *                               commands is saturated
+     */
+    public CommandHandlerLoad(CommandCache commandCache,
+                              CommandMetricsRegistry metricsRegistry,
+                              @Value("${axoniq.axonserver.command-routing-max-pending:1000}") int maxPending,
+                              @Value("${axoniq.axonserver.command-routing-max-average-response-time:5000}")
+                                      long maxAverageResponseTime) {
+        this.commandCache = commandCache;
+        this.metricsRegistry = metricsRegistry;
+        this.maxPending = maxPending;
+        this.maxAverageResponseTime = maxAverageResponseTime;
+    }
+
+    /**
+     * Checks if a command handler is saturated. A handler is saturated when it has reached the maximum number of
+     * pending commands, or when it has pending commands and its average response time is above the maximum. A handler
+     * without pending commands is never saturated, so a handler that recovers gets commands again.
+     *
+     * @param handler the client stream of the handler
+     * @return true if the handler is saturated
+     */
+    public boolean isSaturated(ClientStreamIdentification handler) {
+        int pending = commandCache.pendingCount(handler);
+        return pending >= maxPending
+                || (pending > 0 && metricsRegistry.averageResponseTime(handler) > maxAverageResponseTime);
+    }
+}
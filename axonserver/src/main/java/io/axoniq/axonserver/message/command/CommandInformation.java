@@ -14,6 +14,7 @@ import io.axoniq.axonserver.grpc.ErrorMessage;
 import io.axoniq.axonserver.grpc.SerializedCommandResponse;
 import io.axoniq.axonserver.grpc.command.CommandResponse;
 import io.axoniq.axonserver.message.ClientStreamIdentification;
+import io.axoniq.axonserver.metric.RequestTimers;
 
 import java.util.UUID;
 import java.util.function.Consumer;
@@ -29,17 +30,44 @@ public class CommandInformation {
     private final String componentName;
     private final String sourceClientId;
     private final String targetClientId;
+    private final RequestTimers.Handle timerHandle;
 
     public CommandInformation(String requestIdentifier, String sourceClientId,
                               String targetClientId, Consumer<SerializedCommandResponse> responseConsumer,
                               ClientStreamIdentification clientStreamIdentification,
                               String componentName) {
+        this(requestIdentifier,
+             sourceClientId,
+             targetClientId,
+             responseConsumer,
+             clientStreamIdentification,
+             componentName,
+             null);
+    }
+
+    /**
+     * Creates an instance with a pre-resolved handle for the timer of the command.
+     *
+     * @param requestIdentifier          the name of the command
+     * @param sourceClientId             the unique identifier of the client that sent the command
+     * @param targetClientId             the unique identifier of the client handling the command
+     * @param responseConsumer           consumer for the command response
+     * @param clientStreamIdentification the stream of the client handling the command
+     * @param componentName              the component name of the client handling the command
+     * @param timerHandle                handle to register the duration of the command, may be null
+     */
+    public CommandInformation(String requestIdentifier, String sourceClientId,
+                              String targetClientId, Consumer<SerializedCommandResponse> responseConsumer,
+                              ClientStreamIdentification clientStreamIdentification,
+                              String componentName,
+                              RequestTimers.Handle timerHandle) {
         this.requestIdentifier = requestIdentifier;
         this.sourceClientId = sourceClientId;
         this.targetClientId = targetClientId;
         this.responseConsumer = responseConsumer;
         this.clientStreamIdentification = clientStreamIdentification;
         this.componentName = componentName;
+        this.timerHandle = timerHandle;
     }
 
     public String getRequestIdentifier() {
@@ -95,4 +123,13 @@ public class CommandInformation {
     public String getTargetClientId() {
         return targetClientId;
     }
+
+    /**
+     * Returns the handle to register the duration of the command, resolved when the command was dispatched.
+     *
+     * @return the handle to register the duration of the command, or null if not resolved
+     */
+    public RequestTimers.Handle getTimerHandle() {
+        return timerHandle;
+    }
 }
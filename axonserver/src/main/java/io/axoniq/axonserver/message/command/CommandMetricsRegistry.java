@@ -9,22 +9,25 @@
 
 package io.axoniq.axonserver.message.command;
 
+import io.axoniq.axonserver.applicationevents.TopologyEvents;
+import io.axoniq.axonserver.message.ClientStreamIdentification;
 import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.ClusterMetric;
 import io.axoniq.axonserver.metric.CompositeMetric;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.axoniq.axonserver.metric.Metrics;
+import io.axoniq.axonserver.metric.RequestTimers;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Tags;
-import io.micrometer.core.instrument.Timer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.ToDoubleFunction;
 
 /**
@@ -36,9 +39,10 @@ import java.util.function.ToDoubleFunction;
 @Service("CommandMetricsRegistry")
 public class CommandMetricsRegistry {
 
-    private final Logger logger = LoggerFactory.getLogger(CommandMetricsRegistry.class);
-
-    private final Map<String, Timer> timerMap = new ConcurrentHashMap<>();
+    private static final double RESPONSE_TIME_WEIGHT = 0.2;
+    private static final int DEFAULT_MAX_TIMERS = 10000;
+    private final RequestTimers timers;
+    private final Map<ClientStreamIdentification, AtomicLong> averageResponseTimes = new ConcurrentHashMap<>();
     private final MeterFactory meterFactory;
 
     /**
@@ -47,15 +51,47 @@ public class CommandMetricsRegistry {
      * @param meterFactory the factory to create meter objects
      */
     public CommandMetricsRegistry(MeterFactory meterFactory) {
+        this(meterFactory, DEFAULT_MAX_TIMERS);
+    }
+
+    /**
+     * Constructor for the registy.
+     *
+     * @param meterFactory the factory to create meter objects
+     * @param maxTimers    maximum number of command timers, further combinations of command, source and target are
+     *                     counted in an overflow timer
+     */
+    @Autowired
+    public CommandMetricsRegistry(MeterFactory meterFactory,
+                                  @Value("${axoniq.axonserver.metrics-max-request-timers:10000}") int maxTimers) {
         this.meterFactory = meterFactory;
+        this.timers = new RequestTimers(meterFactory, BaseMetricName.AXON_COMMAND, maxTimers);
     }
 
+    /**
+     * Returns the handle to register durations of a command, to resolve the timer when the command is dispatched.
+     *
+     * @param command        the name of the command
+     * @param sourceClientId the client issuing the command
+     * @param targetClientId the client handling the command
+     * @param context        the principal context of the client handling the command
+     * @return the handle to register the duration of the command handling
+     */
+    public RequestTimers.Handle timerHandle(String command,
+                                            String sourceClientId,
+                                            String targetClientId,
+                                            String context) {
+        return timers.handle(command, sourceClientId, targetClientId, context);
+    }
 
-    private static String metricName(String command,
-                                     String sourceClientId,
-                                     String targetClientId,
-                                     String context) {
-        return String.join(".", command, sourceClientId, targetClientId, context);
+    /**
+     * Removes the command timers of a client when it disconnects.
+     *
+     * @param event the disconnect event
+     */
+    @EventListener
+    public void on(TopologyEvents.ApplicationDisconnected event) {
+        timers.remove(event.getClientId());
     }
 
     /**
@@ -73,28 +109,43 @@ public class CommandMetricsRegistry {
                     String targetClientId,
                     String context,
                     long duration) {
-        try {
-            timer(command, sourceClientId, targetClientId, context).record(duration, TimeUnit.MILLISECONDS);
-        } catch (Exception ex) {
-            logger.debug("Failed to create timer", ex);
-        }
+        timerHandle(command, sourceClientId, targetClientId, context).record(duration);
+    }
+
+    /**
+     * Registers the response time of a command handler, to maintain an exponentially weighted moving average of the
+     * response times per handler.
+     *
+     * @param handler  the client stream of the handler
+     * @param duration the duration of the command handling in milliseconds
+     */
+    public void addResponseTime(ClientStreamIdentification handler, long duration) {
+        averageResponseTimes.computeIfAbsent(handler, h -> new AtomicLong(Double.doubleToLongBits(duration)))
+                            .getAndUpdate(old -> {
+                                double average = Double.longBitsToDouble(old);
+                                return Double.doubleToLongBits(
+                                        average + RESPONSE_TIME_WEIGHT * (duration - average));
+                            });
     }
 
-    private Timer timer(String command,
-                        String sourceClientId,
-                        String targetClientId,
-                        String context) {
-        return timerMap.computeIfAbsent(metricName(command, sourceClientId, targetClientId, context),
-                                        n -> meterFactory.timer(BaseMetricName.AXON_COMMAND,
-                                                                Tags.of(
-                                                                        MeterFactory.REQUEST,
-                                                                        command.replaceAll("\\.", "/"),
-                                                                        MeterFactory.CONTEXT,
-                                                                        context,
-                                                                        MeterFactory.SOURCE,
-                                                                        sourceClientId,
-                                                                        MeterFactory.TARGET,
-                                                                        targetClientId)));
+    /**
+     * Returns the exponentially weighted moving average of the response times of a command handler.
+     *
+     * @param handler the client stream of the handler
+     * @return the average response time in milliseconds, 0 if there are no response times for the handler
+     */
+    public double averageResponseTime(ClientStreamIdentification handler) {
+        AtomicLong average = averageResponseTimes.get(handler);
+        return average == null ? 0 : Double.longBitsToDouble(average.get());
+    }
+
+    /**
+     * Removes the response times of a command handler.
+     *
+     * @param handler the client stream of the handler
+     */
+    public void removeHandler(ClientStreamIdentification handler) {
+        averageResponseTimes.remove(handler);
     }
 
 
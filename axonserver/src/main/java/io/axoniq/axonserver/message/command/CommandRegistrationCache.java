@@ -16,9 +16,11 @@ import io.axoniq.axonserver.grpc.command.Command;
 import io.axoniq.axonserver.grpc.command.CommandSubscription;
 import io.axoniq.axonserver.message.ClientStreamIdentification;
 import io.axoniq.axonserver.message.command.hashing.ConsistentHashRoutingSelector;
+import io.axoniq.axonserver.message.command.hashing.LoadAwareRoutingSelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -43,6 +45,11 @@ import static java.util.Collections.emptyMap;
 @Component("CommandRegistrationCache")
 public class CommandRegistrationCache {
 
+    /**
+     * Value for the command routing property to enable load aware routing.
+     */
+    public static final String LOAD_AWARE_ROUTING = "load-aware";
+
     private final Logger logger = LoggerFactory.getLogger(CommandRegistrationCache.class);
     private final ConcurrentMap<ClientStreamIdentification, CommandHandler> commandHandlersPerClientContext = new ConcurrentHashMap<>();
     private final ConcurrentMap<ClientStreamIdentification, Map<String, Integer>> registrationsPerClient = new ConcurrentHashMap<>();
@@ -52,18 +59,42 @@ public class CommandRegistrationCache {
     private final BiFunction<Map<String, MetaDataValue>, Set<ClientStreamIdentification>, Set<ClientStreamIdentification>> metaDataBasedNodeSelector;
 
     /**
-     * Autowired constructor.
+     * Constructor using consistent hash routing.
      *
      * @param metaDataBasedNodeSelector function that filters the possible clients based on meta data values in the
      *                                  request
      */
-    @Autowired
     public CommandRegistrationCache(
             BiFunction<Map<String, MetaDataValue>, Set<ClientStreamIdentification>, Set<ClientStreamIdentification>> metaDataBasedNodeSelector) {
         this.selectorFactory = command -> new ConsistentHashRoutingSelector(loadFactorSolver(command));
         this.metaDataBasedNodeSelector = metaDataBasedNodeSelector;
     }
 
+    /**
+     * Autowired constructor.
+     *
+     * @param metaDataBasedNodeSelector function that filters the possible clients based on meta data values in the
+     *                                  request
+     * @param commandHandlerLoad        provides the load of the command handlers, used for load aware routing
+     * @param routing                   the routing mode, "load-aware" routes commands away from saturated handlers,
+     *                                  any other value uses the consistent hash only
+     */
+    @Autowired
+    public CommandRegistrationCache(
+            BiFunction<Map<String, MetaDataValue>, Set<ClientStreamIdentification>, Set<ClientStreamIdentification>> metaDataBasedNodeSelector,
+            CommandHandlerLoad commandHandlerLoad,
+            @Value("${axoniq.axonserver.command-routing:consistent-hash}") String routing) {
+        if (LOAD_AWARE_ROUTING.equals(routing)) {
+            this.selectorFactory = command -> new LoadAwareRoutingSelector(
+                    loadFactorSolver(command),
+                    client -> commandHandlerLoad.isSaturated(new ClientStreamIdentification(command.context(),
+                                                                                             client)));
+        } else {
+            this.selectorFactory = command -> new ConsistentHashRoutingSelector(loadFactorSolver(command));
+        }
+        this.metaDataBasedNodeSelector = metaDataBasedNodeSelector;
+    }
+
     /**
      * Default constructor. Does not filter targets based on the metadata of the command.
      */
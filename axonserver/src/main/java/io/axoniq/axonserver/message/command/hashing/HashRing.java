@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message.command.hashing;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Immutable consistent hash ring, using a 64-bit non-cryptographic hash. The positions on the ring are kept in a
+ * sorted primitive array, so a lookup is a binary search without creating any objects.
+ * <p>
+ * Each member has a number of positions on the ring proportional to its load factor. A routing key is handled by the
+ * first member on the ring at or after the hash of the routing key.
+ *
+ * @since 4.5
+ */
+public class HashRing {
+
+    private final long[] positions;
+    private final String[] members;
+    private final Map<String, Integer> segmentCounts;
+
+    /**
+     * Creates an empty ring. To register members use {@link #with(String, int)}.
+     */
+    public HashRing() {
+        this(new long[0], new String[0], Collections.emptyMap());
+    }
+
+    private HashRing(long[] positions, String[] members, Map<String, Integer> segmentCounts) {
+        this.positions = positions;
+        this.members = members;
+        this.segmentCounts = segmentCounts;
+    }
+
+    /**
+     * Returns the 64-bit hash of the given {@code value}. Uses FNV-1a on the characters of the value, followed by the
+     * MurmurHash3 finalizer to spread the bits.
+     *
+     * @param value the value to hash
+     * @return the hash of the value
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns a ring with the given {@code member} registered with {@code segmentCount} positions. Returns the current
+     * ring if the member is already registered with the same number of positions.
+     *
+     * @param member       the member to register
+     * @param segmentCount the number of positions for the member on the ring
+     * @return a ring containing the member
+     */
+    public HashRing with(String member, int segmentCount) {
+        Assert.notNull(member, "Member may not be null");
+        if (Objects.equals(segmentCounts.get(member), segmentCount)) {
+            return this;
+        }
+        TreeMap<Long, String> ring = toMap(member);
+        for (int t = 0; t < segmentCount; t++) {
+            ring.put(hash(member + " #" + t), member);
+        }
+        Map<String, Integer> newSegmentCounts = new HashMap<>(segmentCounts);
+        newSegmentCounts.put(member, segmentCount);
+        return fromMap(ring, newSegmentCounts);
+    }
+
+    /**
+     * Returns a ring without the given {@code member}.
+     *
+     * @param member the member to remove
+     * @return a ring without the member
+     */
+    public HashRing without(String member) {
+        Assert.notNull(member, "Member may not be null");
+        if (!segmentCounts.containsKey(member)) {
+            return this;
+        }
+        Map<String, Integer> newSegmentCounts = new HashMap<>(segmentCounts);
+        newSegmentCounts.remove(member);
+        return fromMap(toMap(member), newSegmentCounts);
+    }
+
+    private TreeMap<Long, String> toMap(String excludedMember) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (int i = 0; i < positions.length; i++) {
+            if (!members[i].equals(excludedMember)) {
+                ring.put(positions[i], members[i]);
+            }
+        }
+        return ring;
+    }
+
+    private static HashRing fromMap(TreeMap<Long, String> ring, Map<String, Integer> segmentCounts) {
+        long[] positions = new long[ring.size()];
+        String[] members = new String[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            positions[i] = entry.getKey();
+            members[i] = entry.getValue();
+            i++;
+        }
+        return new HashRing(positions, members, Collections.unmodifiableMap(segmentCounts));
+    }
+
+    /**
+     * Selects the member for the given {@code routingKey}. Walks the ring from the position of the routing key and
+     * returns the first member that is a candidate and is accepted. If no candidate is accepted, the first candidate
+     * on the ring is returned.
+     *
+     * @param routingKey the routing key
+     * @param candidates set of allowed members, null means all members are allowed
+     * @param accept     predicate to check if a member should handle the routing key
+     * @return the selected member, or an empty optional if there is no candidate on the ring
+     */
+    public Optional<String> select(String routingKey, Set<String> candidates, Predicate<String> accept) {
+        if (positions.length == 0) {
+            return Optional.empty();
+        }
+        int start = Arrays.binarySearch(positions, hash(routingKey));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        String first = null;
+        Set<String> rejected = null;
+        for (int i = 0; i < positions.length; i++) {
+            String member = members[(start + i) % positions.length];
+            if ((candidates != null && !candidates.contains(member))
+                    || (rejected != null && rejected.contains(member))) {
+                continue;
+            }
+            if (accept.test(member)) {
+                return Optional.of(member);
+            }
+            if (first == null) {
+                first = member;
+                rejected = new HashSet<>();
+            }
+            rejected.add(member);
+            if (rejected.size() == segmentCounts.size()) {
+                break;
+            }
+        }
+        return Optional.ofNullable(first);
+    }
+
+    /**
+     * Returns the members registered in this ring.
+     *
+     * @return the members of this ring
+     */
+    public Set<String> getMembers() {
+        return segmentCounts.keySet();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message.command.hashing;
+
+import io.axoniq.axonserver.message.command.RoutingSelector;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Routing selector that selects the handler based on a consistent hash, like {@link ConsistentHashRoutingSelector},
+ * but skips handlers that are saturated. When the handler for a routing key is saturated, the next handler on the ring
+ * is selected, so the commands for a routing key still go to the same handler as long as the load is normal.
+ * <p>
+ * Uses a {@link HashRing}, which has a different hash function than {@link ConsistentHash}. Within a cluster all nodes
+ * should use the same routing selector to route commands for the same routing key to the same handler.
+ *
+ * @since 4.5
+ */
+public class LoadAwareRoutingSelector implements RoutingSelector<String> {
+
+    private final AtomicReference<HashRing> hashRing = new AtomicReference<>(new HashRing());
+    private final Function<String, Integer> loadFactorSolver;
+    private final Predicate<String> saturated;
+
+    /**
+     * @param loadFactorSolver a function used to provide the load factor for registered handlers
+     * @param saturated        a predicate to check if a handler is saturated
+     */
+    public LoadAwareRoutingSelector(Function<String, Integer> loadFactorSolver, Predicate<String> saturated) {
+        this.loadFactorSolver = loadFactorSolver;
+        this.saturated = saturated;
+    }
+
+    @Override
+    public Optional<String> selectHandler(String routingKey, Set<String> candidates) {
+        return hashRing.get().select(routingKey, candidates, handler -> !saturated.test(handler));
+    }
+
+    @Override
+    public void register(String handler) {
+        int loadFactor = loadFactorSolver.apply(handler);
+        hashRing.getAndUpdate(old -> old.with(handler, loadFactor));
+    }
+
+    @Override
+    public void unregister(String handler) {
+        hashRing.getAndUpdate(old -> old.without(handler));
+    }
+}
@@ -80,6 +80,18 @@ public class EventDispatcher implements AxonServerClientService {
                     ProtoUtils.marshaller(GetAggregateSnapshotsRequest.getDefaultInstance()),
                     SerializedEventMarshaller.serializedEventMarshaller())
                           .build();
+    /**
+     * Reads the events for multiple aggregates. The client sends a {@link GetAggregateEventsRequest} per aggregate and
+     * completes its stream, the server then streams the events for all aggregates. The events of different aggregates
+     * may be interleaved, each event contains its aggregate identifier.
+     */
+    public static final MethodDescriptor<GetAggregateEventsRequest, SerializedEvent> METHOD_LIST_AGGREGATES_EVENTS =
+            MethodDescriptor.newBuilder(ProtoUtils.marshaller(GetAggregateEventsRequest.getDefaultInstance()),
+                                        SerializedEventMarshaller.serializedEventMarshaller())
+                            .setFullMethodName(MethodDescriptor.generateFullMethodName(EventStoreGrpc.SERVICE_NAME,
+                                                                                       "ListAggregatesEvents"))
+                            .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+                            .build();
     public static final MethodDescriptor<InputStream, Confirmation> METHOD_APPEND_EVENT =
             EventStoreGrpc.getAppendEventMethod().toBuilder(
                     InputStreamMarshaller.inputStreamMarshaller(),
@@ -187,6 +199,43 @@ public class EventDispatcher implements AxonServerClientService {
         });
     }
 
+    public StreamObserver<GetAggregateEventsRequest> listAggregatesEvents(
+            StreamObserver<SerializedEvent> responseObserver) {
+        String context = contextProvider.getContext();
+        ForwardingStreamObserver<SerializedEvent> forwardingStreamObserver =
+                new ForwardingStreamObserver<>(logger, "listAggregatesEvents", responseObserver)
+                        .deferOnReadyHandler();
+        List<GetAggregateEventsRequest> requests = new CopyOnWriteArrayList<>();
+        return new StreamObserver<GetAggregateEventsRequest>() {
+            @Override
+            public void onNext(GetAggregateEventsRequest request) {
+                requests.add(request);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                logger.debug("{}: listAggregatesEvents cancelled by client: {}", context, throwable.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                listAggregatesEvents(context, requests, forwardingStreamObserver);
+            }
+        };
+    }
+
+    public void listAggregatesEvents(String context, List<GetAggregateEventsRequest> requests,
+                                     StreamObserver<SerializedEvent> responseObserver) {
+        checkConnection(context, responseObserver).ifPresent(eventStore -> {
+            try {
+                eventStore.listAggregatesEvents(context, requests, responseObserver);
+            } catch (RuntimeException t) {
+                logger.warn(ERROR_ON_CONNECTION_FROM_EVENT_STORE, "listAggregatesEvents", t.getMessage(), t);
+                responseObserver.onError(GrpcExceptionBuilder.build(t));
+            }
+        });
+    }
+
     public StreamObserver<GetEventsRequest> listEvents(StreamObserver<InputStream> responseObserver) {
         return listEvents(contextProvider.getContext(), responseObserver);
     }
@@ -275,6 +324,9 @@ public class EventDispatcher implements AxonServerClientService {
                                               .addMethod(
                                                       METHOD_LIST_AGGREGATE_EVENTS,
                                                       asyncServerStreamingCall(this::listAggregateEvents))
+                                              .addMethod(
+                                                      METHOD_LIST_AGGREGATES_EVENTS,
+                                                      asyncBidiStreamingCall(this::listAggregatesEvents))
                                               .addMethod(
                                                       METHOD_LIST_AGGREGATE_SNAPSHOTS,
                                                       asyncServerStreamingCall(this::listAggregateSnapshots))
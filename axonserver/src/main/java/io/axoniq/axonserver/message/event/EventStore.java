@@ -26,6 +26,7 @@ import io.axoniq.axonserver.localstorage.SerializedEvent;
 import io.grpc.stub.StreamObserver;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -62,6 +63,16 @@ public interface EventStore {
     void listAggregateEvents(String context, GetAggregateEventsRequest request,
                              StreamObserver<SerializedEvent> responseStreamObserver);
 
+    /**
+     * Read events for multiple aggregates in one batch. The events for each aggregate are published in sequence
+     * number order, but events for different aggregates may be interleaved.
+     * @param context the context to read from
+     * @param requests the requests containing the aggregate identifiers and read options, one per aggregate
+     * @param responseStreamObserver {@link StreamObserver} where the events will be published
+     */
+    void listAggregatesEvents(String context, List<GetAggregateEventsRequest> requests,
+                              StreamObserver<SerializedEvent> responseStreamObserver);
+
     /**
      * Retrieves the Events from a given tracking token. Results are streamed rather than returned at once. Caller gets
      * a stream where it first should send the base request to (including the first token and a number of permits) and
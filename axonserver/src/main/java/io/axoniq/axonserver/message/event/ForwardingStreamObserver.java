@@ -10,19 +10,23 @@
 package io.axoniq.axonserver.message.event;
 
 import io.axoniq.axonserver.grpc.GrpcExceptionBuilder;
+import io.grpc.stub.CallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 
 /**
  * Wraps a {@link StreamObserver} to translate errors to standard exceptions ({@link io.grpc.StatusRuntimeException} with error code in meta data).
+ * Flow control operations are passed to the wrapped observer when it is a {@link CallStreamObserver}, otherwise the
+ * observer is always ready.
  * @author Marc Gathier
  * @since 4.0
  */
-public class ForwardingStreamObserver<T> implements StreamObserver<T> {
+public class ForwardingStreamObserver<T> extends CallStreamObserver<T> {
 
     private final Logger logger;
     private final String request;
     private final StreamObserver<T> responseObserver;
+    private volatile Runnable deferredOnReadyHandler;
 
     public ForwardingStreamObserver(
             Logger logger, String request, StreamObserver<T> responseObserver) {
@@ -31,6 +35,23 @@ public class ForwardingStreamObserver<T> implements StreamObserver<T> {
         this.responseObserver = responseObserver;
     }
 
+    /**
+     * Registers a ready handler on the wrapped observer that runs the handler set later through {@link
+     * #setOnReadyHandler(Runnable)}. gRPC only accepts a ready handler before the call handler returns, this allows a
+     * handler to be set for responses that only start when the client has sent its requests. Must be called from the
+     * call handler.
+     *
+     * @return this observer
+     */
+    public ForwardingStreamObserver<T> deferOnReadyHandler() {
+        if (responseObserver instanceof CallStreamObserver) {
+            deferredOnReadyHandler = () -> {
+            };
+            ((CallStreamObserver<T>) responseObserver).setOnReadyHandler(() -> deferredOnReadyHandler.run());
+        }
+        return this;
+    }
+
     @Override
     public void onNext(T t) {
         responseObserver.onNext(t);
@@ -47,4 +68,39 @@ public class ForwardingStreamObserver<T> implements StreamObserver<T> {
         responseObserver.onCompleted();
     }
 
+    @Override
+    public boolean isReady() {
+        return !(responseObserver instanceof CallStreamObserver) || ((CallStreamObserver<T>) responseObserver).isReady();
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+        if (deferredOnReadyHandler != null) {
+            deferredOnReadyHandler = onReadyHandler;
+        } else if (responseObserver instanceof CallStreamObserver) {
+            ((CallStreamObserver<T>) responseObserver).setOnReadyHandler(onReadyHandler);
+        }
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {
+        if (responseObserver instanceof CallStreamObserver) {
+            ((CallStreamObserver<T>) responseObserver).disableAutoInboundFlowControl();
+        }
+    }
+
+    @Override
+    public void request(int count) {
+        if (responseObserver instanceof CallStreamObserver) {
+            ((CallStreamObserver<T>) responseObserver).request(count);
+        }
+    }
+
+    @Override
+    public void setMessageCompression(boolean enable) {
+        if (responseObserver instanceof CallStreamObserver) {
+            ((CallStreamObserver<T>) responseObserver).setMessageCompression(enable);
+        }
+    }
+
 }
@@ -11,6 +11,7 @@ package io.axoniq.axonserver.message.query;
 
 import io.axoniq.axonserver.applicationevents.TopologyEvents;
 import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.message.PendingRequestIndex;
 import io.axoniq.axonserver.message.command.InsufficientCacheCapacityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,16 +21,20 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
 /**
  * Cache for all active queries this instance of AS is involved into.
  * Extends a {@link ConcurrentHashMap} where the key represents the unique identifier of the query request message.
+ * Pending queries are indexed by expiry time and by handler, so the timeout check and the cleanup on handler
+ * disconnect do not need to scan the whole cache.
  *
  * @author Marc Gathier
  */
@@ -38,6 +43,7 @@ public class QueryCache extends ConcurrentHashMap<String, QueryInformation> {
     private final Logger logger = LoggerFactory.getLogger(QueryCache.class);
     private final long defaultQueryTimeout;
     private final long cacheCapacity;
+    private final PendingRequestIndex<String, String> pendingRequestIndex = new PendingRequestIndex<>();
 
     public QueryCache(@Value("${axoniq.axonserver.default-query-timeout:300000}") long defaultQueryTimeout,
                       @Value("${axoniq.axonserver.query-cache-capacity:10000}") long cacheCapacity) {
@@ -47,31 +53,56 @@ public class QueryCache extends ConcurrentHashMap<String, QueryInformation> {
 
     public QueryInformation remove(String messagId) {
         logger.debug("Remove messageId {}", messagId);
-        return super.remove(messagId);
+        QueryInformation removed = super.remove(messagId);
+        if (removed != null) {
+            pendingRequestIndex.remove(messagId);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean remove(@Nonnull Object key, Object value) {
+        if (super.remove(key, value)) {
+            pendingRequestIndex.remove((String) key);
+            return true;
+        }
+        return false;
     }
 
     @Scheduled(fixedDelayString = "${axoniq.axonserver.cache-close-rate:5000}")
     public void clearOnTimeout() {
         logger.debug("Checking timed out queries");
-        long minTimestamp = System.currentTimeMillis() - defaultQueryTimeout;
-        Set<Entry<String, QueryInformation>> toDelete = entrySet().stream().filter(e -> e.getValue().getTimestamp() < minTimestamp).collect(
-                Collectors.toSet());
+        long now = System.currentTimeMillis();
+        long minTimestamp = now - defaultQueryTimeout;
+        List<QueryInformation> toDelete = new ArrayList<>();
+        pendingRequestIndex.expired(now).forEach(key -> {
+            QueryInformation queryInformation = get(key);
+            if (queryInformation != null && queryInformation.getTimestamp() < minTimestamp
+                    && remove(key, queryInformation)) {
+                toDelete.add(queryInformation);
+            }
+        });
         if( ! toDelete.isEmpty()) {
             logger.warn("Found {} waiting queries to delete", toDelete.size());
-            toDelete.forEach(e -> {
+            toDelete.forEach(queryInformation -> {
                 logger.warn("Cancelling query {} sent by {}, waiting for reply from {}",
-                            e.getValue().getQuery().getQueryName(),
-                            e.getValue().getSourceClientId(),
-                            e.getValue().waitingFor());
-                remove(e.getKey());
-                e.getValue().cancel();
+                            queryInformation.getQuery().getQueryName(),
+                            queryInformation.getSourceClientId(),
+                            queryInformation.waitingFor());
+                queryInformation.cancel();
             });
         }
     }
 
     @EventListener
     public void on(TopologyEvents.QueryHandlerDisconnected queryHandlerDisconnected) {
-        forEach((key, value) -> completeForApplication(value, queryHandlerDisconnected.getClientStreamId()));
+        String clientStreamId = queryHandlerDisconnected.getClientStreamId();
+        pendingRequestIndex.removeHandler(clientStreamId).forEach(key -> {
+            QueryInformation queryInformation = get(key);
+            if (queryInformation != null) {
+                completeForApplication(queryInformation, clientStreamId);
+            }
+        });
     }
 
     private void completeForApplication(QueryInformation entry, String handlerClientStreamId) {
@@ -86,19 +117,39 @@ public class QueryCache extends ConcurrentHashMap<String, QueryInformation> {
     @Override
     public QueryInformation put(@Nonnull String key, @Nonnull QueryInformation value) {
         checkCapacity();
-        return super.put(key, value);
+        QueryInformation previous = super.put(key, value);
+        index(key, value);
+        return previous;
     }
 
     @Override
     public QueryInformation putIfAbsent(String key, QueryInformation value) {
         checkCapacity();
-        return super.putIfAbsent(key, value);
+        QueryInformation previous = super.putIfAbsent(key, value);
+        if (previous == null) {
+            index(key, value);
+        }
+        return previous;
     }
 
     @Override
     public void putAll(Map<? extends String, ? extends QueryInformation> m) {
         checkCapacity();
         super.putAll(m);
+        m.forEach(this::index);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        pendingRequestIndex.clear();
+    }
+
+    private void index(String key, QueryInformation value) {
+        Set<String> waitingFor = value.waitingFor();
+        pendingRequestIndex.add(key,
+                                value.getTimestamp() + defaultQueryTimeout,
+                                waitingFor == null ? Collections.emptySet() : waitingFor);
     }
 
     private void checkCapacity() {
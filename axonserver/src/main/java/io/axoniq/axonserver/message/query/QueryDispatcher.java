@@ -17,13 +17,14 @@ import io.axoniq.axonserver.exception.MessagingPlatformException;
 import io.axoniq.axonserver.grpc.SerializedQuery;
 import io.axoniq.axonserver.grpc.query.QueryRequest;
 import io.axoniq.axonserver.grpc.query.QueryResponse;
-import io.axoniq.axonserver.message.ClientStreamIdentification;
 import io.axoniq.axonserver.message.FlowControlQueues;
 import io.axoniq.axonserver.message.command.InsufficientCacheCapacityException;
 import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.MeterFactory;
+import io.axoniq.axonserver.metric.RequestTimers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -36,6 +37,7 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
 
 /**
  * @author Marc Gathier
@@ -53,7 +55,16 @@ public class QueryDispatcher {
     public QueryDispatcher(QueryRegistrationCache registrationCache, QueryCache queryCache,
                            QueryMetricsRegistry queryMetricsRegistry,
                            MeterFactory meterFactory,
-                           @Value("${axoniq.axonserver.query-queue-capacity-per-client:10000}") int queueCapacity) {
+                           int queueCapacity) {
+        this(registrationCache, queryCache, queryMetricsRegistry, meterFactory, queueCapacity, 0);
+    }
+
+    @Autowired
+    public QueryDispatcher(QueryRegistrationCache registrationCache, QueryCache queryCache,
+                           QueryMetricsRegistry queryMetricsRegistry,
+                           MeterFactory meterFactory,
+                           @Value("${axoniq.axonserver.query-queue-capacity-per-client:10000}") int queueCapacity,
+                           @Value("${axoniq.axonserver.query-queue-priority-bands:0}") int priorityBands) {
         this.registrationCache = registrationCache;
         this.queryMetricsRegistry = queryMetricsRegistry;
         this.queryCache = queryCache;
@@ -61,7 +72,8 @@ public class QueryDispatcher {
                                              queueCapacity,
                                              BaseMetricName.AXON_APPLICATION_QUERY_QUEUE_SIZE,
                                              meterFactory,
-                                             ErrorCode.QUERY_DISPATCH_ERROR);
+                                             ErrorCode.QUERY_DISPATCH_ERROR,
+                                             priorityBands);
         queryMetricsRegistry.gauge(BaseMetricName.AXON_ACTIVE_QUERIES, queryCache, QueryCache::size);
     }
 
@@ -82,15 +94,10 @@ public class QueryDispatcher {
         String requestIdentifier = queryResponse.getRequestIdentifier();
         QueryInformation queryInformation = getQueryInformation(clientStreamId, requestIdentifier);
         if (queryInformation != null) {
-            ClientStreamIdentification clientStream = new ClientStreamIdentification(queryInformation.getContext(),
-                                                                                     clientStreamId);
             if (queryInformation.forward(clientStreamId, queryResponse) <= 0) {
                 queryCache.remove(queryInformation.getKey());
                 if (!proxied) {
-                    queryMetricsRegistry.add(queryInformation.getQuery(),
-                                             queryInformation.getSourceClientId(), clientId,
-                                             clientStream.getContext(),
-                                             System.currentTimeMillis() - queryInformation.getTimestamp());
+                    recordDuration(queryInformation, clientId);
                 }
             }
         } else {
@@ -98,6 +105,20 @@ public class QueryDispatcher {
         }
     }
 
+    private void recordDuration(QueryInformation queryInformation, String clientId) {
+        long duration = System.currentTimeMillis() - queryInformation.getTimestamp();
+        RequestTimers.Handle timerHandle = queryInformation.getTimerHandle(clientId);
+        if (timerHandle != null) {
+            timerHandle.record(duration);
+        } else {
+            queryMetricsRegistry.add(queryInformation.getQuery(),
+                                     queryInformation.getSourceClientId(),
+                                     clientId,
+                                     queryInformation.getContext(),
+                                     duration);
+        }
+    }
+
     private QueryInformation getQueryInformation(String clientStreamId, String requestIdentifier) {
         QueryInformation queryInformation = queryCache.get(requestIdentifier);
         if (queryInformation == null) {
@@ -114,11 +135,7 @@ public class QueryDispatcher {
                 queryCache.remove(queryInformation.getKey());
             }
             if (!proxied) {
-                queryMetricsRegistry.add(queryInformation.getQuery(),
-                                         queryInformation.getSourceClientId(),
-                                         clientId,
-                                         queryInformation.getContext(),
-                                         System.currentTimeMillis() - queryInformation.getTimestamp());
+                recordDuration(queryInformation, clientId);
             }
         } else {
             logger.debug("No (more) information for {} on completed", requestId);
@@ -175,7 +192,17 @@ public class QueryDispatcher {
                                                                              .map(QueryHandler::getClientStreamId)
                                                                              .collect(Collectors.toSet()),
                                                                      expectedResults, callback,
-                                                                     onCompleted);
+                                                                     onCompleted,
+                                                                     handlers.stream()
+                                                                             .collect(Collectors.toMap(
+                                                                                     QueryHandler::getClientId,
+                                                                                     h -> queryMetricsRegistry
+                                                                                             .timerHandle(queryDefinition,
+                                                                                                          query.getClientId(),
+                                                                                                          h.getClientId(),
+                                                                                                          serializedQuery
+                                                                                                                  .context()),
+                                                                                     (h1, h2) -> h1)));
             try {
                 queryCache.put(query.getMessageIdentifier(), queryInformation);
                 handlers.forEach(h -> dispatchOne(h, serializedQuery, timeout));
@@ -230,7 +257,14 @@ public class QueryDispatcher {
                                                                      singleton(queryHandler.getClientStreamId()),
                                                                      expectedResults,
                                                                      callback,
-                                                                     onCompleted);
+                                                                     onCompleted,
+                                                                     singletonMap(queryHandler.getClientId(),
+                                                                                  queryMetricsRegistry.timerHandle(
+                                                                                          queryDefinition,
+                                                                                          serializedQuery.query()
+                                                                                                         .getClientId(),
+                                                                                          queryHandler.getClientId(),
+                                                                                          context)));
             try {
                 queryCache.put(key, queryInformation);
                 dispatchOne(queryHandler, serializedQuery, timeout);
@@ -12,7 +12,10 @@ package io.axoniq.axonserver.message.query;
 import io.axoniq.axonserver.exception.ErrorCode;
 import io.axoniq.axonserver.grpc.ErrorMessage;
 import io.axoniq.axonserver.grpc.query.QueryResponse;
+import io.axoniq.axonserver.metric.RequestTimers;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,6 +34,7 @@ public class QueryInformation {
     private final Consumer<String> onAllReceived;
     private final Set<String> clientStreamIds;
     private final String sourceClientId;
+    private final Map<String, RequestTimers.Handle> timerHandles;
 
     /**
      * Creates an instance with the specified parameters.
@@ -51,6 +55,38 @@ public class QueryInformation {
                             int expectedResults,
                             Consumer<QueryResponse> responseConsumer,
                             Consumer<String> onAllReceived) {
+        this(key,
+             sourceClientId,
+             query,
+             clientStreamIds,
+             expectedResults,
+             responseConsumer,
+             onAllReceived,
+             Collections.emptyMap());
+    }
+
+    /**
+     * Creates an instance with pre-resolved handles for the timers of the query per handling client.
+     *
+     * @param key              the unique identifier of the query request
+     * @param sourceClientId   the unique identifier of the client that sent the query
+     * @param query            the {@link QueryDefinition}
+     * @param clientStreamIds  the unique identifiers of the query stream opened by the clients that subscribed an
+     *                         handler for the query
+     * @param expectedResults  the number of the result that are expected
+     * @param responseConsumer a {@link Consumer} for the received {@link QueryResponse}
+     * @param onAllReceived    a {@link Consumer} for the clientStreamId that sent the last expected response
+     * @param timerHandles     handles to register the duration of the query, per unique identifier of the handling
+     *                         client
+     */
+    public QueryInformation(String key,
+                            String sourceClientId,
+                            QueryDefinition query,
+                            Set<String> clientStreamIds,
+                            int expectedResults,
+                            Consumer<QueryResponse> responseConsumer,
+                            Consumer<String> onAllReceived,
+                            Map<String, RequestTimers.Handle> timerHandles) {
         this.key = key;
         this.sourceClientId = sourceClientId;
         this.query = query;
@@ -58,6 +94,7 @@ public class QueryInformation {
         this.remainingReplies = new AtomicInteger(expectedResults);
         this.onAllReceived = onAllReceived;
         this.clientStreamIds = new CopyOnWriteArraySet<>(clientStreamIds);
+        this.timerHandles = timerHandles;
     }
 
     public QueryDefinition getQuery() {
@@ -155,6 +192,17 @@ public class QueryInformation {
         return sourceClientId;
     }
 
+    /**
+     * Returns the handle to register the duration of the query for the given handling client, resolved when the query
+     * was dispatched.
+     *
+     * @param clientId the unique identifier of the client handling the query
+     * @return the handle to register the duration of the query, or null if not resolved
+     */
+    public RequestTimers.Handle getTimerHandle(String clientId) {
+        return timerHandles.get(clientId);
+    }
+
     /**
      * Returns the unique identifiers of the client query stream from which this query is still waiting for a response.
      *
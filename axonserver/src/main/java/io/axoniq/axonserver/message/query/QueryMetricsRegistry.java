@@ -9,22 +9,21 @@
 
 package io.axoniq.axonserver.message.query;
 
+import io.axoniq.axonserver.applicationevents.TopologyEvents;
 import io.axoniq.axonserver.metric.BaseMetricName;
 import io.axoniq.axonserver.metric.ClusterMetric;
 import io.axoniq.axonserver.metric.CompositeMetric;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.axoniq.axonserver.metric.Metrics;
+import io.axoniq.axonserver.metric.RequestTimers;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Tags;
-import io.micrometer.core.instrument.Timer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
 
 /**
@@ -34,8 +33,8 @@ import java.util.function.ToDoubleFunction;
  */
 @Service("QueryMetricsRegistry")
 public class QueryMetricsRegistry {
-    private final Logger logger = LoggerFactory.getLogger(QueryMetricsRegistry.class);
-    private final Map<String, Timer> timerMap = new ConcurrentHashMap<>();
+    private static final int DEFAULT_MAX_TIMERS = 10000;
+    private final RequestTimers timers;
     private final MeterFactory meterFactory;
 
     /**
@@ -44,7 +43,47 @@ public class QueryMetricsRegistry {
      * @param meterFactory factory to create meters.
      */
     public QueryMetricsRegistry(MeterFactory meterFactory) {
+        this(meterFactory, DEFAULT_MAX_TIMERS);
+    }
+
+    /**
+     * Constructor of the registry.
+     *
+     * @param meterFactory factory to create meters.
+     * @param maxTimers    maximum number of query timers, further combinations of query, source and target are
+     *                     counted in an overflow timer
+     */
+    @Autowired
+    public QueryMetricsRegistry(MeterFactory meterFactory,
+                                @Value("${axoniq.axonserver.metrics-max-request-timers:10000}") int maxTimers) {
         this.meterFactory = meterFactory;
+        this.timers = new RequestTimers(meterFactory, BaseMetricName.AXON_QUERY, maxTimers);
+    }
+
+    /**
+     * Returns the handle to register durations of a query, to resolve the timer when the query is dispatched.
+     *
+     * @param query          the name of the query
+     * @param sourceClientId the source application requesting the query
+     * @param targetClientId the unique id of the client application handling the query
+     * @param context        the principal context application handling the query
+     * @return the handle to register the duration of the query handling
+     */
+    public RequestTimers.Handle timerHandle(QueryDefinition query,
+                                            String sourceClientId,
+                                            String targetClientId,
+                                            String context) {
+        return timers.handle(query.getQueryName(), sourceClientId, targetClientId, context);
+    }
+
+    /**
+     * Removes the query timers of a client when it disconnects.
+     *
+     * @param event the disconnect event
+     */
+    @EventListener
+    public void on(TopologyEvents.ApplicationDisconnected event) {
+        timers.remove(event.getClientId());
     }
 
     /**
@@ -61,11 +100,7 @@ public class QueryMetricsRegistry {
                     String targetClientId,
                     String context,
                     long duration) {
-        try {
-            timer(query, sourceClientId, targetClientId, context).record(duration, TimeUnit.MILLISECONDS);
-        } catch (Exception ex) {
-            logger.debug("Failed to create timer", ex);
-        }
+        timerHandle(query, sourceClientId, targetClientId, context).record(duration);
     }
 
     /**
@@ -87,21 +122,6 @@ public class QueryMetricsRegistry {
     }
 
 
-    private Timer timer(QueryDefinition query, String sourceClientId, String targetClientId, String context) {
-        String metricName = metricName(query, sourceClientId, targetClientId, context);
-        return timerMap.computeIfAbsent(metricName, n ->
-                meterFactory.timer(BaseMetricName.AXON_QUERY,
-                                   Tags.of(
-                                           MeterFactory.REQUEST, query.getQueryName().replaceAll("\\.", "/"),
-                                           MeterFactory.CONTEXT, context,
-                                           MeterFactory.SOURCE, sourceClientId,
-                                           MeterFactory.TARGET, targetClientId)));
-    }
-
-    private String metricName(QueryDefinition query, String sourceClientId, String targetClientId, String context) {
-        return String.join(".", query.getQueryName(), sourceClientId, targetClientId, context);
-    }
-
     /**
      * Retrieves the number of times that a query has been handled by a specific client.
      *
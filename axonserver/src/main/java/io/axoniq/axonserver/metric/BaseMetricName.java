@@ -81,9 +81,18 @@ public enum BaseMetricName implements MetricName {
                                       "The size of queue holding queries waiting for permits from client"),
     AXON_INDEX_OPEN("file.index.open", "Rate of index files opened"),
     AXON_INDEX_CLOSE("file.index.close", "Rate of index files closed"),
+    AXON_INDEX_REBUILD("file.index.rebuild", "Number of segment indexes rebuilt on startup"),
+    AXON_INDEX_REBUILD_PENDING("file.index.rebuild.pending",
+                               "Number of segments waiting for their index to be rebuilt on startup"),
     AXON_AGGREGATE_READTIME("local.aggregate.readtime", "Elapsed time for reading events from the event store"),
+    AXON_AGGREGATE_READ_AHEAD("local.aggregate.readahead",
+                              "Number of segments read ahead for aggregate reads, by whether they were read in time"),
     AXON_LAST_SEQUENCE_READTIME("local.lastsequence.readtime",
-                                "Elapsed time for retrieving the last sequence number for an aggregate");
+                                "Elapsed time for retrieving the last sequence number for an aggregate"),
+    AXON_AGGREGATE_CACHE_HIT("local.aggregate.cache.hit", "Number of aggregate reads served from the aggregate cache"),
+    AXON_AGGREGATE_CACHE_MISS("local.aggregate.cache.miss",
+                              "Number of aggregate reads not found in the aggregate cache"),
+    AXON_AGGREGATE_CACHE_SIZE("local.aggregate.cache.size", "Size in bytes of the events in the aggregate cache");
 
 
     private final String name;
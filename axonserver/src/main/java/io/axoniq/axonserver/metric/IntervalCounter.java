@@ -11,20 +11,20 @@ package io.axoniq.axonserver.metric;
 
 import java.time.Clock;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Counter to determine the rates of an event.
+ * Counter to determine the rates of an event. Counts are kept in {@link LongAdder}s, so concurrent threads marking
+ * events do not contend on a single value.
  * @author Marc Gathier
  * @since 4.2
  */
-public class IntervalCounter extends SlidingWindow<AtomicInteger> {
-    private AtomicLong total = new AtomicLong();
+public class IntervalCounter extends SlidingWindow<LongAdder> {
+    private final LongAdder total = new LongAdder();
     private final long started;
 
     public IntervalCounter(Clock clock) {
-        super(1, 16*60, TimeUnit.SECONDS, AtomicInteger::new, (i1,i2) -> new AtomicInteger(i1.get()+ i2.get()), clock);
+        super(1, 16*60, TimeUnit.SECONDS, LongAdder::new, IntervalCounter::add, clock);
         started = clock.millis();
     }
 
@@ -34,7 +34,7 @@ public class IntervalCounter extends SlidingWindow<AtomicInteger> {
      * @return average rate of the last minute
      */
     public int getOneMinuteRate() {
-        return aggregate(1, TimeUnit.MINUTES).get()/seconds(60);
+        return (int) (sum(1, TimeUnit.MINUTES, LongAdder::sum)/seconds(60));
     }
 
     /**
@@ -43,7 +43,7 @@ public class IntervalCounter extends SlidingWindow<AtomicInteger> {
      * @return average rate of the last five minutes
      */
     public int getFiveMinuteRate() {
-        return aggregate(5, TimeUnit.MINUTES).get()/seconds(300);
+        return (int) (sum(5, TimeUnit.MINUTES, LongAdder::sum)/seconds(300));
     }
 
     /**
@@ -52,7 +52,13 @@ public class IntervalCounter extends SlidingWindow<AtomicInteger> {
      * @return average rate of the last 15 minutes
      */
     public int getFifteenMinuteRate() {
-        return aggregate(15, TimeUnit.MINUTES).get()/seconds(900);
+        return (int) (sum(15, TimeUnit.MINUTES, LongAdder::sum)/seconds(900));
+    }
+
+    private static LongAdder add(LongAdder adder1, LongAdder adder2) {
+        LongAdder result = new LongAdder();
+        result.add(adder1.sum() + adder2.sum());
+        return result;
     }
 
     private int seconds(int i) {
@@ -63,8 +69,8 @@ public class IntervalCounter extends SlidingWindow<AtomicInteger> {
      * Register one occurrence of the event.
      */
     public void mark() {
-        current().incrementAndGet();
-        total.incrementAndGet();
+        current().increment();
+        total.increment();
     }
 
     /**
@@ -72,6 +78,6 @@ public class IntervalCounter extends SlidingWindow<AtomicInteger> {
      * @return the total number of event since counter created
      */
     public long count() {
-        return total.longValue();
+        return total.sum();
     }
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.metric;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timers for the handling time of requests (commands or queries), tagged with the request name, the source client, the
+ * target client and the context. Callers resolve a {@link Handle} when they dispatch a request, and record the duration
+ * on the handle when the response arrives, without looking up the timer again.
+ * <p>
+ * The number of timers is limited, as every combination of request, source and target creates a new meter. Timers are
+ * counted when the first duration is recorded. When the limit is reached, durations for new combinations are recorded
+ * in an overflow timer per context, with {@value #OVERFLOW} as request, source and target. The handles and timers of
+ * a client are removed when the client disconnects, see {@link #remove(String)}.
+ *
+ * @since 4.5
+ */
+public class RequestTimers {
+
+    public static final String OVERFLOW = "_overflow";
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimers.class);
+
+    private final Map<Key, Handle> handles = new ConcurrentHashMap<>();
+    private final Map<String, Handle> overflowHandles = new ConcurrentHashMap<>();
+    private final MeterFactory meterFactory;
+    private final MetricName metricName;
+    private final int maxTimers;
+    private final AtomicInteger timerCount = new AtomicInteger();
+
+    /**
+     * @param meterFactory factory to create the timers
+     * @param metricName   the name of the timers
+     * @param maxTimers    maximum number of distinct timers
+     */
+    public RequestTimers(MeterFactory meterFactory, MetricName metricName, int maxTimers) {
+        this.meterFactory = meterFactory;
+        this.metricName = metricName;
+        this.maxTimers = maxTimers;
+    }
+
+    /**
+     * Returns the handle for the timer of a request. The timer itself is created when the first duration is recorded.
+     *
+     * @param request        the name of the request
+     * @param sourceClientId the client sending the request
+     * @param targetClientId the client handling the request
+     * @param context        the context of the client handling the request
+     * @return the handle to record durations
+     */
+    public Handle handle(String request, String sourceClientId, String targetClientId, String context) {
+        Key key = new Key(request, sourceClientId, targetClientId, context);
+        Handle handle = handles.get(key);
+        if (handle != null) {
+            return handle;
+        }
+        return handles.computeIfAbsent(key, k -> new Handle(request.replace('.', '/'),
+                                                            sourceClientId,
+                                                            targetClientId,
+                                                            context,
+                                                            true));
+    }
+
+    /**
+     * Removes the handles and timers for requests sent or handled by the given client.
+     *
+     * @param clientId the client that disconnected
+     */
+    public void remove(String clientId) {
+        handles.entrySet().removeIf(entry -> {
+            Key key = entry.getKey();
+            if (clientId.equals(key.sourceClientId) || clientId.equals(key.targetClientId)) {
+                entry.getValue().remove();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private Handle overflowHandle(String context) {
+        return overflowHandles.computeIfAbsent(context, c -> new Handle(OVERFLOW, OVERFLOW, OVERFLOW, c, false));
+    }
+
+    /**
+     * Handle to record durations in the timer for a specific request, source and target.
+     */
+    public class Handle {
+
+        private final Tags tags;
+        private final String context;
+        private final boolean limited;
+        private volatile Timer timer;
+        private boolean removed;
+
+        private Handle(String request, String sourceClientId, String targetClientId, String context,
+                       boolean limited) {
+            this.tags = Tags.of(MeterFactory.REQUEST, request,
+                                MeterFactory.CONTEXT, context,
+                                MeterFactory.SOURCE, sourceClientId,
+                                MeterFactory.TARGET, targetClientId);
+            this.context = context;
+            this.limited = limited;
+        }
+
+        /**
+         * Records the duration of a request. Durations recorded after the handle was removed are ignored.
+         *
+         * @param duration the duration in milliseconds
+         */
+        public void record(long duration) {
+            try {
+                Timer current = timer;
+                if (current == null) {
+                    current = resolveTimer();
+                    if (current == null) {
+                        return;
+                    }
+                }
+                current.record(duration, TimeUnit.MILLISECONDS);
+            } catch (Exception ex) {
+                logger.debug("Failed to create timer", ex);
+            }
+        }
+
+        /**
+         * Creates the timer for this handle, or returns the overflow timer for the context when the limit is reached.
+         * Returns {@code null} when the handle was removed.
+         */
+        private synchronized Timer resolveTimer() {
+            if (removed) {
+                return null;
+            }
+            if (timer == null) {
+                if (limited && timerCount.incrementAndGet() > maxTimers) {
+                    timerCount.decrementAndGet();
+                    return overflowHandle(context).resolveTimer();
+                }
+                timer = meterFactory.timer(metricName, tags);
+            }
+            return timer;
+        }
+
+        private synchronized void remove() {
+            removed = true;
+            if (timer != null) {
+                meterFactory.remove(timer);
+                timer = null;
+                timerCount.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final String request;
+        private final String sourceClientId;
+        private final String targetClientId;
+        private final String context;
+        private final int hash;
+
+        private Key(String request, String sourceClientId, String targetClientId, String context) {
+            this.request = request;
+            this.sourceClientId = sourceClientId;
+            this.targetClientId = targetClientId;
+            this.context = context;
+            this.hash = 31 * (31 * (31 * Objects.hashCode(request) + Objects.hashCode(sourceClientId))
+                    + Objects.hashCode(targetClientId)) + Objects.hashCode(context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(request, key.request) &&
+                    Objects.equals(sourceClientId, key.sourceClientId) &&
+                    Objects.equals(targetClientId, key.targetClientId) &&
+                    Objects.equals(context, key.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
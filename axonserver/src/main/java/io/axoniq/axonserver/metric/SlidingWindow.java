@@ -12,22 +12,23 @@ package io.axoniq.axonserver.metric;
 import org.springframework.util.Assert;
 
 import java.time.Clock;
-import java.util.NavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Maintains metrics values for a sliding time window. Keeps buckets per N milliseconds and provides operation to calculate
  * totals over a specific period.
+ * Buckets are kept in a ring buffer, indexed by time slot. A slot is reused when its bucket is older than the history,
+ * so retrieving the current value does not allocate, except when a new bucket starts.
  * @author Marc Gathier
  * @since 4.2
  */
 public class SlidingWindow<T> {
-    // keeps values per bucketMs milliseconds
-    private final NavigableMap<Long, T> buckets = new ConcurrentSkipListMap<>();
+    // keeps values per bucketMs milliseconds, the bucket for key k is in slot k % buckets.length()
+    private final AtomicReferenceArray<Bucket<T>> buckets;
 
     // time period for the individual bucket
     private final long bucketMs;
@@ -36,7 +37,6 @@ public class SlidingWindow<T> {
     // Supplier for a new value
     private final Supplier<T> createOperation;
     protected final Clock clock;
-    private final long maxBuckets;
 
     public SlidingWindow(Supplier<T> createOperation, BinaryOperator<T> aggregateOperation, Clock clock) {
         this(5, 1200, TimeUnit.SECONDS, createOperation, aggregateOperation, clock);
@@ -48,36 +48,34 @@ public class SlidingWindow<T> {
 
         this.clock = clock;
         this.bucketMs = timeUnit.toMillis(bucketSize);
-        this.maxBuckets = (long)Math.ceil(timeUnit.toMillis(history)/(float)this.bucketMs);
+        long maxBuckets = (long)Math.ceil(timeUnit.toMillis(history)/(float)this.bucketMs);
+        this.buckets = new AtomicReferenceArray<>((int) maxBuckets + 1);
     }
 
     /**
-     * Retrieves current metric value. Creates one if no value exists for current bucket. Removes old buckets if necessary.
+     * Retrieves current metric value. Creates one if no value exists for current bucket, replacing the oldest bucket.
      * @return metric value for current timestamp
      */
     public T current() {
         long key = bucket(clock.millis());
-        AtomicBoolean updated = new AtomicBoolean();
-        T bucket = buckets.computeIfAbsent(key, k -> {
-            updated.set(true);
-            return createOperation.get();
-        });
-        if( updated.get()) {
-            truncate(key- maxBuckets);
+        int index = (int) Math.floorMod(key, (long) buckets.length());
+        Bucket<T> bucket = buckets.get(index);
+        while (bucket == null || bucket.key < key) {
+            Bucket<T> created = new Bucket<>(key, createOperation.get());
+            if (buckets.compareAndSet(index, bucket, created)) {
+                return created.value;
+            }
+            bucket = buckets.get(index);
         }
-        return bucket;
+        if (bucket.key == key) {
+            return bucket.value;
+        }
+        // the slot already contains a newer bucket, only when this thread was delayed for longer than the history
+        return createOperation.get();
     }
 
     long bucket(long timestamp) {
-        return (long)Math.floor((double)timestamp/bucketMs);
-    }
-
-    private void truncate(long minKey) {
-        Long firstKey = buckets.firstKey();
-        while( firstKey != null && firstKey < minKey) {
-            buckets.remove(firstKey);
-            firstKey = buckets.firstKey();
-        }
+        return Math.floorDiv(timestamp, bucketMs);
     }
 
     /**
@@ -87,7 +85,47 @@ public class SlidingWindow<T> {
      * @return aggregated metric
      */
     public T aggregate(long time, TimeUnit timeUnit) {
-        long minKey = (long)((double)clock.millis()-timeUnit.toMillis(time))/bucketMs;
-        return buckets.tailMap(minKey, true).values().stream().reduce(createOperation.get(), aggregateOperation);
+        long now = clock.millis();
+        long minKey = (now - timeUnit.toMillis(time)) / bucketMs;
+        long maxKey = bucket(now);
+        T result = createOperation.get();
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket<T> bucket = buckets.get(i);
+            if (bucket != null && bucket.key >= minKey && bucket.key <= maxKey) {
+                result = aggregateOperation.apply(result, bucket.value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the sum of the metric values over the specified time period, without creating intermediate values.
+     * @param time value for period
+     * @param timeUnit unit for value
+     * @param valueFunction function returning the numeric value of a bucket
+     * @return sum of the metric values
+     */
+    public long sum(long time, TimeUnit timeUnit, ToLongFunction<T> valueFunction) {
+        long now = clock.millis();
+        long minKey = (now - timeUnit.toMillis(time)) / bucketMs;
+        long maxKey = bucket(now);
+        long sum = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket<T> bucket = buckets.get(i);
+            if (bucket != null && bucket.key >= minKey && bucket.key <= maxKey) {
+                sum += valueFunction.applyAsLong(bucket.value);
+            }
+        }
+        return sum;
+    }
+
+    private static class Bucket<T> {
+        private final long key;
+        private final T value;
+
+        private Bucket(long key, T value) {
+            this.key = key;
+            this.value = value;
+        }
     }
 }
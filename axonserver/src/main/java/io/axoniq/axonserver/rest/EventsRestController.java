@@ -221,6 +221,55 @@ public class EventsRestController {
         return sseEmitter;
     }
 
+    @GetMapping(path = "events/aggregates")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = TOKEN_PARAM, value = "Access Token",
+                    required = false, dataType = "string", paramType = "header")
+    })
+    public SseEmitter listAggregatesEvents(
+            @RequestHeader(value = CONTEXT_PARAM, defaultValue = Topology.DEFAULT_CONTEXT, required = false) String context,
+            @RequestParam(value = "aggregateId") List<String> aggregateIds,
+            @RequestParam(value = "allowSnapshots", defaultValue = "true", required = false) boolean allowSnapshots,
+            final Principal principal) {
+        auditLog.info("[{}@{}] Request for events of aggregates {}.",
+                      AuditLog.username(principal), context, aggregateIds);
+
+        SseEmitter sseEmitter = new SseEmitter();
+        List<GetAggregateEventsRequest> requests = new ArrayList<>();
+        aggregateIds.forEach(aggregateId -> requests.add(GetAggregateEventsRequest.newBuilder()
+                                                                                  .setAggregateId(aggregateId)
+                                                                                  .setAllowSnapshots(allowSnapshots)
+                                                                                  .build()));
+        ObjectMapper objectMapper = new ObjectMapper();
+        eventStoreClient.listAggregatesEvents(context, requests, new StreamObserver<SerializedEvent>() {
+            @Override
+            public void onNext(SerializedEvent event) {
+                try {
+                    sseEmitter.send(SseEmitter.event().data(objectMapper
+                                                                    .writeValueAsString(new JsonEvent(event.asEvent()))));
+                } catch (Exception e) {
+                    logger.warn("Exception on sending event - {}", e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                sseEmitter.completeWithError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                try {
+                    sseEmitter.send(SseEmitter.event().comment("End of stream"));
+                } catch (IOException e) {
+                    logger.debug("Error on sending completed", e);
+                }
+                sseEmitter.complete();
+            }
+        });
+        return sseEmitter;
+    }
+
     @PostMapping("events")
     @ApiImplicitParams({
             @ApiImplicitParam(name = TOKEN_PARAM, value = "Access Token",
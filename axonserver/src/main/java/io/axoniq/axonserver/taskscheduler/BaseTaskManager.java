@@ -15,7 +15,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 import java.time.Duration;
@@ -34,6 +33,9 @@ import java.util.function.Supplier;
  * Task scheduling component that will execute tasks at a specified moment.
  * Tasks that fail with a {@link TransientException} will automatically be rescheduled, with an exponential backup.
  * When tasks fail with another exception they will not be retried.
+ * <p>
+ * Tasks to execute in the near future are either scheduled individually on the scheduler, or, when a timer tick is
+ * configured, kept in a {@link TimingWheel} that is checked by a single timer on every tick.
  *
  * @author Marc Gathier
  * @since 4.4
@@ -41,16 +43,19 @@ import java.util.function.Supplier;
 public abstract class BaseTaskManager implements SmartLifecycle {
 
     protected static final long MAX_RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final int TIMING_WHEEL_SIZE = 512;
     protected static final Logger logger = LoggerFactory.getLogger(BaseTaskManager.class);
 
     protected final ScheduledTaskExecutor taskExecutor;
-    protected final TaskRepository taskRepository;
+    protected final TaskStore taskStore;
     protected final Supplier<Set<String>> leaderForGroupProvider;
     protected final Predicate<String> raftLeaderTest;
-    protected final PlatformTransactionManager platformTransactionManager;
     protected final ScheduledExecutorService scheduler;
     protected final Clock clock;
     protected final Map<String, Map<String, ScheduledFuture<?>>> scheduledProcessors = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Task>> timingWheelTasks = new ConcurrentHashMap<>();
+    private final TimingWheel<Task> timingWheel;
+    private final long timerTickMillis;
     protected final AtomicLong nextTimestamp = new AtomicLong();
     private final long window = Duration.ofMinutes(5).toMillis();
     private boolean running;
@@ -73,17 +78,47 @@ public abstract class BaseTaskManager implements SmartLifecycle {
             PlatformTransactionManager platformTransactionManager,
             @Qualifier("taskScheduler") ScheduledExecutorService scheduler,
             Clock clock) {
+        this(taskExecutor,
+             new JpaTaskStore(taskRepository, platformTransactionManager),
+             leaderForGroupProvider,
+             raftLeaderTest,
+             scheduler,
+             clock,
+             0);
+    }
+
+    /**
+     * Constructor with a custom task store.
+     *
+     * @param taskExecutor           component that will execute the task
+     * @param taskStore              storage for the tasks
+     * @param leaderForGroupProvider provides set of contexts where node is leader
+     * @param raftLeaderTest         predicate to check if current node is leader for this context
+     * @param scheduler              scheduler component to schedule tasks
+     * @param clock                  a clock instance
+     * @param timerTickMillis        tick of the timing wheel in milliseconds, 0 to schedule each task on the
+     *                               scheduler
+     */
+    protected BaseTaskManager(
+            ScheduledTaskExecutor taskExecutor, TaskStore taskStore,
+            Supplier<Set<String>> leaderForGroupProvider,
+            Predicate<String> raftLeaderTest,
+            ScheduledExecutorService scheduler,
+            Clock clock,
+            long timerTickMillis) {
         this.taskExecutor = taskExecutor;
-        this.taskRepository = taskRepository;
+        this.taskStore = taskStore;
         this.leaderForGroupProvider = leaderForGroupProvider;
         this.raftLeaderTest = raftLeaderTest;
-        this.platformTransactionManager = platformTransactionManager;
         this.scheduler = scheduler;
         this.clock = clock;
+        this.timerTickMillis = timerTickMillis;
+        this.timingWheel = timerTickMillis > 0 ?
+                new TimingWheel<>(timerTickMillis, TIMING_WHEEL_SIZE, clock.millis()) : null;
     }
 
     protected void saveAndSchedule(Task task) {
-        new TransactionTemplate(platformTransactionManager).execute(status -> taskRepository.save(task));
+        taskStore.save(task);
         logger.debug("{}: Task scheduled {}", task.getContext(), task.getTaskId());
         doScheduleTask(task);
     }
@@ -101,6 +136,13 @@ public abstract class BaseTaskManager implements SmartLifecycle {
     }
 
     protected void schedule(Task task) {
+        if (timingWheel != null) {
+            if (timingWheelTasks.computeIfAbsent(task.getContext(), c -> new ConcurrentHashMap<>())
+                                .putIfAbsent(task.getTaskId(), task) == null) {
+                timingWheel.add(task.getTimestamp(), task);
+            }
+            return;
+        }
         scheduledProcessors.computeIfAbsent(task.getContext(), c -> new ConcurrentHashMap<>())
                            .computeIfAbsent(task.getTaskId(), t ->
                                    scheduler.schedule(() -> executeTask(task),
@@ -116,6 +158,12 @@ public abstract class BaseTaskManager implements SmartLifecycle {
     @Override
     public void start() {
         initFetchTasksRunner();
+        if (timingWheel != null) {
+            scheduler.scheduleWithFixedDelay(this::executeExpiredTasks,
+                                             timerTickMillis,
+                                             timerTickMillis,
+                                             TimeUnit.MILLISECONDS);
+        }
         running = true;
     }
 
@@ -170,10 +218,10 @@ public abstract class BaseTaskManager implements SmartLifecycle {
             }
             Set<String> leaderFor = leaderForGroupProvider.get();
             leaderFor.forEach(context -> {
-                Iterable<Task> tasks = taskRepository.findScheduled(context, min, nextTimestamp.get());
+                List<Task> tasks = taskStore.findScheduled(context, min, nextTimestamp.get());
                 logger.trace("{}: scheduling more tasks {} between {} and {}",
                              context,
-                             ((List) tasks).size(),
+                             tasks.size(),
                              min,
                              nextTimestamp.get());
                 tasks.forEach(this::schedule);
@@ -183,6 +231,20 @@ public abstract class BaseTaskManager implements SmartLifecycle {
         }
     }
 
+    private void executeExpiredTasks() {
+        try {
+            timingWheel.advance(clock.millis()).forEach(task -> {
+                // skip tasks that were unscheduled or replaced after they were added to the timing wheel
+                if (timingWheelTasks.getOrDefault(task.getContext(), Collections.emptyMap())
+                                    .remove(task.getTaskId(), task)) {
+                    scheduler.execute(() -> executeTask(task));
+                }
+            });
+        } catch (Exception ex) {
+            logger.warn("Exception executing expired tasks, will try again on next tick", ex);
+        }
+    }
+
     private void executeTask(Task task) {
         scheduledProcessors.getOrDefault(task.getContext(), Collections.emptyMap()).remove(task.getTaskId());
         if (logger.isDebugEnabled()) {
@@ -299,5 +361,6 @@ public abstract class BaseTaskManager implements SmartLifecycle {
         if (future != null) {
             future.cancel(false);
         }
+        timingWheelTasks.getOrDefault(context, Collections.emptyMap()).remove(taskId);
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link TaskStore} storing the tasks in the controldb, using the {@link TaskRepository}.
+ *
+ * @since 4.5
+ */
+public class JpaTaskStore implements TaskStore {
+
+    private final TaskRepository taskRepository;
+    private final PlatformTransactionManager platformTransactionManager;
+
+    /**
+     * @param taskRepository             repository of scheduled tasks
+     * @param platformTransactionManager transaction manager
+     */
+    public JpaTaskStore(TaskRepository taskRepository, PlatformTransactionManager platformTransactionManager) {
+        this.taskRepository = taskRepository;
+        this.platformTransactionManager = platformTransactionManager;
+    }
+
+    @Override
+    public void save(Task task) {
+        new TransactionTemplate(platformTransactionManager).execute(status -> taskRepository.save(task));
+    }
+
+    @Override
+    public Optional<Task> findById(String taskId) {
+        return taskRepository.findById(taskId);
+    }
+
+    @Override
+    public void delete(String taskId) {
+        new TransactionTemplate(platformTransactionManager).execute(status -> {
+            taskRepository.findById(taskId).ifPresent(taskRepository::delete);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> findScheduled(String context, long minTimestamp, long maxTimestamp) {
+        return taskRepository.findScheduled(context, minTimestamp, maxTimestamp);
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.grpc.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * {@link TaskStore} keeping the tasks in memory, backed by an append-only log file. Every change is appended to the log
+ * as a record containing the complete task, or a delete marker. On startup the tasks are restored by replaying the
+ * log.
+ * <p>
+ * Changes are durable when the methods return. Threads that change tasks concurrently share a single fsync: while one
+ * thread is forcing the log to disk, other threads append their records and wait, and the next fsync covers all of
+ * them.
+ * <p>
+ * When the log contains more than {@code compactionThreshold} records and less than half of them are live tasks, the
+ * log is rewritten to contain only the live tasks.
+ *
+ * @since 4.5
+ */
+public class LogTaskStore implements TaskStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTaskStore.class);
+    private static final String LOG_FILE = "tasks.log";
+    private static final String COMPACT_FILE = "tasks.log.compact";
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_SIZE = 4 + 8;
+
+    private final File logFile;
+    private final File compactFile;
+    private final int compactionThreshold;
+    private final Map<String, Task> tasks = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> timeline = new TreeMap<>();
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long records;
+    private long appended;
+    private long synced;
+
+    /**
+     * Opens the task log in the given {@code directory}, and restores the tasks from the log. Creates the directory
+     * if it does not exist.
+     *
+     * @param directory           the directory containing the task log
+     * @param compactionThreshold minimum number of records in the log before it is compacted
+     */
+    public LogTaskStore(String directory, int compactionThreshold) {
+        File dir = new File(directory);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new MessagingPlatformException(ErrorCode.DIRECTORY_CREATION_FAILED,
+                                                 "Failed to create directory: " + dir.getAbsolutePath());
+        }
+        this.logFile = new File(dir, LOG_FILE);
+        this.compactFile = new File(dir, COMPACT_FILE);
+        this.compactionThreshold = compactionThreshold;
+        replay();
+    }
+
+    private void replay() {
+        try {
+            channel = FileChannel.open(logFile.toPath(),
+                                       StandardOpenOption.CREATE,
+                                       StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+            long position = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                long checksum = header.getLong();
+                if (length <= 0 || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                ByteBuffer data = ByteBuffer.allocate(length);
+                channel.read(data, position + HEADER_SIZE);
+                if (checksum(data.array()) != checksum) {
+                    break;
+                }
+                apply(data.array());
+                records++;
+                position += HEADER_SIZE + length;
+            }
+            if (position < size) {
+                logger.warn("{}: ignoring incomplete record at position {}", logFile, position);
+                channel.truncate(position);
+            }
+            channel.position(position);
+            logger.info("{}: restored {} tasks from {} records", logFile, tasks.size(), records);
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_READ_ERROR,
+                                                 "Failed to read task log: " + logFile,
+                                                 ioException);
+        }
+    }
+
+    private void apply(byte[] data) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        byte type = input.readByte();
+        if (type == DELETE) {
+            unindex(input.readUTF());
+        } else if (type == SAVE) {
+            index(readTask(input));
+        } else {
+            throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        Task copy = copy(task);
+        long sequence;
+        synchronized (this) {
+            sequence = append(SAVE, copy);
+            index(copy);
+        }
+        sync(sequence);
+    }
+
+    @Override
+    public synchronized Optional<Task> findById(String taskId) {
+        return Optional.ofNullable(tasks.get(taskId)).map(LogTaskStore::copy);
+    }
+
+    @Override
+    public void delete(String taskId) {
+        long sequence;
+        synchronized (this) {
+            if (!tasks.containsKey(taskId)) {
+                return;
+            }
+            sequence = append(DELETE, taskId);
+            unindex(taskId);
+            if (records > compactionThreshold && records > 2L * tasks.size()) {
+                compact();
+            }
+        }
+        sync(sequence);
+    }
+
+    @Override
+    public synchronized List<Task> findScheduled(String context, long minTimestamp, long maxTimestamp) {
+        List<Task> scheduled = new ArrayList<>();
+        timeline.subMap(minTimestamp, maxTimestamp)
+                .values()
+                .forEach(taskIds -> taskIds.forEach(taskId -> {
+                    Task task = tasks.get(taskId);
+                    if (context.equals(task.getContext()) && TaskStatus.SCHEDULED.equals(task.getStatus())) {
+                        scheduled.add(copy(task));
+                    }
+                }));
+        return scheduled;
+    }
+
+    private void index(Task task) {
+        unindex(task.getTaskId());
+        tasks.put(task.getTaskId(), task);
+        timeline.computeIfAbsent(task.getTimestamp(), t -> new HashSet<>()).add(task.getTaskId());
+    }
+
+    private void unindex(String taskId) {
+        Task previous = tasks.remove(taskId);
+        if (previous != null) {
+            timeline.computeIfPresent(previous.getTimestamp(), (t, taskIds) -> {
+                taskIds.remove(taskId);
+                return taskIds.isEmpty() ? null : taskIds;
+            });
+        }
+    }
+
+    private long append(byte type, Object value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(type);
+            if (type == SAVE) {
+                writeTask((Task) value, output);
+            } else {
+                output.writeUTF((String) value);
+            }
+            write(channel, bytes.toByteArray());
+            records++;
+            return ++appended;
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_WRITE_ERROR,
+                                                 "Failed to write task log: " + logFile,
+                                                 ioException);
+        }
+    }
+
+    private static void write(FileChannel target, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + data.length);
+        buffer.putInt(data.length).putLong(checksum(data)).put(data).flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number is on disk. The thread that gets the lock first forces
+     * the log for all records appended so far. When the log is compacted concurrently, the channel is closed after
+     * it has been forced, so the records written to it are on disk already.
+     */
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long upTo;
+            FileChannel current;
+            synchronized (this) {
+                upTo = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException closedChannelException) {
+                if (!replaced(current)) {
+                    throw new MessagingPlatformException(ErrorCode.DATAFILE_WRITE_ERROR,
+                                                         "Failed to sync task log: " + logFile,
+                                                         closedChannelException);
+                }
+            } catch (IOException ioException) {
+                throw new MessagingPlatformException(ErrorCode.DATAFILE_WRITE_ERROR,
+                                                     "Failed to sync task log: " + logFile,
+                                                     ioException);
+            }
+            synced = upTo;
+        }
+    }
+
+    /**
+     * Checks if the closed channel was replaced by compaction. Otherwise it was closed because the thread was
+     * interrupted, and the log is reopened so later changes can still be written.
+     */
+    private synchronized boolean replaced(FileChannel previous) {
+        if (channel != previous) {
+            return true;
+        }
+        reopen();
+        return false;
+    }
+
+    /**
+     * Rewrites the log with only the live tasks. The new log is written to a separate file first, and replaces the
+     * current log when it is complete.
+     */
+    private void compact() {
+        long start = System.currentTimeMillis();
+        try (FileChannel compacted = FileChannel.open(compactFile.toPath(),
+                                                      StandardOpenOption.CREATE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING,
+                                                      StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            for (Task task : tasks.values()) {
+                bytes.reset();
+                output.writeByte(SAVE);
+                writeTask(task, output);
+                write(compacted, bytes.toByteArray());
+            }
+            compacted.force(true);
+        } catch (IOException ioException) {
+            logger.warn("{}: compaction failed, continuing with current log", logFile, ioException);
+            return;
+        }
+        try {
+            // records appended before the switch are not synced yet, sync them with the old channel
+            channel.force(false);
+            channel.close();
+            Files.move(compactFile.toPath(), logFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            records = tasks.size();
+            logger.info("{}: compacted to {} tasks in {}ms", logFile, records, System.currentTimeMillis() - start);
+        } catch (IOException ioException) {
+            logger.warn("{}: replacing log failed, continuing with current log", logFile, ioException);
+            reopen();
+        }
+    }
+
+    /**
+     * Reopens the log when its channel was closed without being replaced, for instance when compaction closed the
+     * channel but failed to replace the log.
+     */
+    private void reopen() {
+        if (channel.isOpen()) {
+            return;
+        }
+        try {
+            channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException ioException) {
+            throw new MessagingPlatformException(ErrorCode.DATAFILE_WRITE_ERROR,
+                                                 "Failed to reopen task log: " + logFile,
+                                                 ioException);
+        }
+    }
+
+    /**
+     * Closes the task log.
+     */
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException ioException) {
+            logger.warn("{}: failed to close task log", logFile, ioException);
+        }
+    }
+
+    private static long checksum(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        return crc32.getValue();
+    }
+
+    private static void writeTask(Task task, DataOutputStream output) throws IOException {
+        output.writeUTF(task.getTaskId());
+        output.writeUTF(task.getContext());
+        output.writeUTF(task.getTaskExecutor());
+        output.writeLong(task.getTimestamp());
+        output.writeInt(task.getStatus().getNumber());
+        output.writeLong(task.getRetryInterval());
+        output.writeBoolean(task.getMessage() != null);
+        if (task.getMessage() != null) {
+            output.writeUTF(task.getMessage());
+        }
+        output.writeUTF(task.getPayload().getType());
+        output.writeInt(task.getPayload().getData().length);
+        output.write(task.getPayload().getData());
+    }
+
+    private static Task readTask(DataInputStream input) throws IOException {
+        Task task = new Task();
+        task.setTaskId(input.readUTF());
+        task.setContext(input.readUTF());
+        task.setTaskExecutor(input.readUTF());
+        task.setTimestamp(input.readLong());
+        task.setStatus(TaskStatus.forNumber(input.readInt()));
+        task.setRetryInterval(input.readLong());
+        if (input.readBoolean()) {
+            task.setMessage(input.readUTF());
+        }
+        String payloadType = input.readUTF();
+        byte[] data = new byte[input.readInt()];
+        try {
+            input.readFully(data);
+        } catch (EOFException eofException) {
+            throw new IOException("Incomplete task payload", eofException);
+        }
+        task.setPayload(new TaskPayload(payloadType, data));
+        return task;
+    }
+
+    private static Task copy(Task task) {
+        Task copy = new Task();
+        copy.setTaskId(task.getTaskId());
+        copy.setContext(task.getContext());
+        copy.setTaskExecutor(task.getTaskExecutor());
+        copy.setTimestamp(task.getTimestamp());
+        copy.setStatus(task.getStatus());
+        copy.setRetryInterval(task.getRetryInterval());
+        copy.setMessage(task.getMessage());
+        copy.setPayload(task.getPayload());
+        return copy;
+    }
+}
@@ -12,7 +12,6 @@ package io.axoniq.axonserver.taskscheduler;
 import io.axoniq.axonserver.grpc.TaskStatus;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 import java.time.Duration;
@@ -58,6 +57,32 @@ public class StandaloneTaskManager extends BaseTaskManager {
         this.taskPayloadSerializer = taskPayloadSerializer;
     }
 
+    /**
+     * Instantiates a {@link StandaloneTaskManager} with a custom task store. Tasks to execute in the near future are
+     * kept in a timing wheel.
+     *
+     * @param context               the context for the tasks to be processed by this task manager.
+     * @param taskExecutor          component responsible for executing the tasks
+     * @param taskStore             storage for the tasks
+     * @param taskPayloadSerializer serializer to (de-)serialize task contents
+     * @param scheduler             scheduler to schedule the tasks
+     * @param clock                 instance of a clock
+     * @param timerTickMillis       tick of the timing wheel in milliseconds
+     */
+    public StandaloneTaskManager(String context,
+                                 ScheduledTaskExecutor taskExecutor,
+                                 TaskStore taskStore,
+                                 TaskPayloadSerializer taskPayloadSerializer,
+                                 ScheduledExecutorService scheduler,
+                                 Clock clock,
+                                 long timerTickMillis) {
+        super(taskExecutor, taskStore, () -> Collections.singleton(context),
+              context::equals,
+              scheduler, clock, timerTickMillis);
+        this.context = context;
+        this.taskPayloadSerializer = taskPayloadSerializer;
+    }
+
     /**
      * Creates a new task to be executed at some instant.
      *
@@ -95,12 +120,9 @@ public class StandaloneTaskManager extends BaseTaskManager {
                                                     long retry, String message) {
 
         if (TaskStatus.COMPLETED.equals(status) || TaskStatus.CANCELLED.equals(status)) {
-            new TransactionTemplate(platformTransactionManager).execute(s -> {
-                taskRepository.findById(taskId).ifPresent(taskRepository::delete);
-                return null;
-            });
+            taskStore.delete(taskId);
         } else {
-            taskRepository.findById(taskId).ifPresent(task -> {
+            taskStore.findById(taskId).ifPresent(task -> {
                 task.setTimestamp(newSchedule);
                 task.setRetryInterval(retry);
                 task.setStatus(status);
@@ -118,10 +140,7 @@ public class StandaloneTaskManager extends BaseTaskManager {
      * @param taskId the reference to the task
      */
     public void cancel(String taskId) {
-        new TransactionTemplate(platformTransactionManager).execute(s -> {
-            taskRepository.findById(taskId).ifPresent(taskRepository::delete);
-            return null;
-        });
+        taskStore.delete(taskId);
         unschedule(context, taskId);
     }
 
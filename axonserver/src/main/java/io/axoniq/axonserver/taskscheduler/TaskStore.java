@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage for the tasks managed by a task manager.
+ *
+ * @since 4.5
+ */
+public interface TaskStore {
+
+    /**
+     * Stores a task. Replaces the task if there already is a task with the same id.
+     *
+     * @param task the task to store
+     */
+    void save(Task task);
+
+    /**
+     * Finds a task by its id.
+     *
+     * @param taskId the unique identification of the task
+     * @return the task, or an empty optional if there is no task with this id
+     */
+    Optional<Task> findById(String taskId);
+
+    /**
+     * Deletes a task. Does nothing if there is no task with this id.
+     *
+     * @param taskId the unique identification of the task
+     */
+    void delete(String taskId);
+
+    /**
+     * Finds all scheduled tasks for a {@code context} to be executed within given time period.
+     *
+     * @param context      the name of the context
+     * @param minTimestamp minimum timestamp (inclusive)
+     * @param maxTimestamp maximum timestamp (exclusive)
+     * @return list of scheduled tasks
+     */
+    List<Task> findScheduled(String context, long minTimestamp, long maxTimestamp);
+}
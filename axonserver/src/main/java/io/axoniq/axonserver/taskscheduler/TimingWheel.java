@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. Adding an element and finding the expired elements take constant time, independent of the
+ * number of elements in the wheel.
+ * <p>
+ * The first level of the wheel has {@code wheelSize} slots of {@code tickMillis} milliseconds. Elements with a deadline
+ * beyond the range of a level are added to the next level, which has {@code wheelSize} slots that each cover the full
+ * range of the previous level. When time advances into a slot of a higher level, the elements in that slot are moved
+ * to the lower level. Levels are created when needed.
+ * <p>
+ * Elements are never returned before their deadline, and at most one tick after their deadline when the wheel is
+ * advanced every tick.
+ *
+ * @param <T> the type of the elements
+ * @since 4.5
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final List<Entry<T>>[] slots;
+    private final List<T> expired = new ArrayList<>();
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+    private int size;
+
+    /**
+     * @param tickMillis  the duration of a slot in the first level in milliseconds
+     * @param wheelSize   the number of slots per level
+     * @param startMillis the current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.slots = new List[wheelSize];
+        this.currentTime = startMillis - startMillis % tickMillis;
+    }
+
+    /**
+     * Adds an element to the wheel. An element with a deadline in the past is returned by the next call to {@link
+     * #advance(long)}.
+     *
+     * @param deadline the time in milliseconds when the element expires
+     * @param element  the element
+     */
+    public synchronized void add(long deadline, T element) {
+        size++;
+        if (!addEntry(new Entry<>(deadline, element))) {
+            expired.add(element);
+        }
+    }
+
+    private boolean addEntry(Entry<T> entry) {
+        if (entry.deadline < currentTime) {
+            return false;
+        }
+        if (entry.deadline < currentTime + interval) {
+            int slot = (int) ((entry.deadline / tickMillis) % wheelSize);
+            if (slots[slot] == null) {
+                slots[slot] = new ArrayList<>();
+            }
+            slots[slot].add(entry);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime);
+        }
+        return overflowWheel.addEntry(entry);
+    }
+
+    /**
+     * Advances the wheel to the given time, and returns the elements that have expired.
+     *
+     * @param now the current time in milliseconds
+     * @return the expired elements, in no specific order
+     */
+    public synchronized List<T> advance(long now) {
+        List<T> result = new ArrayList<>(expired);
+        expired.clear();
+        while (currentTime + tickMillis <= now) {
+            List<Entry<T>> slot = takeSlot(currentTime);
+            if (slot != null) {
+                slot.forEach(entry -> result.add(entry.element));
+            }
+            currentTime += tickMillis;
+            if (overflowWheel != null && currentTime % interval == 0) {
+                List<Entry<T>> cascaded = overflowWheel.cascade(currentTime);
+                if (cascaded != null) {
+                    cascaded.forEach(entry -> {
+                        if (!addEntry(entry)) {
+                            result.add(entry.element);
+                        }
+                    });
+                }
+            }
+        }
+        size -= result.size();
+        return result;
+    }
+
+    /**
+     * Moves a higher level to the given time, which is the start of one of its slots, and removes the elements from
+     * that slot, so they can be added to the lower level.
+     */
+    private List<Entry<T>> cascade(long time) {
+        currentTime = time;
+        if (overflowWheel != null && time % interval == 0) {
+            List<Entry<T>> cascaded = overflowWheel.cascade(time);
+            if (cascaded != null) {
+                cascaded.forEach(this::addEntry);
+            }
+        }
+        return takeSlot(time);
+    }
+
+    private List<Entry<T>> takeSlot(long time) {
+        int index = (int) ((time / tickMillis) % wheelSize);
+        List<Entry<T>> slot = slots[index];
+        slots[index] = null;
+        return slot;
+    }
+
+    /**
+     * Returns the number of elements in the wheel.
+     *
+     * @return the number of elements in the wheel
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static class Entry<T> {
+
+        private final long deadline;
+        private final T element;
+
+        private Entry(long deadline, T element) {
+            this.deadline = deadline;
+            this.element = element;
+        }
+    }
+}
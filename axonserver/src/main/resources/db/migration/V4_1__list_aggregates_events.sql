@@ -0,0 +1,5 @@
+insert into PATHS_TO_FUNCTIONS
+values ('io.axoniq.axonserver.grpc.event.EventStore/ListAggregatesEvents', 'LIST_EVENTS');
+
+insert into PATHS_TO_FUNCTIONS
+values ('GET:/v1/events/aggregates', 'LIST_EVENTS');
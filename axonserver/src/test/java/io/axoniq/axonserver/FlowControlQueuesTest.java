@@ -15,6 +15,8 @@ import io.axoniq.axonserver.message.FlowControlQueues;
 import org.junit.*;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -82,6 +84,35 @@ public class FlowControlQueuesTest {
         assertEquals("C", testSubject.take("one").prioKey);
     }
 
+    @Test
+    public void takeBatch() throws Exception {
+        testSubject.put("one", new QueueElement("B"));
+        testSubject.put("one", new QueueElement("A"));
+        testSubject.put("one", new QueueElement("C"));
+        List<QueueElement> batch = testSubject.take("one", 2, 0);
+        assertEquals(2, batch.size());
+        assertEquals("A", batch.get(0).prioKey);
+        assertEquals("B", batch.get(1).prioKey);
+        batch = testSubject.take("one", 5, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(1, batch.size());
+        assertEquals("C", batch.get(0).prioKey);
+    }
+
+    @Test
+    public void priorityBandsTakeHighestPriorityFirst() throws Exception {
+        testSubject = new FlowControlQueues<>(null, SOFT_LIMIT_QUEUE_SIZE, null, null, ErrorCode.OTHER, 3);
+        testSubject.put("one", new QueueElement("A", "1"), 0);
+        testSubject.put("one", new QueueElement("A", "2"), 5);
+        testSubject.put("one", new QueueElement("A", "3"), 1);
+        testSubject.put("one", new QueueElement("A", "4"), 2);
+        testSubject.move("one", cmd -> "two");
+        assertEquals(4, testSubject.getSegments().get("two").size());
+        assertEquals("2", testSubject.take("two").value);
+        assertEquals("4", testSubject.take("two").value);
+        assertEquals("3", testSubject.take("two").value);
+        assertEquals("1", testSubject.take("two").value);
+    }
+
     @Test(expected = MessagingPlatformException.class)
     public void queueSoftLimits() {
         testSubject.put("one", new QueueElement("A"));
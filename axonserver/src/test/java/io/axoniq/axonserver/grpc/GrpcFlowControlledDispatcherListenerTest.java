@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.grpc;
+
+import io.axoniq.axonserver.message.FlowControlQueues;
+import io.axoniq.axonserver.test.FakeStreamObserver;
+import org.junit.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class GrpcFlowControlledDispatcherListenerTest {
+
+    private static final String QUEUE = "client";
+    private final FlowControlQueues<Integer> queues = new FlowControlQueues<>();
+    private final List<Integer> sent = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sending = new AtomicInteger();
+    private final AtomicInteger maxSending = new AtomicInteger();
+    private GrpcFlowControlledDispatcherListener<Integer, Integer> testSubject;
+
+    @Before
+    public void setUp() {
+        testSubject = new GrpcFlowControlledDispatcherListener<Integer, Integer>(queues,
+                                                                                 QUEUE,
+                                                                                 new FakeStreamObserver<>(),
+                                                                                 1) {
+            @Override
+            protected boolean send(Integer message) {
+                maxSending.accumulateAndGet(sending.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sent.add(message);
+                sending.decrementAndGet();
+                return true;
+            }
+
+            @Override
+            protected Logger getLogger() {
+                return LoggerFactory.getLogger(GrpcFlowControlledDispatcherListenerTest.class);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        testSubject.cancel();
+    }
+
+    @Test
+    public void addPermitsWhileWaitingForMessages() throws InterruptedException {
+        testSubject.addPermits(1);
+        // the worker has reserved the only permit and is waiting for a message
+        Thread.sleep(100);
+        testSubject.addPermits(10);
+        assertEquals(11, testSubject.permits());
+
+        IntStream.range(0, 5).forEach(i -> queues.put(QUEUE, i));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(IntStream.range(0, 5).boxed().collect(Collectors.toList()), sent);
+        assertEquals(1, maxSending.get());
+        assertEquals(6, testSubject.permits());
+    }
+
+    @Test
+    public void restartsWhenPermitsAddedAfterAllUsed() throws InterruptedException {
+        testSubject.addPermits(2);
+        IntStream.range(0, 4).forEach(i -> queues.put(QUEUE, i));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(2, sent.size());
+        assertEquals(0, testSubject.permits());
+
+        testSubject.addPermits(2);
+        while (sent.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(IntStream.range(0, 4).boxed().collect(Collectors.toList()), sent);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.metric.DefaultMetricCollector;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AggregateEventCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AggregateEventCache testSubject = new AggregateEventCache("default",
+                                                                            10_000,
+                                                                            new MeterFactory(meterRegistry,
+                                                                                             new DefaultMetricCollector()));
+
+    @Test
+    public void readFromCache() {
+        testSubject.add("aggregate", events("aggregate", 2, 5), testSubject.stamp("aggregate"));
+
+        assertEquals(Arrays.asList(3L, 4L, 5L, 6L), read("aggregate", 3, Long.MAX_VALUE));
+        assertEquals(Arrays.asList(2L, 3L), read("aggregate", 2, 4));
+        assertEquals(Collections.emptyList(), read("aggregate", 7, Long.MAX_VALUE));
+        assertNull(read("aggregate", 1, Long.MAX_VALUE));
+        assertNull(read("other", 0, Long.MAX_VALUE));
+        assertEquals(3, meterRegistry.find("local.aggregate.cache.hit").counter().count(), 0);
+        assertEquals(2, meterRegistry.find("local.aggregate.cache.miss").counter().count(), 0);
+    }
+
+    @Test
+    public void storedEventsExtendCachedRun() {
+        testSubject.add("aggregate", events("aggregate", 0, 2), testSubject.stamp("aggregate"));
+        testSubject.eventsStored(events("aggregate", 2, 2));
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), read("aggregate", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void storedEventWithGapRemovesCachedRun() {
+        testSubject.add("aggregate", events("aggregate", 0, 2), testSubject.stamp("aggregate"));
+        testSubject.eventsStored(events("aggregate", 3, 1));
+
+        assertNull(read("aggregate", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void eventsReadDuringStoreAreNotAdded() {
+        long stamp = testSubject.stamp("aggregate");
+        testSubject.eventsStored(events("aggregate", 2, 1));
+        testSubject.add("aggregate", events("aggregate", 0, 2), stamp);
+
+        assertNull(read("aggregate", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void leastRecentlyUsedAggregatesEvicted() {
+        for (int i = 0; i < 20; i++) {
+            String aggregateId = "aggregate-" + i;
+            testSubject.add(aggregateId, events(aggregateId, 0, 5), testSubject.stamp(aggregateId));
+            read("aggregate-0", 0, Long.MAX_VALUE);
+        }
+
+        assertTrue(testSubject.size() <= 10_000);
+        assertNotNull(read("aggregate-0", 0, Long.MAX_VALUE));
+        assertNotNull(read("aggregate-19", 0, Long.MAX_VALUE));
+        assertNull(read("aggregate-1", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void pendingStoreBypassesCache() {
+        testSubject.add("aggregate", events("aggregate", 0, 2), testSubject.stamp("aggregate"));
+        List<SerializedEvent> newEvents = events("aggregate", 2, 1);
+        testSubject.eventsStoring(newEvents);
+
+        assertNull(read("aggregate", 0, Long.MAX_VALUE));
+
+        testSubject.storeCompleted(newEvents, true);
+        assertEquals(Arrays.asList(0L, 1L, 2L), read("aggregate", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void failedStoreKeepsCachedRun() {
+        testSubject.add("aggregate", events("aggregate", 0, 2), testSubject.stamp("aggregate"));
+        List<SerializedEvent> newEvents = events("aggregate", 2, 1);
+        testSubject.eventsStoring(newEvents);
+        testSubject.storeCompleted(newEvents, false);
+
+        assertEquals(Arrays.asList(0L, 1L), read("aggregate", 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void clearRemovesAllEvents() {
+        testSubject.add("aggregate", events("aggregate", 0, 2), testSubject.stamp("aggregate"));
+        testSubject.clear();
+
+        assertNull(read("aggregate", 0, Long.MAX_VALUE));
+        assertEquals(0, testSubject.size());
+    }
+
+    private List<Long> read(String aggregateId, long minSequenceNumber, long maxSequenceNumber) {
+        List<Long> sequenceNumbers = new ArrayList<>();
+        if (!testSubject.read(aggregateId, minSequenceNumber, maxSequenceNumber,
+                              event -> sequenceNumbers.add(event.getAggregateSequenceNumber()))) {
+            return null;
+        }
+        return sequenceNumbers;
+    }
+
+    private List<SerializedEvent> events(String aggregateId, long firstSequenceNumber, int count) {
+        List<SerializedEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SerializedEvent(Event.newBuilder()
+                                                .setAggregateIdentifier(aggregateId)
+                                                .setAggregateSequenceNumber(firstSequenceNumber + i)
+                                                .setAggregateType("Demo")
+                                                .setPayload(SerializedObject.newBuilder()
+                                                                            .setData(ByteString.copyFrom(new byte[100])))
+                                                .build()));
+        }
+        return events;
+    }
+}
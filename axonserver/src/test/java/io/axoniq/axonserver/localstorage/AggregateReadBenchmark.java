@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the throughput of aggregate reads for events with large payloads. Each round reads all aggregates twice:
+ * <ul>
+ *     <li>full parse: every event read is also parsed completely, the cost the sequence number check in the aggregate
+ *     read had when it parsed the event;</li>
+ *     <li>partial read: the sequence number is read from the serialized event, as the aggregate read does now.</li>
+ * </ul>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code payloadBytes aggregates eventsPerAggregate rounds}.
+ *
+ * @since 4.5
+ */
+public class AggregateReadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int payloadBytes = intArg(args, 0, 64 * 1024);
+        int aggregates = intArg(args, 1, 50);
+        int eventsPerAggregate = intArg(args, 2, 20);
+        int rounds = intArg(args, 3, 5);
+
+        File folder = Files.createTempDirectory("aggregate-read-benchmark").toFile();
+        TestInputStreamStorageContainer container = new TestInputStreamStorageContainer(folder);
+        try {
+            store(container, payloadBytes, aggregates, eventsPerAggregate);
+            AggregateReader aggregateReader = new AggregateReader(container.getDatafileManagerChain(),
+                                                                  new SnapshotReader(container
+                                                                                             .getSnapshotManagerChain()));
+            System.out.printf("%d aggregates, %d events per aggregate, payload %d bytes%n",
+                              aggregates, eventsPerAggregate, payloadBytes);
+            long[] sink = new long[1];
+            for (int round = 1; round <= rounds; round++) {
+                measure(round, "full parse", aggregateReader, aggregates,
+                        event -> sink[0] += new SerializedEvent(event.serializedData()).asEvent()
+                                                                                      .getAggregateSequenceNumber());
+                measure(round, "partial read", aggregateReader, aggregates,
+                        event -> sink[0] += new SerializedEvent(event.serializedData()).getAggregateSequenceNumber());
+            }
+            System.out.printf("checksum %d%n", sink[0]);
+        } finally {
+            container.close();
+            FileSystemUtils.deleteRecursively(folder);
+        }
+    }
+
+    private static void store(TestInputStreamStorageContainer container, int payloadBytes, int aggregates,
+                              int eventsPerAggregate) throws Exception {
+        byte[] payload = new byte[payloadBytes];
+        new Random(0).nextBytes(payload);
+        SerializedObject serializedPayload = SerializedObject.newBuilder()
+                                                             .setType("LargePayload")
+                                                             .setData(ByteString.copyFrom(payload))
+                                                             .build();
+        // interleave the aggregates, so the events of each aggregate are spread over the segments
+        for (int sequenceNumber = 0; sequenceNumber < eventsPerAggregate; sequenceNumber++) {
+            for (int aggregate = 0; aggregate < aggregates; aggregate++) {
+                Event event = Event.newBuilder()
+                                   .setAggregateIdentifier("aggregate-" + aggregate)
+                                   .setAggregateSequenceNumber(sequenceNumber)
+                                   .setAggregateType("Demo")
+                                   .setPayload(serializedPayload)
+                                   .build();
+                container.getEventWriter()
+                         .store(Collections.singletonList(new SerializedEvent(event)))
+                         .get(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static void measure(int round, String mode, AggregateReader aggregateReader, int aggregates,
+                                Consumer<SerializedEvent> eventConsumer) {
+        long[] events = new long[1];
+        long[] bytes = new long[1];
+        long start = System.nanoTime();
+        for (int aggregate = 0; aggregate < aggregates; aggregate++) {
+            aggregateReader.readEvents("aggregate-" + aggregate, false, 0, event -> {
+                events[0]++;
+                bytes[0] += event.size();
+                eventConsumer.accept(event);
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        System.out.printf("round %d, %-12s: %8.0f events/s, %8.1f MB/s%n",
+                          round, mode, events[0] / seconds, bytes[0] / seconds / (1024 * 1024));
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
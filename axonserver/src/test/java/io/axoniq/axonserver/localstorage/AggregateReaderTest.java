@@ -12,14 +12,24 @@ package io.axoniq.axonserver.localstorage;
 import io.axoniq.axonserver.grpc.SerializedObject;
 import io.axoniq.axonserver.grpc.event.Confirmation;
 import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.grpc.event.GetAggregateEventsRequest;
+import io.axoniq.axonserver.grpc.event.GetAggregateSnapshotsRequest;
+import io.axoniq.axonserver.metric.DefaultMetricCollector;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.*;
 import org.junit.rules.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.*;
 
@@ -31,6 +41,7 @@ public class AggregateReaderTest {
     @ClassRule
     public static TemporaryFolder tempFolder = new TemporaryFolder();
 
+    private static final String MULTI_SEGMENT_AGGREGATE = "multi";
     private static TestInputStreamStorageContainer testStorageContainer;
     private AggregateReader testSubject;
 
@@ -64,6 +75,23 @@ public class AggregateReaderTest {
                                                                                    .newBuilder().build()).build()));
 
         CompletableFuture.allOf(completableFutures.toArray(new CompletableFuture[0])).get(1, TimeUnit.SECONDS);
+
+        // aggregate with events spread over multiple segments
+        for (int batch = 0; batch < 4; batch++) {
+            List<SerializedEvent> events = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                events.add(new SerializedEvent(Event.newBuilder()
+                                                    .setAggregateIdentifier(MULTI_SEGMENT_AGGREGATE)
+                                                    .setAggregateSequenceNumber(batch * 50L + i)
+                                                    .setAggregateType("Demo")
+                                                    .setPayload(SerializedObject.newBuilder().build())
+                                                    .build()));
+            }
+            testStorageContainer.getEventWriter().store(events).get(1, TimeUnit.SECONDS);
+            if (batch < 3) {
+                testStorageContainer.createDummyEvents(200, 100, "filler-" + batch + "-");
+            }
+        }
     }
 
     @AfterClass
@@ -135,4 +163,225 @@ public class AggregateReaderTest {
     public void readHighestSequenceNr() {
         Assert.assertEquals(99, testSubject.readHighestSequenceNr("55"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void eventCursorReadsInPages() {
+        AggregateEventCursor cursor = testSubject.eventCursor(MULTI_SEGMENT_AGGREGATE, false, 0, Long.MAX_VALUE, 0);
+        List<Long> sequenceNumbers = new ArrayList<>();
+        int pages = 1;
+        while (cursor.read(30, event -> sequenceNumbers.add(event.getAggregateSequenceNumber()))) {
+            assertEquals(30L * pages, sequenceNumbers.size());
+            pages++;
+        }
+
+        assertEquals(7, pages);
+        assertEquals(LongStream.range(0, 200).boxed().collect(Collectors.toList()), sequenceNumbers);
+    }
+
+    @Test
+    public void eventCursorReadsNothingWithoutPermits() {
+        AggregateEventCursor cursor = testStorageContainer.getDatafileManagerChain()
+                                                          .aggregateEventCursor(MULTI_SEGMENT_AGGREGATE,
+                                                                                0,
+                                                                                Long.MAX_VALUE,
+                                                                                0);
+        List<Long> sequenceNumbers = new ArrayList<>();
+        assertTrue(cursor.read(0, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertTrue(sequenceNumbers.isEmpty());
+
+        assertFalse(cursor.read(1000, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertEquals(200, sequenceNumbers.size());
+        assertFalse(cursor.read(0, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+    }
+
+    @Test
+    public void eventsReaderStartsWithSnapshot() {
+        GetAggregateEventsRequest request = GetAggregateEventsRequest.newBuilder()
+                                                                     .setAggregateId("55")
+                                                                     .setAllowSnapshots(true)
+                                                                     .build();
+        FlowControlledAggregateStream.AggregateEventsReader reader =
+                new FlowControlledAggregateStream.AggregateEventsReader(testSubject, request, Long.MAX_VALUE);
+        List<SerializedEvent> events = new ArrayList<>();
+        assertTrue(reader.read(10, events::add));
+        assertEquals(11, events.size());
+        assertEquals("Snapshot", events.get(0).asEvent().getAggregateType());
+        assertEquals(75, events.get(0).getAggregateSequenceNumber());
+        while (reader.read(10, events::add)) {
+            // read all chunks
+        }
+
+        assertEquals(25, events.size());
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(75L + i, events.get(i).getAggregateSequenceNumber());
+        }
+    }
+
+    @Test
+    public void eventsReaderWithMinTokenReadsRecentSegments() {
+        long minToken = testStorageContainer.getDatafileManagerChain().getLastToken();
+        GetAggregateEventsRequest request = GetAggregateEventsRequest.newBuilder()
+                                                                     .setAggregateId(MULTI_SEGMENT_AGGREGATE)
+                                                                     .setMinToken(minToken)
+                                                                     .build();
+        FlowControlledAggregateStream.AggregateEventsReader reader =
+                new FlowControlledAggregateStream.AggregateEventsReader(testSubject, request, Long.MAX_VALUE);
+        List<Long> sequenceNumbers = new ArrayList<>();
+        while (reader.read(10, event -> sequenceNumbers.add(event.getAggregateSequenceNumber()))) {
+            // read all chunks
+        }
+
+        assertFalse(sequenceNumbers.isEmpty());
+        assertTrue(sequenceNumbers.get(0) > 0);
+        assertEquals(199, (long) sequenceNumbers.get(sequenceNumbers.size() - 1));
+        for (int i = 1; i < sequenceNumbers.size(); i++) {
+            assertEquals(sequenceNumbers.get(i - 1) + 1, (long) sequenceNumbers.get(i));
+        }
+    }
+
+    @Test
+    public void snapshotsReaderReadsHighestFirstInChunks() {
+        GetAggregateSnapshotsRequest request = GetAggregateSnapshotsRequest.newBuilder()
+                                                                           .setAggregateId("55")
+                                                                           .setMaxSequence(1000)
+                                                                           .build();
+        FlowControlledAggregateStream.AggregateSnapshotsReader reader =
+                new FlowControlledAggregateStream.AggregateSnapshotsReader(testSubject, request);
+        List<Long> sequenceNumbers = new ArrayList<>();
+        assertTrue(reader.read(1, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertTrue(reader.read(1, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertTrue(reader.read(2, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertFalse(reader.read(2, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+
+        assertEquals(Arrays.asList(75L, 25L, 15L, 5L), sequenceNumbers);
+    }
+
+    @Test
+    public void snapshotsReaderStopsAtMaxResults() {
+        GetAggregateSnapshotsRequest request = GetAggregateSnapshotsRequest.newBuilder()
+                                                                           .setAggregateId("55")
+                                                                           .setMaxSequence(1000)
+                                                                           .setMaxResults(3)
+                                                                           .build();
+        FlowControlledAggregateStream.AggregateSnapshotsReader reader =
+                new FlowControlledAggregateStream.AggregateSnapshotsReader(testSubject, request);
+        List<Long> sequenceNumbers = new ArrayList<>();
+        assertTrue(reader.read(2, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+        assertFalse(reader.read(2, event -> sequenceNumbers.add(event.getAggregateSequenceNumber())));
+
+        assertEquals(Arrays.asList(75L, 25L, 15L), sequenceNumbers);
+    }
+
+    @Test
+    public void eventsReadInChunksAreCachedFromFirstEvent() {
+        AggregateEventCache cache = new AggregateEventCache("default",
+                                                            1_000_000,
+                                                            new MeterFactory(new SimpleMeterRegistry(),
+                                                                             new DefaultMetricCollector()));
+        AggregateReader cachingReader = new AggregateReader(testStorageContainer.getDatafileManagerChain(),
+                                                            new SnapshotReader(testStorageContainer
+                                                                                       .getSnapshotManagerChain()),
+                                                            cache);
+        GetAggregateEventsRequest request = GetAggregateEventsRequest.newBuilder()
+                                                                     .setAggregateId(MULTI_SEGMENT_AGGREGATE)
+                                                                     .build();
+        FlowControlledAggregateStream.AggregateEventsReader reader =
+                new FlowControlledAggregateStream.AggregateEventsReader(cachingReader, request, Long.MAX_VALUE);
+        while (reader.read(30, event -> {
+        })) {
+            // read all chunks
+        }
+
+        List<Long> cached = new ArrayList<>();
+        assertTrue(cache.read(MULTI_SEGMENT_AGGREGATE, 0, Long.MAX_VALUE,
+                              event -> cached.add(event.getAggregateSequenceNumber())));
+        assertEquals(LongStream.range(0, 200).boxed().collect(Collectors.toList()), cached);
+    }
+
+    @Test
+    public void processEventsPerAggregates() {
+        Map<String, Long> minSequenceNumbers = new LinkedHashMap<>();
+        minSequenceNumbers.put(MULTI_SEGMENT_AGGREGATE, 150L);
+        minSequenceNumbers.put("1", 90L);
+        minSequenceNumbers.put("unknown", 0L);
+        List<String> events = new ArrayList<>();
+        testStorageContainer.getDatafileManagerChain().processEventsPerAggregates(
+                minSequenceNumbers,
+                event -> events.add(event.getAggregateIdentifier() + ":" + event.getAggregateSequenceNumber()));
+
+        List<String> expected = new ArrayList<>();
+        LongStream.range(150, 200).forEach(i -> expected.add(MULTI_SEGMENT_AGGREGATE + ":" + i));
+        LongStream.range(90, 100).forEach(i -> expected.add("1:" + i));
+        assertEquals(expected, events);
+    }
+
+    @Test
+    public void readEventsForMultipleAggregates() {
+        Map<String, Long> minSequenceNumbers = new LinkedHashMap<>();
+        minSequenceNumbers.put("55", 0L);
+        minSequenceNumbers.put("1", 95L);
+        List<SerializedEvent> events = new ArrayList<>();
+        testSubject.readEvents(minSequenceNumbers, true, events::add);
+
+        assertEquals(30, events.size());
+        List<Long> aggregate55 = events.stream()
+                                       .filter(event -> event.getAggregateIdentifier().equals("55"))
+                                       .map(SerializedEvent::getAggregateSequenceNumber)
+                                       .collect(Collectors.toList());
+        assertEquals(LongStream.range(75, 100).boxed().collect(Collectors.toList()), aggregate55);
+        assertEquals("Snapshot", events.get(0).asEvent().getAggregateType());
+        List<Long> aggregate1 = events.stream()
+                                      .filter(event -> event.getAggregateIdentifier().equals("1"))
+                                      .map(SerializedEvent::getAggregateSequenceNumber)
+                                      .collect(Collectors.toList());
+        assertEquals(LongStream.range(95, 100).boxed().collect(Collectors.toList()), aggregate1);
+    }
+
+    @Test
+    public void eventCursorForMultipleAggregatesReadsInPages() {
+        Map<String, Long> minSequenceNumbers = new LinkedHashMap<>();
+        minSequenceNumbers.put(MULTI_SEGMENT_AGGREGATE, 0L);
+        minSequenceNumbers.put("1", 0L);
+        AggregateEventCursor cursor = testSubject.eventCursor(minSequenceNumbers, false);
+        List<String> events = new ArrayList<>();
+        int pages = 0;
+        boolean more = true;
+        while (more) {
+            int before = events.size();
+            more = cursor.read(30, event -> events.add(
+                    event.getAggregateIdentifier() + ":" + event.getAggregateSequenceNumber()));
+            assertTrue(events.size() - before <= 30);
+            pages++;
+        }
+
+        assertEquals(10, pages);
+        List<String> expected = new ArrayList<>();
+        LongStream.range(0, 200).forEach(i -> expected.add(MULTI_SEGMENT_AGGREGATE + ":" + i));
+        LongStream.range(0, 100).forEach(i -> expected.add("1:" + i));
+        assertEquals(expected, events);
+    }
+
+    @Test
+    public void aggregatesEventsReaderLimitsChunks() {
+        List<GetAggregateEventsRequest> requests = Arrays.asList(
+                GetAggregateEventsRequest.newBuilder().setAggregateId(MULTI_SEGMENT_AGGREGATE).build(),
+                GetAggregateEventsRequest.newBuilder().setAggregateId("1").build(),
+                GetAggregateEventsRequest.newBuilder().setAggregateId("55").setAllowSnapshots(true).build());
+        FlowControlledAggregateStream.AggregatesEventsReader reader =
+                new FlowControlledAggregateStream.AggregatesEventsReader(testSubject, requests);
+        List<SerializedEvent> events = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            int before = events.size();
+            more = reader.read(50, events::add);
+            assertTrue(events.size() - before <= 50);
+        }
+
+        assertEquals(325, events.size());
+        assertEquals(MULTI_SEGMENT_AGGREGATE, events.get(0).getAggregateIdentifier());
+        assertEquals("1", events.get(200).getAggregateIdentifier());
+        assertEquals("Snapshot", events.get(300).asEvent().getAggregateType());
+        assertEquals(75, events.get(300).getAggregateSequenceNumber());
+        assertEquals(99, events.get(324).getAggregateSequenceNumber());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import io.grpc.stub.CallStreamObserver;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlowControlledAggregateStreamTest {
+
+    private final FakeCallStreamObserver responseObserver = new FakeCallStreamObserver();
+    private final List<Integer> requestedChunkSizes = new ArrayList<>();
+
+    @Test
+    public void sendsAllEventsWhenReady() {
+        stream(250, 1_000_000).start();
+
+        assertEquals(250, responseObserver.sequenceNumbers.size());
+        assertEquals(249, (long) responseObserver.sequenceNumbers.get(249));
+        assertTrue(responseObserver.completed);
+    }
+
+    @Test
+    public void suspendsWhenNotReadyAndResumesOnReady() {
+        responseObserver.readyFor = 10;
+        stream(250, 1_000_000).start();
+
+        assertEquals(10, responseObserver.sequenceNumbers.size());
+        assertFalse(responseObserver.completed);
+
+        responseObserver.readyFor = 100;
+        responseObserver.onReadyHandler.run();
+        assertEquals(110, responseObserver.sequenceNumbers.size());
+        assertFalse(responseObserver.completed);
+
+        responseObserver.readyFor = Integer.MAX_VALUE;
+        responseObserver.onReadyHandler.run();
+        assertEquals(250, responseObserver.sequenceNumbers.size());
+        for (int i = 0; i < 250; i++) {
+            assertEquals(i, (long) responseObserver.sequenceNumbers.get(i));
+        }
+        assertTrue(responseObserver.completed);
+    }
+
+    @Test
+    public void chunkSizeLimitedByBufferSize() {
+        stream(100, 10_000).start();
+
+        assertEquals(100, responseObserver.sequenceNumbers.size());
+        assertTrue(responseObserver.completed);
+        for (int chunkSize : requestedChunkSizes.subList(1, requestedChunkSizes.size())) {
+            assertTrue("Chunk too large: " + chunkSize, chunkSize * 1000 <= 10_000);
+        }
+    }
+
+    private FlowControlledAggregateStream stream(int eventCount, long maxBufferBytes) {
+        int[] next = new int[1];
+        FlowControlledAggregateStream.ChunkReader chunkReader = (maxEvents, consumer) -> {
+            requestedChunkSizes.add(maxEvents);
+            for (int i = 0; i < maxEvents && next[0] < eventCount; i++) {
+                consumer.accept(event(next[0]++));
+            }
+            return next[0] < eventCount;
+        };
+        return new FlowControlledAggregateStream(responseObserver, chunkReader, e -> e, Runnable::run, maxBufferBytes);
+    }
+
+    private SerializedEvent event(long sequenceNumber) {
+        return new SerializedEvent(Event.newBuilder()
+                                        .setAggregateIdentifier("aggregate")
+                                        .setAggregateSequenceNumber(sequenceNumber)
+                                        .setAggregateType("Demo")
+                                        .setPayload(SerializedObject.newBuilder()
+                                                                    .setData(ByteString.copyFrom(new byte[1000])))
+                                        .build());
+    }
+
+    private static class FakeCallStreamObserver extends CallStreamObserver<SerializedEvent> {
+
+        private final List<Long> sequenceNumbers = new ArrayList<>();
+        private int readyFor = Integer.MAX_VALUE;
+        private Runnable onReadyHandler;
+        private boolean completed;
+
+        @Override
+        public boolean isReady() {
+            return readyFor > 0;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(SerializedEvent event) {
+            assertTrue("Sent while not ready", isReady());
+            readyFor--;
+            sequenceNumbers.add(event.getAggregateSequenceNumber());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
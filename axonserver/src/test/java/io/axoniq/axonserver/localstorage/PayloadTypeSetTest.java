@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.grpc.MetaDataValue;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.grpc.event.PayloadDescription;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PayloadTypeSetTest {
+
+    private PayloadTypeSet testSubject;
+
+    @Before
+    public void setUp() {
+        testSubject = new PayloadTypeSet();
+        testSubject.addAll(Arrays.asList(PayloadDescription.newBuilder().setType("DemoType").setRevision("1.0").build(),
+                                         PayloadDescription.newBuilder().setType("NoRevision").build()));
+    }
+
+    @Test
+    public void containsMatchingTypeAndRevision() {
+        assertTrue(testSubject.contains(event("DemoType", "1.0")));
+        assertTrue(testSubject.contains(event("NoRevision", "")));
+    }
+
+    @Test
+    public void doesNotContainOtherRevision() {
+        assertFalse(testSubject.contains(event("DemoType", "2.0")));
+        assertFalse(testSubject.contains(event("DemoType", "")));
+        assertFalse(testSubject.contains(event("NoRevision", "1.0")));
+    }
+
+    @Test
+    public void doesNotContainOtherType() {
+        assertFalse(testSubject.contains(event("OtherType", "1.0")));
+        assertFalse(testSubject.contains(new SerializedEvent(Event.newBuilder().build())));
+    }
+
+    @Test
+    public void usesMergedPayloadOfRepeatedPayloadField() {
+        byte[] first = Event.newBuilder()
+                            .setPayload(SerializedObject.newBuilder().setType("DemoType").setRevision("1.0"))
+                            .build()
+                            .toByteArray();
+        byte[] second = Event.newBuilder()
+                             .setPayload(SerializedObject.newBuilder().setType("OtherType"))
+                             .build()
+                             .toByteArray();
+        byte[] concatenated = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, concatenated, first.length, second.length);
+
+        // the parsed payload has type OtherType, with the revision of the first occurrence
+        assertFalse(testSubject.contains(new SerializedEvent(concatenated)));
+        testSubject.addAll(Collections.singletonList(PayloadDescription.newBuilder()
+                                                                       .setType("OtherType")
+                                                                       .setRevision("1.0")
+                                                                       .build()));
+        assertTrue(testSubject.contains(new SerializedEvent(concatenated)));
+    }
+
+    @Test
+    public void containsTypesWithSameHash() {
+        // "Aa" and "BB" have the same hash
+        testSubject.addAll(Arrays.asList(PayloadDescription.newBuilder().setType("BB").build(),
+                                         PayloadDescription.newBuilder().setType("Aa").setRevision("1").build(),
+                                         PayloadDescription.newBuilder().setType("ZType").build(),
+                                         PayloadDescription.newBuilder().setType("BB").build()));
+
+        assertTrue(testSubject.contains(event("Aa", "1")));
+        assertTrue(testSubject.contains(event("BB", "")));
+        assertTrue(testSubject.contains(event("ZType", "")));
+        assertTrue(testSubject.contains(event("DemoType", "1.0")));
+        assertFalse(testSubject.contains(event("Aa", "")));
+        assertFalse(testSubject.contains(event("BB", "1")));
+    }
+
+    @Test
+    public void emptySet() {
+        PayloadTypeSet empty = new PayloadTypeSet();
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains(event("DemoType", "1.0")));
+        empty.addAll(Collections.singletonList(PayloadDescription.newBuilder().setType("DemoType").build()));
+        assertFalse(empty.isEmpty());
+    }
+
+    private SerializedEvent event(String type, String revision) {
+        return new SerializedEvent(Event.newBuilder()
+                                        .setMessageIdentifier("1234")
+                                        .setAggregateIdentifier("aggregate")
+                                        .setAggregateSequenceNumber(12)
+                                        .setTimestamp(System.currentTimeMillis())
+                                        .setPayload(SerializedObject.newBuilder()
+                                                                    .setType(type)
+                                                                    .setRevision(revision)
+                                                                    .setData(ByteString.copyFromUtf8(
+                                                                            "{\"value\": \"DemoType\"}")))
+                                        .putMetaData("key", MetaDataValue.newBuilder().setTextValue("value").build())
+                                        .build());
+    }
+}
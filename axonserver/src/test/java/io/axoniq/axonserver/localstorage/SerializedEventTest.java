@@ -9,7 +9,11 @@
 
 package io.axoniq.axonserver.localstorage;
 
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
 import io.axoniq.axonserver.grpc.MetaDataValue;
+import io.axoniq.axonserver.grpc.SerializedObject;
 import io.axoniq.axonserver.grpc.event.Event;
 import org.junit.*;
 
@@ -69,6 +73,76 @@ public class SerializedEventTest {
         assertEquals(10, testSubject.getAggregateSequenceNumber());
     }
 
+    @Test
+    public void readFieldsWithoutParsing() {
+        Event event = Event.newBuilder()
+                           .setMessageIdentifier("message")
+                           .setAggregateIdentifier("aggregate")
+                           .setAggregateSequenceNumber(300)
+                           .setAggregateType("Demo")
+                           .setPayload(SerializedObject.newBuilder()
+                                                       .setType("payload")
+                                                       .setData(ByteString.copyFrom(new byte[10_000])))
+                           .build();
+        SerializedEvent serializedEvent = new SerializedEvent(event.toByteArray());
+
+        assertEquals(300, serializedEvent.getAggregateSequenceNumber());
+        assertEquals("aggregate", serializedEvent.getAggregateIdentifier());
+        assertTrue(serializedEvent.isDomainEvent());
+
+        SerializedEvent eventWithoutAggregate = new SerializedEvent(Event.newBuilder()
+                                                                         .setMessageIdentifier("message")
+                                                                         .build()
+                                                                         .toByteArray());
+        assertEquals(0, eventWithoutAggregate.getAggregateSequenceNumber());
+        assertEquals("", eventWithoutAggregate.getAggregateIdentifier());
+        assertFalse(eventWithoutAggregate.isDomainEvent());
+    }
+
+    @Test
+    public void readFieldsWithoutParsingUsesLastOccurrence() {
+        byte[] first = Event.newBuilder()
+                            .setAggregateIdentifier("first")
+                            .setAggregateSequenceNumber(1)
+                            .setAggregateType("Demo")
+                            .build()
+                            .toByteArray();
+        byte[] second = Event.newBuilder()
+                             .setAggregateIdentifier("second")
+                             .setAggregateSequenceNumber(2)
+                             .build()
+                             .toByteArray();
+        byte[] concatenated = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, concatenated, first.length, second.length);
+
+        Event parsed = new SerializedEvent(concatenated).asEvent();
+        SerializedEvent serializedEvent = new SerializedEvent(concatenated);
+        assertEquals(parsed.getAggregateSequenceNumber(), serializedEvent.getAggregateSequenceNumber());
+        assertEquals(parsed.getAggregateIdentifier(), serializedEvent.getAggregateIdentifier());
+        assertTrue(serializedEvent.isDomainEvent());
+    }
+
+    @Test
+    public void readStringWithInvalidLength() {
+        byte[] data = Event.newBuilder().setAggregateIdentifier("aggregate").build().toByteArray();
+        byte[] truncated = Arrays.copyOf(data, data.length - 2);
+        try {
+            new SerializedEvent(truncated).getAggregateIdentifier();
+            fail("Expected exception for truncated string");
+        } catch (MessagingPlatformException ex) {
+            assertEquals(ErrorCode.DATAFILE_READ_ERROR, ex.getErrorCode());
+        }
+    }
+
+    @Test
+    public void asSnapshot() {
+        Event snapshot = testSubject.asSnapshot().asEvent();
+
+        assertTrue(snapshot.getSnapshot());
+        assertEquals(Event.newBuilder(wrapped).setSnapshot(true).build(), snapshot);
+        assertEquals(10, testSubject.asSnapshot().getAggregateSequenceNumber());
+    }
+
     @Test
     public void getMetaData() {
         assertEquals(10L, testSubject.getMetaData().get("sampleInt"));
@@ -13,6 +13,7 @@ import com.google.protobuf.ByteString;
 import io.axoniq.axonserver.grpc.SerializedObject;
 import io.axoniq.axonserver.grpc.event.Event;
 import io.axoniq.axonserver.grpc.event.EventWithToken;
+import io.grpc.Drainable;
 import org.junit.*;
 
 import java.io.ByteArrayOutputStream;
@@ -49,6 +50,31 @@ public class SerializedEventWithTokenTest {
         assertArrayEquals(eventWithToken.toByteArray(), actual);
     }
 
+    @Test
+    public void drainedDataIdenticalToGrpcOwnEncoding() throws IOException {
+        Event event = Event.newBuilder()
+                           .setPayload(SerializedObject.newBuilder()
+                                                       .setType("test2")
+                                                       .setData(ByteString.copyFromUtf8("Mock"))
+                                                       .build())
+                           .setMessageIdentifier(UUID.randomUUID().toString())
+                           .build();
+        EventWithToken eventWithToken = EventWithToken.newBuilder()
+                                                      .setToken(300)
+                                                      .setEvent(event).build();
+
+        SerializedEventWithToken testSubject = new SerializedEventWithToken(eventWithToken.getToken(),
+                                                                            new SerializedEvent(event.toByteArray()));
+
+        InputStream inputStream = testSubject.asInputStream();
+        assertEquals(eventWithToken.getSerializedSize(), inputStream.available());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(inputStream.read());
+        assertEquals(eventWithToken.getSerializedSize() - 1, ((Drainable) inputStream).drainTo(bos));
+        assertArrayEquals(eventWithToken.toByteArray(), bos.toByteArray());
+        assertEquals(-1, inputStream.read());
+    }
+
     private byte[] toByteArray(InputStream asInputStream) throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         byte[] bytes = new byte[512];
@@ -12,12 +12,15 @@ package io.axoniq.axonserver.localstorage;
 import io.axoniq.axonserver.grpc.SerializedObject;
 import io.axoniq.axonserver.grpc.event.Event;
 import io.axoniq.axonserver.grpc.event.PayloadDescription;
+import io.axoniq.axonserver.localstorage.transaction.StorageTransactionManager;
 import io.grpc.stub.StreamObserver;
 import org.junit.*;
 import org.springframework.data.util.CloseableIterator;
 
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -201,4 +204,110 @@ public class TrackingEventProcessorManagerTest {
 
         assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(10, useLocalStoreMessagesReceived.get()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void trackersAtHeadShareTailCache() throws InterruptedException {
+        AtomicLong lastToken = new AtomicLong(99);
+        AtomicInteger iteratorsCreated = new AtomicInteger();
+        Function<Long, CloseableIterator<SerializedEventWithToken>> iteratorBuilder = (token) -> {
+            iteratorsCreated.incrementAndGet();
+            AtomicLong nextToken = new AtomicLong(token);
+            return new CloseableIterator<SerializedEventWithToken>() {
+                @Override
+                public void close() {
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return nextToken.get() <= lastToken.get();
+                }
+
+                @Override
+                public SerializedEventWithToken next() {
+                    return new SerializedEventWithToken(nextToken.getAndIncrement(), Event.newBuilder().build());
+                }
+            };
+        };
+        TrackingEventProcessorManager manager = new TrackingEventProcessorManager("demo",
+                                                                                  iteratorBuilder,
+                                                                                  lastToken::get,
+                                                                                  5,
+                                                                                  100);
+        AtomicInteger messagesReceived = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            TrackingEventProcessorManager.EventTracker tracker =
+                    manager.createEventTracker(100L, "client" + i, true, new StreamObserver<InputStream>() {
+                        @Override
+                        public void onNext(InputStream value) {
+                            messagesReceived.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                        }
+                    });
+            tracker.addPermits(100);
+            tracker.start();
+        }
+
+        assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(1, iteratorsCreated.get()));
+        lastToken.set(109);
+        manager.reschedule();
+        assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(30, messagesReceived.get()));
+        assertEquals(1, iteratorsCreated.get());
+        manager.close();
+    }
+
+    @Test
+    public void trackerWokenByStoredEvents() throws InterruptedException {
+        EventWriteStorage eventWriteStorage = new EventWriteStorage(new StorageTransactionManager() {
+            @Override
+            public CompletableFuture<Long> store(List<SerializedEvent> eventList) {
+                eventsLeft.addAndGet(eventList.size());
+                return CompletableFuture.completedFuture(0L);
+            }
+
+            @Override
+            public Runnable reserveSequenceNumbers(List<SerializedEvent> eventList) {
+                return () -> {
+                };
+            }
+
+            @Override
+            public void deleteAllEventData() {
+            }
+        });
+        eventWriteStorage.registerEventListener((token, events) -> testSubject.reschedule());
+        AtomicInteger messagesReceived = new AtomicInteger();
+        TrackingEventProcessorManager.EventTracker tracker =
+                testSubject.createEventTracker(100L, "", true, new StreamObserver<InputStream>() {
+                    @Override
+                    public void onNext(InputStream value) {
+                        messagesReceived.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+        tracker.addPermits(100);
+        tracker.start();
+        assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(10, messagesReceived.get()));
+
+        // events that become available without a notification are not picked up, there is no polling
+        eventsLeft.set(1);
+        Thread.sleep(300);
+        assertEquals(10, messagesReceived.get());
+
+        eventWriteStorage.store(Collections.singletonList(new SerializedEvent(Event.newBuilder().build())));
+        assertWithin(1, TimeUnit.SECONDS, () -> assertEquals(12, messagesReceived.get()));
+    }
+}
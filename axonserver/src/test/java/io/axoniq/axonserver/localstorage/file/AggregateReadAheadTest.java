@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.config.SystemInfoProvider;
+import io.axoniq.axonserver.localstorage.AggregateEventCursor;
+import io.axoniq.axonserver.localstorage.EventType;
+import io.axoniq.axonserver.localstorage.EventTypeContext;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
+import io.axoniq.axonserver.localstorage.transformation.DefaultEventTransformerFactory;
+import io.axoniq.axonserver.metric.BaseMetricName;
+import io.axoniq.axonserver.metric.DefaultMetricCollector;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.axoniq.axonserver.test.TestUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @since 4.5
+ */
+public class AggregateReadAheadTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StorageProperties storageProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private final Map<Long, Thread> readThreads = new ConcurrentHashMap<>();
+
+    @Before
+    public void init() throws IOException {
+        File sampleEventStoreFolder = new File(TestUtils.fixPathOnWindows(InputStreamEventStore.class
+                                                                                  .getResource(
+                                                                                          "/event-store-without-index")
+                                                                                  .getFile()));
+        File source = new File(sampleEventStoreFolder, "default");
+        File target = new File(temporaryFolder.newFolder(), "default");
+        assertTrue(target.mkdirs());
+        for (String file : source.list((dir, name) -> name.endsWith(".events"))) {
+            Files.copy(new File(source, file).toPath(), new File(target, file).toPath());
+        }
+        storageProperties = new StorageProperties(new SystemInfoProvider() {
+        }).withStorage(target.getAbsolutePath());
+    }
+
+    @Test
+    public void readAggregateWithReadAhead() {
+        PrimaryEventStore eventStore = createEventStore(storageProperties);
+        eventStore.init(true);
+        List<Long> sequential = sequenceNumbers(eventStore, "Aggregate-1");
+        eventStore.close(false);
+
+        eventStore = createEventStore(storageProperties.withAggregateReadAhead(2));
+        eventStore.init(true);
+        List<Long> readAhead = sequenceNumbers(eventStore, "Aggregate-1");
+        eventStore.close(false);
+
+        assertEquals(14, readAhead.size());
+        assertEquals(sequential, readAhead);
+        for (int i = 1; i < readAhead.size(); i++) {
+            assertTrue(readAhead.get(i - 1) < readAhead.get(i));
+        }
+    }
+
+    @Test
+    public void firstSegmentIsReadOnCallingThread() {
+        PrimaryEventStore eventStore = createEventStore(storageProperties.withAggregateReadAhead(2));
+        eventStore.init(true);
+        readThreads.clear();
+        sequenceNumbers(eventStore, "Aggregate-1");
+        eventStore.close(false);
+
+        assertTrue(readThreads.size() > 1);
+        List<Long> segments = new ArrayList<>(readThreads.keySet());
+        segments.sort(Long::compare);
+        assertSame(Thread.currentThread(), readThreads.get(segments.get(0)));
+        for (Long segment : segments.subList(1, segments.size())) {
+            assertTrue(readThreads.get(segment).getName().startsWith("aggregate-read-ahead-default-"));
+        }
+    }
+
+    @Test
+    public void cursorReadsAheadWhileReadingPages() {
+        PrimaryEventStore eventStore = createEventStore(storageProperties);
+        eventStore.init(true);
+        List<Long> sequential = sequenceNumbers(eventStore, "Aggregate-1");
+        eventStore.close(false);
+
+        eventStore = createEventStore(storageProperties.withAggregateReadAhead(2));
+        eventStore.init(true);
+        readThreads.clear();
+        AggregateEventCursor cursor = eventStore.aggregateEventCursor("Aggregate-1", 0, Long.MAX_VALUE, 0);
+        List<Long> paged = new ArrayList<>();
+        while (cursor.read(3, event -> paged.add(event.getAggregateSequenceNumber()))) {
+            // read all pages
+        }
+        eventStore.close(false);
+
+        assertEquals(sequential, paged);
+        List<Long> segments = new ArrayList<>(readThreads.keySet());
+        segments.sort(Long::compare);
+        assertSame(Thread.currentThread(), readThreads.get(segments.get(0)));
+        for (Long segment : segments.subList(1, segments.size())) {
+            assertTrue(readThreads.get(segment).getName().startsWith("aggregate-read-ahead-default-"));
+        }
+        double counted = meterRegistry.find(BaseMetricName.AXON_AGGREGATE_READ_AHEAD.metric())
+                                      .counters()
+                                      .stream()
+                                      .mapToDouble(Counter::count)
+                                      .sum();
+        assertEquals(segments.size() - 1, counted, 0.001);
+    }
+
+    private List<Long> sequenceNumbers(PrimaryEventStore eventStore, String aggregateId) {
+        List<Long> sequenceNumbers = new ArrayList<>();
+        eventStore.processEventsPerAggregate(aggregateId, 0, Long.MAX_VALUE, 0,
+                                             e -> sequenceNumbers.add(e.getAggregateSequenceNumber()));
+        return sequenceNumbers;
+    }
+
+    private PrimaryEventStore createEventStore(StorageProperties storageProperties) {
+        meterRegistry = new SimpleMeterRegistry();
+        MeterFactory meterFactory = new MeterFactory(meterRegistry, new DefaultMetricCollector());
+        IndexManager indexManager = new StandardIndexManager("default",
+                                                             storageProperties,
+                                                             EventType.EVENT,
+                                                             meterFactory);
+        InputStreamEventStore secondaryEventStore = new InputStreamEventStore(new EventTypeContext("default",
+                                                                                                   EventType.EVENT),
+                                                                              indexManager,
+                                                                              new DefaultEventTransformerFactory(),
+                                                                              storageProperties,
+                                                                              meterFactory);
+        return new PrimaryEventStore(new EventTypeContext("default", EventType.EVENT),
+                                     indexManager,
+                                     new DefaultEventTransformerFactory(),
+                                     storageProperties,
+                                     secondaryEventStore,
+                                     meterFactory) {
+            @Override
+            int retrieveEventsForAnAggregate(long segment, List<Integer> indexEntries, long minSequenceNumber,
+                                             long maxSequenceNumber, Consumer<SerializedEvent> onEvent,
+                                             long maxResults, long minToken) {
+                readThreads.put(segment, Thread.currentThread());
+                return super.retrieveEventsForAnAggregate(segment, indexEntries, minSequenceNumber,
+                                                          maxSequenceNumber, onEvent, maxResults, minToken);
+            }
+        };
+    }
+}
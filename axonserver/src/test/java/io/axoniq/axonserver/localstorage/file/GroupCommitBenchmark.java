@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.config.SystemInfoProvider;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.localstorage.EventType;
+import io.axoniq.axonserver.localstorage.EventTypeContext;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
+import io.axoniq.axonserver.localstorage.transformation.DefaultEventTransformerFactory;
+import io.axoniq.axonserver.metric.DefaultMetricCollector;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the append throughput of the primary event store with and without group commit. Each round appends the
+ * same number of transactions from a number of concurrent writers, each writer waiting for its append to complete
+ * before it sends the next one, as a client appending events does.
+ * <p>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code writers appendsPerWriter eventsPerAppend payloadBytes
+ * rounds}.
+ *
+ * @since 4.5
+ */
+public class GroupCommitBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int writers = intArg(args, 0, 16);
+        int appendsPerWriter = intArg(args, 1, 2000);
+        int eventsPerAppend = intArg(args, 2, 1);
+        int payloadBytes = intArg(args, 3, 256);
+        int rounds = intArg(args, 4, 5);
+
+        List<SerializedEvent> events = events(eventsPerAppend, payloadBytes);
+        System.out.printf("%d writers, %d appends per writer, %d events per append, payload %d bytes%n",
+                          writers, appendsPerWriter, eventsPerAppend, payloadBytes);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                measure(round, false, executor, writers, appendsPerWriter, events);
+                measure(round, true, executor, writers, appendsPerWriter, events);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void measure(int round, boolean groupCommit, ExecutorService executor, int writers,
+                                int appendsPerWriter, List<SerializedEvent> events) throws Exception {
+        File folder = Files.createTempDirectory("group-commit-benchmark").toFile();
+        StorageProperties storageProperties = new StorageProperties(new SystemInfoProvider() {
+        }).withStorage(folder.getAbsolutePath());
+        storageProperties.setGroupCommit(groupCommit);
+        PrimaryEventStore eventStore = createEventStore(storageProperties);
+        try {
+            eventStore.init(false);
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                results.add(executor.submit(() -> {
+                    for (int append = 0; append < appendsPerWriter; append++) {
+                        eventStore.store(events).get(10, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+            long appends = (long) writers * appendsPerWriter;
+            System.out.printf("round %d, group commit %-5s: %9.0f appends/s, %9.0f events/s%n",
+                              round, groupCommit, appends / seconds, appends * events.size() / seconds);
+        } finally {
+            eventStore.close(true);
+            FileSystemUtils.deleteRecursively(folder);
+        }
+    }
+
+    private static PrimaryEventStore createEventStore(StorageProperties storageProperties) {
+        MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
+        EventTypeContext eventTypeContext = new EventTypeContext("default", EventType.EVENT);
+        IndexManager indexManager = new StandardIndexManager("default",
+                                                             storageProperties,
+                                                             EventType.EVENT,
+                                                             meterFactory);
+        InputStreamEventStore secondaryEventStore = new InputStreamEventStore(eventTypeContext,
+                                                                              indexManager,
+                                                                              new DefaultEventTransformerFactory(),
+                                                                              storageProperties,
+                                                                              meterFactory);
+        return new PrimaryEventStore(eventTypeContext,
+                                     indexManager,
+                                     new DefaultEventTransformerFactory(),
+                                     storageProperties,
+                                     secondaryEventStore,
+                                     meterFactory);
+    }
+
+    private static List<SerializedEvent> events(int eventsPerAppend, int payloadBytes) {
+        SerializedObject payload = SerializedObject.newBuilder()
+                                                   .setType("Demo")
+                                                   .setData(ByteString.copyFrom(new byte[payloadBytes]))
+                                                   .build();
+        List<SerializedEvent> events = new ArrayList<>();
+        for (int i = 0; i < eventsPerAppend; i++) {
+            events.add(new SerializedEvent(Event.newBuilder()
+                                                .setMessageIdentifier(String.valueOf(i))
+                                                .setPayload(payload)
+                                                .build()));
+        }
+        return events;
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
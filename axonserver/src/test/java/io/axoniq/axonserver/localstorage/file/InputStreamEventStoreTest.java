@@ -12,6 +12,7 @@ package io.axoniq.axonserver.localstorage.file;
 import io.axoniq.axonserver.config.SystemInfoProvider;
 import io.axoniq.axonserver.localstorage.EventType;
 import io.axoniq.axonserver.localstorage.EventTypeContext;
+import io.axoniq.axonserver.localstorage.QueryOptions;
 import io.axoniq.axonserver.localstorage.SerializedTransactionWithToken;
 import io.axoniq.axonserver.localstorage.transformation.DefaultEventTransformerFactory;
 import io.axoniq.axonserver.localstorage.transformation.EventTransformerFactory;
@@ -22,9 +23,18 @@ import io.axoniq.axonserver.test.TestUtils;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.SortedSet;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
 /**
@@ -32,6 +42,7 @@ import static junit.framework.TestCase.assertTrue;
  */
 public class InputStreamEventStoreTest {
     private InputStreamEventStore testSubject;
+    private StorageProperties storageProperties;
 
     @Before
     public void setUp() {
@@ -42,6 +53,7 @@ public class InputStreamEventStoreTest {
                                                                                      .getResource("/data").getFile()));
         embeddedDBProperties.getEvent().setForceCleanMmapIndex(true);
         embeddedDBProperties.getEvent().setUseMmapIndex(true);
+        storageProperties = embeddedDBProperties.getEvent();
         String context = Topology.DEFAULT_CONTEXT;
         MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
 
@@ -56,6 +68,87 @@ public class InputStreamEventStoreTest {
         testSubject.init(true);
     }
 
+    /**
+     * Creates an event store on the same segments where the metadata of the segments is given, recording the segments
+     * that are read.
+     */
+    private InputStreamEventStore eventStoreWithMetadata(Map<Long, SegmentMetadata> metadata, List<Long> segmentsRead) {
+        MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
+        StandardIndexManager indexManager = new StandardIndexManager(Topology.DEFAULT_CONTEXT,
+                                                                     storageProperties,
+                                                                     EventType.EVENT,
+                                                                     meterFactory) {
+            @Override
+            public Optional<SegmentMetadata> getSegmentMetadata(long segment) {
+                return Optional.ofNullable(metadata.get(segment));
+            }
+        };
+        indexManager.init();
+        InputStreamEventStore eventStore = new InputStreamEventStore(new EventTypeContext(Topology.DEFAULT_CONTEXT,
+                                                                                          EventType.EVENT),
+                                                                     indexManager,
+                                                                     new DefaultEventTransformerFactory(),
+                                                                     storageProperties,
+                                                                     meterFactory) {
+            @Override
+            public Optional<EventSource> getEventSource(long segment) {
+                segmentsRead.add(segment);
+                return super.getEventSource(segment);
+            }
+        };
+        eventStore.init(true);
+        segmentsRead.clear();
+        return eventStore;
+    }
+
+    private SegmentMetadata metadata(long firstToken, long lastToken, long minTimestamp, long maxTimestamp) {
+        SegmentMetadata metadata = new SegmentMetadata();
+        metadata.add(firstToken, minTimestamp, "DemoType");
+        metadata.add(lastToken, maxTimestamp, "DemoType");
+        return metadata;
+    }
+
+    @Test
+    public void querySkipsSegmentsWithoutMatchingEvents() {
+        Map<Long, SegmentMetadata> metadata = new HashMap<>();
+        metadata.put(0L, metadata(0, 13, 1000, 1500));
+        metadata.put(14L, metadata(14, 20, 2000, Long.MAX_VALUE - 1));
+        List<Long> segmentsRead = new ArrayList<>();
+        InputStreamEventStore eventStore = eventStoreWithMetadata(metadata, segmentsRead);
+
+        eventStore.query(new QueryOptions(0, Long.MAX_VALUE, 2500), event -> true);
+        assertEquals(Collections.singletonList(14L), segmentsRead);
+
+        segmentsRead.clear();
+        eventStore.query(new QueryOptions(14, Long.MAX_VALUE, 0), event -> true);
+        assertEquals(Collections.singletonList(14L), segmentsRead);
+    }
+
+    @Test
+    public void getTokenAtSkipsSegmentsUsingMetadata() {
+        Map<Long, SegmentMetadata> metadata = new HashMap<>();
+        metadata.put(0L, metadata(0, 13, 1000, 1500));
+        metadata.put(14L, metadata(14, 20, 2000, 3000));
+        List<Long> segmentsRead = new ArrayList<>();
+        InputStreamEventStore eventStore = eventStoreWithMetadata(metadata, segmentsRead);
+
+        // segment 14 starts after the instant and segment 0 ends before it, so the token is the last one in segment 0
+        assertEquals(13, eventStore.getTokenAt(1600));
+        assertTrue(segmentsRead.isEmpty());
+    }
+
+    @Test
+    public void getTokenAtReturnsTokenBeforeSkippedSegmentWhenOlderSegmentIsRead() {
+        Map<Long, SegmentMetadata> metadata = new HashMap<>();
+        metadata.put(14L, metadata(14, 20, Long.MAX_VALUE - 1, Long.MAX_VALUE - 1));
+        List<Long> segmentsRead = new ArrayList<>();
+        InputStreamEventStore eventStore = eventStoreWithMetadata(metadata, segmentsRead);
+
+        // segment 14 starts after the instant, segment 0 has no metadata and all its events are before the instant
+        assertEquals(13, eventStore.getTokenAt(Long.MAX_VALUE - 2));
+        assertEquals(Collections.singletonList(0L), segmentsRead);
+    }
+
 
 
 
@@ -72,6 +165,36 @@ public class InputStreamEventStoreTest {
         assertEquals(13, next.getToken());
     }
 
+    @Test
+    public void getMappedEventSource() {
+        storageProperties.setUseMmapSegments(true);
+        storageProperties.setMaxMmapSegments(1);
+        for (long segment : new long[]{0, 14, 0}) {
+            EventSource eventSource = testSubject.getEventSource(segment).get();
+            assertTrue(eventSource instanceof ByteBufferEventSource);
+            EventIterator iterator = eventSource.createEventIterator(segment, segment);
+            assertTrue(iterator.hasNext());
+            assertEquals(segment, iterator.next().getToken());
+            iterator.close();
+        }
+        assertFalse(testSubject.getEventSource(100).isPresent());
+    }
+
+    @Test
+    public void parallelQuery() {
+        List<Long> sequential = new ArrayList<>();
+        testSubject.query(new QueryOptions(3, 20, 0), event -> sequential.add(event.getToken()));
+
+        storageProperties.setQueryParallelism(2);
+        List<Long> ordered = new ArrayList<>();
+        testSubject.query(new QueryOptions(3, 20, 0), event -> ordered.add(event.getToken()));
+        assertEquals(sequential, ordered);
+
+        Set<Long> unordered = new HashSet<>();
+        testSubject.query(new QueryOptions(3, 20, 0, false), event -> unordered.add(event.getToken()));
+        assertEquals(new HashSet<>(sequential), unordered);
+    }
+
     @Test
     public void iterateTransactions() {
         EventSource eventSource = testSubject.getEventSource(0).get();
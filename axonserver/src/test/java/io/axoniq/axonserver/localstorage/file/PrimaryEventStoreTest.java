@@ -31,8 +31,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
@@ -45,6 +51,8 @@ public class PrimaryEventStoreTest {
     @ClassRule
     public static TemporaryFolder tempFolder = new TemporaryFolder();
     private PrimaryEventStore testSubject;
+    private StorageProperties storageProperties;
+    private StandardIndexManager indexManager;
 
     @Before
     public void setUp() throws IOException {
@@ -55,11 +63,12 @@ public class PrimaryEventStoreTest {
         embeddedDBProperties.getEvent().setSegmentSize(512 * 1024L);
         embeddedDBProperties.getSnapshot().setStorage(tempFolder.getRoot().getAbsolutePath());
         embeddedDBProperties.getEvent().setPrimaryCleanupDelay(0);
+        storageProperties = embeddedDBProperties.getEvent();
         String context = "junit";
         MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
-        StandardIndexManager indexManager = new StandardIndexManager(context, embeddedDBProperties.getEvent(),
-                                                                     EventType.EVENT,
-                                                                     meterFactory);
+        indexManager = new StandardIndexManager(context, embeddedDBProperties.getEvent(),
+                                                EventType.EVENT,
+                                                meterFactory);
         EventTransformerFactory eventTransformerFactory = new DefaultEventTransformerFactory();
         InputStreamEventStore second = new InputStreamEventStore(new EventTypeContext(context, EventType.EVENT),
                                                                  indexManager,
@@ -89,6 +98,25 @@ public class PrimaryEventStoreTest {
         assertEquals(1000, counter);
     }
 
+    @Test
+    public void readFromTokenStartsAtIndexedTransaction() throws InterruptedException {
+        setupEvents(50, 100);
+        Optional<TokenOffsetIndex.Entry> startTransaction = indexManager.getTransactionPosition(0, 4050);
+        assertTrue(startTransaction.isPresent());
+        assertTrue(startTransaction.get().getToken() > 0);
+        assertTrue(startTransaction.get().getToken() <= 4050);
+
+        EventIterator events = testSubject.getEvents(0, 4050);
+        assertTrue(events.hasNext());
+        assertEquals(4050, events.next().getToken());
+        events.close();
+
+        TransactionIterator transactions = testSubject.getTransactions(0, 3000);
+        assertTrue(transactions.hasNext());
+        assertEquals(3000, transactions.next().getToken());
+        transactions.close();
+    }
+
     @Test
     public void rollbackDeleteSegments() throws InterruptedException {
         setupEvents(100, 100);
@@ -168,6 +196,43 @@ public class PrimaryEventStoreTest {
         }
     }
 
+    @Test
+    public void groupCommitCompletesWithFirstTokenPerRequest() throws Exception {
+        storageProperties.setGroupCommit(true);
+        int numOfRequests = 100;
+        Map<String, CompletableFuture<Long>> results = new ConcurrentHashMap<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(10);
+        try {
+            IntStream.range(0, numOfRequests).forEach(j -> executorService.submit(() -> {
+                String aggId = UUID.randomUUID().toString();
+                List<SerializedEvent> newEvents = new ArrayList<>();
+                IntStream.range(0, 5).forEach(i -> newEvents.add(new SerializedEvent(
+                        Event.newBuilder().setAggregateIdentifier(aggId)
+                             .setAggregateSequenceNumber(i)
+                             .setAggregateType("Demo")
+                             .setPayload(SerializedObject.newBuilder().build()).build())));
+                results.put(aggId, testSubject.store(newEvents));
+            }));
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(numOfRequests, results.size());
+        for (Map.Entry<String, CompletableFuture<Long>> result : results.entrySet()) {
+            long firstToken = result.getValue().get(5, TimeUnit.SECONDS);
+            try (CloseableIterator<SerializedEventWithToken> iterator = testSubject.getGlobalIterator(firstToken)) {
+                for (int i = 0; i < 5; i++) {
+                    SerializedEventWithToken event = iterator.next();
+                    assertEquals(firstToken + i, event.getToken());
+                    assertEquals(result.getKey(), event.getSerializedEvent().getAggregateIdentifier());
+                    assertEquals(i, event.getSerializedEvent().getAggregateSequenceNumber());
+                }
+            }
+        }
+        assertEquals(numOfRequests * 5 - 1, testSubject.getLastToken());
+    }
+
     @Test
     public void testDeletingAllEvents() throws InterruptedException {
         setupEvents(5, 3);
@@ -1,19 +1,34 @@
 package io.axoniq.axonserver.localstorage.file;
 
+import com.google.protobuf.ByteString;
 import io.axoniq.axonserver.config.SystemInfoProvider;
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
 import io.axoniq.axonserver.localstorage.EventType;
 import io.axoniq.axonserver.localstorage.EventTypeContext;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
 import io.axoniq.axonserver.localstorage.transformation.DefaultEventTransformerFactory;
 import io.axoniq.axonserver.metric.DefaultMetricCollector;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.axoniq.axonserver.test.TestUtils;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
@@ -23,26 +38,39 @@ import static org.junit.Assert.*;
  */
 public class RecreateIndexTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File sampleEventStoreFolder;
+    private StorageProperties storageProperties;
     private PrimaryEventStore testSubject;
 
     @Before
     public void init() {
 
-        File sampleEventStoreFolder = new File(TestUtils
-                                                       .fixPathOnWindows(InputStreamEventStore.class
-                                                                                 .getResource(
-                                                                                         "/event-store-without-index")
-                                                                                 .getFile()));
-
-        MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
+        sampleEventStoreFolder = new File(TestUtils
+                                                  .fixPathOnWindows(InputStreamEventStore.class
+                                                                            .getResource(
+                                                                                    "/event-store-without-index")
+                                                                            .getFile()));
 
-        StorageProperties storageProperties = new StorageProperties(new SystemInfoProvider() {
+        storageProperties = new StorageProperties(new SystemInfoProvider() {
             @Override
             public String getHostName() throws UnknownHostException {
                 return null;
             }
         });
         storageProperties.setStorage(sampleEventStoreFolder.getAbsolutePath());
+        testSubject = createEventStore(storageProperties);
+    }
+
+    private PrimaryEventStore createEventStore(StorageProperties storageProperties) {
+        return createEventStore(storageProperties, segment -> {
+        });
+    }
+
+    private PrimaryEventStore createEventStore(StorageProperties storageProperties, LongConsumer beforeRecreateIndex) {
+        MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
 
         IndexManager indexManager = new StandardIndexManager("default",
                                                              storageProperties,
@@ -54,13 +82,39 @@ public class RecreateIndexTest {
                                                                               indexManager,
                                                                               new DefaultEventTransformerFactory(),
                                                                               storageProperties,
-                                                                              meterFactory);
-        testSubject = new PrimaryEventStore(new EventTypeContext("default", EventType.EVENT),
-                                            indexManager,
-                                            new DefaultEventTransformerFactory(),
-                                            storageProperties,
-                                            secondaryEventStore,
-                                            meterFactory);
+                                                                              meterFactory) {
+            @Override
+            protected void recreateIndex(long segment) {
+                beforeRecreateIndex.accept(segment);
+                super.recreateIndex(segment);
+            }
+        };
+        return new PrimaryEventStore(new EventTypeContext("default", EventType.EVENT),
+                                     indexManager,
+                                     new DefaultEventTransformerFactory(),
+                                     storageProperties,
+                                     secondaryEventStore,
+                                     meterFactory);
+    }
+
+    private StorageProperties copyOfEventStore(int indexRebuildThreads, boolean backgroundIndexRebuild)
+            throws IOException {
+        File folder = temporaryFolder.newFolder();
+        File source = new File(sampleEventStoreFolder, "default");
+        File target = new File(folder, "default");
+        assertTrue(target.mkdirs());
+        for (String file : source.list((dir, name) -> name.endsWith(".events"))) {
+            Files.copy(new File(source, file).toPath(), new File(target, file).toPath());
+        }
+        return storageProperties.withStorage(target.getAbsolutePath())
+                                .withIndexRebuild(indexRebuildThreads, backgroundIndexRebuild);
+    }
+
+    private int countEvents(PrimaryEventStore eventStore, String aggregateId) {
+        AtomicInteger events = new AtomicInteger();
+        eventStore.processEventsPerAggregate(aggregateId, 0, Long.MAX_VALUE, 0,
+                                             e -> events.incrementAndGet());
+        return events.get();
     }
 
     @Test
@@ -76,4 +130,190 @@ public class RecreateIndexTest {
 
         assertEquals(14, events.get());
     }
+
+    @Test
+    public void recreateIndexesInParallel() throws IOException {
+        StorageProperties properties = copyOfEventStore(2, false);
+        PrimaryEventStore eventStore = createEventStore(properties);
+        eventStore.init(true);
+
+        assertTrue(properties.index("default", 0).exists());
+        assertTrue(properties.index("default", 462).exists());
+        assertFalse(properties.indexRebuildMarker("default").exists());
+        assertEquals(14, countEvents(eventStore, "Aggregate-1"));
+        eventStore.close(false);
+    }
+
+    @Test
+    public void recreateIndexesInBackground() throws IOException {
+        StorageProperties properties = copyOfEventStore(2, true);
+        PrimaryEventStore eventStore = createEventStore(properties);
+        eventStore.init(true);
+
+        assertEquals(14, countEvents(eventStore, "Aggregate-1"));
+        assertTrue(properties.index("default", 0).exists());
+        assertTrue(properties.index("default", 462).exists());
+        eventStore.close(false);
+    }
+
+    @Test
+    public void appendDuringBackgroundRebuild() throws Exception {
+        StorageProperties properties = copyOfEventStore(2, true).withIndexRebuildWaitTimeout(100);
+        CountDownLatch rebuildAllowed = new CountDownLatch(1);
+        PrimaryEventStore eventStore = createEventStore(properties, segment -> {
+            try {
+                rebuildAllowed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+        eventStore.init(true);
+
+        SerializedEvent event = new SerializedEvent(Event.newBuilder()
+                                                         .setAggregateIdentifier("new-aggregate")
+                                                         .setAggregateSequenceNumber(0)
+                                                         .setAggregateType("Demo")
+                                                         .setPayload(SerializedObject.newBuilder().build())
+                                                         .build());
+        eventStore.store(Collections.singletonList(event)).get(5, TimeUnit.SECONDS);
+        assertEquals(Optional.of(0L), eventStore.getLastSequenceNumber("new-aggregate"));
+
+        long start = System.currentTimeMillis();
+        try {
+            eventStore.getLastSequenceNumber("unknown-aggregate");
+            fail("Lookup in completed segments should not wait for the complete rebuild");
+        } catch (MessagingPlatformException expected) {
+            assertEquals(ErrorCode.INDEX_READ_ERROR, expected.getErrorCode());
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+
+        rebuildAllowed.countDown();
+        assertEquals(14, countEventsWhenRebuilt(eventStore, "Aggregate-1"));
+        assertEquals(Optional.empty(), eventStore.getLastSequenceNumber("unknown-aggregate"));
+        eventStore.close(false);
+    }
+
+    @Test
+    public void appendToOldAggregateDuringBackgroundRebuild() throws Exception {
+        StorageProperties properties = storageProperties.withStorage(temporaryFolder.newFolder().getAbsolutePath())
+                                                        .withSegmentSize(10 * 1024L);
+        PrimaryEventStore eventStore = createEventStore(properties);
+        eventStore.init(true);
+        long firstSegment = storeUntilCompleted(eventStore, properties, "filler-1", 0);
+        long oldAggregateToken = -1;
+        for (long sequenceNumber = 0; sequenceNumber < 3; sequenceNumber++) {
+            oldAggregateToken = eventStore.store(Collections.singletonList(event("old-aggregate",
+                                                                                 sequenceNumber,
+                                                                                 0)))
+                                          .get(5, TimeUnit.SECONDS);
+        }
+        storeUntilCompleted(eventStore, properties, "filler-2", oldAggregateToken);
+        eventStore.close(false);
+
+        // rebuild only the oldest segment, the aggregate is in a newer completed segment
+        Files.write(properties.indexRebuildMarker("default").toPath(),
+                    Collections.singletonList(String.valueOf(firstSegment)));
+        CountDownLatch rebuildAllowed = new CountDownLatch(1);
+        eventStore = createEventStore(properties.withIndexRebuild(2, true).withIndexRebuildWaitTimeout(1000),
+                                      segment -> {
+                                          try {
+                                              rebuildAllowed.await();
+                                          } catch (InterruptedException e) {
+                                              Thread.currentThread().interrupt();
+                                              throw new IllegalStateException(e);
+                                          }
+                                      });
+        eventStore.init(true);
+        try {
+            assertEquals(Optional.of(2L), eventStore.getLastSequenceNumber("old-aggregate"));
+            eventStore.store(Collections.singletonList(event("old-aggregate", 3, 0))).get(5, TimeUnit.SECONDS);
+            assertEquals(Optional.of(3L), eventStore.getLastSequenceNumber("old-aggregate"));
+        } finally {
+            rebuildAllowed.countDown();
+        }
+        assertEquals(4, countEventsWhenRebuilt(eventStore, "old-aggregate"));
+        eventStore.close(false);
+    }
+
+    /**
+     * Stores events for the aggregate until the segment containing the given token is completed. Returns the first
+     * token of that segment.
+     */
+    private long storeUntilCompleted(PrimaryEventStore eventStore, StorageProperties properties, String aggregateId,
+                                     long token) throws Exception {
+        File folder = new File(properties.getStorage("default"));
+        long deadline = System.currentTimeMillis() + 10000;
+        long sequenceNumber = 0;
+        while (System.currentTimeMillis() < deadline) {
+            eventStore.store(Collections.singletonList(event(aggregateId, sequenceNumber++, 4096)))
+                      .get(5, TimeUnit.SECONDS);
+            long segment = Arrays.stream(FileUtils.getFilesWithSuffix(folder, properties.getEventsSuffix()))
+                                 .map(name -> Long.valueOf(name.substring(0, name.indexOf('.'))))
+                                 .filter(s -> s <= token)
+                                 .max(Long::compareTo)
+                                 .orElse(0L);
+            if (properties.index("default", segment).exists()) {
+                return segment;
+            }
+        }
+        throw new AssertionError("Segment containing token " + token + " not completed");
+    }
+
+    private SerializedEvent event(String aggregateId, long sequenceNumber, int payloadSize) {
+        return new SerializedEvent(Event.newBuilder()
+                                        .setAggregateIdentifier(aggregateId)
+                                        .setAggregateSequenceNumber(sequenceNumber)
+                                        .setAggregateType("Demo")
+                                        .setPayload(SerializedObject.newBuilder()
+                                                                    .setData(ByteString.copyFrom(
+                                                                            new byte[payloadSize])))
+                                        .build());
+    }
+
+    @Test
+    public void failedBackgroundRebuildIsRetried() throws IOException {
+        StorageProperties properties = copyOfEventStore(2, true);
+        AtomicInteger attempts = new AtomicInteger();
+        PrimaryEventStore eventStore = createEventStore(properties, segment -> {
+            if (segment == 0 && attempts.getAndIncrement() == 0) {
+                throw new IllegalStateException("Simulated rebuild failure");
+            }
+        });
+        eventStore.init(true);
+
+        assertEquals(14, countEventsWhenRebuilt(eventStore, "Aggregate-1"));
+        assertEquals(2, attempts.get());
+        eventStore.close(false);
+    }
+
+    private int countEventsWhenRebuilt(PrimaryEventStore eventStore, String aggregateId) {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            try {
+                return countEvents(eventStore, aggregateId);
+            } catch (MessagingPlatformException exception) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resumeInterruptedRebuild() throws IOException {
+        StorageProperties properties = copyOfEventStore(2, false);
+        PrimaryEventStore eventStore = createEventStore(properties);
+        eventStore.init(true);
+        eventStore.close(false);
+
+        File marker = properties.indexRebuildMarker("default");
+        Files.write(marker.toPath(), Arrays.asList("0", "462"));
+        eventStore = createEventStore(properties);
+        eventStore.init(true);
+
+        assertFalse(marker.exists());
+        assertEquals(14, countEvents(eventStore, "Aggregate-1"));
+        eventStore.close(false);
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.config.SystemInfoProvider;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Compares the MapDB segment index with the sorted segment index. Each round writes the index of one segment in both
+ * formats and measures:
+ * <ul>
+ *     <li>build: the time to write the index file, and the size of the file;</li>
+ *     <li>open: the average time to open and close the index;</li>
+ *     <li>lookup: the throughput of lookups on an open index, for aggregates in the segment and for aggregates that
+ *     are not in the segment.</li>
+ * </ul>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code aggregates eventsPerAggregate opens lookups rounds}.
+ *
+ * @since 4.5
+ */
+public class SegmentIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int aggregates = intArg(args, 0, 100_000);
+        int eventsPerAggregate = intArg(args, 1, 5);
+        int opens = intArg(args, 2, 100);
+        int lookups = intArg(args, 3, 1_000_000);
+        int rounds = intArg(args, 4, 5);
+
+        Map<String, IndexEntries> positionsPerAggregate = new HashMap<>();
+        List<String> aggregateIds = new ArrayList<>();
+        int position = 0;
+        for (int aggregate = 0; aggregate < aggregates; aggregate++) {
+            String aggregateId = "aggregate-" + aggregate;
+            List<Integer> positions = new ArrayList<>();
+            for (int event = 0; event < eventsPerAggregate; event++) {
+                positions.add(position);
+                position += 200;
+            }
+            positionsPerAggregate.put(aggregateId, new StandardIndexEntries(0, positions));
+            aggregateIds.add(aggregateId);
+        }
+
+        File folder = Files.createTempDirectory("segment-index-benchmark").toFile();
+        StorageProperties storageProperties = new StorageProperties(new SystemInfoProvider() {
+        }).withStorage(folder.getAbsolutePath());
+        System.out.printf("%d aggregates, %d events per aggregate%n", aggregates, eventsPerAggregate);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                File mapDbFile = storageProperties.index("default", round);
+                long start = System.nanoTime();
+                MapDbSegmentIndex.write(mapDbFile, positionsPerAggregate, storageProperties);
+                report(round, "mapdb", "build", start, mapDbFile);
+                measure(round, "mapdb", file -> new MapDbSegmentIndex(file, storageProperties), mapDbFile,
+                        aggregateIds, opens, lookups);
+
+                File sortedFile = storageProperties.newIndex("default", round);
+                start = System.nanoTime();
+                SortedSegmentIndex.write(sortedFile, positionsPerAggregate);
+                report(round, "sorted", "build", start, sortedFile);
+                measure(round, "sorted", file -> new SortedSegmentIndex(file, storageProperties), sortedFile,
+                        aggregateIds, opens, lookups);
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(folder);
+        }
+    }
+
+    private static void measure(int round, String format, Function<File, SegmentIndex> openIndex, File file,
+                                List<String> aggregateIds, int opens, int lookups) {
+        long start = System.nanoTime();
+        for (int i = 0; i < opens; i++) {
+            openIndex.apply(file).close();
+        }
+        System.out.printf("round %d, %-6s open  : %10.3f ms%n",
+                          round, format, (System.nanoTime() - start) / 1_000_000d / opens);
+
+        Random random = new Random(round);
+        long found = 0;
+        try (SegmentIndex index = openIndex.apply(file)) {
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                String aggregateId = aggregateIds.get(random.nextInt(aggregateIds.size()));
+                if (index.getPositions(i % 2 == 0 ? aggregateId : aggregateId + "-missing") != null) {
+                    found++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        System.out.printf("round %d, %-6s lookup: %10.0f lookups/s (%d found)%n",
+                          round, format, lookups / seconds, found);
+    }
+
+    private static void report(int round, String format, String phase, long start, File file) {
+        System.out.printf("round %d, %-6s %-6s: %10.3f ms, %d bytes%n",
+                          round, format, phase, (System.nanoTime() - start) / 1_000_000d, file.length());
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
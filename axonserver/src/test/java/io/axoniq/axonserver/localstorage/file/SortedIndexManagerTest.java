@@ -0,0 +1,119 @@
+package io.axoniq.axonserver.localstorage.file;
+
+import io.axoniq.axonserver.config.SystemInfoProvider;
+import io.axoniq.axonserver.localstorage.EventType;
+import io.axoniq.axonserver.metric.DefaultMetricCollector;
+import io.axoniq.axonserver.metric.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SortedIndexManager}.
+ */
+public class SortedIndexManagerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StorageProperties storageProperties;
+    private MeterFactory meterFactory;
+    private String context;
+
+    @Before
+    public void setUp() throws IOException {
+        context = "default";
+
+        temporaryFolder.newFolder(context);
+        storageProperties = new StorageProperties(new SystemInfoProvider() {
+        });
+        storageProperties.setMaxIndexesInMemory(3);
+        storageProperties.setStorage(temporaryFolder.getRoot().getAbsolutePath());
+        storageProperties.setIndexFormat(SortedIndexManager.INDEX_FORMAT);
+        meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
+    }
+
+    @Test
+    public void sortedSegmentIndexFindsAllAggregates() {
+        Map<String, IndexEntries> positionsPerAggregate = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            positionsPerAggregate.put("aggregate-" + i, new StandardIndexEntries(i, Arrays.asList(i * 10, i * 10 + 5)));
+        }
+        SortedSegmentIndex.write(storageProperties.newIndex(context, 0), positionsPerAggregate);
+
+        try (SortedSegmentIndex index = new SortedSegmentIndex(storageProperties.newIndex(context, 0),
+                                                               storageProperties)) {
+            positionsPerAggregate.forEach((aggregateId, expected) -> {
+                IndexEntries actual = index.getPositions(aggregateId);
+                assertNotNull(aggregateId, actual);
+                assertEquals(expected.firstSequenceNumber(), actual.firstSequenceNumber());
+                assertEquals(expected.positions(), actual.positions());
+            });
+            assertNull(index.getPositions("aaa"));
+            assertNull(index.getPositions("aggregate-5000x"));
+            assertNull(index.getPositions("zzz"));
+        }
+    }
+
+    @Test
+    public void completedSegmentIsFound() {
+        SortedIndexManager indexManager = new SortedIndexManager(context,
+                                                                 storageProperties,
+                                                                 EventType.EVENT,
+                                                                 meterFactory);
+        indexManager.init();
+        indexManager.addToActiveSegment(0L, "aggregateId", new IndexEntry(0, 100, 0));
+        indexManager.addToActiveSegment(0L, "aggregateId", new IndexEntry(1, 200, 1));
+        indexManager.complete(0L);
+
+        assertTrue(storageProperties.newIndex(context, 0).exists());
+        assertFalse(storageProperties.index(context, 0).exists());
+        SortedMap<Long, IndexEntries> actual = indexManager.lookupAggregate("aggregateId",
+                                                                            0,
+                                                                            Long.MAX_VALUE,
+                                                                            Long.MAX_VALUE,
+                                                                            0);
+        assertEquals(Arrays.asList(100, 200), actual.get(0L).positions());
+        assertEquals(1, (long) indexManager.getLastSequenceNumber("aggregateId", 10, Long.MAX_VALUE).get());
+        indexManager.cleanup(false);
+    }
+
+    @Test
+    public void initConvertsMapDbIndex() {
+        StandardIndexManager mapDbIndexManager = new StandardIndexManager(context,
+                                                                          storageProperties,
+                                                                          EventType.EVENT,
+                                                                          meterFactory);
+        mapDbIndexManager.addToActiveSegment(0L, "aggregateId", new IndexEntry(0, 100, 0));
+        mapDbIndexManager.complete(0L);
+        mapDbIndexManager.cleanup(false);
+        assertTrue(storageProperties.index(context, 0).exists());
+
+        SortedIndexManager indexManager = new SortedIndexManager(context,
+                                                                 storageProperties,
+                                                                 EventType.EVENT,
+                                                                 meterFactory);
+        indexManager.init();
+
+        assertTrue(storageProperties.newIndex(context, 0).exists());
+        assertTrue(indexManager.validIndex(0L));
+        SortedMap<Long, IndexEntries> actual = indexManager.lookupAggregate("aggregateId",
+                                                                            0,
+                                                                            Long.MAX_VALUE,
+                                                                            Long.MAX_VALUE,
+                                                                            0);
+        assertEquals(Arrays.asList(100), actual.get(0L).positions());
+
+        assertTrue(indexManager.remove(0L));
+        assertFalse(storageProperties.newIndex(context, 0).exists());
+        assertFalse(storageProperties.index(context, 0).exists());
+    }
+}
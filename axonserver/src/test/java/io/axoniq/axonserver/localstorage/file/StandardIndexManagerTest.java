@@ -14,6 +14,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.SortedMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -132,6 +135,33 @@ public class StandardIndexManagerTest {
         assertNotNull(position.get(15L));
     }
 
+    @Test
+    public void testLookupAggregates() {
+        indexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(0, 0, 0));
+        indexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(1, 10, 1));
+        indexManager.addToActiveSegment(0L, "aggregateB", new IndexEntry(0, 20, 2));
+        indexManager.complete(0);
+        indexManager.addToActiveSegment(10L, "aggregateA", new IndexEntry(2, 0, 10));
+        indexManager.addToActiveSegment(10L, "aggregateC", new IndexEntry(0, 10, 11));
+
+        Map<String, Long> firstSequenceNumbers = new HashMap<>();
+        firstSequenceNumbers.put("aggregateA", 1L);
+        firstSequenceNumbers.put("aggregateB", 0L);
+        firstSequenceNumbers.put("aggregateC", 1L);
+        firstSequenceNumbers.put("aggregateD", 0L);
+        Map<String, SortedMap<Long, IndexEntries>> positions = indexManager.lookupAggregates(firstSequenceNumbers);
+
+        assertEquals(2, positions.size());
+        SortedMap<Long, IndexEntries> aggregateA = positions.get("aggregateA");
+        assertEquals(2, aggregateA.size());
+        assertEquals(1, aggregateA.get(0L).firstSequenceNumber());
+        assertEquals(1, aggregateA.get(0L).size());
+        assertEquals(2, aggregateA.get(10L).firstSequenceNumber());
+        assertEquals(1, positions.get("aggregateB").get(0L).size());
+        assertNull(positions.get("aggregateC"));
+        assertNull(positions.get("aggregateD"));
+    }
+
     @Test
     public void testTemporaryFileIsDeletedWhenCreatingIndex() throws IOException {
         long segment = 0L;
@@ -165,4 +195,124 @@ public class StandardIndexManagerTest {
             indexManager.complete(segment);
         }
     }
+
+    @Test
+    public void globalIndexFindsAggregateInOldSegment() {
+        storageProperties.setGlobalIndexEnabled(true);
+        StandardIndexManager globalIndexManager = createIndexManager();
+        globalIndexManager.init();
+        globalIndexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(0, 5, 0));
+        globalIndexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(1, 10, 1));
+        globalIndexManager.complete(0);
+        for (long segment = 10; segment < 100; segment += 10) {
+            globalIndexManager.addToActiveSegment(segment, "aggregateB", new IndexEntry(segment, 5, segment));
+            globalIndexManager.complete(segment);
+        }
+        globalIndexManager.addToActiveSegment(100L, "aggregateC", new IndexEntry(0, 5, 100));
+
+        assertEquals(Optional.of(1L), globalIndexManager.getLastSequenceNumber("aggregateA", 1, Long.MAX_VALUE));
+        assertEquals(Optional.empty(), globalIndexManager.getLastSequenceNumber("unknown", 1, Long.MAX_VALUE));
+        SortedMap<Long, IndexEntries> positions = globalIndexManager.lookupAggregate("aggregateA",
+                                                                                     0,
+                                                                                     Long.MAX_VALUE,
+                                                                                     100,
+                                                                                     0);
+        assertEquals(1, positions.size());
+        assertEquals(Arrays.asList(5, 10), positions.get(0L).positions());
+        SegmentAndPosition lastEvent = globalIndexManager.lastEvent("aggregateA", 0);
+        assertEquals(0, lastEvent.getSegment());
+        assertEquals(10, lastEvent.getPosition());
+        globalIndexManager.cleanup(true);
+    }
+
+    @Test
+    public void globalIndexIsBuiltFromExistingSegments() {
+        indexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(0, 5, 0));
+        indexManager.complete(0);
+        indexManager.addToActiveSegment(10L, "aggregateA", new IndexEntry(1, 5, 10));
+        indexManager.complete(10);
+        indexManager.cleanup(false);
+
+        storageProperties.setGlobalIndexEnabled(true);
+        StandardIndexManager globalIndexManager = createIndexManager();
+        globalIndexManager.init();
+        globalIndexManager.addToActiveSegment(20L, "aggregateB", new IndexEntry(0, 5, 20));
+
+        assertEquals(Optional.of(1L), globalIndexManager.getLastSequenceNumber("aggregateA", 10, Long.MAX_VALUE));
+        assertEquals(Optional.of(0L), globalIndexManager.getLastSequenceNumber("aggregateA", 10, 9));
+        SortedMap<Long, IndexEntries> positions = globalIndexManager.lookupAggregate("aggregateA",
+                                                                                     0,
+                                                                                     Long.MAX_VALUE,
+                                                                                     100,
+                                                                                     0);
+        assertEquals(2, positions.size());
+
+        globalIndexManager.remove(10L);
+        assertEquals(Optional.of(0L), globalIndexManager.getLastSequenceNumber("aggregateA", 10, Long.MAX_VALUE));
+        globalIndexManager.cleanup(true);
+    }
+
+    @Test
+    public void globalIndexRebuiltWhenRestoredFromBackup() {
+        storageProperties.setGlobalIndexEnabled(true);
+        StandardIndexManager globalIndexManager = createIndexManager();
+        globalIndexManager.init();
+        globalIndexManager.addToActiveSegment(0L, "aggregateA", new IndexEntry(0, 5, 0));
+        globalIndexManager.complete(0);
+        globalIndexManager.addToActiveSegment(10L, "aggregateA", new IndexEntry(1, 5, 10));
+        globalIndexManager.complete(10);
+
+        File globalIndexFile = storageProperties.globalIndex(context);
+        assertTrue(globalIndexFile.exists());
+        assertFalse(globalIndexManager.getBackupFilenames(-1)
+                                      .anyMatch(file -> file.startsWith(globalIndexFile.getAbsolutePath())));
+        globalIndexManager.cleanup(false);
+
+        // a restored backup only has the segment indexes
+        File[] globalIndexFiles = globalIndexFile.getParentFile()
+                                                 .listFiles((dir, name) -> name.startsWith(globalIndexFile.getName()));
+        for (File file : globalIndexFiles) {
+            assertTrue(file.delete());
+        }
+        StandardIndexManager restored = createIndexManager();
+        restored.init();
+
+        assertTrue(globalIndexFile.exists());
+        assertEquals(Optional.of(1L), restored.getLastSequenceNumber("aggregateA", 10, Long.MAX_VALUE));
+        assertEquals(Optional.of(0L), restored.getLastSequenceNumber("aggregateA", 10, 9));
+        restored.cleanup(true);
+    }
+
+    @Test
+    public void segmentMetadataIsStoredOnComplete() {
+        SegmentMetadata metadata = new SegmentMetadata();
+        metadata.add(0, 1000, "TypeA");
+        metadata.add(1, 3000, "TypeB");
+        metadata.add(2, 2000, "TypeA");
+        indexManager.addToActiveSegment(0L, metadata);
+        assertEquals(3, indexManager.getSegmentMetadata(0L).map(SegmentMetadata::getEventCount).orElse(0L)
+                                    .longValue());
+        indexManager.complete(0);
+        assertTrue(storageProperties.metadata(context, 0).exists());
+
+        StandardIndexManager reopened = createIndexManager();
+        reopened.init();
+        SegmentMetadata stored = reopened.getSegmentMetadata(0L).orElseThrow(AssertionError::new);
+        assertEquals(0, stored.getFirstToken());
+        assertEquals(2, stored.getLastToken());
+        assertEquals(1000, stored.getMinTimestamp());
+        assertEquals(3000, stored.getMaxTimestamp());
+        assertEquals(3, stored.getEventCount());
+        assertTrue(stored.mayContainPayloadType("TypeB"));
+        assertFalse(stored.mayContainPayloadType("TypeC"));
+        assertFalse(reopened.getSegmentMetadata(10L).isPresent());
+
+        reopened.remove(0L);
+        assertFalse(storageProperties.metadata(context, 0).exists());
+    }
+
+    private StandardIndexManager createIndexManager() {
+        MeterFactory meterFactory = new MeterFactory(new SimpleMeterRegistry(), new DefaultMetricCollector());
+        return new StandardIndexManager(context, storageProperties, EventType.EVENT, meterFactory);
+    }
 }
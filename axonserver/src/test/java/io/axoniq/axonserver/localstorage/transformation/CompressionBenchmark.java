@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.transformation;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the compression ratio and the throughput of the deflate event transformer. Each round compresses and
+ * decompresses two sets of events:
+ * <ul>
+ *     <li>json: events with a JSON payload with repeating field names and random values, as typical serialized
+ *     events;</li>
+ *     <li>random: events with a random binary payload, which do not compress and are stored as is.</li>
+ * </ul>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code events payloadBytes rounds}.
+ *
+ * @since 4.5
+ */
+public class CompressionBenchmark {
+
+    public static void main(String[] args) {
+        int events = intArg(args, 0, 100_000);
+        int payloadBytes = intArg(args, 1, 1024);
+        int rounds = intArg(args, 2, 5);
+
+        Random random = new Random(0);
+        List<byte[]> jsonEvents = new ArrayList<>();
+        List<byte[]> randomEvents = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            jsonEvents.add(event(jsonPayload(random, payloadBytes)));
+            byte[] binary = new byte[payloadBytes];
+            random.nextBytes(binary);
+            randomEvents.add(event(binary));
+        }
+
+        System.out.printf("%d events, payload %d bytes%n", events, payloadBytes);
+        long[] sink = new long[1];
+        for (int round = 1; round <= rounds; round++) {
+            measure(round, "json", jsonEvents, sink);
+            measure(round, "random", randomEvents, sink);
+        }
+        System.out.printf("checksum %d%n", sink[0]);
+    }
+
+    private static void measure(int round, String mode, List<byte[]> events, long[] sink) {
+        EventTransformer transformer = DeflateEventTransformer.INSTANCE;
+        long originalBytes = 0;
+        long storedBytes = 0;
+        List<byte[]> stored = new ArrayList<>(events.size());
+        long start = System.nanoTime();
+        for (byte[] event : events) {
+            byte[] compressed = transformer.toStorage(event);
+            originalBytes += event.length;
+            storedBytes += compressed.length;
+            stored.add(compressed);
+        }
+        double compressSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        start = System.nanoTime();
+        for (byte[] compressed : stored) {
+            sink[0] += transformer.fromStorage(compressed).length;
+        }
+        double decompressSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        System.out.printf("round %d, %-6s: ratio %5.2f, compress %8.1f MB/s, decompress %8.1f MB/s%n",
+                          round,
+                          mode,
+                          (double) originalBytes / storedBytes,
+                          originalBytes / compressSeconds / (1024 * 1024),
+                          originalBytes / decompressSeconds / (1024 * 1024));
+    }
+
+    private static byte[] event(byte[] payload) {
+        return Event.newBuilder()
+                    .setMessageIdentifier("message-" + payload.length)
+                    .setAggregateIdentifier("aggregate")
+                    .setAggregateType("Demo")
+                    .setTimestamp(System.currentTimeMillis())
+                    .setPayload(SerializedObject.newBuilder()
+                                                .setType("io.axoniq.demo.DemoEvent")
+                                                .setData(ByteString.copyFrom(payload)))
+                    .build()
+                    .toByteArray();
+    }
+
+    private static byte[] jsonPayload(Random random, int size) {
+        StringBuilder json = new StringBuilder("{");
+        int field = 0;
+        while (json.length() < size) {
+            json.append("\"field").append(field++ % 10).append("\": \"").append(random.nextInt(1_000_000))
+                .append("\", ");
+        }
+        json.append("\"end\": true}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.localstorage.transformation;
+
+import com.google.protobuf.ByteString;
+import io.axoniq.axonserver.exception.ErrorCode;
+import io.axoniq.axonserver.exception.MessagingPlatformException;
+import io.axoniq.axonserver.grpc.SerializedObject;
+import io.axoniq.axonserver.grpc.event.Event;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DeflateEventTransformerTest {
+
+    private final DeflateEventTransformer testSubject = DeflateEventTransformer.INSTANCE;
+
+    @Test
+    public void largeEventIsCompressed() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            json.append("{\"name\": \"value").append(i).append("\", \"description\": \"some text\"},");
+        }
+        byte[] event = event(ByteString.copyFromUtf8(json.append("]").toString()));
+
+        byte[] stored = testSubject.toStorage(event);
+
+        assertTrue(stored.length < event.length);
+        assertArrayEquals(event, testSubject.fromStorage(stored));
+    }
+
+    @Test
+    public void smallEventIsNotCompressed() {
+        byte[] event = event(ByteString.copyFromUtf8("{\"value\": 1}"));
+
+        byte[] stored = testSubject.toStorage(event);
+
+        assertArrayEquals(event, stored);
+        assertArrayEquals(event, testSubject.fromStorage(stored));
+    }
+
+    @Test
+    public void incompressibleEventIsNotCompressed() {
+        byte[] data = new byte[4096];
+        new Random(0).nextBytes(data);
+        byte[] event = event(ByteString.copyFrom(data));
+
+        byte[] stored = testSubject.toStorage(event);
+
+        assertArrayEquals(event, stored);
+        assertArrayEquals(event, testSubject.fromStorage(stored));
+    }
+
+    @Test
+    public void corruptEventDoesNotAffectNextEvent() {
+        byte[] event = event(ByteString.copyFrom(new byte[4096]));
+        byte[] stored = testSubject.toStorage(event);
+        byte[] corrupt = Arrays.copyOf(stored, stored.length - 4);
+
+        try {
+            testSubject.fromStorage(corrupt);
+            fail("Expected exception for corrupt event");
+        } catch (MessagingPlatformException ex) {
+            assertEquals(ErrorCode.DATAFILE_READ_ERROR, ex.getErrorCode());
+        }
+        assertArrayEquals(event, testSubject.fromStorage(stored));
+    }
+
+    @Test
+    public void factorySelectsTransformerByFlags() {
+        DefaultEventTransformerFactory factory = new DefaultEventTransformerFactory();
+        assertSame(NoOpEventTransformer.INSTANCE, factory.get((byte) 2, 0));
+        assertSame(DeflateEventTransformer.INSTANCE, factory.get((byte) 2, DeflateEventTransformer.COMPRESSED_FLAG));
+    }
+
+    private byte[] event(ByteString data) {
+        return Event.newBuilder()
+                    .setMessageIdentifier("1234")
+                    .setAggregateIdentifier("aggregate")
+                    .setAggregateSequenceNumber(1)
+                    .setPayload(SerializedObject.newBuilder().setType("DemoType").setData(data))
+                    .build()
+                    .toByteArray();
+    }
+}
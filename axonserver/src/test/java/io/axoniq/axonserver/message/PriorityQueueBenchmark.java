@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message;
+
+import io.axoniq.axonserver.exception.ErrorCode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of the flow control queues with a priority queue per destination and with a priority band
+ * queue per destination. A number of producers put messages with a random priority on a single destination, a number
+ * of consumers take them in batches, as the command and query dispatchers do.
+ * <p>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code producers consumers messagesPerProducer priorities rounds}.
+ *
+ * @since 4.5
+ */
+public class PriorityQueueBenchmark {
+
+    private static final String DESTINATION = "destination";
+
+    public static void main(String[] args) throws Exception {
+        int producers = intArg(args, 0, 4);
+        int consumers = intArg(args, 1, 4);
+        int messagesPerProducer = intArg(args, 2, 1_000_000);
+        int priorities = intArg(args, 3, 3);
+        int rounds = intArg(args, 4, 5);
+
+        System.out.printf("%d producers, %d consumers, %d messages per producer, %d priorities%n",
+                          producers, consumers, messagesPerProducer, priorities);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                measure(round, "priority queue", 0, executor, producers, consumers, messagesPerProducer, priorities);
+                measure(round, "band queue", priorities, executor, producers, consumers, messagesPerProducer,
+                        priorities);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void measure(int round, String mode, int priorityBands, ExecutorService executor, int producers,
+                                int consumers, int messagesPerProducer, int priorities) throws Exception {
+        long total = (long) producers * messagesPerProducer;
+        // same ordering as the command dispatcher, highest priority first
+        FlowControlQueues<Message> queues = new FlowControlQueues<>(Comparator.comparingLong(Message::priority)
+                                                                              .reversed(),
+                                                                    (int) Math.min(Integer.MAX_VALUE / 2, total),
+                                                                    null,
+                                                                    null,
+                                                                    ErrorCode.OTHER,
+                                                                    priorityBands);
+        AtomicLong taken = new AtomicLong();
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int consumer = 0; consumer < consumers; consumer++) {
+            results.add(executor.submit(() -> {
+                while (taken.get() < total) {
+                    taken.addAndGet(queues.take(DESTINATION, 64, 0).size());
+                }
+                return null;
+            }));
+        }
+        for (int producer = 0; producer < producers; producer++) {
+            results.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int message = 0; message < messagesPerProducer; message++) {
+                    Message next = new Message(random.nextInt(priorities));
+                    queues.put(DESTINATION, next, next.priority());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        System.out.printf("round %d, %-14s: %10.0f messages/s%n", round, mode, total / seconds);
+    }
+
+    private static class Message {
+
+        private final long priority;
+
+        private Message(long priority) {
+            this.priority = priority;
+        }
+
+        private long priority() {
+            return priority;
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -14,6 +14,7 @@ import io.axoniq.axonserver.message.ClientStreamIdentification;
 import io.axoniq.axonserver.test.FakeClock;
 import org.junit.*;
 
+import java.util.Collections;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -47,6 +48,27 @@ public class CommandCacheTest {
 
     }
 
+    @Test
+    public void removeForHandler() {
+        testSubject = new CommandCache(50000, clock, 10);
+        AtomicReference<SerializedCommandResponse> responseAtomicReference = new AtomicReference<>();
+        ClientStreamIdentification handler = new ClientStreamIdentification("context", "client");
+        testSubject.put("1234", new CommandInformation("1234", "Source", "Target", responseAtomicReference::set,
+                                                       handler, "component"));
+        testSubject.put("4567", new CommandInformation("4567", "Source", "Target", responseAtomicReference::set,
+                                                       new ClientStreamIdentification("context", "other"),
+                                                       "component"));
+
+        assertEquals(Collections.singleton("1234"), testSubject.removeForHandler(handler).keySet());
+        assertEquals(Collections.singleton("4567"), testSubject.keySet());
+        assertTrue(testSubject.removeForHandler(handler).isEmpty());
+
+        testSubject.remove("4567");
+        clock.timeElapses(100000);
+        testSubject.clearOnTimeout();
+        assertNull(responseAtomicReference.get());
+    }
+
     @Test(expected = InsufficientCacheCapacityException.class)
     public void onFullCapacityThrowError() {
         AtomicReference<SerializedCommandResponse> responseAtomicReference = new AtomicReference<>();
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.message.command;
+
+import io.axoniq.axonserver.message.command.hashing.LoadAwareRoutingSelector;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link LoadAwareRoutingSelector}
+ */
+public class LoadAwareRoutingSelectorTest {
+
+    private final int messagesNumber = 1_000_000;
+    private final double tolerance = 6;
+    private final Set<String> saturatedHandlers = new HashSet<>();
+    private LoadAwareRoutingSelector testSubject;
+
+    @Before
+    public void setUp() {
+        testSubject = new LoadAwareRoutingSelector(Integer::parseInt, saturatedHandlers::contains);
+        testSubject.register("5");
+        testSubject.register("15");
+        testSubject.register("30");
+        testSubject.register("50");
+    }
+
+    @Test
+    public void testDistribution() {
+        Map<String, AtomicInteger> counter = new HashMap<>();
+        for (int i = 0; i < messagesNumber; i++) {
+            String handler = testSubject.selectHandler(UUID.randomUUID().toString()).orElse(null);
+            counter.computeIfAbsent(handler, h -> new AtomicInteger()).incrementAndGet();
+        }
+        counter.forEach((handler, count) -> {
+            double percentage = count.get() * 100d / messagesNumber;
+            assertEquals(Double.parseDouble(handler), percentage, tolerance);
+        });
+    }
+
+    @Test
+    public void testNoHandler() {
+        LoadAwareRoutingSelector empty = new LoadAwareRoutingSelector(Integer::parseInt, h -> false);
+        assertFalse(empty.selectHandler(UUID.randomUUID().toString()).isPresent());
+    }
+
+    @Test
+    public void testSameRoutingKeySameHandler() {
+        String routingKey = UUID.randomUUID().toString();
+        String handler = testSubject.selectHandler(routingKey).orElse(null);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(handler, testSubject.selectHandler(routingKey).orElse(null));
+        }
+    }
+
+    @Test
+    public void testSaturatedHandlerSkipped() {
+        String routingKey = UUID.randomUUID().toString();
+        String primary = testSubject.selectHandler(routingKey).orElse(null);
+        saturatedHandlers.add(primary);
+
+        String alternative = testSubject.selectHandler(routingKey).orElse(null);
+        assertNotNull(alternative);
+        assertNotEquals(primary, alternative);
+
+        saturatedHandlers.remove(primary);
+        assertEquals(primary, testSubject.selectHandler(routingKey).orElse(null));
+    }
+
+    @Test
+    public void testAllHandlersSaturated() {
+        String routingKey = UUID.randomUUID().toString();
+        String primary = testSubject.selectHandler(routingKey).orElse(null);
+        saturatedHandlers.addAll(Arrays.asList("5", "15", "30", "50"));
+        assertEquals(primary, testSubject.selectHandler(routingKey).orElse(null));
+    }
+
+    @Test
+    public void testUnregisteredHandler() {
+        String routingKey = UUID.randomUUID().toString();
+        String primary = testSubject.selectHandler(routingKey).orElse(null);
+        testSubject.unregister(primary);
+        String handler = testSubject.selectHandler(routingKey).orElse(null);
+        assertNotNull(handler);
+        assertNotEquals(primary, handler);
+    }
+}
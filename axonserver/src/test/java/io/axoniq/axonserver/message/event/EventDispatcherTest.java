@@ -17,6 +17,7 @@ import io.axoniq.axonserver.grpc.event.GetAggregateEventsRequest;
 import io.axoniq.axonserver.grpc.event.GetEventsRequest;
 import io.axoniq.axonserver.grpc.event.QueryEventsRequest;
 import io.axoniq.axonserver.grpc.event.QueryEventsResponse;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
 import io.axoniq.axonserver.metric.DefaultMetricCollector;
 import io.axoniq.axonserver.metric.MeterFactory;
 import io.axoniq.axonserver.test.FakeStreamObserver;
@@ -31,8 +32,12 @@ import org.mockito.junit.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -106,6 +111,40 @@ public class EventDispatcherTest {
                                         new FakeStreamObserver<>());
     }
 
+    @Test
+    public void listAggregatesEvents() {
+        doAnswer(invocation -> {
+            StreamObserver<SerializedEvent> responseStream = invocation.getArgument(2);
+            responseStream.onNext(new SerializedEvent(Event.newBuilder().setAggregateIdentifier("a").build()));
+            responseStream.onNext(new SerializedEvent(Event.newBuilder().setAggregateIdentifier("b").build()));
+            responseStream.onCompleted();
+            return null;
+        }).when(eventStoreClient).listAggregatesEvents(any(), anyList(), any());
+        FakeStreamObserver<SerializedEvent> responseObserver = new FakeStreamObserver<>();
+        StreamObserver<GetAggregateEventsRequest> requestStream = testSubject.listAggregatesEvents(responseObserver);
+        requestStream.onNext(GetAggregateEventsRequest.newBuilder().setAggregateId("a").build());
+        requestStream.onNext(GetAggregateEventsRequest.newBuilder().setAggregateId("b").build());
+        verify(eventStoreClient, never()).listAggregatesEvents(any(), anyList(), any());
+
+        requestStream.onCompleted();
+        ArgumentCaptor<List<GetAggregateEventsRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(eventStoreClient).listAggregatesEvents(eq(Topology.DEFAULT_CONTEXT), requests.capture(), any());
+        assertEquals(Arrays.asList("a", "b"), requests.getValue().stream()
+                                                      .map(GetAggregateEventsRequest::getAggregateId)
+                                                      .collect(Collectors.toList()));
+        assertEquals(2, responseObserver.values().size());
+        assertEquals(1, responseObserver.completedCount());
+    }
+
+    @Test
+    public void listAggregatesEventsNoEventStore() {
+        FakeStreamObserver<SerializedEvent> responseObserver = new FakeStreamObserver<>();
+        testSubject.listAggregatesEvents("OtherContext",
+                                         Collections.singletonList(GetAggregateEventsRequest.newBuilder().build()),
+                                         responseObserver);
+        assertEquals(1, responseObserver.errors().size());
+    }
+
     @Test
     public void listEvents() {
         FakeStreamObserver<InputStream> responseObserver = new FakeStreamObserver<>();
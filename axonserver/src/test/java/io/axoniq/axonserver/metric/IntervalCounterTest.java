@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.metric;
+
+import io.axoniq.axonserver.test.FakeClock;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IntervalCounterTest {
+
+    private FakeClock clock = new FakeClock();
+    private IntervalCounter testSubject = new IntervalCounter(clock);
+
+    @Test
+    public void rates() {
+        for (int second = 0; second < 120; second++) {
+            for (int i = 0; i < 10; i++) {
+                testSubject.mark();
+            }
+            clock.timeElapses(1, TimeUnit.SECONDS);
+        }
+        assertEquals(1200, testSubject.count());
+        assertEquals(10, testSubject.getOneMinuteRate());
+        assertEquals(10, testSubject.getFiveMinuteRate());
+
+        clock.timeElapses(1, TimeUnit.MINUTES);
+        assertEquals(0, testSubject.getOneMinuteRate());
+        assertEquals(1200, testSubject.count());
+    }
+
+    @Test
+    public void oldBucketsAreReused() {
+        testSubject.mark();
+        clock.timeElapses(16 * 60 + 1, TimeUnit.SECONDS);
+        testSubject.mark();
+        assertEquals(1, testSubject.sum(20, TimeUnit.MINUTES, Number::longValue));
+        assertEquals(2, testSubject.count());
+    }
+
+    @Test
+    public void concurrentMarks() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    testSubject.mark();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, testSubject.count());
+        assertEquals(80_000, testSubject.sum(1, TimeUnit.MINUTES, Number::longValue));
+    }
+}
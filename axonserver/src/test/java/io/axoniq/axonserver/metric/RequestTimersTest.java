@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.metric;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class RequestTimersTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestTimers testSubject = new RequestTimers(new MeterFactory(meterRegistry,
+                                                                                 new DefaultMetricCollector()),
+                                                                BaseMetricName.AXON_COMMAND,
+                                                                2);
+
+    @Test
+    public void sameHandleForSameRequest() {
+        RequestTimers.Handle handle = testSubject.handle("my.Command", "source", "target", "default");
+        assertSame(handle, testSubject.handle("my.Command", "source", "target", "default"));
+        assertNotSame(handle, testSubject.handle("my.Command", "source", "target2", "default"));
+    }
+
+    @Test
+    public void timerCreatedOnFirstRecord() {
+        RequestTimers.Handle handle = testSubject.handle("my.Command", "source", "target", "default");
+        assertNull(meterRegistry.find(BaseMetricName.AXON_COMMAND.metric()).timer());
+
+        handle.record(10);
+        handle.record(20);
+        Timer timer = meterRegistry.find(BaseMetricName.AXON_COMMAND.metric())
+                                   .tag(MeterFactory.REQUEST, "my/Command")
+                                   .tag(MeterFactory.SOURCE, "source")
+                                   .tag(MeterFactory.TARGET, "target")
+                                   .tag(MeterFactory.CONTEXT, "default")
+                                   .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    public void overflowWhenLimitReached() {
+        testSubject.handle("Command1", "source", "target", "default").record(1);
+        testSubject.handle("Command2", "source", "target", "default").record(1);
+        RequestTimers.Handle overflow = testSubject.handle("Command3", "source", "target", "default");
+        overflow.record(1);
+        testSubject.handle("Command4", "source", "target", "default").record(1);
+        testSubject.handle("Command4", "source", "target", "other").record(1);
+
+        assertNull(commandTimer("Command3"));
+        Timer timer = meterRegistry.find(BaseMetricName.AXON_COMMAND.metric())
+                                   .tag(MeterFactory.REQUEST, RequestTimers.OVERFLOW)
+                                   .tag(MeterFactory.CONTEXT, "default")
+                                   .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    public void handlesWithoutDurationsDoNotCountTowardsLimit() {
+        testSubject.handle("Command1", "source", "target", "default");
+        testSubject.handle("Command2", "source", "target", "default");
+        testSubject.handle("Command3", "source", "target", "default").record(1);
+        testSubject.handle("Command4", "source", "target", "default").record(1);
+
+        assertNotNull(commandTimer("Command3"));
+        assertNotNull(commandTimer("Command4"));
+    }
+
+    @Test
+    public void removeClient() {
+        RequestTimers.Handle handle = testSubject.handle("Command1", "source", "target", "default");
+        handle.record(1);
+        testSubject.handle("Command2", "target", "other", "default").record(1);
+
+        testSubject.remove("target");
+        assertNull(commandTimer("Command1"));
+        assertNull(commandTimer("Command2"));
+        assertNotSame(handle, testSubject.handle("Command1", "source", "target", "default"));
+
+        handle.record(1);
+        assertNull(commandTimer("Command1"));
+        testSubject.handle("Command3", "source", "target2", "default").record(1);
+        testSubject.handle("Command4", "source", "target2", "default").record(1);
+        assertNotNull(commandTimer("Command3"));
+        assertNotNull(commandTimer("Command4"));
+    }
+
+    private Timer commandTimer(String command) {
+        return meterRegistry.find(BaseMetricName.AXON_COMMAND.metric())
+                            .tag(MeterFactory.REQUEST, command)
+                            .timer();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.metric;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of {@link IntervalCounter#mark()} under contention. For an increasing number of threads,
+ * each round marks the same counter from all threads for a fixed time, while one thread reads the one minute rate in
+ * a loop, as the metrics endpoints do. The same threads also increment a single {@link AtomicLong}, as a reference for
+ * a counter on which all threads contend.
+ * <p>
+ * The class is not a unit test, its name does not match the test includes of the build. Run it from the IDE or with
+ * the test classpath, with the optional arguments {@code maxThreads durationMs rounds}.
+ *
+ * @since 4.5
+ */
+public class SlidingWindowBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = intArg(args, 0, Runtime.getRuntime().availableProcessors());
+        int durationMs = intArg(args, 1, 2000);
+        int rounds = intArg(args, 2, 3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxThreads + 1);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    IntervalCounter counter = new IntervalCounter(Clock.systemUTC());
+                    measure(round, "interval counter", threads, durationMs, executor, counter::mark,
+                            counter::getOneMinuteRate);
+                    AtomicLong atomicLong = new AtomicLong();
+                    measure(round, "atomic long", threads, durationMs, executor, atomicLong::incrementAndGet,
+                            atomicLong::get);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void measure(int round, String mode, int threads, int durationMs, ExecutorService executor,
+                                Runnable mark, Runnable read) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Long>> marks = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            marks.add(executor.submit(() -> {
+                long count = 0;
+                while (running.get()) {
+                    mark.run();
+                    count++;
+                }
+                return count;
+            }));
+        }
+        Future<Long> reads = executor.submit(() -> {
+            long count = 0;
+            while (running.get()) {
+                read.run();
+                count++;
+            }
+            return count;
+        });
+        long start = System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(durationMs);
+        running.set(false);
+        long total = 0;
+        for (Future<Long> result : marks) {
+            total += result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        System.out.printf("round %d, %-16s, %3d threads: %12.0f marks/s, %10.0f reads/s%n",
+                          round, mode, threads, total / seconds, reads.get() / seconds);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
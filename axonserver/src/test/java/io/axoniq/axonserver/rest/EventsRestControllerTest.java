@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.rest;
+
+import io.axoniq.axonserver.grpc.event.Event;
+import io.axoniq.axonserver.grpc.event.GetAggregateEventsRequest;
+import io.axoniq.axonserver.localstorage.SerializedEvent;
+import io.axoniq.axonserver.message.event.EventDispatcher;
+import io.axoniq.axonserver.topology.Topology;
+import io.grpc.stub.StreamObserver;
+import org.junit.*;
+import org.mockito.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @since 4.5
+ */
+public class EventsRestControllerTest {
+
+    private EventsRestController testSubject;
+    private EventDispatcher eventDispatcher;
+
+    @Before
+    public void setUp() {
+        eventDispatcher = mock(EventDispatcher.class);
+        testSubject = new EventsRestController(eventDispatcher);
+    }
+
+    @Test
+    public void listAggregatesEvents() {
+        doAnswer(invocation -> {
+            StreamObserver<SerializedEvent> responseObserver = invocation.getArgument(2);
+            responseObserver.onNext(new SerializedEvent(Event.newBuilder().setAggregateIdentifier("a").build()));
+            responseObserver.onNext(new SerializedEvent(Event.newBuilder().setAggregateIdentifier("b").build()));
+            responseObserver.onCompleted();
+            return null;
+        }).when(eventDispatcher).listAggregatesEvents(any(), anyList(), any());
+
+        SseEmitter sseEmitter = testSubject.listAggregatesEvents(Topology.DEFAULT_CONTEXT,
+                                                                 Arrays.asList("a", "b"),
+                                                                 false,
+                                                                 null);
+
+        assertNotNull(sseEmitter);
+        ArgumentCaptor<List<GetAggregateEventsRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(eventDispatcher).listAggregatesEvents(eq(Topology.DEFAULT_CONTEXT), requests.capture(), any());
+        assertEquals(2, requests.getValue().size());
+        assertEquals("a", requests.getValue().get(0).getAggregateId());
+        assertEquals("b", requests.getValue().get(1).getAggregateId());
+        assertFalse(requests.getValue().get(0).getAllowSnapshots());
+        assertFalse(requests.getValue().get(1).getAllowSnapshots());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import io.axoniq.axonserver.grpc.TaskStatus;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LogTaskStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.newFolder().getAbsolutePath();
+    }
+
+    @Test
+    public void restoresTasksFromLog() {
+        LogTaskStore testSubject = new LogTaskStore(directory, 1000);
+        testSubject.save(task("task1", 1000));
+        testSubject.save(task("task2", 2000));
+        testSubject.save(task("task3", 3000));
+        testSubject.delete("task2");
+        Task updated = testSubject.findById("task3").orElseThrow(AssertionError::new);
+        updated.setTimestamp(4000L);
+        updated.setRetryInterval(2000L);
+        testSubject.save(updated);
+        testSubject.close();
+
+        LogTaskStore restored = new LogTaskStore(directory, 1000);
+        assertTrue(restored.findById("task1").isPresent());
+        assertFalse(restored.findById("task2").isPresent());
+        Task task3 = restored.findById("task3").orElseThrow(AssertionError::new);
+        assertEquals(4000L, (long) task3.getTimestamp());
+        assertEquals(2000L, (long) task3.getRetryInterval());
+        assertArrayEquals("task3".getBytes(), task3.getPayload().getData());
+        assertEquals(1, restored.findScheduled("default", 3000, 5000).size());
+        restored.close();
+    }
+
+    @Test
+    public void findScheduled() {
+        LogTaskStore testSubject = new LogTaskStore(directory, 1000);
+        testSubject.save(task("task1", 1000));
+        testSubject.save(task("task2", 2000));
+        Task failed = task("task3", 2000);
+        failed.setStatus(TaskStatus.FAILED);
+        testSubject.save(failed);
+        Task otherContext = task("task4", 2000);
+        otherContext.setContext("other");
+        testSubject.save(otherContext);
+
+        assertEquals(1, testSubject.findScheduled("default", 1500, 3000).size());
+        assertEquals(2, testSubject.findScheduled("default", 1000, 2001).size());
+        assertEquals(0, testSubject.findScheduled("default", 2001, 3000).size());
+        testSubject.close();
+    }
+
+    @Test
+    public void compactsLog() {
+        LogTaskStore testSubject = new LogTaskStore(directory, 10);
+        for (int i = 0; i < 100; i++) {
+            testSubject.save(task("task" + i, 1000 + i));
+        }
+        File log = new File(directory, "tasks.log");
+        long sizeBeforeDeletes = log.length();
+        for (int i = 0; i < 95; i++) {
+            testSubject.delete("task" + i);
+        }
+        assertTrue(log.length() < sizeBeforeDeletes);
+        testSubject.close();
+
+        LogTaskStore restored = new LogTaskStore(directory, 10);
+        assertEquals(5, restored.findScheduled("default", 0, 2000).size());
+        restored.close();
+    }
+
+    @Test
+    public void compactsWhileOtherThreadsSync() throws Exception {
+        LogTaskStore testSubject = new LogTaskStore(directory, 10);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = "thread" + t + "-";
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    testSubject.save(task(prefix + i, 1000 + i));
+                    if (i % 10 != 0) {
+                        testSubject.delete(prefix + i);
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        testSubject.save(task("last", 5000));
+        testSubject.close();
+
+        LogTaskStore restored = new LogTaskStore(directory, 10);
+        assertEquals(threads * 20 + 1, restored.findScheduled("default", 0, 6000).size());
+        restored.close();
+    }
+
+    @Test
+    public void ignoresIncompleteRecord() throws IOException {
+        LogTaskStore testSubject = new LogTaskStore(directory, 1000);
+        testSubject.save(task("task1", 1000));
+        testSubject.save(task("task2", 2000));
+        testSubject.close();
+        try (RandomAccessFile log = new RandomAccessFile(new File(directory, "tasks.log"), "rw")) {
+            log.setLength(log.length() - 3);
+        }
+
+        LogTaskStore restored = new LogTaskStore(directory, 1000);
+        assertTrue(restored.findById("task1").isPresent());
+        assertFalse(restored.findById("task2").isPresent());
+        restored.save(task("task3", 3000));
+        restored.close();
+
+        assertTrue(new LogTaskStore(directory, 1000).findById("task3").isPresent());
+    }
+
+    private Task task(String taskId, long timestamp) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setContext("default");
+        task.setTaskExecutor("DummyHandler");
+        task.setTimestamp(timestamp);
+        task.setStatus(TaskStatus.SCHEDULED);
+        task.setPayload(new TaskPayload("Dummy", taskId.getBytes()));
+        return task;
+    }
+}
@@ -13,12 +13,14 @@ import io.axoniq.axonserver.grpc.TaskStatus;
 import io.axoniq.axonserver.rest.json.UserInfo;
 import io.axoniq.axonserver.test.FakeScheduledExecutorService;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.SimpleTransactionStatus;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
@@ -38,6 +40,9 @@ import static org.mockito.Mockito.*;
  */
 public class StandaloneTaskManagerTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private StandaloneTaskManager testSubject;
     private Map<String, Task> tasks = new HashMap<>();
     private FakeScheduledExecutorService scheduler = new FakeScheduledExecutorService();
@@ -188,4 +193,31 @@ public class StandaloneTaskManagerTest {
         testSubject.cancel(taskId);
         assertEquals(0, tasks.size());
     }
+
+    @Test
+    public void createLocalTaskWithTaskLog() throws IOException {
+        LogTaskStore taskStore = new LogTaskStore(temporaryFolder.newFolder().getAbsolutePath(), 1000);
+        StandaloneTaskManager logTaskManager = new StandaloneTaskManager("context",
+                                                                         t -> {
+                                                                             executionCounter.getAndIncrement();
+                                                                             return CompletableFuture.completedFuture(
+                                                                                     null);
+                                                                         },
+                                                                         taskStore,
+                                                                         new JacksonTaskPayloadSerializer(),
+                                                                         scheduler,
+                                                                         scheduler.clock(),
+                                                                         10);
+        logTaskManager.start();
+        String taskId = logTaskManager.createTask("DummyHandler",
+                                                  new TaskPayload("Dummy", "DummyPayload".getBytes()),
+                                                  scheduler.clock().millis() + TimeUnit.SECONDS.toMillis(5));
+        assertTrue(taskStore.findById(taskId).isPresent());
+        scheduler.timeElapses(4, TimeUnit.SECONDS);
+        assertEquals(0, executionCounter.get());
+        scheduler.timeElapses(1020, TimeUnit.MILLISECONDS);
+        assertEquals(1, executionCounter.get());
+        assertFalse(taskStore.findById(taskId).isPresent());
+        taskStore.close();
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017-2020 AxonIQ B.V. and/or licensed to AxonIQ B.V.
+ * under one or more contributor license agreements.
+ *
+ *  Licensed under the AxonIQ Open Source License Agreement v1.0;
+ *  you may not use this file except in compliance with the license.
+ *
+ */
+
+package io.axoniq.axonserver.taskscheduler;
+
+import org.junit.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    private final long start = 1_000_003;
+    private final TimingWheel<Long> testSubject = new TimingWheel<>(10, 8, start);
+
+    @Test
+    public void expiresElementsWithinOneTick() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = start + random.nextInt(1_000_000);
+            testSubject.add(deadline, deadline);
+        }
+        long now = start;
+        int expired = 0;
+        while (testSubject.size() > 0) {
+            now += 10;
+            for (long deadline : testSubject.advance(now)) {
+                assertTrue("Expired before deadline", deadline < now);
+                assertTrue("Expired too late", now - deadline <= 20);
+                expired++;
+            }
+        }
+        assertEquals(10_000, expired);
+    }
+
+    @Test
+    public void elementWithPastDeadlineExpiresOnNextAdvance() {
+        testSubject.add(start - 100, 1L);
+        assertEquals(Collections.singletonList(1L), testSubject.advance(start));
+    }
+
+    @Test
+    public void advanceOverLongPeriod() {
+        testSubject.add(start + 50_000, 1L);
+        assertTrue(testSubject.advance(start + 49_000).isEmpty());
+        List<Long> expired = testSubject.advance(start + 50_011);
+        assertEquals(Collections.singletonList(1L), expired);
+        assertEquals(0, testSubject.size());
+    }
+}